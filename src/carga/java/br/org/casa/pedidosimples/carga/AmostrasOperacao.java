@@ -0,0 +1,79 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latências e status das respostas de uma operação. Cada usuário mantém as próprias amostras, sem
+ * sincronização, e as amostras de todos os usuários são agrupadas ao fim da carga.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class AmostrasOperacao {
+
+	/**
+	 * Status registrado para as requisições sem resposta, por falha de comunicação ou tempo limite.
+	 */
+	static final int STATUS_FALHA_COMUNICACAO = -1;
+
+	private long[] latencias = new long[1024];
+
+	private int quantidade;
+
+	private final Map<Integer, Long> respostasPorStatus = new TreeMap<>();
+
+	void registrar(long latencia, int status) {
+		if (quantidade == latencias.length) {
+			latencias = Arrays.copyOf(latencias, quantidade * 2);
+		}
+		latencias[quantidade++] = latencia;
+		respostasPorStatus.merge(status, 1L, Long::sum);
+	}
+
+	void agrupar(AmostrasOperacao outras) {
+		if (quantidade + outras.quantidade > latencias.length) {
+			latencias = Arrays.copyOf(latencias, quantidade + outras.quantidade);
+		}
+		System.arraycopy(outras.latencias, 0, latencias, quantidade, outras.quantidade);
+		quantidade += outras.quantidade;
+		outras.respostasPorStatus.forEach((status, total) -> respostasPorStatus.merge(status, total, Long::sum));
+	}
+
+	/**
+	 * Calcula as estatísticas das amostras.
+	 *
+	 * @param nome o nome da operação
+	 * @param endpoint o endpoint da operação
+	 * @param duracao a duração do período de medição, em segundos
+	 * @return as estatísticas da operação
+	 */
+	ResultadoOperacao calcular(String nome, String endpoint, long duracao) {
+		long[] ordenadas = Arrays.copyOf(latencias, quantidade);
+		Arrays.sort(ordenadas);
+
+		long erros = respostasPorStatus.entrySet().stream()
+				.filter(entry -> entry.getKey() < 200 || entry.getKey() >= 400)
+				.mapToLong(Map.Entry::getValue)
+				.sum();
+
+		return new ResultadoOperacao(nome, endpoint, quantidade, erros, (double) quantidade / duracao,
+				Arrays.stream(ordenadas).average().orElse(0),
+				percentil(ordenadas, 0.50), percentil(ordenadas, 0.90), percentil(ordenadas, 0.99),
+				percentil(ordenadas, 0.999), quantidade == 0 ? 0 : ordenadas[quantidade - 1],
+				respostasPorStatus);
+	}
+
+	// Percentil pelo método do posto mais próximo, sobre as amostras ordenadas
+	private static long percentil(long[] ordenadas, double percentil) {
+		if (ordenadas.length == 0) {
+			return 0;
+		}
+		int posicao = (int) Math.ceil(percentil * ordenadas.length);
+		return ordenadas[Math.max(posicao - 1, 0)];
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cliente HTTP simples, sobre {@link HttpURLConnection}, usado tanto na criação dos dados quanto na carga. As
+ * conexões são reaproveitadas (keep-alive) desde que o corpo das respostas seja lido por completo, o que é
+ * feito em todas as requisições.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class ClienteHttp {
+
+	private static final int TEMPO_LIMITE = 30_000;
+
+	private final String urlBase;
+
+	private final ObjectMapper objectMapper;
+
+	ClienteHttp(String urlBase, ObjectMapper objectMapper) {
+		this.urlBase = urlBase;
+		this.objectMapper = objectMapper;
+	}
+
+	RespostaHttp get(String caminho) throws IOException {
+		return executar("GET", caminho, null);
+	}
+
+	RespostaHttp post(String caminho, Object corpo) throws IOException {
+		return executar("POST", caminho, corpo);
+	}
+
+	RespostaHttp put(String caminho, Object corpo) throws IOException {
+		return executar("PUT", caminho, corpo);
+	}
+
+	RespostaHttp delete(String caminho) throws IOException {
+		return executar("DELETE", caminho, null);
+	}
+
+	private RespostaHttp executar(String metodo, String caminho, Object corpo) throws IOException {
+		HttpURLConnection conexao = (HttpURLConnection) new URL(urlBase + caminho).openConnection();
+		conexao.setRequestMethod(metodo);
+		conexao.setConnectTimeout(TEMPO_LIMITE);
+		conexao.setReadTimeout(TEMPO_LIMITE);
+		conexao.setRequestProperty("Accept", "application/json");
+
+		if (corpo != null) {
+			byte[] conteudo = objectMapper.writeValueAsBytes(corpo);
+			conexao.setDoOutput(true);
+			conexao.setRequestProperty("Content-Type", "application/json");
+			conexao.setFixedLengthStreamingMode(conteudo.length);
+			try (OutputStream saida = conexao.getOutputStream()) {
+				saida.write(conteudo);
+			}
+		}
+
+		int status = conexao.getResponseCode();
+		// Respostas de erro são lidas do error stream, para que a conexão possa ser reaproveitada
+		InputStream entrada = status >= 400 ? conexao.getErrorStream() : conexao.getInputStream();
+
+		return new RespostaHttp(status, ler(entrada));
+	}
+
+	private static byte[] ler(InputStream entrada) throws IOException {
+		if (entrada == null) {
+			return new byte[0];
+		}
+
+		try (InputStream origem = entrada) {
+			ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int lidos;
+			while ((lidos = origem.read(buffer)) != -1) {
+				conteudo.write(buffer, 0, lidos);
+			}
+			return conteudo.toByteArray();
+		}
+	}
+
+	/**
+	 * Resposta de uma requisição, com o status e o corpo ainda não interpretado.
+	 */
+	class RespostaHttp {
+
+		private final int status;
+
+		private final byte[] corpo;
+
+		RespostaHttp(int status, byte[] corpo) {
+			this.status = status;
+			this.corpo = corpo;
+		}
+
+		int getStatus() {
+			return status;
+		}
+
+		boolean isSucesso() {
+			return status >= 200 && status < 400;
+		}
+
+		JsonNode lerJson() throws IOException {
+			return objectMapper.readTree(corpo);
+		}
+
+		String lerTexto() {
+			return new String(corpo, StandardCharsets.UTF_8);
+		}
+	}
+}
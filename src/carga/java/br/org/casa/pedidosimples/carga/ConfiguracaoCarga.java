@@ -0,0 +1,191 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Parâmetros do teste de carga, lidos de propriedades de sistema (carga.*). Os valores padrão correspondem a
+ * uma execução curta contra a aplicação embutida, com banco H2.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class ConfiguracaoCarga {
+
+	private final String url;
+
+	private final String argumentosAplicacao;
+
+	private final int itensVenda;
+
+	private final int pedidos;
+
+	private final int itensPorPedido;
+
+	private final int usuarios;
+
+	private final long aquecimento;
+
+	private final long duracao;
+
+	private final long pausa;
+
+	private final String resultado;
+
+	private final Map<OperacaoCarga, Integer> pesos = new EnumMap<>(OperacaoCarga.class);
+
+	private ConfiguracaoCarga() {
+		this.url = System.getProperty("carga.url", "").trim();
+		this.argumentosAplicacao = System.getProperty("carga.argumentos-aplicacao", "").trim();
+		this.itensVenda = Integer.getInteger("carga.itens-venda", 500);
+		this.pedidos = Integer.getInteger("carga.pedidos", 200);
+		this.itensPorPedido = Integer.getInteger("carga.itens-por-pedido", 50);
+		this.usuarios = Integer.getInteger("carga.usuarios", 16);
+		this.aquecimento = Long.getLong("carga.aquecimento", 15L);
+		this.duracao = Long.getLong("carga.duracao", 60L);
+		this.pausa = Long.getLong("carga.pausa", 0L);
+		this.resultado = System.getProperty("carga.resultado", "target/carga-result.json");
+
+		for (OperacaoCarga operacao : OperacaoCarga.values()) {
+			pesos.put(operacao, operacao.getPesoPadrao());
+		}
+		lerPesos(System.getProperty("carga.pesos", "").trim());
+	}
+
+	/**
+	 * Lê a configuração a partir das propriedades de sistema.
+	 *
+	 * @return a configuração do teste de carga
+	 * @throws IllegalArgumentException se algum peso informado em carga.pesos for inválido
+	 */
+	static ConfiguracaoCarga lerPropriedades() {
+		return new ConfiguracaoCarga();
+	}
+
+	// Formato: OPERACAO=peso,OPERACAO=peso (ex.: BUSCAR_PEDIDO=40,APLICAR_DESCONTO=0)
+	private void lerPesos(String valor) {
+		if (valor.isEmpty()) {
+			return;
+		}
+
+		for (String par : valor.split(",")) {
+			String[] partes = par.split("=");
+			if (partes.length != 2) {
+				throw new IllegalArgumentException("Peso inválido em carga.pesos: " + par);
+			}
+			pesos.put(OperacaoCarga.valueOf(partes[0].trim()), Integer.valueOf(partes[1].trim()));
+		}
+	}
+
+	/**
+	 * Indica se a aplicação deve ser iniciada pelo próprio teste (quando carga.url não é informada).
+	 *
+	 * @return true se a aplicação deve ser iniciada pelo teste
+	 */
+	boolean isAplicacaoEmbutida() {
+		return url.isEmpty();
+	}
+
+	/**
+	 * Retorna o valor atual do campo url.
+	 *
+	 * @return valor de url
+	 */
+	public String getUrl() {
+		return url;
+	}
+
+	/**
+	 * Retorna o valor atual do campo argumentosAplicacao.
+	 *
+	 * @return valor de argumentosAplicacao
+	 */
+	public String getArgumentosAplicacao() {
+		return argumentosAplicacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo itensVenda.
+	 *
+	 * @return valor de itensVenda
+	 */
+	public int getItensVenda() {
+		return itensVenda;
+	}
+
+	/**
+	 * Retorna o valor atual do campo pedidos.
+	 *
+	 * @return valor de pedidos
+	 */
+	public int getPedidos() {
+		return pedidos;
+	}
+
+	/**
+	 * Retorna o valor atual do campo itensPorPedido.
+	 *
+	 * @return valor de itensPorPedido
+	 */
+	public int getItensPorPedido() {
+		return itensPorPedido;
+	}
+
+	/**
+	 * Retorna o valor atual do campo usuarios.
+	 *
+	 * @return valor de usuarios
+	 */
+	public int getUsuarios() {
+		return usuarios;
+	}
+
+	/**
+	 * Retorna o valor atual do campo aquecimento, em segundos.
+	 *
+	 * @return valor de aquecimento
+	 */
+	public long getAquecimento() {
+		return aquecimento;
+	}
+
+	/**
+	 * Retorna o valor atual do campo duracao, em segundos.
+	 *
+	 * @return valor de duracao
+	 */
+	public long getDuracao() {
+		return duracao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo pausa, em milissegundos.
+	 *
+	 * @return valor de pausa
+	 */
+	public long getPausa() {
+		return pausa;
+	}
+
+	/**
+	 * Retorna o valor atual do campo resultado.
+	 *
+	 * @return valor de resultado
+	 */
+	public String getResultado() {
+		return resultado;
+	}
+
+	/**
+	 * Retorna o valor atual do campo pesos.
+	 *
+	 * @return valor de pesos
+	 */
+	public Map<OperacaoCarga, Integer> getPesos() {
+		return pesos;
+	}
+
+}
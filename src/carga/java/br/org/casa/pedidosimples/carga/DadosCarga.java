@@ -0,0 +1,65 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Registros criados antes da carga, dos quais as operações sorteiam os registros a consultar e alterar. Dos
+ * ItemVenda é mantido o payload completo (com o id), exigido na inclusão individual de ItemPedido; dos demais,
+ * apenas os ids.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class DadosCarga {
+
+	private final List<Map<String, Object>> itensVenda;
+
+	private final List<String> pedidos;
+
+	private final List<String> itensPedido;
+
+	DadosCarga(List<Map<String, Object>> itensVenda, List<String> pedidos, List<String> itensPedido) {
+		this.itensVenda = Collections.unmodifiableList(itensVenda);
+		this.pedidos = Collections.unmodifiableList(pedidos);
+		this.itensPedido = Collections.unmodifiableList(itensPedido);
+	}
+
+	Map<String, Object> sortearItemVenda(Random aleatorio) {
+		return itensVenda.get(aleatorio.nextInt(itensVenda.size()));
+	}
+
+	String sortearIdItemVenda(Random aleatorio) {
+		return (String) sortearItemVenda(aleatorio).get("id");
+	}
+
+	String sortearPedido(Random aleatorio) {
+		return sortear(pedidos, aleatorio);
+	}
+
+	String sortearItemPedido(Random aleatorio) {
+		return sortear(itensPedido, aleatorio);
+	}
+
+	private static String sortear(List<String> ids, Random aleatorio) {
+		return ids.get(aleatorio.nextInt(ids.size()));
+	}
+
+	int getQuantidadeItensVenda() {
+		return itensVenda.size();
+	}
+
+	int getQuantidadePedidos() {
+		return pedidos.size();
+	}
+
+	int getQuantidadeItensPedido() {
+		return itensPedido.size();
+	}
+
+}
@@ -0,0 +1,183 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import br.org.casa.pedidosimples.carga.ClienteHttp.RespostaHttp;
+
+/**
+ * Operações executadas pelos usuários da carga, com o endpoint correspondente e o peso padrão de cada uma no
+ * sorteio. O conjunto padrão é predominantemente de leitura (cerca de 80%), com inclusões e exclusões de itens,
+ * aplicações de desconto (que recalculam todos os itens do Pedido) e inclusões de Pedidos. Os Pedidos não são
+ * fechados nem excluídos, para que continuem disponíveis durante toda a carga.
+ *
+ * @author jrjosecarlos
+ *
+ */
+enum OperacaoCarga {
+
+	LISTAR_PEDIDOS("GET /pedidos", 10) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().get("/pedidos?size=20&page=" + usuario.getAleatorio().nextInt(10));
+		}
+	},
+
+	LISTAR_PEDIDOS_CURSOR("GET /pedidos?cursor", 5) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().get("/pedidos?cursor=&size=50&situacao=A");
+		}
+	},
+
+	BUSCAR_PEDIDO("GET /pedido/{uuid}", 20) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().get("/pedido/" + usuario.getDados().sortearPedido(usuario.getAleatorio()));
+		}
+	},
+
+	LISTAR_ITENS_PEDIDO("GET /pedido/{uuid}/itens-pedido", 15) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().get("/pedido/" + usuario.getDados().sortearPedido(usuario.getAleatorio())
+					+ "/itens-pedido?size=50");
+		}
+	},
+
+	BUSCAR_ITEM_PEDIDO("GET /item-pedido/{uuid}", 5) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().get("/item-pedido/"
+					+ usuario.getDados().sortearItemPedido(usuario.getAleatorio()));
+		}
+	},
+
+	LISTAR_ITENS_VENDA("GET /itens-venda", 10) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().get("/itens-venda?tipo=P&valorMinimo=100.00&size=20&page="
+					+ usuario.getAleatorio().nextInt(5));
+		}
+	},
+
+	BUSCAR_ITEM_VENDA("GET /item-venda/{uuid}", 15) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().get("/item-venda/"
+					+ usuario.getDados().sortearIdItemVenda(usuario.getAleatorio()));
+		}
+	},
+
+	INCLUIR_ITEM_PEDIDO("POST /pedido/{uuid}/item-pedido", 8) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			DadosCarga dados = usuario.getDados();
+			RespostaHttp resposta = usuario.getCliente().post(
+					"/pedido/" + dados.sortearPedido(usuario.getAleatorio()) + "/item-pedido",
+					dados.sortearItemVenda(usuario.getAleatorio()));
+
+			if (resposta.isSucesso()) {
+				usuario.registrarItemPedidoIncluido(resposta.lerJson().get("id").asText());
+			}
+			return resposta;
+		}
+	},
+
+	/**
+	 * Exclui um dos ItemPedido incluídos pelo próprio usuário, de modo que os itens criados antes da carga são
+	 * preservados. A operação não é executada enquanto o usuário não tiver incluído nenhum item.
+	 */
+	EXCLUIR_ITEM_PEDIDO("DELETE /item-pedido/{uuid}", 5) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			String idItemPedido = usuario.retirarItemPedidoIncluido();
+
+			return idItemPedido == null ? null : usuario.getCliente().delete("/item-pedido/" + idItemPedido);
+		}
+	},
+
+	APLICAR_DESCONTO("PUT /pedido/{uuid}/aplicar-desconto", 3) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			Random aleatorio = usuario.getAleatorio();
+
+			return usuario.getCliente().put(
+					"/pedido/" + usuario.getDados().sortearPedido(aleatorio) + "/aplicar-desconto",
+					Collections.singletonMap("fatorDesconto", BigDecimal.valueOf(aleatorio.nextInt(51), 2)));
+		}
+	},
+
+	INCLUIR_PEDIDO("POST /pedido", 4) {
+		@Override
+		RespostaHttp executar(UsuarioCarga usuario) throws IOException {
+			return usuario.getCliente().post("/pedido", novoPedido(usuario.getAleatorio()));
+		}
+	};
+
+	private static final String CARACTERES_CODIGO = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+	private static final int TAMANHO_CODIGO = 8;
+
+	private final String endpoint;
+
+	private final int pesoPadrao;
+
+	private OperacaoCarga(String endpoint, int pesoPadrao) {
+		this.endpoint = endpoint;
+		this.pesoPadrao = pesoPadrao;
+	}
+
+	/**
+	 * Executa a operação em nome do usuário informado.
+	 *
+	 * @param usuario o usuário da carga
+	 * @return a resposta recebida, ou null se a operação não pôde ser executada
+	 * @throws IOException em caso de falha na comunicação com a aplicação
+	 */
+	abstract RespostaHttp executar(UsuarioCarga usuario) throws IOException;
+
+	/**
+	 * Cria o payload de um novo Pedido aberto, com código aleatório de 8 caracteres.
+	 *
+	 * @param aleatorio o gerador de números aleatórios
+	 * @return o payload do Pedido
+	 */
+	static Map<String, Object> novoPedido(Random aleatorio) {
+		StringBuilder codigo = new StringBuilder(TAMANHO_CODIGO);
+		for (int i = 0; i < TAMANHO_CODIGO; i++) {
+			codigo.append(CARACTERES_CODIGO.charAt(aleatorio.nextInt(CARACTERES_CODIGO.length())));
+		}
+
+		Map<String, Object> pedido = new LinkedHashMap<>();
+		pedido.put("codigo", codigo.toString());
+		pedido.put("fatorDesconto", BigDecimal.valueOf(aleatorio.nextInt(51), 2));
+		pedido.put("situacao", "A");
+		return pedido;
+	}
+
+	/**
+	 * Retorna o valor atual do campo endpoint.
+	 *
+	 * @return valor de endpoint
+	 */
+	String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * Retorna o valor atual do campo pesoPadrao.
+	 *
+	 * @return valor de pesoPadrao
+	 */
+	int getPesoPadrao() {
+		return pesoPadrao;
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import br.org.casa.pedidosimples.carga.ClienteHttp.RespostaHttp;
+
+/**
+ * Cria, pela própria API, os registros usados na carga: os ItemVenda, os Pedidos e os ItemPedido de cada Pedido,
+ * incluídos em lote. Como a criação é feita por requisições HTTP, funciona da mesma forma com o banco H2 ou com
+ * o PostgreSQL, e os dados passam pelas mesmas validações e cálculos de valor das operações normais.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class PopuladorDados {
+
+	private final ClienteHttp cliente;
+
+	private final ConfiguracaoCarga configuracao;
+
+	PopuladorDados(ClienteHttp cliente, ConfiguracaoCarga configuracao) {
+		this.cliente = cliente;
+		this.configuracao = configuracao;
+	}
+
+	/**
+	 * Cria os registros, com as quantidades informadas na configuração.
+	 *
+	 * @return os ids dos registros criados
+	 * @throws IllegalStateException se alguma das requisições de criação falhar
+	 */
+	DadosCarga popular() {
+		ExecutorService executor = Executors.newFixedThreadPool(configuracao.getUsuarios());
+		try {
+			List<Map<String, Object>> itensVenda = executarTodas(executor, configuracao.getItensVenda(), this::incluirItemVenda);
+			System.out.printf("%d itens de venda criados%n", itensVenda.size());
+
+			List<String> pedidos = executarTodas(executor, configuracao.getPedidos(), i -> incluirPedido());
+			System.out.printf("%d pedidos criados%n", pedidos.size());
+
+			List<String> itensPedido = new ArrayList<>();
+			for (List<String> ids : executarTodas(executor, pedidos.size(),
+					i -> incluirItensPedido(pedidos.get(i), itensVenda))) {
+				itensPedido.addAll(ids);
+			}
+			System.out.printf("%d itens de pedido criados%n", itensPedido.size());
+
+			return new DadosCarga(itensVenda, pedidos, itensPedido);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private Map<String, Object> incluirItemVenda(int indice) {
+		Random aleatorio = ThreadLocalRandom.current();
+
+		Map<String, Object> itemVenda = new LinkedHashMap<>();
+		itemVenda.put("nome", String.format("Item de carga %d", indice));
+		// Um quarto dos itens são serviços, aos quais o desconto dos Pedidos não se aplica
+		itemVenda.put("tipo", aleatorio.nextInt(4) == 0 ? "S" : "P");
+		itemVenda.put("valorBase", BigDecimal.valueOf(100 + aleatorio.nextInt(99_900), 2));
+		itemVenda.put("ativo", true);
+
+		itemVenda.put("id", lerId("/item-venda", itemVenda));
+		return itemVenda;
+	}
+
+	private String incluirPedido() {
+		return lerId("/pedido", OperacaoCarga.novoPedido(ThreadLocalRandom.current()));
+	}
+
+	private List<String> incluirItensPedido(String idPedido, List<Map<String, Object>> itensVenda) {
+		Random aleatorio = ThreadLocalRandom.current();
+
+		List<Map<String, Object>> itens = new ArrayList<>(configuracao.getItensPorPedido());
+		for (int i = 0; i < configuracao.getItensPorPedido(); i++) {
+			itens.add(Collections.singletonMap("id", itensVenda.get(aleatorio.nextInt(itensVenda.size())).get("id")));
+		}
+
+		JsonNode criados = verificar(() -> cliente.post("/pedido/" + idPedido + "/itens-pedido", itens));
+		List<String> ids = new ArrayList<>(criados.size());
+		criados.forEach(item -> ids.add(item.get("id").asText()));
+		return ids;
+	}
+
+	private String lerId(String caminho, Object corpo) {
+		return verificar(() -> cliente.post(caminho, corpo)).get("id").asText();
+	}
+
+	private static JsonNode verificar(Requisicao requisicao) {
+		try {
+			RespostaHttp resposta = requisicao.executar();
+			if (!resposta.isSucesso()) {
+				throw new IllegalStateException(String.format("Falha na criação dos dados da carga (%d): %s",
+						resposta.getStatus(), resposta.lerTexto()));
+			}
+			return resposta.lerJson();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static <T> List<T> executarTodas(ExecutorService executor, int quantidade, IntFunction<T> tarefa) {
+		List<Future<T>> futuros = new ArrayList<>(quantidade);
+		for (int i = 0; i < quantidade; i++) {
+			int indice = i;
+			futuros.add(executor.submit(() -> tarefa.apply(indice)));
+		}
+
+		List<T> resultados = new ArrayList<>(quantidade);
+		try {
+			for (Future<T> futuro : futuros) {
+				resultados.add(futuro.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Criação dos dados da carga interrompida", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Falha na criação dos dados da carga", e.getCause());
+		}
+		return resultados;
+	}
+
+	@FunctionalInterface
+	private interface Requisicao {
+		RespostaHttp executar() throws IOException;
+	}
+}
@@ -0,0 +1,168 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estatísticas de uma operação no período de medição: quantidade de requisições, erros, vazão e percentis de
+ * latência. As latências são expostas em milissegundos.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class ResultadoOperacao {
+
+	private static final double NANOS_POR_MILISSEGUNDO = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final String operacao;
+
+	private final String endpoint;
+
+	private final long requisicoes;
+
+	private final long erros;
+
+	private final double vazao;
+
+	private final double media;
+
+	private final double p50;
+
+	private final double p90;
+
+	private final double p99;
+
+	private final double p999;
+
+	private final double maxima;
+
+	private final Map<Integer, Long> respostasPorStatus;
+
+	ResultadoOperacao(String operacao, String endpoint, long requisicoes, long erros, double vazao, double media,
+			long p50, long p90, long p99, long p999, long maxima, Map<Integer, Long> respostasPorStatus) {
+		this.operacao = operacao;
+		this.endpoint = endpoint;
+		this.requisicoes = requisicoes;
+		this.erros = erros;
+		this.vazao = vazao;
+		this.media = media / NANOS_POR_MILISSEGUNDO;
+		this.p50 = p50 / NANOS_POR_MILISSEGUNDO;
+		this.p90 = p90 / NANOS_POR_MILISSEGUNDO;
+		this.p99 = p99 / NANOS_POR_MILISSEGUNDO;
+		this.p999 = p999 / NANOS_POR_MILISSEGUNDO;
+		this.maxima = maxima / NANOS_POR_MILISSEGUNDO;
+		this.respostasPorStatus = respostasPorStatus;
+	}
+
+	/**
+	 * Retorna o valor atual do campo operacao.
+	 *
+	 * @return valor de operacao
+	 */
+	public String getOperacao() {
+		return operacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo endpoint.
+	 *
+	 * @return valor de endpoint
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * Retorna o valor atual do campo requisicoes.
+	 *
+	 * @return valor de requisicoes
+	 */
+	public long getRequisicoes() {
+		return requisicoes;
+	}
+
+	/**
+	 * Retorna o valor atual do campo erros.
+	 *
+	 * @return valor de erros
+	 */
+	public long getErros() {
+		return erros;
+	}
+
+	/**
+	 * Retorna o valor atual do campo vazao, em requisições por segundo.
+	 *
+	 * @return valor de vazao
+	 */
+	public double getVazao() {
+		return vazao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo media, em milissegundos.
+	 *
+	 * @return valor de media
+	 */
+	public double getMedia() {
+		return media;
+	}
+
+	/**
+	 * Retorna o valor atual do campo p50, em milissegundos.
+	 *
+	 * @return valor de p50
+	 */
+	public double getP50() {
+		return p50;
+	}
+
+	/**
+	 * Retorna o valor atual do campo p90, em milissegundos.
+	 *
+	 * @return valor de p90
+	 */
+	public double getP90() {
+		return p90;
+	}
+
+	/**
+	 * Retorna o valor atual do campo p99, em milissegundos.
+	 *
+	 * @return valor de p99
+	 */
+	public double getP99() {
+		return p99;
+	}
+
+	/**
+	 * Retorna o valor atual do campo p999, em milissegundos.
+	 *
+	 * @return valor de p999
+	 */
+	public double getP999() {
+		return p999;
+	}
+
+	/**
+	 * Retorna o valor atual do campo maxima, em milissegundos.
+	 *
+	 * @return valor de maxima
+	 */
+	public double getMaxima() {
+		return maxima;
+	}
+
+	/**
+	 * Retorna o valor atual do campo respostasPorStatus. O status -1 corresponde às requisições sem resposta.
+	 *
+	 * @return valor de respostasPorStatus
+	 */
+	public Map<Integer, Long> getRespostasPorStatus() {
+		return respostasPorStatus;
+	}
+
+}
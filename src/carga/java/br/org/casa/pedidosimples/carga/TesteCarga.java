@@ -0,0 +1,171 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import br.org.casa.pedidosimples.PedidosimplesApplication;
+
+/**
+ * Teste de carga HTTP da aplicação. Cria os dados da carga pela API, executa a combinação de operações
+ * definida em {@link OperacaoCarga} com um número fixo de usuários simultâneos e, ao fim, exibe e grava em JSON
+ * a vazão e os percentis de latência de cada endpoint.
+ *
+ * <p>Se a propriedade carga.url não for informada, a aplicação é iniciada na mesma JVM, com o perfil dev (banco
+ * H2 em memória) e em uma porta livre. Caso contrário, a carga é executada contra a aplicação já em execução na
+ * url informada (por exemplo, com o perfil prod e um PostgreSQL local).</p>
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class TesteCarga {
+
+	private TesteCarga() {
+		// Construtor padrão privado, por se tratar de uma classe executável
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		ConfiguracaoCarga configuracao = ConfiguracaoCarga.lerPropriedades();
+		// O HttpURLConnection mantém, por padrão, apenas 5 conexões ociosas por destino
+		System.setProperty("http.maxConnections", String.valueOf(configuracao.getUsuarios()));
+
+		ConfigurableApplicationContext aplicacao = null;
+		String url = configuracao.getUrl();
+		if (configuracao.isAplicacaoEmbutida()) {
+			aplicacao = iniciarAplicacao(configuracao.getArgumentosAplicacao());
+			Environment ambiente = aplicacao.getEnvironment();
+			url = String.format("http://localhost:%s%s", ambiente.getProperty("local.server.port"),
+					ambiente.getProperty("server.servlet.context-path", ""));
+		}
+
+		try {
+			ObjectMapper objectMapper = new ObjectMapper();
+			ClienteHttp cliente = new ClienteHttp(url, objectMapper);
+
+			System.out.printf("Criando os dados da carga em %s%n", url);
+			DadosCarga dados = new PopuladorDados(cliente, configuracao).popular();
+
+			System.out.printf("Executando a carga: %d usuários, %d s de aquecimento e %d s de medição%n",
+					configuracao.getUsuarios(), configuracao.getAquecimento(), configuracao.getDuracao());
+			List<ResultadoOperacao> resultados = executar(cliente, dados, configuracao);
+
+			exibir(resultados);
+			gravar(objectMapper, configuracao, dados, resultados);
+		} finally {
+			if (aplicacao != null) {
+				aplicacao.close();
+			}
+		}
+	}
+
+	private static ConfigurableApplicationContext iniciarAplicacao(String argumentos) {
+		// Padrões da aplicação embutida, que podem ser substituídos por carga.argumentos-aplicacao. São definidos
+		// como propriedades de sistema para que prevaleçam sobre as propriedades do perfil dev
+		definirPadrao("spring.devtools.restart.enabled", "false");
+		definirPadrao("spring.jpa.show-sql", "false");
+		definirPadrao("spring.jpa.properties.hibernate.session.events.log", "false");
+		definirPadrao("logging.level.root", "WARN");
+		definirPadrao("pedido-simples.evento-pedido.arquivo", "target/carga-eventos-pedido.jsonl");
+		definirPadrao("server.port", "0");
+
+		return new SpringApplicationBuilder(PedidosimplesApplication.class)
+				.profiles("dev")
+				.run(argumentos.isEmpty() ? new String[0] : argumentos.split("\\s+"));
+	}
+
+	private static void definirPadrao(String propriedade, String valor) {
+		if (System.getProperty(propriedade) == null) {
+			System.setProperty(propriedade, valor);
+		}
+	}
+
+	private static List<ResultadoOperacao> executar(ClienteHttp cliente, DadosCarga dados,
+			ConfiguracaoCarga configuracao) throws InterruptedException {
+		long inicioMedicao = System.nanoTime() + TimeUnit.SECONDS.toNanos(configuracao.getAquecimento());
+		long fim = inicioMedicao + TimeUnit.SECONDS.toNanos(configuracao.getDuracao());
+
+		List<UsuarioCarga> usuarios = new ArrayList<>(configuracao.getUsuarios());
+		ExecutorService executor = Executors.newFixedThreadPool(configuracao.getUsuarios());
+		for (int i = 0; i < configuracao.getUsuarios(); i++) {
+			UsuarioCarga usuario = new UsuarioCarga(cliente, dados, configuracao.getPesos(), inicioMedicao, fim,
+					configuracao.getPausa());
+			usuarios.add(usuario);
+			executor.execute(usuario);
+		}
+		executor.shutdown();
+		// As requisições em andamento ao fim da carga podem levar até o tempo limite do cliente
+		executor.awaitTermination(configuracao.getAquecimento() + configuracao.getDuracao() + 60, TimeUnit.SECONDS);
+
+		Map<OperacaoCarga, AmostrasOperacao> amostras = new EnumMap<>(OperacaoCarga.class);
+		AmostrasOperacao total = new AmostrasOperacao();
+		for (UsuarioCarga usuario : usuarios) {
+			usuario.getAmostras().forEach((operacao, amostrasUsuario) -> {
+				amostras.computeIfAbsent(operacao, o -> new AmostrasOperacao()).agrupar(amostrasUsuario);
+				total.agrupar(amostrasUsuario);
+			});
+		}
+
+		List<ResultadoOperacao> resultados = new ArrayList<>();
+		amostras.forEach((operacao, amostrasOperacao) -> resultados.add(
+				amostrasOperacao.calcular(operacao.name(), operacao.getEndpoint(), configuracao.getDuracao())));
+		resultados.add(total.calcular("TOTAL", "*", configuracao.getDuracao()));
+		return resultados;
+	}
+
+	private static void exibir(List<ResultadoOperacao> resultados) {
+		String formato = "%-36s %11s %7s %9s %9s %9s %9s %9s %9s %9s%n";
+		System.out.println();
+		System.out.printf(formato, "Endpoint", "Requisições", "Erros", "Req/s", "Média", "p50", "p90", "p99",
+				"p99,9", "Máxima");
+		for (ResultadoOperacao resultado : resultados) {
+			System.out.printf(formato, resultado.getEndpoint().equals("*") ? resultado.getOperacao()
+						: resultado.getEndpoint(),
+					resultado.getRequisicoes(), resultado.getErros(), String.format("%.1f", resultado.getVazao()),
+					milissegundos(resultado.getMedia()), milissegundos(resultado.getP50()),
+					milissegundos(resultado.getP90()), milissegundos(resultado.getP99()),
+					milissegundos(resultado.getP999()), milissegundos(resultado.getMaxima()));
+		}
+		System.out.println("(latências em milissegundos)");
+	}
+
+	private static String milissegundos(double valor) {
+		return String.format("%.2f", valor);
+	}
+
+	private static void gravar(ObjectMapper objectMapper, ConfiguracaoCarga configuracao, DadosCarga dados,
+			List<ResultadoOperacao> resultados) throws IOException {
+		Map<String, Object> volumes = new LinkedHashMap<>();
+		volumes.put("itensVenda", dados.getQuantidadeItensVenda());
+		volumes.put("pedidos", dados.getQuantidadePedidos());
+		volumes.put("itensPedido", dados.getQuantidadeItensPedido());
+
+		Map<String, Object> relatorio = new LinkedHashMap<>();
+		relatorio.put("configuracao", configuracao);
+		relatorio.put("dados", volumes);
+		relatorio.put("resultados", resultados);
+
+		File arquivo = new File(configuracao.getResultado());
+		if (arquivo.getParentFile() != null) {
+			arquivo.getParentFile().mkdirs();
+		}
+		objectMapper.writer(SerializationFeature.INDENT_OUTPUT).writeValue(arquivo, relatorio);
+		System.out.printf("Resultado gravado em %s%n", arquivo.getAbsolutePath());
+	}
+}
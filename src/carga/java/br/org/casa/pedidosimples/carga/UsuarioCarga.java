@@ -0,0 +1,154 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.carga;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import br.org.casa.pedidosimples.carga.ClienteHttp.RespostaHttp;
+
+/**
+ * Usuário virtual da carga. Executa operações sorteadas de acordo com os pesos configurados, uma após a outra
+ * (modelo fechado: uma nova requisição só é enviada após a resposta da anterior), até o fim da carga. As
+ * latências são registradas apenas para as requisições iniciadas dentro do período de medição, após o
+ * aquecimento.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class UsuarioCarga implements Runnable {
+
+	private final ClienteHttp cliente;
+
+	private final DadosCarga dados;
+
+	private final OperacaoCarga[] operacoes;
+
+	private final int[] pesosAcumulados;
+
+	private final long inicioMedicao;
+
+	private final long fim;
+
+	private final long pausa;
+
+	private final Map<OperacaoCarga, AmostrasOperacao> amostras = new EnumMap<>(OperacaoCarga.class);
+
+	private final Deque<String> itensPedidoIncluidos = new ArrayDeque<>();
+
+	private Random aleatorio;
+
+	/**
+	 * Cria um usuário da carga.
+	 *
+	 * @param cliente o cliente HTTP
+	 * @param dados os registros criados antes da carga
+	 * @param pesos os pesos de cada operação no sorteio
+	 * @param inicioMedicao o início do período de medição, em {@link System#nanoTime()}
+	 * @param fim o fim da carga, em {@link System#nanoTime()}
+	 * @param pausa a pausa entre as requisições, em milissegundos
+	 */
+	UsuarioCarga(ClienteHttp cliente, DadosCarga dados, Map<OperacaoCarga, Integer> pesos, long inicioMedicao,
+			long fim, long pausa) {
+		this.cliente = cliente;
+		this.dados = dados;
+		this.inicioMedicao = inicioMedicao;
+		this.fim = fim;
+		this.pausa = pausa;
+
+		this.operacoes = pesos.entrySet().stream()
+				.filter(entry -> entry.getValue() > 0)
+				.map(Map.Entry::getKey)
+				.toArray(OperacaoCarga[]::new);
+		this.pesosAcumulados = new int[operacoes.length];
+		int total = 0;
+		for (int i = 0; i < operacoes.length; i++) {
+			total += pesos.get(operacoes[i]);
+			pesosAcumulados[i] = total;
+		}
+		if (total == 0) {
+			throw new IllegalArgumentException("Ao menos uma operação deve ter peso maior que zero");
+		}
+	}
+
+	@Override
+	public void run() {
+		aleatorio = ThreadLocalRandom.current();
+
+		long inicio;
+		while ((inicio = System.nanoTime()) < fim) {
+			OperacaoCarga operacao = sortearOperacao();
+
+			int status;
+			try {
+				RespostaHttp resposta = operacao.executar(this);
+				if (resposta == null) {
+					continue;
+				}
+				status = resposta.getStatus();
+			} catch (IOException e) {
+				status = AmostrasOperacao.STATUS_FALHA_COMUNICACAO;
+			}
+			long latencia = System.nanoTime() - inicio;
+
+			if (inicio >= inicioMedicao) {
+				amostras.computeIfAbsent(operacao, o -> new AmostrasOperacao()).registrar(latencia, status);
+			}
+
+			if (pausa > 0) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(pausa);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+	}
+
+	private OperacaoCarga sortearOperacao() {
+		int sorteado = aleatorio.nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+		for (int i = 0; i < pesosAcumulados.length; i++) {
+			if (sorteado < pesosAcumulados[i]) {
+				return operacoes[i];
+			}
+		}
+		throw new IllegalStateException("Peso sorteado fora do intervalo: " + sorteado);
+	}
+
+	void registrarItemPedidoIncluido(String idItemPedido) {
+		itensPedidoIncluidos.push(idItemPedido);
+	}
+
+	String retirarItemPedidoIncluido() {
+		return itensPedidoIncluidos.poll();
+	}
+
+	ClienteHttp getCliente() {
+		return cliente;
+	}
+
+	DadosCarga getDados() {
+		return dados;
+	}
+
+	Random getAleatorio() {
+		return aleatorio;
+	}
+
+	/**
+	 * Retorna as amostras registradas por este usuário. Deve ser chamado apenas após o fim da execução.
+	 *
+	 * @return as amostras de cada operação executada no período de medição
+	 */
+	Map<OperacaoCarga, AmostrasOperacao> getAmostras() {
+		return amostras;
+	}
+}
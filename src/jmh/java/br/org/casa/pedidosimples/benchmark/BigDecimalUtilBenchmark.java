@@ -0,0 +1,50 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.org.casa.pedidosimples.util.BigDecimalUtil;
+
+/**
+ * Benchmarks de {@link BigDecimalUtil#setEscalaPadrao(BigDecimal)}, com valores que já estão na escala padrão e
+ * com valores que precisam ser arredondados, como os resultantes da aplicação de desconto.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BigDecimalUtilBenchmark {
+
+	private BigDecimal valorEscalaPadrao = new BigDecimal("199.90");
+
+	private BigDecimal valorComDesconto = new BigDecimal("199.90").multiply(new BigDecimal("0.8500"));
+
+	@Benchmark
+	public BigDecimal setEscalaPadraoSemArredondamento() {
+		return BigDecimalUtil.setEscalaPadrao(valorEscalaPadrao);
+	}
+
+	@Benchmark
+	public BigDecimal setEscalaPadraoComArredondamento() {
+		return BigDecimalUtil.setEscalaPadrao(valorComDesconto);
+	}
+
+}
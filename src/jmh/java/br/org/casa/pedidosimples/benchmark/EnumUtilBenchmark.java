@@ -0,0 +1,95 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedidoAttributeConverter;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVendaAttributeConverter;
+import br.org.casa.pedidosimples.util.EnumUtil;
+
+/**
+ * Benchmarks da conversão de valores em elementos de Enum, usada na leitura das colunas de situação e tipo e nos
+ * parâmetros de busca. Os valores buscados individualmente são os do último elemento de cada Enum; a leitura de
+ * uma página de 1.000 linhas converte as colunas de situação e tipo de cada linha pelos AttributeConverters.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumUtilBenchmark {
+
+	private static final int LINHAS_PAGINA = 1000;
+
+	// Campos não finais, para que os valores não sejam tratados como constantes pelo compilador JIT
+	private String valorSituacao = SituacaoPedido.FECHADO.getValor();
+
+	private String valorTipo = TipoItemVenda.SERVICO.getValor();
+
+	private final SituacaoPedidoAttributeConverter conversorSituacao = new SituacaoPedidoAttributeConverter();
+
+	private final TipoItemVendaAttributeConverter conversorTipo = new TipoItemVendaAttributeConverter();
+
+	private String[] colunasSituacao;
+
+	private String[] colunasTipo;
+
+	@Setup
+	public void preparar() {
+		colunasSituacao = new String[LINHAS_PAGINA];
+		colunasTipo = new String[LINHAS_PAGINA];
+		for (int i = 0; i < LINHAS_PAGINA; i++) {
+			colunasSituacao[i] = SituacaoPedido.values()[i % SituacaoPedido.values().length].getValor();
+			colunasTipo[i] = TipoItemVenda.values()[i % TipoItemVenda.values().length].getValor();
+		}
+	}
+
+	@Benchmark
+	public SituacaoPedido enumFromValue() {
+		return EnumUtil.enumFromValue(SituacaoPedido.class, valorSituacao, SituacaoPedido::getValor);
+	}
+
+	@Benchmark
+	public boolean isEnumFromValue() {
+		return EnumUtil.isEnumFromValue(TipoItemVenda.class, valorTipo, TipoItemVenda::getValor);
+	}
+
+	@Benchmark
+	public SituacaoPedido situacaoPedidoFromValor() {
+		return SituacaoPedido.fromValor(valorSituacao);
+	}
+
+	@Benchmark
+	public TipoItemVenda tipoItemVendaFromValor() {
+		return TipoItemVenda.fromValor(valorTipo);
+	}
+
+	@Benchmark
+	public void lerPagina(Blackhole blackhole) {
+		for (int i = 0; i < LINHAS_PAGINA; i++) {
+			blackhole.consume(conversorSituacao.convertToEntityAttribute(colunasSituacao[i]));
+			blackhole.consume(conversorTipo.convertToEntityAttribute(colunasTipo[i]));
+		}
+	}
+
+}
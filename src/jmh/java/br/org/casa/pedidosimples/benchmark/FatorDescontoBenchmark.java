@@ -0,0 +1,116 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+import br.org.casa.pedidosimples.util.BigDecimalUtil;
+import br.org.casa.pedidosimples.util.ValorMonetario;
+
+/**
+ * Benchmarks da aplicação do desconto a 1.000 valores, com fatores de desconto e tipos sorteados, comparando o
+ * cálculo em BigDecimal, o cálculo do fator efetivo a cada chamada em {@link ValorMonetario} e a consulta à tabela
+ * de multiplicadores de {@link TipoItemVenda}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FatorDescontoBenchmark {
+
+	private static final int QUANTIDADE_VALORES = 1000;
+
+	private BigDecimal[] valoresBase;
+
+	private BigDecimal[] fatoresDesconto;
+
+	private TipoItemVenda[] tipos;
+
+	private ValorMonetario[] valoresMonetarios;
+
+	private int[] fatoresDescontoCentesimos;
+
+	@Setup
+	public void preparar() {
+		Random aleatorio = new Random(42L);
+
+		valoresBase = new BigDecimal[QUANTIDADE_VALORES];
+		fatoresDesconto = new BigDecimal[QUANTIDADE_VALORES];
+		tipos = new TipoItemVenda[QUANTIDADE_VALORES];
+		valoresMonetarios = new ValorMonetario[QUANTIDADE_VALORES];
+		fatoresDescontoCentesimos = new int[QUANTIDADE_VALORES];
+		for (int i = 0; i < QUANTIDADE_VALORES; i++) {
+			valoresBase[i] = BigDecimal.valueOf(aleatorio.nextInt(1_000_000), 2);
+			fatoresDesconto[i] = BigDecimal.valueOf(aleatorio.nextInt(101), 2);
+			tipos[i] = TipoItemVenda.values()[aleatorio.nextInt(TipoItemVenda.values().length)];
+			valoresMonetarios[i] = ValorMonetario.de(valoresBase[i]);
+			fatoresDescontoCentesimos[i] = ValorMonetario.centesimos(fatoresDesconto[i]);
+		}
+	}
+
+	/**
+	 * Cálculo em BigDecimal, como era feito em ItemPedido.calcularValor.
+	 */
+	@Benchmark
+	public void bigDecimal(Blackhole blackhole) {
+		for (int i = 0; i < QUANTIDADE_VALORES; i++) {
+			BigDecimal fatorDescontoEfetivo = fatoresDesconto[i].multiply(tipos[i].getFatorAplicacaoDesconto());
+			blackhole.consume(BigDecimalUtil.setEscalaPadrao(
+					valoresBase[i].subtract(valoresBase[i].multiply(fatorDescontoEfetivo))));
+		}
+	}
+
+	/**
+	 * Cálculo em centavos, com o fator de desconto efetivo calculado a cada valor.
+	 */
+	@Benchmark
+	public void fatorCalculado(Blackhole blackhole) {
+		for (int i = 0; i < QUANTIDADE_VALORES; i++) {
+			blackhole.consume(valoresMonetarios[i].aplicarDesconto(fatoresDescontoCentesimos[i],
+					tipos[i].getFatorAplicacaoDescontoCentesimos()));
+		}
+	}
+
+	/**
+	 * Cálculo em centavos, com o multiplicador obtido da tabela do TipoItemVenda.
+	 */
+	@Benchmark
+	public void fatorTabelado(Blackhole blackhole) {
+		for (int i = 0; i < QUANTIDADE_VALORES; i++) {
+			blackhole.consume(tipos[i].aplicarDesconto(valoresMonetarios[i], fatoresDescontoCentesimos[i]));
+		}
+	}
+
+	/**
+	 * Conversão dos valores em BigDecimal, seguida do cálculo com a tabela, como em ItemPedido.calcularValor.
+	 */
+	@Benchmark
+	public void fatorTabeladoComConversao(Blackhole blackhole) {
+		for (int i = 0; i < QUANTIDADE_VALORES; i++) {
+			blackhole.consume(tipos[i].aplicarDesconto(ValorMonetario.de(valoresBase[i]),
+					ValorMonetario.centesimos(fatoresDesconto[i])).toBigDecimal());
+		}
+	}
+
+}
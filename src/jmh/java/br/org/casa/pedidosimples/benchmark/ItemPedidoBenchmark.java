@@ -0,0 +1,63 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.benchmark;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+
+/**
+ * Benchmark do cálculo de valor de um {@link ItemPedido}, a partir do valor base do {@link ItemVenda} e do
+ * desconto do {@link Pedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemPedidoBenchmark {
+
+	private ItemPedido itemPedido;
+
+	@Setup
+	public void preparar() {
+		Pedido pedido = new Pedido();
+		pedido.setCodigo("BENCH-001");
+		pedido.setFatorDesconto(new BigDecimal("0.15"));
+
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setNome("Item");
+		itemVenda.setTipo(TipoItemVenda.PRODUTO);
+		itemVenda.setValorBase(new BigDecimal("199.90"));
+
+		itemPedido = new ItemPedido();
+		itemPedido.setPedido(pedido);
+		itemPedido.setItemVenda(itemVenda);
+	}
+
+	@Benchmark
+	public BigDecimal calcularValor() {
+		return itemPedido.calcularValor();
+	}
+
+}
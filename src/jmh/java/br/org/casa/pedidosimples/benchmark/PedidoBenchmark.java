@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+import br.org.casa.pedidosimples.util.ValorMonetario;
+
+/**
+ * Benchmarks do cálculo do valor total de um {@link Pedido} com muitos itens, nas mesmas formas usadas pelos
+ * serviços: o recálculo de todos os {@link ItemPedido}s ao atualizar os valores do Pedido e a soma dos valores
+ * já calculados no fechamento.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PedidoBenchmark {
+
+	@Param({"10", "1000", "10000"})
+	private int quantidadeItens;
+
+	private List<ItemPedido> itensPedido;
+
+	@Setup
+	public void preparar() {
+		Pedido pedido = new Pedido();
+		pedido.setCodigo("BENCH-001");
+		pedido.setFatorDesconto(new BigDecimal("0.15"));
+
+		itensPedido = new ArrayList<>(quantidadeItens);
+		for (int i = 0; i < quantidadeItens; i++) {
+			ItemVenda itemVenda = new ItemVenda();
+			itemVenda.setNome("Item " + i);
+			// Alterna produtos e serviços, que têm fatores de aplicação de desconto diferentes
+			itemVenda.setTipo(i % 2 == 0 ? TipoItemVenda.PRODUTO : TipoItemVenda.SERVICO);
+			itemVenda.setValorBase(new BigDecimal(i % 1000).add(new BigDecimal("0.99")));
+
+			ItemPedido item = new ItemPedido();
+			item.setPedido(pedido);
+			item.setItemVenda(itemVenda);
+			item.calcularValor();
+			itensPedido.add(item);
+		}
+	}
+
+	/**
+	 * Recalcula cada item e soma os valores, como em ItemPedidoService.atualizarValores(Pedido).
+	 *
+	 * @return o valor total do Pedido
+	 */
+	@Benchmark
+	public BigDecimal recalcularValorTotal() {
+		return itensPedido.stream()
+				.map(ItemPedido::calcularValorMonetario)
+				.reduce(ValorMonetario.ZERO, ValorMonetario::somar)
+				.toBigDecimal();
+	}
+
+	/**
+	 * Soma os valores já calculados dos itens, como no fechamento do Pedido.
+	 *
+	 * @return o valor total do Pedido
+	 */
+	@Benchmark
+	public BigDecimal somarValorTotal() {
+		return itensPedido.stream()
+				.map(ItemPedido::getValor)
+				.reduce(new BigDecimal("0.00"), BigDecimal::add);
+	}
+
+}
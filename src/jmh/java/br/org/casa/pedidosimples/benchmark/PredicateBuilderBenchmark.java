@@ -0,0 +1,89 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+
+import br.org.casa.pedidosimples.repository.ItemPedidoPredicateBuilder;
+import br.org.casa.pedidosimples.repository.ItemVendaPredicateBuilder;
+import br.org.casa.pedidosimples.repository.PedidoPredicateBuilder;
+
+/**
+ * Benchmarks da criação dos predicados de busca a partir dos parâmetros das requisições de listagem. Cada mapa
+ * contém todos os parâmetros de busca da entidade, além de um parâmetro desconhecido e um vazio, que são descartados.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateBuilderBenchmark {
+
+	private Map<String, String> parametrosPedido;
+
+	private Map<String, String> parametrosItemVenda;
+
+	private Map<String, String> parametrosItemPedido;
+
+	@Setup
+	public void preparar() {
+		parametrosPedido = new HashMap<>();
+		parametrosPedido.put("codigo", "PED");
+		parametrosPedido.put("situacao", "A");
+		parametrosPedido.put("page", "0");
+		parametrosPedido.put("sort", "");
+
+		parametrosItemVenda = new HashMap<>();
+		parametrosItemVenda.put("nome", "item");
+		parametrosItemVenda.put("valorMinimo", "10.00");
+		parametrosItemVenda.put("valorMaximo", "500.00");
+		parametrosItemVenda.put("tipo", "P");
+		parametrosItemVenda.put("ativo", "s");
+		parametrosItemVenda.put("page", "0");
+		parametrosItemVenda.put("sort", "");
+
+		parametrosItemPedido = new HashMap<>();
+		parametrosItemPedido.put("valorMinimo", "10.00");
+		parametrosItemPedido.put("valorMaximo", "500.00");
+		parametrosItemPedido.put("itemVenda", UUID.randomUUID().toString());
+		parametrosItemPedido.put("page", "0");
+		parametrosItemPedido.put("sort", "");
+	}
+
+	@Benchmark
+	public BooleanExpression pedido() {
+		return PedidoPredicateBuilder.of(parametrosPedido).build();
+	}
+
+	@Benchmark
+	public BooleanExpression itemVenda() {
+		return ItemVendaPredicateBuilder.of(parametrosItemVenda).build();
+	}
+
+	@Benchmark
+	public BooleanExpression itemPedido() {
+		return ItemPedidoPredicateBuilder.of(parametrosItemPedido).build();
+	}
+
+}
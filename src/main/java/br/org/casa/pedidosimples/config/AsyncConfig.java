@@ -0,0 +1,21 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Habilita a execução de métodos {@link org.springframework.scheduling.annotation.Async} em segundo plano,
+ * como o processamento dos recálculos de preço. É usado o executor configurado pelo Spring Boot
+ * (propriedades spring.task.execution.*).
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+}
@@ -0,0 +1,34 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuração dos caches da aplicação (Spring Cache sobre JCache/Ehcache, com os caches definidos em
+ * ehcache.xml). Independente do cache de segundo nível do Hibernate, usado para as entidades.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+	/**
+	 * Torna os caches cientes de transação: inclusões e remoções feitas durante uma transação só são
+	 * aplicadas após o seu commit, evitando que outras transações voltem a popular o cache com o estado
+	 * anterior antes da confirmação da alteração.
+	 *
+	 * @return o customizador do {@link JCacheCacheManager}
+	 */
+	@Bean
+	public CacheManagerCustomizer<JCacheCacheManager> cacheManagerTransacionalCustomizer() {
+		return cacheManager -> cacheManager.setTransactionAware(true);
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.config;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Executor das listagens em fluxo (respostas NDJSON) e das demais requisições assíncronas do Spring MVC. As
+ * leituras em fluxo mantêm uma conexão com o banco durante toda a resposta; com um número fixo de threads, elas
+ * não ocupam as threads do Tomcat e não usam mais conexões do que as threads disponíveis, de modo que o restante
+ * do pool de conexões fica reservado às demais requisições. As leituras excedentes aguardam na fila até o tempo
+ * limite da requisição, quando são respondidas com 503 (Service Unavailable).
+ *
+ * <p>O executor não é exposto como bean, pois substituiria o executor padrão do Spring Boot, usado nos
+ * recálculos de preço.</p>
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Configuration
+public class LeituraFluxoConfig implements WebMvcConfigurer, DisposableBean {
+
+	private final ThreadPoolTaskExecutor executorLeitura = new ThreadPoolTaskExecutor();
+
+	private final long tempoLimite;
+
+	LeituraFluxoConfig(@Value("${pedido-simples.leitura-fluxo.threads:4}") int threads,
+			@Value("${pedido-simples.leitura-fluxo.tempo-limite:120000}") long tempoLimite) {
+		executorLeitura.setCorePoolSize(threads);
+		executorLeitura.setMaxPoolSize(threads);
+		executorLeitura.setThreadNamePrefix("leitura-fluxo-");
+		executorLeitura.initialize();
+		this.tempoLimite = tempoLimite;
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(executorLeitura);
+		configurer.setDefaultTimeout(tempoLimite);
+	}
+
+	@Override
+	public void destroy() {
+		executorLeitura.shutdown();
+	}
+
+}
@@ -0,0 +1,21 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita a execução de métodos {@link org.springframework.scheduling.annotation.Scheduled}, como o envio
+ * periódico dos eventos de Pedido pendentes. É usado o agendador configurado pelo Spring Boot (propriedades
+ * spring.task.scheduling.*).
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+}
@@ -0,0 +1,46 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.config;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import br.org.casa.pedidosimples.util.ThreadsVirtuaisUtil;
+
+/**
+ * Modo de execução das requisições em threads virtuais (propriedade pedido-simples.threads-virtuais.habilitado).
+ * O Tomcat passa a executar cada requisição, e portanto também os serviços chamados por ela, em uma nova
+ * thread virtual, em vez de usar seu pool de threads de plataforma. As chamadas JDBC bloqueantes deixam
+ * então de ocupar uma thread do pool, mas a concorrência no banco continua limitada pelo pool de conexões.
+ * Requer Java 21 ou superior no ambiente de execução; caso contrário, a aplicação não é iniciada.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = "pedido-simples.threads-virtuais.habilitado", havingValue = "true")
+public class ThreadsVirtuaisConfig implements DisposableBean {
+
+	private final ExecutorService executorRequisicoes = ThreadsVirtuaisUtil.criarExecutor("http-virtual-");
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<ProtocolHandler> threadsVirtuaisTomcatCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(executorRequisicoes);
+	}
+
+	/**
+	 * O Tomcat não encerra executores fornecidos externamente, de modo que isso é feito junto com o contexto.
+	 */
+	@Override
+	public void destroy() {
+		executorRequisicoes.shutdown();
+	}
+
+}
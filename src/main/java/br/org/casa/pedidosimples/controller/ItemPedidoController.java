@@ -3,14 +3,17 @@
  */
 package br.org.casa.pedidosimples.controller;
 
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -20,12 +23,21 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.MvcUriComponentsBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
+import br.org.casa.pedidosimples.exception.RequisicaoInvalidaException;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.util.CursorUtil;
+import br.org.casa.pedidosimples.util.EtagUtil;
+import br.org.casa.pedidosimples.util.FluxoJsonUtil;
 
 /**
  * Controller para exposição dos serviços REST relacionados a {@link ItemPedido}.
@@ -39,20 +51,42 @@ public class ItemPedidoController {
 	@Autowired
 	private ItemPedidoService service;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	ItemPedidoController() {
 
 	}
 
 	@GetMapping("/pedido/{uuidPedido}/itens-pedido")
-	ResponseEntity<Page<ItemPedido>> listarTodosItensVenda(@PathVariable("uuidPedido") UUID uuidPedido, Pageable pageable, @RequestParam Map<String, String> params) {
-		return ResponseEntity.ok(service.buscarTodos(uuidPedido, pageable, params));
+	ResponseEntity<Slice<ItemPedido>> listarTodosItensVenda(@PathVariable("uuidPedido") UUID uuidPedido, Pageable pageable, @RequestParam Map<String, String> params,
+			@RequestParam(name = "contagem", defaultValue = "exata") ModoContagem modoContagem) {
+		return ResponseEntity.ok(service.buscarTodos(uuidPedido, pageable, params, modoContagem));
+	}
+
+	@GetMapping(value = "/pedido/{uuidPedido}/itens-pedido", params = CursorUtil.PARAMETRO_CURSOR)
+	ResponseEntity<PaginaCursor<ItemPedido>> listarItensPedidoPorCursor(@PathVariable("uuidPedido") UUID uuidPedido,
+			@RequestParam(CursorUtil.PARAMETRO_CURSOR) String cursor,
+			@RequestParam(name = "size", required = false) Integer tamanho, @RequestParam Map<String, String> params) {
+		return ResponseEntity.ok(service.buscarTodosPorCursor(uuidPedido, cursor, CursorUtil.ajustarTamanho(tamanho), params));
+	}
+
+	@GetMapping(value = "/pedido/{uuidPedido}/itens-pedido", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	ResponseEntity<StreamingResponseBody> listarItensPedidoEmFluxo(@PathVariable("uuidPedido") UUID uuidPedido,
+			@RequestParam Map<String, String> params) {
+		return FluxoJsonUtil.criarResposta(objectMapper,
+				consumidor -> service.percorrerTodos(uuidPedido, params, consumidor));
 	}
 
 	@GetMapping("/item-pedido/{uuid}")
 	ResponseEntity<ItemPedido> buscarItemPedidoPorId(@PathVariable("uuid") UUID uuid) {
-		return ResponseEntity.ok(service.buscarPorId(uuid)
-					.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemPedido.NOME_EXIBICAO_ENTIDADE, uuid))
-				);
+		ItemPedido itemPedido = service.buscarPorId(uuid)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemPedido.NOME_EXIBICAO_ENTIDADE, uuid));
+
+		// A representação inclui o ItemVenda, então a ETag também depende da versão dele
+		return ResponseEntity.ok()
+				.eTag(EtagUtil.gerar(itemPedido.getVersao(), itemPedido.getItemVenda().getVersao()))
+				.body(itemPedido);
 	}
 
 	@PostMapping("/pedido/{uuidPedido}/item-pedido")
@@ -67,6 +101,17 @@ public class ItemPedidoController {
 				).body(criado);
 	}
 
+	@PostMapping("/pedido/{uuidPedido}/itens-pedido")
+	ResponseEntity<List<ItemPedido>> incluirItensPedido(@PathVariable("uuidPedido") UUID uuidPedido,
+			@RequestBody List<ItemVenda> itensVenda) {
+		if (itensVenda.stream().anyMatch(itemVenda -> itemVenda == null || itemVenda.getId() == null)) {
+			throw new RequisicaoInvalidaException("Todos os %s do payload devem informar o uuid", ItemVenda.NOME_EXIBICAO_ENTIDADE);
+		}
+
+		return ResponseEntity.status(HttpStatus.CREATED)
+				.body(service.incluir(uuidPedido, itensVenda));
+	}
+
 	@DeleteMapping("/item-pedido/{uuid}")
 	ResponseEntity<?> excluirItemPedido(@PathVariable("uuid") UUID uuid) {
 		service.excluir(uuid);
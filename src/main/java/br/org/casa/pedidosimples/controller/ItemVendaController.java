@@ -9,8 +9,10 @@ import java.util.UUID;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -18,14 +20,25 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.RequisicaoInvalidaException;
+import br.org.casa.pedidosimples.model.EstatisticasCache;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.util.CursorUtil;
+import br.org.casa.pedidosimples.util.EtagUtil;
+import br.org.casa.pedidosimples.util.FluxoJsonUtil;
 
 /**
  * Controller para exposição dos serviços REST relacionados a {@link ItemVenda}.
@@ -39,20 +52,49 @@ public class ItemVendaController {
 	@Autowired
 	private ItemVendaService service;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	ItemVendaController() {
 
 	}
 
 	@GetMapping("/itens-venda")
-	ResponseEntity<Page<ItemVenda>> listarTodosItensVenda(Pageable pageable, @RequestParam Map<String, String> params) {
-		return ResponseEntity.ok(service.buscarTodos(pageable, params));
+	ResponseEntity<Slice<ItemVenda>> listarTodosItensVenda(Pageable pageable, @RequestParam Map<String, String> params,
+			@RequestParam(name = "contagem", defaultValue = "exata") ModoContagem modoContagem) {
+		return ResponseEntity.ok(service.buscarTodos(pageable, params, modoContagem));
+	}
+
+	@GetMapping(value = "/itens-venda", params = CursorUtil.PARAMETRO_CURSOR)
+	ResponseEntity<PaginaCursor<ItemVenda>> listarItensVendaPorCursor(@RequestParam(CursorUtil.PARAMETRO_CURSOR) String cursor,
+			@RequestParam(name = "size", required = false) Integer tamanho, @RequestParam Map<String, String> params) {
+		return ResponseEntity.ok(service.buscarTodosPorCursor(cursor, CursorUtil.ajustarTamanho(tamanho), params));
+	}
+
+	@GetMapping(value = "/itens-venda", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	ResponseEntity<StreamingResponseBody> listarItensVendaEmFluxo(@RequestParam Map<String, String> params) {
+		return FluxoJsonUtil.criarResposta(objectMapper, consumidor -> service.percorrerTodos(params, consumidor));
+	}
+
+	@GetMapping("/itens-venda/estatisticas-cache")
+	ResponseEntity<EstatisticasCache> buscarEstatisticasCache() {
+		return ResponseEntity.ok(service.buscarEstatisticasCache());
 	}
 
 	@GetMapping("/item-venda/{uuid}")
 	ResponseEntity<ItemVenda> buscarItemVendaPorId(@PathVariable("uuid") UUID uuid) {
-		return ResponseEntity.ok(service.buscarPorId(uuid)
-					.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemVenda.NOME_EXIBICAO_ENTIDADE, uuid))
-				);
+		ItemVenda itemVenda = service.buscarPorId(uuid)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemVenda.NOME_EXIBICAO_ENTIDADE, uuid));
+
+		return ResponseEntity.ok()
+				.eTag(EtagUtil.gerar(itemVenda.getVersao()))
+				.body(itemVenda);
+	}
+
+	@GetMapping("/item-venda/{uuid}/recalculo-preco")
+	ResponseEntity<RecalculoPreco> buscarUltimoRecalculoPreco(@PathVariable("uuid") UUID uuid) {
+		return ResponseEntity.ok(service.buscarUltimoRecalculoPreco(uuid)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(RecalculoPreco.NOME_EXIBICAO_ENTIDADE, uuid)));
 	}
 
 	@PostMapping("/item-venda")
@@ -68,12 +110,16 @@ public class ItemVendaController {
 	}
 
 	@PutMapping("/item-venda/{uuid}")
-	ResponseEntity<ItemVenda> atualizarItemVenda(@RequestBody @Valid ItemVenda itemVenda, @PathVariable("uuid") UUID uuid) {
+	ResponseEntity<ItemVenda> atualizarItemVenda(@RequestBody @Valid ItemVenda itemVenda, @PathVariable("uuid") UUID uuid,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		if (!uuid.equals(itemVenda.getId())) {
 			throw new RequisicaoInvalidaException("O uuid do %s na url é diferente do no payload", ItemVenda.NOME_EXIBICAO_ENTIDADE);
 		}
+		ItemVenda alterado = service.alterar(uuid, itemVenda, EtagUtil.extrairVersoes(ifMatch));
 
-		return ResponseEntity.ok(service.alterar(uuid, itemVenda));
+		return ResponseEntity.ok()
+				.eTag(EtagUtil.gerar(alterado.getVersao()))
+				.body(alterado);
 	}
 
 	@DeleteMapping("/item-venda/{uuid}")
@@ -3,13 +3,19 @@
  */
 package br.org.casa.pedidosimples.controller;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import javax.validation.Valid;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -17,15 +23,29 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.RequisicaoInvalidaException;
+import br.org.casa.pedidosimples.model.DivergenciaValorTotal;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.SnapshotPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
+import br.org.casa.pedidosimples.service.NotificacaoPedidoService;
 import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.util.CursorUtil;
+import br.org.casa.pedidosimples.util.EtagUtil;
+import br.org.casa.pedidosimples.util.FluxoJsonUtil;
 
 /**
  * Controller para exposição dos serviços REST relacionados a {@link ItemVenda}.
@@ -36,22 +56,74 @@ import br.org.casa.pedidosimples.service.PedidoService;
 @RestController
 public class PedidoController {
 
+	// Um Pedido fechado não é mais alterado, então sua representação pode ser mantida em cache pelos clientes
+	// e intermediários por um período longo. Ainda assim, ela deixa de existir se o Pedido for excluído.
+	private static final long DIAS_CACHE_PEDIDO_FECHADO = 30L;
+
 	private final PedidoService service;
 
-	PedidoController(PedidoService service) {
+	private final NotificacaoPedidoService notificacaoPedidoService;
+
+	private final ObjectMapper objectMapper;
+
+	PedidoController(PedidoService service, NotificacaoPedidoService notificacaoPedidoService,
+			ObjectMapper objectMapper) {
 		this.service = service;
+		this.notificacaoPedidoService = notificacaoPedidoService;
+		this.objectMapper = objectMapper;
 	}
 
 	@GetMapping("/pedidos")
-	ResponseEntity<Page<Pedido>> listarTodosPedidos(Pageable pageable, @RequestParam Map<String, String> params) {
-		return ResponseEntity.ok(service.buscarTodos(pageable, params));
+	ResponseEntity<Slice<Pedido>> listarTodosPedidos(Pageable pageable, @RequestParam Map<String, String> params,
+			@RequestParam(name = "comTotais", defaultValue = "false") boolean comTotais,
+			@RequestParam(name = "contagem", defaultValue = "exata") ModoContagem modoContagem) {
+		return ResponseEntity.ok(service.buscarTodos(pageable, params, comTotais, modoContagem));
+	}
+
+	@GetMapping(value = "/pedidos", params = CursorUtil.PARAMETRO_CURSOR)
+	ResponseEntity<PaginaCursor<Pedido>> listarPedidosPorCursor(@RequestParam(CursorUtil.PARAMETRO_CURSOR) String cursor,
+			@RequestParam(name = "size", required = false) Integer tamanho, @RequestParam Map<String, String> params) {
+		return ResponseEntity.ok(service.buscarTodosPorCursor(cursor, CursorUtil.ajustarTamanho(tamanho), params));
+	}
+
+	@GetMapping(value = "/pedidos", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	ResponseEntity<StreamingResponseBody> listarPedidosEmFluxo(@RequestParam Map<String, String> params) {
+		return FluxoJsonUtil.criarResposta(objectMapper, consumidor -> service.percorrerTodos(params, consumidor));
+	}
+
+	@GetMapping(value = "/pedidos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	SseEmitter acompanharPedidos() {
+		return notificacaoPedidoService.inscrever();
 	}
 
 	@GetMapping("/pedido/{uuid}")
-	ResponseEntity<Pedido> buscarPedidoPorId(@PathVariable("uuid") UUID uuid) {
-		return ResponseEntity.ok(service.buscarPorId(uuid)
-					.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid))
-				);
+	ResponseEntity<?> buscarPedidoPorId(@PathVariable("uuid") UUID uuid, WebRequest request) {
+		// Requisições condicionais são verificadas apenas com a versão do Pedido, sem calcular seus totais
+		if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+			Optional<Long> versao = service.buscarVersao(uuid);
+			if (versao.isPresent() && request.checkNotModified(EtagUtil.gerar(versao.get()))) {
+				return null;
+			}
+		}
+
+		// Pedidos fechados são servidos a partir do snapshot gravado no fechamento, em uma única leitura.
+		// As requisições condicionais (If-None-Match/If-Modified-Since) são respondidas com 304 pelo Spring MVC.
+		Optional<SnapshotPedido> snapshot = service.buscarSnapshot(uuid);
+		if (snapshot.isPresent()) {
+			return ResponseEntity.ok()
+					.contentType(MediaType.APPLICATION_JSON)
+					.cacheControl(CacheControl.maxAge(DIAS_CACHE_PEDIDO_FECHADO, TimeUnit.DAYS).cachePublic())
+					.eTag(EtagUtil.gerar(snapshot.get().getVersao()))
+					.lastModified(snapshot.get().getDataFechamento())
+					.body(snapshot.get().getConteudo());
+		}
+
+		Pedido pedido = service.buscarPorId(uuid)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid));
+
+		return ResponseEntity.ok()
+				.eTag(EtagUtil.gerar(pedido.getVersao()))
+				.body(pedido);
 	}
 
 	@PostMapping("/pedido")
@@ -67,21 +139,45 @@ public class PedidoController {
 	}
 
 	@PutMapping("/pedido/{uuid}")
-	ResponseEntity<Pedido> alterarPedido(@RequestBody @Valid Pedido pedido, @PathVariable("uuid") UUID uuid) {
+	ResponseEntity<Pedido> alterarPedido(@RequestBody @Valid Pedido pedido, @PathVariable("uuid") UUID uuid,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
 		if (!uuid.equals(pedido.getId())) {
 			throw new RequisicaoInvalidaException("O uuid do %s na url é diferente do no payload", Pedido.NOME_EXIBICAO_ENTIDADE);
 		}
-		return ResponseEntity.ok(service.alterar(uuid, pedido));
+		Pedido alterado = service.alterar(uuid, pedido, EtagUtil.extrairVersoes(ifMatch));
+
+		return ResponseEntity.ok()
+				.eTag(EtagUtil.gerar(alterado.getVersao()))
+				.body(alterado);
 	}
 
 	@PutMapping("/pedido/{uuid}/aplicar-desconto")
-	ResponseEntity<Pedido> aplicarDesconto(@RequestBody @Valid FatorDescontoDTO fatorDesconto, @PathVariable("uuid") UUID uuid) {
-		return ResponseEntity.ok(service.aplicarDesconto(uuid, fatorDesconto.getValor()));
+	ResponseEntity<Pedido> aplicarDesconto(@RequestBody @Valid FatorDescontoDTO fatorDesconto, @PathVariable("uuid") UUID uuid,
+			@RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+		Pedido pedido = service.aplicarDesconto(uuid, fatorDesconto.getValor(), EtagUtil.extrairVersoes(ifMatch));
+
+		return ResponseEntity.ok()
+				.eTag(EtagUtil.gerar(pedido.getVersao()))
+				.body(pedido);
 	}
 
 	@PostMapping("/pedido/{uuid}/fechar")
 	ResponseEntity<Pedido> fecharPedido(@PathVariable("uuid") UUID uuid) {
-		return ResponseEntity.ok(service.fechar(uuid));
+		Pedido pedido = service.fechar(uuid);
+
+		return ResponseEntity.ok()
+				.eTag(EtagUtil.gerar(pedido.getVersao()))
+				.body(pedido);
+	}
+
+	@GetMapping("/pedidos/divergencias-valor-total")
+	ResponseEntity<List<DivergenciaValorTotal>> verificarValoresTotais() {
+		return ResponseEntity.ok(service.verificarValoresTotais());
+	}
+
+	@PostMapping("/pedidos/divergencias-valor-total/corrigir")
+	ResponseEntity<List<DivergenciaValorTotal>> corrigirValoresTotais() {
+		return ResponseEntity.ok(service.corrigirValoresTotais());
 	}
 
 	@DeleteMapping("/pedido/{uuid}")
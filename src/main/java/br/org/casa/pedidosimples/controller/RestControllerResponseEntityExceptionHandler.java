@@ -3,14 +3,19 @@
  */
 package br.org.casa.pedidosimples.controller;
 
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
@@ -18,6 +23,7 @@ import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
 import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
 import br.org.casa.pedidosimples.exception.RequisicaoInvalidaException;
+import br.org.casa.pedidosimples.exception.VersaoDivergenteException;
 import br.org.casa.pedidosimples.model.ErroHttpSimples;
 
 /**
@@ -29,11 +35,32 @@ import br.org.casa.pedidosimples.model.ErroHttpSimples;
  */
 @ControllerAdvice
 public class RestControllerResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
+	/**
+	 * Os erros são sempre retornados em JSON, independentemente do cabeçalho Accept. Nas listagens em fluxo, o
+	 * cliente aceita apenas NDJSON, e esse tipo já foi definido na resposta antes da leitura dos registros, na qual
+	 * o erro ocorre.
+	 */
+	@Override
+	protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+			HttpStatus status, WebRequest request) {
+		if (body instanceof ErroHttpSimples) {
+			headers.setContentType(MediaType.APPLICATION_JSON);
+
+			HttpServletResponse response = request instanceof ServletWebRequest
+				? ((ServletWebRequest) request).getResponse()
+				: null;
+			if (response != null && !response.isCommitted()) {
+				response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+			}
+		}
+		return super.handleExceptionInternal(ex, body, headers, status, request);
+	}
+
 	@Override
 	protected ResponseEntity<Object> handleHttpMessageNotReadable(HttpMessageNotReadableException ex,
 			HttpHeaders headers, HttpStatus status, WebRequest request) {
 		ErroHttpSimples erro = new ErroHttpSimples(status, "Erro na leitura da requisição", ex.getMessage());
-		return super.handleExceptionInternal(ex, erro, headers, status, request);
+		return handleExceptionInternal(ex, erro, headers, status, request);
 	}
 
 	@Override
@@ -45,7 +72,7 @@ public class RestControllerResponseEntityExceptionHandler extends ResponseEntity
 				String.format("Campo [ %s ] (valor recebido [ %s ]). Mensagem de erro: %s",
 						fieldError.getField(), fieldError.getRejectedValue(), fieldError.getDefaultMessage()));
 
-		return super.handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
+		return handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
 	}
 
 	@ExceptionHandler(value = {EntidadeNaoEncontradaException.class} )
@@ -53,7 +80,7 @@ public class RestControllerResponseEntityExceptionHandler extends ResponseEntity
 			WebRequest request) {
 		ErroHttpSimples erro = new ErroHttpSimples(HttpStatus.NOT_FOUND, ex.getMessage());
 
-		return super.handleExceptionInternal(ex, erro, new HttpHeaders(), HttpStatus.NOT_FOUND, request);
+		return handleExceptionInternal(ex, erro, new HttpHeaders(), HttpStatus.NOT_FOUND, request);
 	}
 
 	@ExceptionHandler(value = {ParametroBuscaParseException.class})
@@ -62,7 +89,7 @@ public class RestControllerResponseEntityExceptionHandler extends ResponseEntity
 		HttpStatus status = HttpStatus.BAD_REQUEST;
 		ErroHttpSimples erro = new ErroHttpSimples(status, ex.getMessage(), ex.getDetailedMessage());
 
-		return super.handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
+		return handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
 	}
 
 	@ExceptionHandler(value = {OperacaoInvalidaException.class})
@@ -71,7 +98,7 @@ public class RestControllerResponseEntityExceptionHandler extends ResponseEntity
 		HttpStatus status = HttpStatus.BAD_REQUEST;
 		ErroHttpSimples erro = new ErroHttpSimples(status, "Operação inválida", ex.getMessage());
 
-		return super.handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
+		return handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
 
 	}
 
@@ -81,7 +108,27 @@ public class RestControllerResponseEntityExceptionHandler extends ResponseEntity
 		HttpStatus status = HttpStatus.BAD_REQUEST;
 		ErroHttpSimples erro = new ErroHttpSimples(status, "Requisição inválida", ex.getMessage());
 
-		return super.handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
+		return handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
+
+	}
+
+	@ExceptionHandler(value = {VersaoDivergenteException.class})
+	protected ResponseEntity<Object> handleVersaoDivergente(VersaoDivergenteException ex,
+			WebRequest request) {
+		HttpStatus status = HttpStatus.PRECONDITION_FAILED;
+		ErroHttpSimples erro = new ErroHttpSimples(status, "Versão divergente", ex.getMessage());
+
+		return handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
+	}
+
+	@ExceptionHandler(value = {ConcurrencyFailureException.class})
+	protected ResponseEntity<Object> handleConcurrencyFailure(ConcurrencyFailureException ex,
+			WebRequest request) {
+		HttpStatus status = HttpStatus.CONFLICT;
+		// A mensagem original contém detalhes internos de persistência, e por isso não é repassada ao cliente
+		ErroHttpSimples erro = new ErroHttpSimples(status, "Conflito de concorrência",
+				"O registro foi alterado simultaneamente por outras requisições. Tente novamente.");
 
+		return handleExceptionInternal(ex, erro, new HttpHeaders(), status, request);
 	}
 }
@@ -0,0 +1,26 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.controller;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
+
+/**
+ * Implementação de {@link Converter} para tratar o {@link ModoContagem} recebido como parâmetro
+ * nas listagens paginadas, a partir de seu valor.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Component
+public class StringToModoContagemConverter implements Converter<String, ModoContagem> {
+
+	@Override
+	public ModoContagem convert(String source) {
+		return ModoContagem.fromValor(source);
+	}
+
+}
@@ -0,0 +1,43 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.exception;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Exceção lançada quando a versão de uma entidade informada pelo cliente (através do cabeçalho If-Match)
+ * não corresponde à versão atual, indicando que a entidade foi alterada desde a última leitura do cliente.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class VersaoDivergenteException extends RuntimeException {
+
+	/**
+	 * Serial da classe, conforme {@link Serializable}
+	 */
+	private static final long serialVersionUID = -4871625409186354013L;
+
+	/**
+	 * Constrói uma nova exceção, com os dados da entidade e das versões informadas pelo cliente, nenhuma delas
+	 * correspondente à atual.
+	 *
+	 * @param nomeEntidade nome de exibição da entidade
+	 * @param uuid o id da entidade
+	 * @param versaoAtual a versão atual da entidade
+	 * @param versoesEsperadas as versões informadas pelo cliente. Pode ser vazia, se nenhuma das ETags
+	 * informadas corresponder a uma versão
+	 */
+	public VersaoDivergenteException(String nomeEntidade, UUID uuid, Long versaoAtual,
+			Collection<Long> versoesEsperadas) {
+		super(String.format("O %s %s foi alterado por outra requisição. Versão atual: %d; versão informada: %s",
+				nomeEntidade, uuid, versaoAtual, versoesEsperadas.isEmpty()
+					? "nenhuma (apenas ETags fracas ou não correspondentes a versões)"
+					: versoesEsperadas.stream().map(String::valueOf).collect(Collectors.joining(", "))));
+	}
+
+}
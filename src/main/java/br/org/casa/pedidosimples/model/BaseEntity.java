@@ -9,9 +9,12 @@ import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 
 import org.hibernate.annotations.GenericGenerator;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Estrutura base para as entidades.
  *
@@ -21,6 +24,7 @@ import org.hibernate.annotations.GenericGenerator;
 @MappedSuperclass
 public abstract class BaseEntity {
 
+	// O UUID é gerado em memória no persist, sem ida ao banco, o que permite agrupar os inserts em lotes JDBC
 	@Id
 	@GeneratedValue(generator = "UUID")
 	@GenericGenerator(
@@ -30,6 +34,13 @@ public abstract class BaseEntity {
 	@Column(updatable = false, nullable = false)
 	private UUID id;
 
+	// Incrementada a cada alteração da entidade, inclusive pelas atualizações em lote dos repositórios. Não faz
+	// parte do payload: é exposta pela API através das ETags.
+	@Version
+	@Column(name = "versao", nullable = false)
+	@JsonIgnore
+	private Long versao;
+
 	/**
 	 * Retorna o valor atual do campo id.
 	 *
@@ -48,4 +59,22 @@ public abstract class BaseEntity {
 		this.id = id;
 	}
 
+	/**
+	 * Retorna o valor atual do campo versao.
+	 *
+	 * @return valor de versao
+	 */
+	public Long getVersao() {
+		return versao;
+	}
+
+	/**
+	 * Define um novo valor para o campo versao
+	 *
+	 * @param versao o novo valor de versao
+	 */
+	public void setVersao(Long versao) {
+		this.versao = versao;
+	}
+
 }
@@ -0,0 +1,102 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+
+/**
+ * Projeção imutável com os dados do próprio {@link Pedido} usados nas operações sobre seus
+ * {@link ItemPedido}s. Por ser alterada com pouca frequência, é mantida em cache pela aplicação
+ * (cache {@value #NOME_CACHE}, configurado em ehcache.xml).
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class CabecalhoPedido implements Serializable {
+
+	/**
+	 * Nome do cache que armazena os cabeçalhos de Pedido, indexados pelo id
+	 */
+	public static final String NOME_CACHE = "cabecalho-pedido";
+
+	private static final long serialVersionUID = 1L;
+
+	private final UUID id;
+
+	private final String codigo;
+
+	private final BigDecimal fatorDesconto;
+
+	private final SituacaoPedido situacao;
+
+	private final Long versao;
+
+	/**
+	 * Constrói um novo cabeçalho, com valores iniciais para todos os campos.
+	 *
+	 * @param id valor inicial de id
+	 * @param codigo valor inicial de codigo
+	 * @param fatorDesconto valor inicial de fatorDesconto
+	 * @param situacao valor inicial de situacao
+	 * @param versao valor inicial de versao
+	 */
+	public CabecalhoPedido(UUID id, String codigo, BigDecimal fatorDesconto, SituacaoPedido situacao, Long versao) {
+		this.id = id;
+		this.codigo = codigo;
+		this.fatorDesconto = fatorDesconto;
+		this.situacao = situacao;
+		this.versao = versao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo id.
+	 *
+	 * @return valor de id
+	 */
+	public UUID getId() {
+		return id;
+	}
+
+	/**
+	 * Retorna o valor atual do campo codigo.
+	 *
+	 * @return valor de codigo
+	 */
+	public String getCodigo() {
+		return codigo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo fatorDesconto.
+	 *
+	 * @return valor de fatorDesconto
+	 */
+	public BigDecimal getFatorDesconto() {
+		return fatorDesconto;
+	}
+
+	/**
+	 * Retorna o valor atual do campo situacao.
+	 *
+	 * @return valor de situacao
+	 */
+	public SituacaoPedido getSituacao() {
+		return situacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo versao. Corresponde à versão do Pedido no momento em que o cabeçalho
+	 * foi consultado, que não é atualizada a cada alteração dos {@link ItemPedido}s.
+	 *
+	 * @return valor de versao
+	 */
+	public Long getVersao() {
+		return versao;
+	}
+
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Representa uma divergência entre o valor total registrado em um {@link Pedido} e a soma dos valores
+ * de seus {@link ItemPedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class DivergenciaValorTotal {
+
+	private UUID idPedido;
+
+	private String codigo;
+
+	private BigDecimal valorTotalRegistrado;
+
+	private BigDecimal valorTotalCalculado;
+
+	/**
+	 * Constrói uma nova divergência, com valores iniciais para todos os campos.
+	 *
+	 * @param idPedido valor inicial de idPedido
+	 * @param codigo valor inicial de codigo
+	 * @param valorTotalRegistrado valor inicial de valorTotalRegistrado
+	 * @param valorTotalCalculado valor inicial de valorTotalCalculado
+	 */
+	public DivergenciaValorTotal(UUID idPedido, String codigo, BigDecimal valorTotalRegistrado,
+			BigDecimal valorTotalCalculado) {
+		this.idPedido = idPedido;
+		this.codigo = codigo;
+		this.valorTotalRegistrado = valorTotalRegistrado;
+		this.valorTotalCalculado = valorTotalCalculado;
+	}
+
+	/**
+	 * Retorna o valor atual do campo idPedido.
+	 *
+	 * @return valor de idPedido
+	 */
+	public UUID getIdPedido() {
+		return idPedido;
+	}
+
+	/**
+	 * Retorna o valor atual do campo codigo.
+	 *
+	 * @return valor de codigo
+	 */
+	public String getCodigo() {
+		return codigo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valorTotalRegistrado, que corresponde ao valor total
+	 * armazenado no Pedido.
+	 *
+	 * @return valor de valorTotalRegistrado
+	 */
+	public BigDecimal getValorTotalRegistrado() {
+		return valorTotalRegistrado;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valorTotalCalculado, que corresponde à soma dos valores
+	 * dos ItemPedido do Pedido.
+	 *
+	 * @return valor de valorTotalCalculado
+	 */
+	public BigDecimal getValorTotalCalculado() {
+		return valorTotalCalculado;
+	}
+
+}
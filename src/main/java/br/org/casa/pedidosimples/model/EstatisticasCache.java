@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+/**
+ * Estatísticas de uso do cache de segundo nível de {@link ItemVenda}, acumuladas desde a
+ * inicialização da aplicação.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class EstatisticasCache {
+
+	private long acertos;
+
+	private long falhas;
+
+	private long insercoes;
+
+	private long acertosConsultas;
+
+	private long falhasConsultas;
+
+	/**
+	 * Constrói um novo conjunto de estatísticas, com valores iniciais para todos os campos.
+	 *
+	 * @param acertos valor inicial de acertos
+	 * @param falhas valor inicial de falhas
+	 * @param insercoes valor inicial de insercoes
+	 * @param acertosConsultas valor inicial de acertosConsultas
+	 * @param falhasConsultas valor inicial de falhasConsultas
+	 */
+	public EstatisticasCache(long acertos, long falhas, long insercoes, long acertosConsultas,
+			long falhasConsultas) {
+		this.acertos = acertos;
+		this.falhas = falhas;
+		this.insercoes = insercoes;
+		this.acertosConsultas = acertosConsultas;
+		this.falhasConsultas = falhasConsultas;
+	}
+
+	/**
+	 * Retorna o valor atual do campo acertos, a quantidade de entidades encontradas no cache.
+	 *
+	 * @return valor de acertos
+	 */
+	public long getAcertos() {
+		return acertos;
+	}
+
+	/**
+	 * Retorna o valor atual do campo falhas, a quantidade de entidades buscadas no cache e não
+	 * encontradas, sendo então buscadas no banco de dados.
+	 *
+	 * @return valor de falhas
+	 */
+	public long getFalhas() {
+		return falhas;
+	}
+
+	/**
+	 * Retorna o valor atual do campo insercoes.
+	 *
+	 * @return valor de insercoes
+	 */
+	public long getInsercoes() {
+		return insercoes;
+	}
+
+	/**
+	 * Retorna o valor atual do campo acertosConsultas, a quantidade de resultados de consultas
+	 * encontrados no cache de consultas.
+	 *
+	 * @return valor de acertosConsultas
+	 */
+	public long getAcertosConsultas() {
+		return acertosConsultas;
+	}
+
+	/**
+	 * Retorna o valor atual do campo falhasConsultas.
+	 *
+	 * @return valor de falhasConsultas
+	 */
+	public long getFalhasConsultas() {
+		return falhasConsultas;
+	}
+
+}
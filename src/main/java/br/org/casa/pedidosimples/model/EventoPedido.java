@@ -0,0 +1,122 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+
+/**
+ * Registro de uma operação do ciclo de vida de um {@link Pedido} ou de seus {@link ItemPedido}s, gravado
+ * na mesma transação da operação (outbox transacional). Os eventos são enviados aos consumidores em
+ * segundo plano, na ordem do id, e removidos após o envio.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Entity
+@Table(schema = "pedido_simples", name = "evento_pedido")
+public class EventoPedido {
+
+	// Ids obtidos da sequence em blocos, de modo que os inserts continuem sendo agrupados em lotes JDBC
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seq_evento_pedido")
+	@SequenceGenerator(name = "seq_evento_pedido", schema = "pedido_simples", sequenceName = "seq_evento_pedido",
+		allocationSize = 50)
+	@Column(name = "id_evento_pedido", updatable = false, nullable = false)
+	private Long id;
+
+	@Column(name = "pedido_id", updatable = false, nullable = false)
+	private UUID idPedido;
+
+	@Column(name = "tipo", updatable = false, nullable = false)
+	private TipoEventoPedido tipo;
+
+	@Column(name = "conteudo", updatable = false, nullable = false)
+	private String conteudo;
+
+	@Column(name = "data_criacao", updatable = false, nullable = false)
+	private Instant dataCriacao;
+
+	/**
+	 * Construtor padrão, para uso do JPA.
+	 */
+	protected EventoPedido() {
+
+	}
+
+	/**
+	 * Constrói um novo evento, ainda não persistido.
+	 *
+	 * @param idPedido id do Pedido ao qual o evento se refere
+	 * @param tipo tipo do evento
+	 * @param conteudo representação JSON do Pedido ou item no momento do evento
+	 * @param dataCriacao momento do evento
+	 */
+	public EventoPedido(UUID idPedido, TipoEventoPedido tipo, String conteudo, Instant dataCriacao) {
+		this.idPedido = idPedido;
+		this.tipo = tipo;
+		this.conteudo = conteudo;
+		this.dataCriacao = dataCriacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo id, que define a ordem de envio dos eventos.
+	 *
+	 * @return valor de id
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * Retorna o valor atual do campo idPedido.
+	 *
+	 * @return valor de idPedido
+	 */
+	public UUID getIdPedido() {
+		return idPedido;
+	}
+
+	/**
+	 * Retorna o valor atual do campo tipo.
+	 *
+	 * @return valor de tipo
+	 */
+	public TipoEventoPedido getTipo() {
+		return tipo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo conteudo, que contém a representação JSON do Pedido ou item no
+	 * momento do evento.
+	 *
+	 * @return valor de conteudo
+	 */
+	@JsonRawValue
+	public String getConteudo() {
+		return conteudo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo dataCriacao.
+	 *
+	 * @return valor de dataCriacao
+	 */
+	public Instant getDataCriacao() {
+		return dataCriacao;
+	}
+
+}
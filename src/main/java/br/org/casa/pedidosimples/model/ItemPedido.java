@@ -21,7 +21,7 @@ import com.querydsl.core.types.dsl.BooleanExpression;
 import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
 import br.org.casa.pedidosimples.util.EnumUtil;
-import br.org.casa.pedidosimples.util.BigDecimalUtil;
+import br.org.casa.pedidosimples.util.ValorMonetario;
 
 /**
  * Entidade que representa os {@link ItemVenda} associados a um {@link Pedido}
@@ -131,15 +131,26 @@ public class ItemPedido extends BaseEntity {
 	 * @return o valor atualizado deste ItemPedido.
 	 */
 	public BigDecimal calcularValor() {
-		BigDecimal fatorDescontoEfetivo = this.getPedido().getFatorDesconto()
-				.multiply(this.getItemVenda().getTipo().getFatorAplicacaoDesconto());
-		BigDecimal valorAtualizado = this.getItemVenda().getValorBase()
-				.subtract(this.getItemVenda().getValorBase().multiply(fatorDescontoEfetivo));
-
-		this.setValor(BigDecimalUtil.setEscalaPadrao(valorAtualizado));
+		calcularValorMonetario();
 		return this.valor;
 	}
 
+	/**
+	 * Atualiza o valor deste ItemPedido, da mesma forma que {@link #calcularValor()}, retornando-o como
+	 * {@link ValorMonetario}. O cálculo é feito em centavos, com o mesmo arredondamento e o mesmo resultado do
+	 * cálculo em BigDecimal, e é o indicado para somar os valores de vários itens.
+	 *
+	 * @return o valor atualizado deste ItemPedido.
+	 */
+	public ValorMonetario calcularValorMonetario() {
+		ValorMonetario valorAtualizado = this.getItemVenda().getTipo()
+				.aplicarDesconto(ValorMonetario.de(this.getItemVenda().getValorBase()),
+						ValorMonetario.centesimos(this.getPedido().getFatorDesconto()));
+
+		this.setValor(valorAtualizado.toBigDecimal());
+		return valorAtualizado;
+	}
+
 	public enum ParametroBuscaItemPedido {
 		/**
 		 * Busca {@link ItemPedido}s com valor mínimo informado.
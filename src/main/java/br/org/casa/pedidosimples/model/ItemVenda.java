@@ -8,6 +8,7 @@ import java.util.EnumSet;
 import java.util.stream.Collectors;
 
 import javax.persistence.AttributeOverride;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Table;
@@ -16,6 +17,9 @@ import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.BooleanPath;
 import com.querydsl.core.types.dsl.Expressions;
@@ -26,7 +30,8 @@ import br.org.casa.pedidosimples.util.EnumUtil;
 
 /**
  * Representa um item que pode ser vendido, ou mais especificamente que pode ser incluso em
- * {@link Pedido}s.
+ * {@link Pedido}s. Por se tratar de um catálogo pequeno e pouco alterado, é mantido no cache
+ * de segundo nível do Hibernate (região {@value #REGIAO_CACHE}, configurada em ehcache.xml).
  *
  * @author jrjosecarlos
  *
@@ -36,6 +41,8 @@ import br.org.casa.pedidosimples.util.EnumUtil;
 @AttributeOverride(name = "id",
 	column = @Column(name = "id_item_venda")
 )
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = ItemVenda.REGIAO_CACHE)
 public class ItemVenda extends BaseEntity {
 
 	/**
@@ -44,6 +51,11 @@ public class ItemVenda extends BaseEntity {
 	 */
 	public static final String NOME_EXIBICAO_ENTIDADE = "Item de Venda";
 
+	/**
+	 * Nome da região do cache de segundo nível que armazena esta entidade
+	 */
+	public static final String REGIAO_CACHE = "item-venda";
+
 	@Column(name = "nome", nullable = false)
 	@NotNull
 	@Size(min = 1, max = 100)
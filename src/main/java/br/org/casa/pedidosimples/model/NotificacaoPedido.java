@@ -0,0 +1,95 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+
+/**
+ * Notificação compacta de uma alteração em um {@link Pedido} ou em seus {@link ItemPedido}s, enviada aos
+ * clientes inscritos em GET /pedidos/stream. Contém apenas o estado resultante do Pedido, de modo que
+ * notificações de um mesmo Pedido ainda não enviadas possam ser substituídas pela mais recente.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@JsonInclude(Include.NON_NULL)
+public class NotificacaoPedido {
+
+	private final UUID id;
+
+	private final TipoEventoPedido tipo;
+
+	private final SituacaoPedido situacao;
+
+	private final BigDecimal valorTotal;
+
+	/**
+	 * Constrói uma nova notificação.
+	 *
+	 * @param id id do Pedido alterado
+	 * @param tipo tipo da alteração
+	 * @param situacao situação do Pedido após a alteração
+	 * @param valorTotal valor total do Pedido após a alteração, ou {@code null} caso não seja conhecido
+	 */
+	public NotificacaoPedido(UUID id, TipoEventoPedido tipo, SituacaoPedido situacao, BigDecimal valorTotal) {
+		this.id = id;
+		this.tipo = tipo;
+		this.situacao = situacao;
+		this.valorTotal = valorTotal;
+	}
+
+	/**
+	 * Retorna uma cópia desta notificação com o valor total informado.
+	 *
+	 * @param valorTotal o valor total do Pedido
+	 * @return a nova notificação
+	 */
+	public NotificacaoPedido comValorTotal(BigDecimal valorTotal) {
+		return new NotificacaoPedido(id, tipo, situacao, valorTotal);
+	}
+
+	/**
+	 * Retorna o valor atual do campo id, que corresponde ao id do Pedido alterado.
+	 *
+	 * @return valor de id
+	 */
+	public UUID getId() {
+		return id;
+	}
+
+	/**
+	 * Retorna o valor atual do campo tipo.
+	 *
+	 * @return valor de tipo
+	 */
+	public TipoEventoPedido getTipo() {
+		return tipo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo situacao.
+	 *
+	 * @return valor de situacao
+	 */
+	public SituacaoPedido getSituacao() {
+		return situacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valorTotal. Não é informado na exclusão do Pedido.
+	 *
+	 * @return valor de valorTotal
+	 */
+	public BigDecimal getValorTotal() {
+		return valorTotal;
+	}
+
+}
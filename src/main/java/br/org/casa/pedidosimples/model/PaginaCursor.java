@@ -0,0 +1,65 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.util.List;
+
+/**
+ * Página de resultados obtida por paginação baseada em cursor (keyset). Em vez de um número de página e do total
+ * de registros, contém um cursor opaco que, ao ser informado na próxima requisição, continua a listagem a partir
+ * do último registro desta página.
+ *
+ * @param <T> tipo dos registros da página
+ * @author jrjosecarlos
+ *
+ */
+public class PaginaCursor<T> {
+
+	private List<T> conteudo;
+
+	private int tamanho;
+
+	private String proximoCursor;
+
+	/**
+	 * Constrói uma nova página, com valores iniciais para conteudo, tamanho e proximoCursor.
+	 *
+	 * @param conteudo valor inicial de conteudo
+	 * @param tamanho valor inicial de tamanho
+	 * @param proximoCursor valor inicial de proximoCursor. Deve ser {@code null} se esta for a última página
+	 */
+	public PaginaCursor(List<T> conteudo, int tamanho, String proximoCursor) {
+		this.conteudo = conteudo;
+		this.tamanho = tamanho;
+		this.proximoCursor = proximoCursor;
+	}
+
+	/**
+	 * Retorna o valor atual do campo conteudo.
+	 *
+	 * @return valor de conteudo
+	 */
+	public List<T> getConteudo() {
+		return conteudo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo tamanho, que corresponde ao número máximo de registros solicitado para a página.
+	 *
+	 * @return valor de tamanho
+	 */
+	public int getTamanho() {
+		return tamanho;
+	}
+
+	/**
+	 * Retorna o valor atual do campo proximoCursor.
+	 *
+	 * @return valor de proximoCursor, ou {@code null} se não houver mais registros
+	 */
+	public String getProximoCursor() {
+		return proximoCursor;
+	}
+
+}
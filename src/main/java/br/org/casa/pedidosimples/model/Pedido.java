@@ -2,7 +2,6 @@ package br.org.casa.pedidosimples.model;
 
 import java.math.BigDecimal;
 import java.util.EnumSet;
-import java.util.List;
 import java.util.stream.Collectors;
 
 import javax.persistence.AttributeOverride;
@@ -15,7 +14,6 @@ import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -61,10 +59,14 @@ public class Pedido extends BaseEntity {
 	@NotNull
 	private SituacaoPedido situacao;
 
-	// Apesar do relacionamento entre Pedido e ItemPedido, o controle de ciclo de vida dos ItemPedido
-	// é feito pelas classes de serviço. Este campo existe apenas para a exibição do valor total do Pedido.
-	@JsonIgnore
-	private transient List<ItemPedido> itensPedido;
+	// O valor total é mantido pelas classes de serviço a cada alteração nos ItemPedido, através de updates
+	// diretos no banco. Por isso a coluna não é atualizada pelo Hibernate ao salvar o Pedido.
+	@Column(name = "valor_total", nullable = false, updatable = false)
+	@JsonProperty(access = Access.READ_ONLY)
+	private BigDecimal valorTotal = new BigDecimal("0.00");
+
+	// Preenchido apenas na busca detalhada do Pedido, a partir da totalização de seus ItemPedido.
+	private transient Long quantidadeItens;
 
 	/**
 	 * Retorna o valor atual do campo codigo.
@@ -121,25 +123,43 @@ public class Pedido extends BaseEntity {
 	}
 
 	/**
-	 * Define um novo valor para o campo itensPedido
+	 * Retorna o valor atual do campo valorTotal, que corresponde à soma dos valores dos {@link ItemPedido}
+	 * deste Pedido.
+	 *
+	 * @return valor de valorTotal
+	 */
+	public BigDecimal getValorTotal() {
+		return valorTotal;
+	}
+
+	/**
+	 * Define um novo valor para o campo valorTotal. A alteração não é persistida ao salvar o Pedido.
 	 *
-	 * @param itensPedido o novo valor de itensPedido
+	 * @param valorTotal o novo valor de valorTotal
 	 */
-	public void setItensPedido(List<ItemPedido> itensPedido) {
-		this.itensPedido = itensPedido;
+	public void setValorTotal(BigDecimal valorTotal) {
+		this.valorTotal = valorTotal;
 	}
 
-	@JsonProperty(value = "valorTotal", access = Access.READ_ONLY)
+	/**
+	 * Retorna o valor atual do campo quantidadeItens.
+	 *
+	 * @return valor de quantidadeItens. Pode ser {@code null}, caso os itens deste Pedido
+	 * não tenham sido totalizados.
+	 */
+	@JsonProperty(access = Access.READ_ONLY)
 	@JsonInclude(Include.NON_NULL)
-	public BigDecimal getValorTotal() {
-		if (this.itensPedido == null) {
-			return null;
-		}
-		BigDecimal valor = new BigDecimal("0.00");
+	public Long getQuantidadeItens() {
+		return quantidadeItens;
+	}
 
-		return this.itensPedido.stream()
-				.map(ItemPedido::getValor)
-				.reduce(valor, BigDecimal::add);
+	/**
+	 * Define um novo valor para o campo quantidadeItens
+	 *
+	 * @param quantidadeItens o novo valor de quantidadeItens
+	 */
+	public void setQuantidadeItens(Long quantidadeItens) {
+		this.quantidadeItens = quantidadeItens;
 	}
 
 	public enum ParametroBuscaPedido {
@@ -0,0 +1,218 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonFormat.Shape;
+
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+
+/**
+ * Representação desnormalizada de um {@link Pedido} fechado, com os dados do cabeçalho, o valor total
+ * e seus {@link ItemPedido}s, incluindo nome e tipo dos respectivos {@link ItemVenda}. É serializada
+ * no fechamento do Pedido e armazenada em um {@link SnapshotPedido}.
+ *
+ * <p>O conteúdo é retornado na busca do Pedido fechado, no lugar do próprio Pedido. Por isso, os campos do
+ * Pedido devem ser mantidos com os mesmos nomes e formatos, sendo acrescentados apenas dataFechamento e itens.</p>
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class PedidoFechado {
+
+	private final UUID id;
+
+	private final String codigo;
+
+	private final BigDecimal fatorDesconto;
+
+	private final SituacaoPedido situacao;
+
+	private final BigDecimal valorTotal;
+
+	private final long quantidadeItens;
+
+	// O conteúdo é gravado uma única vez, então o formato da data não deve depender da configuração do ObjectMapper
+	@JsonFormat(shape = Shape.STRING)
+	private final Instant dataFechamento;
+
+	private final List<Item> itens;
+
+	/**
+	 * Constrói a representação de um Pedido fechado a partir do próprio Pedido e de seus ItemPedido.
+	 * O valor total e a quantidade de itens são calculados a partir dos itens informados.
+	 *
+	 * @param pedido o Pedido fechado
+	 * @param itensPedido os ItemPedido do Pedido
+	 * @param dataFechamento momento do fechamento do Pedido
+	 */
+	public PedidoFechado(Pedido pedido, List<ItemPedido> itensPedido, Instant dataFechamento) {
+		this.id = pedido.getId();
+		this.codigo = pedido.getCodigo();
+		this.fatorDesconto = pedido.getFatorDesconto();
+		this.situacao = pedido.getSituacao();
+		this.valorTotal = itensPedido.stream()
+				.map(ItemPedido::getValor)
+				.reduce(new BigDecimal("0.00"), BigDecimal::add);
+		this.quantidadeItens = itensPedido.size();
+		this.dataFechamento = dataFechamento;
+		this.itens = itensPedido.stream()
+				.map(Item::new)
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * Retorna o valor atual do campo id.
+	 *
+	 * @return valor de id
+	 */
+	public UUID getId() {
+		return id;
+	}
+
+	/**
+	 * Retorna o valor atual do campo codigo.
+	 *
+	 * @return valor de codigo
+	 */
+	public String getCodigo() {
+		return codigo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo fatorDesconto.
+	 *
+	 * @return valor de fatorDesconto
+	 */
+	public BigDecimal getFatorDesconto() {
+		return fatorDesconto;
+	}
+
+	/**
+	 * Retorna o valor atual do campo situacao.
+	 *
+	 * @return valor de situacao
+	 */
+	public SituacaoPedido getSituacao() {
+		return situacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valorTotal.
+	 *
+	 * @return valor de valorTotal
+	 */
+	public BigDecimal getValorTotal() {
+		return valorTotal;
+	}
+
+	/**
+	 * Retorna o valor atual do campo quantidadeItens.
+	 *
+	 * @return valor de quantidadeItens
+	 */
+	public long getQuantidadeItens() {
+		return quantidadeItens;
+	}
+
+	/**
+	 * Retorna o valor atual do campo dataFechamento.
+	 *
+	 * @return valor de dataFechamento
+	 */
+	public Instant getDataFechamento() {
+		return dataFechamento;
+	}
+
+	/**
+	 * Retorna o valor atual do campo itens.
+	 *
+	 * @return valor de itens
+	 */
+	public List<Item> getItens() {
+		return itens;
+	}
+
+	/**
+	 * Dados de um {@link ItemPedido} do Pedido fechado, juntamente com o nome e o tipo do
+	 * {@link ItemVenda} no momento do fechamento.
+	 *
+	 * @author jrjosecarlos
+	 *
+	 */
+	public static class Item {
+
+		private final UUID id;
+
+		private final UUID idItemVenda;
+
+		private final String nome;
+
+		private final TipoItemVenda tipo;
+
+		private final BigDecimal valor;
+
+		Item(ItemPedido itemPedido) {
+			this.id = itemPedido.getId();
+			this.idItemVenda = itemPedido.getItemVenda().getId();
+			this.nome = itemPedido.getItemVenda().getNome();
+			this.tipo = itemPedido.getItemVenda().getTipo();
+			this.valor = itemPedido.getValor();
+		}
+
+		/**
+		 * Retorna o valor atual do campo id.
+		 *
+		 * @return valor de id
+		 */
+		public UUID getId() {
+			return id;
+		}
+
+		/**
+		 * Retorna o valor atual do campo idItemVenda.
+		 *
+		 * @return valor de idItemVenda
+		 */
+		public UUID getIdItemVenda() {
+			return idItemVenda;
+		}
+
+		/**
+		 * Retorna o valor atual do campo nome.
+		 *
+		 * @return valor de nome
+		 */
+		public String getNome() {
+			return nome;
+		}
+
+		/**
+		 * Retorna o valor atual do campo tipo.
+		 *
+		 * @return valor de tipo
+		 */
+		public TipoItemVenda getTipo() {
+			return tipo;
+		}
+
+		/**
+		 * Retorna o valor atual do campo valor.
+		 *
+		 * @return valor de valor
+		 */
+		public BigDecimal getValor() {
+			return valor;
+		}
+
+	}
+
+}
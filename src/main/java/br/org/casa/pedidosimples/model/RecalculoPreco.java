@@ -0,0 +1,189 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.persistence.AttributeOverride;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+import br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco;
+
+/**
+ * Representa o recálculo dos valores dos {@link ItemPedido} de {@link Pedido}s em aberto após a alteração
+ * do valor base de um {@link ItemVenda}. O recálculo é processado em segundo plano, em lotes de Pedidos,
+ * e os Pedidos ainda não recalculados são mantidos à parte (tabela recalculo_preco_pedido), de modo que
+ * o processamento possa ser acompanhado e retomado.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Entity
+@Table(schema = "pedido_simples", name = "recalculo_preco")
+@AttributeOverride(name = "id",
+	column = @Column(name = "id_recalculo_preco")
+)
+public class RecalculoPreco extends BaseEntity {
+
+	/**
+	 * Nome de exibição para esta entidade. Usado principalmente no retorno
+	 * de mensagens de erro
+	 */
+	public static final String NOME_EXIBICAO_ENTIDADE = "Recálculo de Preço";
+
+	@Column(name = "item_venda_id", updatable = false, nullable = false)
+	private UUID idItemVenda;
+
+	@Column(name = "valor_base", updatable = false, nullable = false)
+	private BigDecimal valorBase;
+
+	@Column(name = "situacao", nullable = false)
+	private SituacaoRecalculoPreco situacao;
+
+	@Column(name = "total_pedidos", nullable = false)
+	private Long totalPedidos = 0L;
+
+	@Column(name = "pedidos_processados", nullable = false)
+	private Long pedidosProcessados = 0L;
+
+	@Column(name = "data_criacao", updatable = false, nullable = false)
+	private Instant dataCriacao;
+
+	@Column(name = "data_conclusao")
+	private Instant dataConclusao;
+
+	/**
+	 * Retorna o valor atual do campo idItemVenda.
+	 *
+	 * @return valor de idItemVenda
+	 */
+	public UUID getIdItemVenda() {
+		return idItemVenda;
+	}
+
+	/**
+	 * Define um novo valor para o campo idItemVenda
+	 *
+	 * @param idItemVenda o novo valor de idItemVenda
+	 */
+	public void setIdItemVenda(UUID idItemVenda) {
+		this.idItemVenda = idItemVenda;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valorBase, que corresponde ao valor base do ItemVenda na alteração
+	 * que originou o recálculo.
+	 *
+	 * @return valor de valorBase
+	 */
+	public BigDecimal getValorBase() {
+		return valorBase;
+	}
+
+	/**
+	 * Define um novo valor para o campo valorBase
+	 *
+	 * @param valorBase o novo valor de valorBase
+	 */
+	public void setValorBase(BigDecimal valorBase) {
+		this.valorBase = valorBase;
+	}
+
+	/**
+	 * Retorna o valor atual do campo situacao.
+	 *
+	 * @return valor de situacao
+	 */
+	public SituacaoRecalculoPreco getSituacao() {
+		return situacao;
+	}
+
+	/**
+	 * Define um novo valor para o campo situacao
+	 *
+	 * @param situacao o novo valor de situacao
+	 */
+	public void setSituacao(SituacaoRecalculoPreco situacao) {
+		this.situacao = situacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo totalPedidos, que corresponde à quantidade de Pedidos em aberto
+	 * afetados no momento da alteração do ItemVenda.
+	 *
+	 * @return valor de totalPedidos
+	 */
+	public Long getTotalPedidos() {
+		return totalPedidos;
+	}
+
+	/**
+	 * Define um novo valor para o campo totalPedidos
+	 *
+	 * @param totalPedidos o novo valor de totalPedidos
+	 */
+	public void setTotalPedidos(Long totalPedidos) {
+		this.totalPedidos = totalPedidos;
+	}
+
+	/**
+	 * Retorna o valor atual do campo pedidosProcessados, que corresponde à quantidade de Pedidos já
+	 * recalculados, seja pelo processamento do recálculo ou pelo fechamento do próprio Pedido.
+	 *
+	 * @return valor de pedidosProcessados
+	 */
+	public Long getPedidosProcessados() {
+		return pedidosProcessados;
+	}
+
+	/**
+	 * Define um novo valor para o campo pedidosProcessados
+	 *
+	 * @param pedidosProcessados o novo valor de pedidosProcessados
+	 */
+	public void setPedidosProcessados(Long pedidosProcessados) {
+		this.pedidosProcessados = pedidosProcessados;
+	}
+
+	/**
+	 * Retorna o valor atual do campo dataCriacao.
+	 *
+	 * @return valor de dataCriacao
+	 */
+	public Instant getDataCriacao() {
+		return dataCriacao;
+	}
+
+	/**
+	 * Define um novo valor para o campo dataCriacao
+	 *
+	 * @param dataCriacao o novo valor de dataCriacao
+	 */
+	public void setDataCriacao(Instant dataCriacao) {
+		this.dataCriacao = dataCriacao;
+	}
+
+	/**
+	 * Retorna o valor atual do campo dataConclusao.
+	 *
+	 * @return valor de dataConclusao
+	 */
+	public Instant getDataConclusao() {
+		return dataConclusao;
+	}
+
+	/**
+	 * Define um novo valor para o campo dataConclusao
+	 *
+	 * @param dataConclusao o novo valor de dataConclusao
+	 */
+	public void setDataConclusao(Instant dataConclusao) {
+		this.dataConclusao = dataConclusao;
+	}
+
+}
@@ -0,0 +1,118 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Registro imutável do estado de um {@link Pedido} no momento do seu fechamento, já serializado
+ * no formato retornado pela API ({@link PedidoFechado}). Como um Pedido fechado não pode mais ser
+ * alterado, o snapshot é gravado uma única vez e permite obter o detalhe completo do Pedido, com
+ * seus {@link ItemPedido}s, em uma única leitura por chave primária.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Entity
+@Immutable
+@Table(schema = "pedido_simples", name = "snapshot_pedido")
+public class SnapshotPedido implements Persistable<UUID> {
+
+	@Id
+	@Column(name = "pedido_id", updatable = false, nullable = false)
+	private UUID idPedido;
+
+	@Column(name = "data_fechamento", updatable = false, nullable = false)
+	private Instant dataFechamento;
+
+	@Column(name = "conteudo", updatable = false, nullable = false)
+	private String conteudo;
+
+	@Column(name = "versao", updatable = false, nullable = false)
+	private Long versao;
+
+	// O id é o do próprio Pedido, e não gerado, então é preciso indicar explicitamente ao Spring Data
+	// que o snapshot é novo para que seja feito um persist em vez de um merge (com select prévio).
+	@Transient
+	private boolean novo;
+
+	/**
+	 * Construtor padrão, para uso do JPA.
+	 */
+	protected SnapshotPedido() {
+
+	}
+
+	/**
+	 * Constrói um novo snapshot, ainda não persistido.
+	 *
+	 * @param idPedido id do Pedido fechado
+	 * @param dataFechamento momento do fechamento do Pedido
+	 * @param conteudo representação JSON do Pedido fechado
+	 * @param versao versão do Pedido no fechamento
+	 */
+	public SnapshotPedido(UUID idPedido, Instant dataFechamento, String conteudo, Long versao) {
+		this.idPedido = idPedido;
+		this.dataFechamento = dataFechamento;
+		this.conteudo = conteudo;
+		this.versao = versao;
+		this.novo = true;
+	}
+
+	@Override
+	public UUID getId() {
+		return idPedido;
+	}
+
+	@Override
+	public boolean isNew() {
+		return novo;
+	}
+
+	@PostLoad
+	@PostPersist
+	void marcarPersistido() {
+		this.novo = false;
+	}
+
+	/**
+	 * Retorna o valor atual do campo dataFechamento.
+	 *
+	 * @return valor de dataFechamento
+	 */
+	public Instant getDataFechamento() {
+		return dataFechamento;
+	}
+
+	/**
+	 * Retorna o valor atual do campo conteudo, que contém a representação JSON do Pedido fechado.
+	 *
+	 * @return valor de conteudo
+	 */
+	public String getConteudo() {
+		return conteudo;
+	}
+
+	/**
+	 * Retorna o valor atual do campo versao, que corresponde à versão do Pedido no fechamento.
+	 *
+	 * @return valor de versao
+	 */
+	public Long getVersao() {
+		return versao;
+	}
+
+}
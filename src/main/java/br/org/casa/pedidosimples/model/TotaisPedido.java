@@ -0,0 +1,50 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Projeção com os totais dos {@link ItemPedido} de um {@link Pedido}, obtidos por agregação
+ * no banco de dados sem a necessidade de carregar os itens.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class TotaisPedido {
+
+	private long quantidadeItens;
+
+	private BigDecimal valorTotal;
+
+	/**
+	 * Constrói uma nova projeção, com valores iniciais para quantidadeItens e valorTotal.
+	 *
+	 * @param quantidadeItens valor inicial de quantidadeItens
+	 * @param valorTotal valor inicial de valorTotal
+	 */
+	public TotaisPedido(long quantidadeItens, BigDecimal valorTotal) {
+		this.quantidadeItens = quantidadeItens;
+		this.valorTotal = valorTotal;
+	}
+
+	/**
+	 * Retorna o valor atual do campo quantidadeItens.
+	 *
+	 * @return valor de quantidadeItens
+	 */
+	public long getQuantidadeItens() {
+		return quantidadeItens;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valorTotal.
+	 *
+	 * @return valor de valorTotal
+	 */
+	public BigDecimal getValorTotal() {
+		return valorTotal;
+	}
+
+}
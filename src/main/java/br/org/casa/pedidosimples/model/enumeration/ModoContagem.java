@@ -0,0 +1,63 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model.enumeration;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import br.org.casa.pedidosimples.util.EnumUtil;
+
+/**
+ * Representa a forma como o total de registros é obtido nas listagens paginadas.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public enum ModoContagem {
+
+	/**
+	 * O total de registros é obtido por uma consulta de contagem, executada junto com a busca da página.
+	 */
+	EXATA("exata"),
+
+	/**
+	 * Não é feita a contagem. A listagem retorna apenas se existe uma próxima página, verificada buscando um
+	 * registro além do tamanho da página.
+	 */
+	NENHUMA("nenhuma"),
+
+	/**
+	 * O total de registros é estimado a partir das estatísticas do banco de dados, quando não há filtros
+	 * aplicados. Caso contrário, ou se não houver estimativa disponível, é feita a contagem exata.
+	 */
+	APROXIMADA("aproximada");
+
+	private String valor;
+
+	private ModoContagem(String valor) {
+		this.valor = valor;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valor.
+	 *
+	 * @return valor de valor
+	 */
+	@JsonValue
+	public String getValor() {
+		return valor;
+	}
+
+	/**
+	 * Converte um valor informado no {@link ModoContagem} correspondente.
+	 *
+	 * @param valor o valor a ser convertido no elemento do enum correspondente
+	 * @return o ModoContagem correspondente ao valor informado
+	 * @throws NullPointerException se {@code valor} for {@code null}
+	 * @throws IllegalArgumentException se não houver nenhum ModoContagem com
+	 * o valor informado
+	 */
+	public static ModoContagem fromValor(String valor) {
+		return EnumUtil.enumFromValue(ModoContagem.class, valor, ModoContagem::getValor);
+	}
+}
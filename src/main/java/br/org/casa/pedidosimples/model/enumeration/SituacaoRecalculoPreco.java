@@ -0,0 +1,64 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model.enumeration;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.util.EnumUtil;
+
+/**
+ * Representa o estado de um {@link RecalculoPreco}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public enum SituacaoRecalculoPreco {
+
+	/**
+	 * Representa um recálculo que ainda possui Pedidos a serem recalculados, em processamento ou aguardando
+	 * o início do processamento.
+	 */
+	EM_ANDAMENTO("A"),
+
+	/**
+	 * Representa um recálculo em que todos os Pedidos afetados já foram recalculados (ou fechados).
+	 */
+	CONCLUIDO("C"),
+
+	/**
+	 * Representa um recálculo cujo processamento foi interrompido por um erro. Os Pedidos restantes são
+	 * recalculados ao retomar o processamento, ou individualmente no seu fechamento.
+	 */
+	FALHA("F");
+
+	private String valor;
+
+	private SituacaoRecalculoPreco(String valor) {
+		this.valor = valor;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valor.
+	 *
+	 * @return valor de valor
+	 */
+	@JsonValue
+	public String getValor() {
+		return valor;
+	}
+
+	/**
+	 * Converte um valor informado no {@link SituacaoRecalculoPreco} correspondente.
+	 *
+	 * @param valor o valor a ser convertido no elemento do enum correspondente
+	 * @return o SituacaoRecalculoPreco correspondente ao valor informado
+	 * @throws NullPointerException se {@code valor} for {@code null}
+	 * @throws IllegalArgumentException se não houver nenhum SituacaoRecalculoPreco com
+	 * o valor informado
+	 */
+	public static SituacaoRecalculoPreco fromValor(String valor) {
+		return EnumUtil.enumFromValue(SituacaoRecalculoPreco.class, valor, SituacaoRecalculoPreco::getValor);
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model.enumeration;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Um {@link AttributeConverter} para persistir campos da classe {@link SituacaoRecalculoPreco}
+ * utilizando o valor correspondente ao elemento.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Converter(autoApply = true)
+public class SituacaoRecalculoPrecoAttributeConverter implements AttributeConverter<SituacaoRecalculoPreco, String>{
+
+	@Override
+	public String convertToDatabaseColumn(SituacaoRecalculoPreco situacaoRecalculoPreco) {
+		return situacaoRecalculoPreco == null ? null : situacaoRecalculoPreco.getValor();
+	}
+
+	@Override
+	public SituacaoRecalculoPreco convertToEntityAttribute(String dbData) {
+		return dbData == null ? null : SituacaoRecalculoPreco.fromValor(dbData);
+	}
+
+}
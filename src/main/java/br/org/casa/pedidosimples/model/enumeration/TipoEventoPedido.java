@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model.enumeration;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+import br.org.casa.pedidosimples.util.EnumUtil;
+
+/**
+ * Representa o tipo de um {@link EventoPedido}, isto é, a operação do ciclo de vida do Pedido que o originou.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public enum TipoEventoPedido {
+
+	/**
+	 * Representa a inclusão de um Pedido.
+	 */
+	PEDIDO_INCLUIDO("I"),
+
+	/**
+	 * Representa a alteração dos dados de um Pedido, como o seu código.
+	 */
+	PEDIDO_ALTERADO("A"),
+
+	/**
+	 * Representa a aplicação de um novo fator de desconto a um Pedido, com o recálculo do seu valor total.
+	 */
+	DESCONTO_APLICADO("D"),
+
+	/**
+	 * Representa o fechamento de um Pedido.
+	 */
+	PEDIDO_FECHADO("F"),
+
+	/**
+	 * Representa a exclusão de um Pedido, junto com seus itens.
+	 */
+	PEDIDO_EXCLUIDO("E"),
+
+	/**
+	 * Representa a inclusão de um ou mais itens em um Pedido, em uma mesma operação.
+	 */
+	ITENS_INCLUIDOS("J"),
+
+	/**
+	 * Representa a exclusão de um ou mais itens de um Pedido, em uma mesma operação.
+	 */
+	ITENS_EXCLUIDOS("X"),
+
+	/**
+	 * Representa o recálculo dos valores dos itens de um Pedido, e do seu valor total, após a alteração do valor
+	 * base de um ItemVenda.
+	 */
+	VALORES_RECALCULADOS("R");
+
+	private String valor;
+
+	private TipoEventoPedido(String valor) {
+		this.valor = valor;
+	}
+
+	/**
+	 * Retorna o valor atual do campo valor.
+	 *
+	 * @return valor de valor
+	 */
+	@JsonValue
+	public String getValor() {
+		return valor;
+	}
+
+	/**
+	 * Converte um valor informado no {@link TipoEventoPedido} correspondente.
+	 *
+	 * @param valor o valor a ser convertido no elemento do enum correspondente
+	 * @return o TipoEventoPedido correspondente ao valor informado
+	 * @throws NullPointerException se {@code valor} for {@code null}
+	 * @throws IllegalArgumentException se não houver nenhum TipoEventoPedido com
+	 * o valor informado
+	 */
+	public static TipoEventoPedido fromValor(String valor) {
+		return EnumUtil.enumFromValue(TipoEventoPedido.class, valor, TipoEventoPedido::getValor);
+	}
+}
@@ -0,0 +1,29 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.model.enumeration;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Um {@link AttributeConverter} para persistir campos da classe {@link TipoEventoPedido}
+ * utilizando o valor correspondente ao elemento.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Converter(autoApply = true)
+public class TipoEventoPedidoAttributeConverter implements AttributeConverter<TipoEventoPedido, String>{
+
+	@Override
+	public String convertToDatabaseColumn(TipoEventoPedido tipoEventoPedido) {
+		return tipoEventoPedido == null ? null : tipoEventoPedido.getValor();
+	}
+
+	@Override
+	public TipoEventoPedido convertToEntityAttribute(String dbData) {
+		return dbData == null ? null : TipoEventoPedido.fromValor(dbData);
+	}
+
+}
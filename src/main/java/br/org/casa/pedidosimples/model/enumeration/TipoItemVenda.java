@@ -10,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonValue;
 import br.org.casa.pedidosimples.model.ItemVenda;
 import br.org.casa.pedidosimples.model.Pedido;
 import br.org.casa.pedidosimples.util.EnumUtil;
+import br.org.casa.pedidosimples.util.ValorMonetario;
 
 /**
  * Define os tipos de {@link ItemVenda} existentes. A principal diferença entre eles
@@ -32,13 +33,29 @@ public enum TipoItemVenda {
 	 */
 	SERVICO("S", new BigDecimal("0.00"));
 
+	// Maior fator de desconto de um Pedido (1.00), em centésimos
+	private static final int MAXIMO_FATOR_DESCONTO = 100;
+
 	private String valor;
 
 	private BigDecimal fatorAplicacaoDesconto;
 
+	private int fatorAplicacaoDescontoCentesimos;
+
+	// Multiplicadores do valor base para cada fator de desconto possível em um Pedido (0.00 a 1.00), indexados
+	// pelo fator de desconto em centésimos
+	private int[] multiplicadoresDesconto;
+
 	private TipoItemVenda(String valor, BigDecimal fatorAplicacaoDesconto) {
 		this.valor = valor;
 		this.fatorAplicacaoDesconto = fatorAplicacaoDesconto;
+		this.fatorAplicacaoDescontoCentesimos = ValorMonetario.centesimos(fatorAplicacaoDesconto);
+
+		this.multiplicadoresDesconto = new int[MAXIMO_FATOR_DESCONTO + 1];
+		for (int fatorDesconto = 0; fatorDesconto <= MAXIMO_FATOR_DESCONTO; fatorDesconto++) {
+			this.multiplicadoresDesconto[fatorDesconto] =
+					ValorMonetario.multiplicadorDesconto(fatorDesconto, this.fatorAplicacaoDescontoCentesimos);
+		}
 	}
 
 	/**
@@ -60,6 +77,32 @@ public enum TipoItemVenda {
 		return fatorAplicacaoDesconto;
 	}
 
+	/**
+	 * Retorna o fatorAplicacaoDesconto expresso em centésimos (ex.: 100 para 1.00), para uso com
+	 * {@link ValorMonetario}.
+	 *
+	 * @return o fatorAplicacaoDesconto, em centésimos
+	 */
+	public int getFatorAplicacaoDescontoCentesimos() {
+		return fatorAplicacaoDescontoCentesimos;
+	}
+
+	/**
+	 * Aplica a um valor o desconto de um {@link Pedido}, modificado pelo fator de aplicação deste tipo. Para os
+	 * fatores de desconto válidos em um Pedido (0.00 a 1.00), o multiplicador correspondente é obtido de uma
+	 * tabela calculada na inicialização; os demais são calculados a cada chamada.
+	 *
+	 * @param valorBase o valor ao qual o desconto será aplicado
+	 * @param fatorDescontoCentesimos o fator de desconto do Pedido, em centésimos
+	 * @return o valor com o desconto aplicado
+	 */
+	public ValorMonetario aplicarDesconto(ValorMonetario valorBase, int fatorDescontoCentesimos) {
+		if (fatorDescontoCentesimos < 0 || fatorDescontoCentesimos > MAXIMO_FATOR_DESCONTO) {
+			return valorBase.aplicarDesconto(fatorDescontoCentesimos, fatorAplicacaoDescontoCentesimos);
+		}
+		return valorBase.multiplicar(multiplicadoresDesconto[fatorDescontoCentesimos]);
+	}
+
 	/**
 	 * Converte um valor informado no {@link TipoItemVenda} que possui este valor
 	 * como correspondente.
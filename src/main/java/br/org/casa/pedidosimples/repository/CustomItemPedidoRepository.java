@@ -3,18 +3,23 @@
  */
 package br.org.casa.pedidosimples.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
 
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
 
 /**
  * Interface para as queries customizadas que envolvem {@link ItemPedido}. A principal diferença envolve
@@ -34,13 +39,54 @@ public interface CustomItemPedidoRepository<S extends ItemPedido, ID> {
 
 	List<S> findByPedido(Pedido pedido);
 
+	Slice<S> buscarFatiaPorPedido(Pedido pedido, BooleanExpression predicate, Pageable pageable);
+
+	List<S> findByPedido(Pedido pedido, BooleanExpression predicate, Optional<UUID> idApos, int limite);
+
+	/**
+	 * Percorre, em fluxo e na ordem de id, todos os ItemPedido de um Pedido que atendem ao predicado, com os
+	 * respectivos ItemVenda, sem carregá-los todos em memória. Deve ser executado dentro de uma transação.
+	 *
+	 * @param pedido o Pedido dos itens
+	 * @param predicate o predicado de busca
+	 * @param consumidor o consumidor de cada ItemPedido, que deve usá-lo imediatamente
+	 * @return a quantidade de ItemPedido percorridos
+	 */
+	long percorrerPorPedido(Pedido pedido, BooleanExpression predicate, Consumer<? super S> consumidor);
+
 	Optional<S> findById(ID id);
 
 	long deleteByPedido(Pedido pedido);
 
 	long contarPorItemVendaEPedidoAberto(ItemVenda itemVenda);
 
-	List<S> buscarPorItemVendaEPedidoAberto(ItemVenda itemVenda);
+	/**
+	 * Recalcula, em um único UPDATE, o valor de todos os {@link ItemPedido} associados ao {@link ItemVenda}
+	 * informado e que pertençam a {@link Pedido}s em aberto. O cálculo é equivalente ao de
+	 * {@link ItemPedido#calcularValor()}, usando o valor base e o tipo do itemVenda informado e o fator
+	 * de desconto de cada Pedido. A versão de cada ItemPedido atualizado é incrementada.
+	 *
+	 * @param itemVenda o itemVenda cujos valores de ItemPedido serão recalculados
+	 * @return o número de ItemPedido atualizados
+	 * @apiNote Por se tratar de uma operação em lote, as instâncias de ItemPedido já carregadas no contexto
+	 * de persistência não são atualizadas.
+	 */
+	long atualizarValorPorItemVendaEPedidoAberto(ItemVenda itemVenda);
+
+	/**
+	 * Recalcula, em um único UPDATE, o valor dos {@link ItemPedido} associados ao {@link ItemVenda} informado,
+	 * restrito aos {@link Pedido}s em aberto dentre os informados. O cálculo é o mesmo de
+	 * {@link #atualizarValorPorItemVendaEPedidoAberto(ItemVenda)}.
+	 *
+	 * @param itemVenda o itemVenda cujos valores de ItemPedido serão recalculados
+	 * @param idsPedido os ids dos Pedidos cujos itens serão recalculados
+	 * @return o número de ItemPedido atualizados
+	 */
+	long atualizarValorPorItemVendaEPedidoAberto(ItemVenda itemVenda, Collection<UUID> idsPedido);
 
 	long contarPorPedidoEItemVendaInativo(Pedido pedido);
+
+	TotaisPedido totalizarPorPedido(Pedido pedido);
+
+	Map<UUID, TotaisPedido> totalizarPorPedidos(Collection<Pedido> pedidos);
 }
@@ -3,23 +3,36 @@
  */
 package br.org.casa.pedidosimples.repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+import javax.persistence.Query;
+
+import org.hibernate.query.NativeQuery;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.data.support.PageableExecutionUtils;
 
+import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.JPQLQuery;
 
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
 import br.org.casa.pedidosimples.model.Pedido;
 import br.org.casa.pedidosimples.model.QItemPedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.util.PaginacaoUtil;
 
 /**
  * Implementação das queries customizadas para {@link ItemPedido}.
@@ -32,22 +45,62 @@ public class CustomItemPedidoRepositoryImpl extends QuerydslRepositorySupport
 
 	private static QItemPedido itemPedido = QItemPedido.itemPedido;
 
+	// Valor do ItemPedido, em centavos, antes do arredondamento. Como valor_base e fator_desconto possuem
+	// duas casas decimais e o fator de aplicação é 1.00 ou 0.00, o resultado tem no máximo duas casas decimais.
+	private static final String VALOR_EM_CENTAVOS = "((:valorBase - :valorBase * p.fator_desconto * :fatorAplicacaoDesconto) * 100)";
+
+	// Arredondamento equivalente a RoundingMode.HALF_EVEN: em caso de empate, arredonda para o centavo par.
+	private static final String SQL_ATUALIZAR_VALOR_POR_ITEM_VENDA_E_PEDIDO_ABERTO = String.format(
+			"UPDATE pedido_simples.item_pedido"
+			+ " SET valor = ("
+			+ "  SELECT CAST((FLOOR(%1$s) + CASE"
+			+ "    WHEN %1$s - FLOOR(%1$s) > 0.5 THEN 1"
+			+ "    WHEN %1$s - FLOOR(%1$s) < 0.5 THEN 0"
+			+ "    ELSE MOD(FLOOR(%1$s), 2) END) / 100 AS NUMERIC(15, 2))"
+			+ "  FROM pedido_simples.pedido p"
+			+ "  WHERE p.id_pedido = item_pedido.pedido_id),"
+			+ " versao = versao + 1"
+			+ " WHERE item_venda_id = :itemVenda"
+			+ " AND pedido_id IN ("
+			+ "  SELECT id_pedido FROM pedido_simples.pedido"
+			+ "  WHERE situacao = :situacao)",
+			VALOR_EM_CENTAVOS);
+
+	private static final String SQL_ATUALIZAR_VALOR_POR_ITEM_VENDA_E_PEDIDOS_ABERTOS =
+			SQL_ATUALIZAR_VALOR_POR_ITEM_VENDA_E_PEDIDO_ABERTO
+			+ " AND pedido_id IN (:pedidos)";
+
 	CustomItemPedidoRepositoryImpl() {
 		super(ItemPedido.class);
 	}
 
 	@Override
 	public Page<ItemPedido> findByPedido(Pedido pedido, BooleanExpression predicate, Pageable pageable) {
+		JPQLQuery<ItemPedido> query = consultaPaginadaPorPedido(pedido, predicate, pageable);
+
+		// A contagem só é executada quando não é possível deduzir o total a partir da própria página
+		return PageableExecutionUtils.getPage(query.fetch(), pageable, query::fetchCount);
+	}
+
+	@Override
+	public Slice<ItemPedido> buscarFatiaPorPedido(Pedido pedido, BooleanExpression predicate, Pageable pageable) {
+		JPQLQuery<ItemPedido> query = consultaPaginadaPorPedido(pedido, predicate, pageable);
+
+		if (pageable.isPaged()) {
+			query.limit(pageable.getPageSize() + 1L);
+		}
+		return PaginacaoUtil.criarFatia(query.fetch(), pageable);
+	}
+
+	private JPQLQuery<ItemPedido> consultaPaginadaPorPedido(Pedido pedido, BooleanExpression predicate,
+			Pageable pageable) {
 		BooleanExpression comPedidoPredicate = predicate.and(itemPedido.pedido.eq(pedido));
 
-		JPQLQuery<ItemPedido> query = getQuerydsl()
+		return getQuerydsl()
 			.applyPagination(pageable, from(itemPedido)
 					.where(comPedidoPredicate)
 					.innerJoin(itemPedido.pedido).fetchJoin()
 					.innerJoin(itemPedido.itemVenda).fetchJoin());
-
-
-		return new PageImpl<ItemPedido>(query.fetch(), pageable, query.fetchCount());
 	}
 
 	@Override
@@ -59,6 +112,29 @@ public class CustomItemPedidoRepositoryImpl extends QuerydslRepositorySupport
 				.fetch();
 	}
 
+	@Override
+	public List<ItemPedido> findByPedido(Pedido pedido, BooleanExpression predicate, Optional<UUID> idApos, int limite) {
+		BooleanExpression comPedidoPredicate = predicate.and(itemPedido.pedido.eq(pedido));
+
+		return from(itemPedido)
+				.where(idApos.map(id -> comPedidoPredicate.and(itemPedido.id.gt(id)))
+						.orElse(comPedidoPredicate))
+				.innerJoin(itemPedido.pedido).fetchJoin()
+				.innerJoin(itemPedido.itemVenda).fetchJoin()
+				.orderBy(itemPedido.id.asc())
+				.limit(limite)
+				.fetch();
+	}
+
+	@Override
+	public long percorrerPorPedido(Pedido pedido, BooleanExpression predicate, Consumer<? super ItemPedido> consumidor) {
+		// O Pedido não faz parte da representação do ItemPedido, e por isso apenas o ItemVenda é carregado
+		return LeituraEmFluxo.percorrer(getEntityManager(), from(itemPedido)
+				.where(predicate.and(itemPedido.pedido.eq(pedido)))
+				.innerJoin(itemPedido.itemVenda).fetchJoin()
+				.orderBy(itemPedido.id.asc()), consumidor);
+	}
+
 	@Override
 	public Optional<ItemPedido> findById(UUID id) {
 		return Optional.ofNullable(from(itemPedido)
@@ -77,13 +153,35 @@ public class CustomItemPedidoRepositoryImpl extends QuerydslRepositorySupport
 	}
 
 	@Override
-	public List<ItemPedido> buscarPorItemVendaEPedidoAberto(ItemVenda itemVenda) {
-		return from(itemPedido)
-				.where(itemPedido.itemVenda.eq(itemVenda)
-						.and(itemPedido.pedido.situacao.eq(SituacaoPedido.ABERTO)))
-				.innerJoin(itemPedido.pedido).fetchJoin()
-				.innerJoin(itemPedido.itemVenda).fetchJoin()
-				.fetch();
+	public long atualizarValorPorItemVendaEPedidoAberto(ItemVenda itemVenda) {
+		return criarConsultaNativa(SQL_ATUALIZAR_VALOR_POR_ITEM_VENDA_E_PEDIDO_ABERTO)
+				.setParameter("valorBase", itemVenda.getValorBase())
+				.setParameter("fatorAplicacaoDesconto", itemVenda.getTipo().getFatorAplicacaoDesconto())
+				.setParameter("itemVenda", itemVenda.getId())
+				.setParameter("situacao", SituacaoPedido.ABERTO.getValor())
+				.executeUpdate();
+	}
+
+	@Override
+	public long atualizarValorPorItemVendaEPedidoAberto(ItemVenda itemVenda, Collection<UUID> idsPedido) {
+		return criarConsultaNativa(SQL_ATUALIZAR_VALOR_POR_ITEM_VENDA_E_PEDIDOS_ABERTOS)
+				.setParameter("valorBase", itemVenda.getValorBase())
+				.setParameter("fatorAplicacaoDesconto", itemVenda.getTipo().getFatorAplicacaoDesconto())
+				.setParameter("itemVenda", itemVenda.getId())
+				.setParameter("situacao", SituacaoPedido.ABERTO.getValor())
+				.setParameter("pedidos", idsPedido)
+				.executeUpdate();
+	}
+
+	/**
+	 * Cria uma consulta nativa que afeta apenas as tabelas de ItemPedido e Pedido. Sem essa indicação, o Hibernate
+	 * invalidaria todo o cache de segundo nível (como o catálogo de ItemVenda) a cada lote de Pedidos recalculado.
+	 */
+	private Query criarConsultaNativa(String sql) {
+		return getEntityManager().createNativeQuery(sql)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedEntityClass(ItemPedido.class)
+				.addSynchronizedEntityClass(Pedido.class);
 	}
 
 	@Override
@@ -101,4 +199,30 @@ public class CustomItemPedidoRepositoryImpl extends QuerydslRepositorySupport
 				.fetchCount();
 	}
 
+	@Override
+	public TotaisPedido totalizarPorPedido(Pedido pedido) {
+		return from(itemPedido)
+				.select(Projections.constructor(TotaisPedido.class,
+						itemPedido.count(), itemPedido.valor.sum().coalesce(new BigDecimal("0.00"))))
+				.where(itemPedido.pedido.eq(pedido))
+				.fetchOne();
+	}
+
+	@Override
+	public Map<UUID, TotaisPedido> totalizarPorPedidos(Collection<Pedido> pedidos) {
+		NumberExpression<Long> quantidadeItens = itemPedido.count();
+		NumberExpression<BigDecimal> valorTotal = itemPedido.valor.sum();
+
+		return from(itemPedido)
+				.select(itemPedido.pedido.id, quantidadeItens, valorTotal)
+				.where(itemPedido.pedido.in(pedidos))
+				.groupBy(itemPedido.pedido.id)
+				.fetch()
+				.stream()
+				.collect(Collectors.toMap(
+						tuple -> tuple.get(itemPedido.pedido.id),
+						tuple -> new TotaisPedido(tuple.get(quantidadeItens), tuple.get(valorTotal))
+					));
+	}
+
 }
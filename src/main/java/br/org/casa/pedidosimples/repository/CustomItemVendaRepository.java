@@ -0,0 +1,52 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+
+import br.org.casa.pedidosimples.model.EstatisticasCache;
+import br.org.casa.pedidosimples.model.ItemVenda;
+
+/**
+ * Interface para as queries customizadas que envolvem {@link ItemVenda}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface CustomItemVendaRepository {
+
+	List<ItemVenda> buscarPorCursor(BooleanExpression predicate, Optional<UUID> idApos, int limite);
+
+	Slice<ItemVenda> buscarFatia(BooleanExpression predicate, Pageable pageable);
+
+	/**
+	 * Percorre, em fluxo e na ordem de id, todos os ItemVenda que atendem ao predicado, sem carregá-los todos
+	 * em memória. Deve ser executado dentro de uma transação.
+	 *
+	 * @param predicate o predicado de busca
+	 * @param consumidor o consumidor de cada ItemVenda, que deve usá-lo imediatamente
+	 * @return a quantidade de ItemVenda percorridos
+	 */
+	long percorrer(BooleanExpression predicate, Consumer<? super ItemVenda> consumidor);
+
+	Optional<Long> estimarTotal();
+
+	/**
+	 * Remove um {@link ItemVenda} do cache de segundo nível, juntamente com os resultados de consultas
+	 * em cache que envolvam ItemVenda. Se houver uma transação em andamento, a remoção é feita após o seu commit.
+	 *
+	 * @param id o id do ItemVenda a ser removido
+	 */
+	void removerDoCache(UUID id);
+
+	EstatisticasCache buscarEstatisticasCache();
+}
@@ -0,0 +1,115 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPQLQuery;
+
+import br.org.casa.pedidosimples.model.EstatisticasCache;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.QItemVenda;
+import br.org.casa.pedidosimples.util.PaginacaoUtil;
+
+/**
+ * Implementação das queries customizadas para {@link ItemVenda}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class CustomItemVendaRepositoryImpl extends QuerydslRepositorySupport implements CustomItemVendaRepository {
+
+	private static QItemVenda itemVenda = QItemVenda.itemVenda;
+
+	private static final String TABELA = "item_venda";
+
+	CustomItemVendaRepositoryImpl() {
+		super(ItemVenda.class);
+	}
+
+	@Override
+	public List<ItemVenda> buscarPorCursor(BooleanExpression predicate, Optional<UUID> idApos, int limite) {
+		return from(itemVenda)
+				.where(idApos.map(id -> predicate.and(itemVenda.id.gt(id)))
+						.orElse(predicate))
+				.orderBy(itemVenda.id.asc())
+				.limit(limite)
+				.fetch();
+	}
+
+	@Override
+	public long percorrer(BooleanExpression predicate, Consumer<? super ItemVenda> consumidor) {
+		return LeituraEmFluxo.percorrer(getEntityManager(), from(itemVenda)
+				.where(predicate)
+				.orderBy(itemVenda.id.asc()), consumidor);
+	}
+
+	@Override
+	public Slice<ItemVenda> buscarFatia(BooleanExpression predicate, Pageable pageable) {
+		JPQLQuery<ItemVenda> query = getQuerydsl().applyPagination(pageable, from(itemVenda)
+				.where(predicate));
+
+		if (pageable.isPaged()) {
+			query.limit(pageable.getPageSize() + 1L);
+		}
+		return PaginacaoUtil.criarFatia(query.fetch(), pageable);
+	}
+
+	@Override
+	public Optional<Long> estimarTotal() {
+		return EstimativaRegistros.estimar(getEntityManager(), TABELA);
+	}
+
+	@Override
+	public void removerDoCache(UUID id) {
+		SessionFactory sessionFactory = getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class);
+
+		// Com uma transação em andamento, a remoção é feita após o commit. Antes dele, o Hibernate ainda
+		// reinsere no cache o estado alterado na transação, e outras transações ainda podem ler o estado anterior
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					removerDoCache(sessionFactory, id);
+				}
+			});
+		} else {
+			removerDoCache(sessionFactory, id);
+		}
+	}
+
+	private static void removerDoCache(SessionFactory sessionFactory, UUID id) {
+		sessionFactory.getCache().evictEntityData(ItemVenda.class, id);
+		sessionFactory.getCache().evictDefaultQueryRegion();
+	}
+
+	@Override
+	public EstatisticasCache buscarEstatisticasCache() {
+		SessionFactory sessionFactory = getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class);
+		Statistics estatisticas = sessionFactory.getStatistics();
+
+		// A região só existe com o cache de segundo nível habilitado
+		if (!sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+			return new EstatisticasCache(0L, 0L, 0L, 0L, 0L);
+		}
+
+		CacheRegionStatistics regiao = estatisticas.getDomainDataRegionStatistics(ItemVenda.REGIAO_CACHE);
+		return new EstatisticasCache(regiao.getHitCount(), regiao.getMissCount(), regiao.getPutCount(),
+				estatisticas.getQueryCacheHitCount(), estatisticas.getQueryCacheMissCount());
+	}
+
+}
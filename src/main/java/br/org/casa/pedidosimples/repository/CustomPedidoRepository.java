@@ -0,0 +1,142 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+
+import br.org.casa.pedidosimples.model.CabecalhoPedido;
+import br.org.casa.pedidosimples.model.DivergenciaValorTotal;
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+
+/**
+ * Interface para as queries customizadas que envolvem {@link Pedido}, principalmente as de manutenção
+ * do valor total a partir dos {@link ItemPedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface CustomPedidoRepository {
+
+	/**
+	 * Soma um valor ao valor total de um Pedido, desde que o fator de desconto e a situação gravados ainda
+	 * sejam os do Pedido informado, a partir dos quais o valor foi calculado. A versão do Pedido é incrementada.
+	 *
+	 * @param pedido o Pedido a ser atualizado
+	 * @param valor o valor a ser somado ao valor total
+	 * @return a quantidade de registros atualizados: zero caso o Pedido tenha sido alterado ou excluído
+	 */
+	long adicionarValorTotal(Pedido pedido, BigDecimal valor);
+
+	long atualizarValorTotal(Pedido pedido, BigDecimal valorTotal);
+
+	long recalcularValorTotalPorItemVendaEPedidoAberto(ItemVenda itemVenda);
+
+	long recalcularValorTotalPorIdsEPedidoAberto(Collection<UUID> ids);
+
+	/**
+	 * Incrementa a versão de um Pedido, desde que o fator de desconto e a situação gravados ainda sejam os do
+	 * Pedido informado. Além de verificar que o Pedido não foi alterado desde a sua leitura, a atualização
+	 * bloqueia o registro até o fim da transação, de modo que as alterações concorrentes do valor total
+	 * aguardem a sua conclusão. As alterações apenas do valor total, que também incrementam a versão, não
+	 * invalidam a leitura.
+	 *
+	 * @param pedido o Pedido, com o fator de desconto e a situação lidos
+	 * @return a quantidade de registros atualizados: zero caso o Pedido tenha sido alterado ou excluído
+	 */
+	long incrementarVersao(Pedido pedido);
+
+	/**
+	 * Busca os Pedidos em aberto que possuam ItemPedido associados ao {@link ItemVenda} informado.
+	 *
+	 * @param itemVenda o ItemVenda
+	 * @return os Pedidos em aberto com itens do ItemVenda
+	 */
+	List<Pedido> buscarAbertosPorItemVenda(ItemVenda itemVenda);
+
+	/**
+	 * Busca os Pedidos em aberto dentre os informados.
+	 *
+	 * @param ids os ids dos Pedidos
+	 * @return os Pedidos em aberto dentre os informados
+	 */
+	List<Pedido> buscarAbertosPorIds(Collection<UUID> ids);
+
+	/**
+	 * Incrementa a versão dos Pedidos em aberto dentre os informados, bloqueando os registros até o fim da
+	 * transação.
+	 *
+	 * @param ids os ids dos Pedidos
+	 * @return a quantidade de registros atualizados
+	 */
+	long incrementarVersaoPorIdsEPedidoAberto(Collection<UUID> ids);
+
+	List<DivergenciaValorTotal> buscarDivergenciasValorTotal();
+
+	long recalcularValorTotalComDivergencia();
+
+	List<Pedido> buscarPorCursor(BooleanExpression predicate, Optional<String> codigoApos, int limite);
+
+	Slice<Pedido> buscarFatia(BooleanExpression predicate, Pageable pageable);
+
+	/**
+	 * Percorre, em fluxo e na ordem de código, todos os Pedidos que atendem ao predicado, sem carregá-los todos
+	 * em memória. Deve ser executado dentro de uma transação.
+	 *
+	 * @param predicate o predicado de busca
+	 * @param consumidor o consumidor de cada Pedido, que deve usá-lo imediatamente
+	 * @return a quantidade de Pedidos percorridos
+	 */
+	long percorrer(BooleanExpression predicate, Consumer<? super Pedido> consumidor);
+
+	Optional<Long> estimarTotal();
+
+	/**
+	 * Busca o {@link CabecalhoPedido} de um Pedido, consultando apenas as colunas do cabeçalho. O resultado
+	 * é mantido em cache, e deve ser removido dele a cada alteração do Pedido.
+	 *
+	 * @param id o id do Pedido
+	 * @return o cabeçalho do Pedido, ou um Optional vazio caso ele não exista (o que não é armazenado em cache)
+	 */
+	@Cacheable(cacheNames = CabecalhoPedido.NOME_CACHE, key = "#id", unless = "#result == null")
+	Optional<CabecalhoPedido> buscarCabecalho(UUID id);
+
+	/**
+	 * Remove o {@link CabecalhoPedido} de um Pedido do cache imediatamente, mesmo com uma transação em
+	 * andamento, para os casos em que ele se mostrou desatualizado e a transação será desfeita.
+	 *
+	 * @param id o id do Pedido
+	 */
+	@CacheEvict(cacheNames = CabecalhoPedido.NOME_CACHE, key = "#id", beforeInvocation = true)
+	void removerCabecalhoDoCache(UUID id);
+
+	/**
+	 * Busca apenas a versão atual de um Pedido, sem uso de cache, para a verificação de requisições condicionais.
+	 *
+	 * @param id o id do Pedido
+	 * @return a versão do Pedido, ou um Optional vazio caso ele não exista
+	 */
+	Optional<Long> buscarVersao(UUID id);
+
+	/**
+	 * Busca apenas o valor total atual de um Pedido, sem uso de cache, para as notificações de alteração.
+	 *
+	 * @param id o id do Pedido
+	 * @return o valor total do Pedido, ou um Optional vazio caso ele não exista
+	 */
+	Optional<BigDecimal> buscarValorTotal(UUID id);
+}
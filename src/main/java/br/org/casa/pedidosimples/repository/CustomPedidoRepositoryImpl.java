@@ -0,0 +1,263 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+
+import com.querydsl.core.types.Projections;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+
+import br.org.casa.pedidosimples.model.CabecalhoPedido;
+import br.org.casa.pedidosimples.model.DivergenciaValorTotal;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.QItemPedido;
+import br.org.casa.pedidosimples.model.QPedido;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.util.PaginacaoUtil;
+
+/**
+ * Implementação das queries customizadas para {@link Pedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class CustomPedidoRepositoryImpl extends QuerydslRepositorySupport implements CustomPedidoRepository {
+
+	private static QPedido pedido = QPedido.pedido;
+
+	private static QItemPedido itemPedido = QItemPedido.itemPedido;
+
+	private static final String TABELA = "pedido";
+
+	CustomPedidoRepositoryImpl() {
+		super(Pedido.class);
+	}
+
+	@Override
+	public long adicionarValorTotal(Pedido pedidoAtualizado, BigDecimal valor) {
+		long atualizados = update(pedido)
+				.set(pedido.valorTotal, pedido.valorTotal.add(valor))
+				.set(pedido.versao, pedido.versao.add(1L))
+				.where(mesmoEstado(pedidoAtualizado))
+				.execute();
+
+		sincronizarGerenciado(pedidoAtualizado);
+		return atualizados;
+	}
+
+	@Override
+	public long atualizarValorTotal(Pedido pedidoAtualizado, BigDecimal valorTotal) {
+		long atualizados = update(pedido)
+				.set(pedido.valorTotal, valorTotal)
+				.set(pedido.versao, pedido.versao.add(1L))
+				.where(pedido.eq(pedidoAtualizado))
+				.execute();
+
+		sincronizarGerenciado(pedidoAtualizado);
+		return atualizados;
+	}
+
+	@Override
+	public long recalcularValorTotalPorItemVendaEPedidoAberto(ItemVenda itemVenda) {
+		return update(pedido)
+				.set(pedido.valorTotal, somaValoresItensPedido())
+				.set(pedido.versao, pedido.versao.add(1L))
+				.where(abertoComItemVenda(itemVenda))
+				.execute();
+	}
+
+	@Override
+	public long recalcularValorTotalPorIdsEPedidoAberto(Collection<UUID> ids) {
+		return update(pedido)
+				.set(pedido.valorTotal, somaValoresItensPedido())
+				.set(pedido.versao, pedido.versao.add(1L))
+				.where(abertoComId(ids))
+				.execute();
+	}
+
+	@Override
+	public long incrementarVersao(Pedido pedidoAtualizado) {
+		long atualizados = update(pedido)
+				.set(pedido.versao, pedido.versao.add(1L))
+				.where(mesmoEstado(pedidoAtualizado))
+				.execute();
+
+		sincronizarGerenciado(pedidoAtualizado);
+		return atualizados;
+	}
+
+	@Override
+	public long incrementarVersaoPorIdsEPedidoAberto(Collection<UUID> ids) {
+		return update(pedido)
+				.set(pedido.versao, pedido.versao.add(1L))
+				.where(abertoComId(ids))
+				.execute();
+	}
+
+	@Override
+	public List<Pedido> buscarAbertosPorItemVenda(ItemVenda itemVenda) {
+		return from(pedido)
+				.where(abertoComItemVenda(itemVenda))
+				.fetch();
+	}
+
+	@Override
+	public List<Pedido> buscarAbertosPorIds(Collection<UUID> ids) {
+		return from(pedido)
+				.where(abertoComId(ids))
+				.fetch();
+	}
+
+	@Override
+	public List<DivergenciaValorTotal> buscarDivergenciasValorTotal() {
+		return from(pedido)
+				.select(Projections.constructor(DivergenciaValorTotal.class,
+						pedido.id, pedido.codigo, pedido.valorTotal, somaValoresItensPedido()))
+				.where(pedido.valorTotal.ne(somaValoresItensPedido()))
+				.orderBy(pedido.codigo.asc())
+				.fetch();
+	}
+
+	@Override
+	public long recalcularValorTotalComDivergencia() {
+		return update(pedido)
+				.set(pedido.valorTotal, somaValoresItensPedido())
+				.set(pedido.versao, pedido.versao.add(1L))
+				.where(pedido.valorTotal.ne(somaValoresItensPedido()))
+				.execute();
+	}
+
+	/**
+	 * Condição que restringe a atualização ao Pedido informado, desde que o fator de desconto e a situação
+	 * gravados ainda sejam os lidos, dos quais dependem os valores dos seus ItemPedido.
+	 */
+	private static BooleanExpression mesmoEstado(Pedido pedidoAtualizado) {
+		return pedido.eq(pedidoAtualizado)
+				.and(pedido.fatorDesconto.eq(pedidoAtualizado.getFatorDesconto()))
+				.and(pedido.situacao.eq(pedidoAtualizado.getSituacao()));
+	}
+
+	/**
+	 * Condição que restringe a consulta ou atualização aos Pedidos em aberto com ItemPedido associados ao
+	 * ItemVenda informado.
+	 */
+	private static BooleanExpression abertoComItemVenda(ItemVenda itemVenda) {
+		return pedido.situacao.eq(SituacaoPedido.ABERTO)
+				.and(pedido.id.in(JPAExpressions.select(itemPedido.pedido.id)
+						.from(itemPedido)
+						.where(itemPedido.itemVenda.eq(itemVenda))));
+	}
+
+	/**
+	 * Condição que restringe a consulta ou atualização aos Pedidos em aberto dentre os informados.
+	 */
+	private static BooleanExpression abertoComId(Collection<UUID> ids) {
+		return pedido.situacao.eq(SituacaoPedido.ABERTO)
+				.and(pedido.id.in(ids));
+	}
+
+	/**
+	 * Recarrega a instância do Pedido gerenciada pelo contexto de persistência, se houver, após uma atualização
+	 * direta no banco. Sem isso, a versão em memória ficaria defasada e a próxima alteração do Pedido na mesma
+	 * transação falharia na verificação de concorrência otimista. A instância informada pode não ser a
+	 * gerenciada, como no caso dos Pedidos obtidos a partir do cabeçalho.
+	 */
+	private void sincronizarGerenciado(Pedido pedidoAtualizado) {
+		EntityManager entityManager = getEntityManager();
+		// Retorna a instância já gerenciada, se houver, ou um proxy não inicializado, sem consulta ao banco
+		Pedido gerenciado = entityManager.getReference(Pedido.class, pedidoAtualizado.getId());
+
+		if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(gerenciado)) {
+			entityManager.refresh(gerenciado);
+		}
+	}
+
+	/**
+	 * Subquery correlacionada que retorna a soma dos valores dos ItemPedido do Pedido corrente,
+	 * ou zero caso ele não possua itens.
+	 */
+	private JPQLQuery<BigDecimal> somaValoresItensPedido() {
+		return JPAExpressions.select(itemPedido.valor.sum().coalesce(new BigDecimal("0.00")))
+				.from(itemPedido)
+				.where(itemPedido.pedido.eq(pedido));
+	}
+
+	@Override
+	public List<Pedido> buscarPorCursor(BooleanExpression predicate, Optional<String> codigoApos, int limite) {
+		return from(pedido)
+				.where(codigoApos.map(codigo -> predicate.and(pedido.codigo.gt(codigo)))
+						.orElse(predicate))
+				.orderBy(pedido.codigo.asc())
+				.limit(limite)
+				.fetch();
+	}
+
+	@Override
+	public Slice<Pedido> buscarFatia(BooleanExpression predicate, Pageable pageable) {
+		JPQLQuery<Pedido> query = getQuerydsl().applyPagination(pageable, from(pedido)
+				.where(predicate));
+
+		if (pageable.isPaged()) {
+			query.limit(pageable.getPageSize() + 1L);
+		}
+		return PaginacaoUtil.criarFatia(query.fetch(), pageable);
+	}
+
+	@Override
+	public long percorrer(BooleanExpression predicate, Consumer<? super Pedido> consumidor) {
+		return LeituraEmFluxo.percorrer(getEntityManager(), from(pedido)
+				.where(predicate)
+				.orderBy(pedido.codigo.asc()), consumidor);
+	}
+
+	@Override
+	public Optional<Long> estimarTotal() {
+		return EstimativaRegistros.estimar(getEntityManager(), TABELA);
+	}
+
+	@Override
+	public Optional<CabecalhoPedido> buscarCabecalho(UUID id) {
+		return Optional.ofNullable(from(pedido)
+				.select(Projections.constructor(CabecalhoPedido.class,
+						pedido.id, pedido.codigo, pedido.fatorDesconto, pedido.situacao, pedido.versao))
+				.where(pedido.id.eq(id))
+				.fetchOne());
+	}
+
+	@Override
+	public void removerCabecalhoDoCache(UUID id) {
+		// A remoção é feita pelo cache, de acordo com a anotação do método na interface
+	}
+
+	@Override
+	public Optional<Long> buscarVersao(UUID id) {
+		return Optional.ofNullable(from(pedido)
+				.select(pedido.versao)
+				.where(pedido.id.eq(id))
+				.fetchOne());
+	}
+
+	@Override
+	public Optional<BigDecimal> buscarValorTotal(UUID id) {
+		return Optional.ofNullable(from(pedido)
+				.select(pedido.valorTotal)
+				.where(pedido.id.eq(id))
+				.fetchOne());
+	}
+
+}
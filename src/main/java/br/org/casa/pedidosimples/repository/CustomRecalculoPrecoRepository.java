@@ -0,0 +1,68 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+
+/**
+ * Interface para as queries customizadas que envolvem {@link RecalculoPreco}, principalmente as de manutenção
+ * dos {@link Pedido}s pendentes de cada recálculo.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface CustomRecalculoPrecoRepository {
+
+	/**
+	 * Registra como pendentes do recálculo, em um único INSERT, todos os Pedidos em aberto que possuem
+	 * ItemPedido associados ao ItemVenda do recálculo. O recálculo já deve ter sido gravado.
+	 *
+	 * @param recalculoPreco o recálculo
+	 * @return a quantidade de Pedidos registrados
+	 */
+	long registrarPedidosPendentes(RecalculoPreco recalculoPreco);
+
+	/**
+	 * Busca os ids dos próximos Pedidos pendentes do recálculo, ordenados pelo id.
+	 *
+	 * @param recalculoPreco o recálculo
+	 * @param limite quantidade máxima de ids retornados
+	 * @return os ids dos Pedidos pendentes, ou uma lista vazia caso não haja mais pendências
+	 */
+	List<UUID> buscarPedidosPendentes(RecalculoPreco recalculoPreco, int limite);
+
+	/**
+	 * Remove os Pedidos informados das pendências do recálculo, somando a quantidade efetivamente removida
+	 * aos Pedidos processados. Os Pedidos já removidos por outra transação (no seu fechamento) não são contados.
+	 *
+	 * @param recalculoPreco o recálculo
+	 * @param idsPedido os ids dos Pedidos recalculados
+	 * @return a quantidade de Pedidos removidos das pendências
+	 */
+	long removerPedidosPendentes(RecalculoPreco recalculoPreco, Collection<UUID> idsPedido);
+
+	/**
+	 * Remove o Pedido informado das pendências de todos os recálculos, somando-o aos Pedidos processados
+	 * de cada um deles.
+	 *
+	 * @param pedido o Pedido recalculado
+	 * @return a quantidade de recálculos em que o Pedido estava pendente
+	 */
+	long removerPedidoPendente(Pedido pedido);
+
+	/**
+	 * Marca o recálculo como concluído, desde que ele não possua mais Pedidos pendentes.
+	 *
+	 * @param recalculoPreco o recálculo
+	 * @return a quantidade de registros atualizados: zero caso ainda haja Pedidos pendentes
+	 */
+	long concluir(RecalculoPreco recalculoPreco);
+
+	long registrarFalha(RecalculoPreco recalculoPreco);
+}
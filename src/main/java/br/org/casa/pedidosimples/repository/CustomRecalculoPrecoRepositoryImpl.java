@@ -0,0 +1,161 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.persistence.Query;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.jpa.repository.support.QuerydslRepositorySupport;
+
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.QRecalculoPreco;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco;
+
+/**
+ * Implementação das queries customizadas para {@link RecalculoPreco}. Os Pedidos pendentes de cada recálculo
+ * não são mapeados como entidade, e por isso são mantidos através de SQL nativo.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class CustomRecalculoPrecoRepositoryImpl extends QuerydslRepositorySupport
+	implements CustomRecalculoPrecoRepository {
+
+	private static QRecalculoPreco recalculoPreco = QRecalculoPreco.recalculoPreco;
+
+	private static final String SQL_REGISTRAR_PEDIDOS_PENDENTES =
+			"INSERT INTO pedido_simples.recalculo_preco_pedido (recalculo_preco_id, pedido_id)"
+			+ " SELECT DISTINCT :recalculoPreco, ip.pedido_id"
+			+ " FROM pedido_simples.item_pedido ip"
+			+ " JOIN pedido_simples.pedido p ON p.id_pedido = ip.pedido_id"
+			+ " WHERE ip.item_venda_id = :itemVenda"
+			+ " AND p.situacao = :situacao";
+
+	// O id é retornado como texto, pois o tipo retornado pela consulta nativa para colunas uuid varia conforme o driver
+	private static final String SQL_BUSCAR_PEDIDOS_PENDENTES =
+			"SELECT CAST(pedido_id AS varchar) FROM pedido_simples.recalculo_preco_pedido"
+			+ " WHERE recalculo_preco_id = :recalculoPreco"
+			+ " ORDER BY pedido_id"
+			+ " LIMIT :limite";
+
+	private static final String SQL_REMOVER_PEDIDOS_PENDENTES =
+			"DELETE FROM pedido_simples.recalculo_preco_pedido"
+			+ " WHERE recalculo_preco_id = :recalculoPreco"
+			+ " AND pedido_id IN (:pedidos)";
+
+	private static final String SQL_ADICIONAR_PEDIDO_PROCESSADO =
+			"UPDATE pedido_simples.recalculo_preco"
+			+ " SET pedidos_processados = pedidos_processados + 1, versao = versao + 1"
+			+ " WHERE id_recalculo_preco IN ("
+			+ "  SELECT recalculo_preco_id FROM pedido_simples.recalculo_preco_pedido"
+			+ "  WHERE pedido_id = :pedido)";
+
+	private static final String SQL_REMOVER_PEDIDO_PENDENTE =
+			"DELETE FROM pedido_simples.recalculo_preco_pedido"
+			+ " WHERE pedido_id = :pedido";
+
+	private static final String SQL_CONCLUIR =
+			"UPDATE pedido_simples.recalculo_preco"
+			+ " SET situacao = :situacao, data_conclusao = :dataConclusao, versao = versao + 1"
+			+ " WHERE id_recalculo_preco = :recalculoPreco"
+			+ " AND NOT EXISTS ("
+			+ "  SELECT 1 FROM pedido_simples.recalculo_preco_pedido"
+			+ "  WHERE recalculo_preco_id = :recalculoPreco)";
+
+	/**
+	 * Construtor padrão.
+	 */
+	public CustomRecalculoPrecoRepositoryImpl() {
+		super(RecalculoPreco.class);
+	}
+
+	@Override
+	public long registrarPedidosPendentes(RecalculoPreco recalculo) {
+		return criarConsultaNativa(SQL_REGISTRAR_PEDIDOS_PENDENTES)
+				.setParameter("recalculoPreco", recalculo.getId())
+				.setParameter("itemVenda", recalculo.getIdItemVenda())
+				.setParameter("situacao", SituacaoPedido.ABERTO.getValor())
+				.executeUpdate();
+	}
+
+	@Override
+	public List<UUID> buscarPedidosPendentes(RecalculoPreco recalculo, int limite) {
+		return ((List<?>) criarConsultaNativa(SQL_BUSCAR_PEDIDOS_PENDENTES)
+				.setParameter("recalculoPreco", recalculo.getId())
+				.setParameter("limite", limite)
+				.getResultList())
+			.stream()
+			.map(id -> UUID.fromString(id.toString()))
+			.collect(Collectors.toList());
+	}
+
+	@Override
+	public long removerPedidosPendentes(RecalculoPreco recalculo, Collection<UUID> idsPedido) {
+		long removidos = criarConsultaNativa(SQL_REMOVER_PEDIDOS_PENDENTES)
+				.setParameter("recalculoPreco", recalculo.getId())
+				.setParameter("pedidos", idsPedido)
+				.executeUpdate();
+
+		if (removidos > 0L) {
+			update(recalculoPreco)
+				.set(recalculoPreco.pedidosProcessados, recalculoPreco.pedidosProcessados.add(removidos))
+				.set(recalculoPreco.versao, recalculoPreco.versao.add(1L))
+				.where(recalculoPreco.eq(recalculo))
+				.execute();
+		}
+		return removidos;
+	}
+
+	@Override
+	public long removerPedidoPendente(Pedido pedido) {
+		long recalculos = criarConsultaNativa(SQL_ADICIONAR_PEDIDO_PROCESSADO)
+				.setParameter("pedido", pedido.getId())
+				.executeUpdate();
+
+		if (recalculos > 0L) {
+			criarConsultaNativa(SQL_REMOVER_PEDIDO_PENDENTE)
+				.setParameter("pedido", pedido.getId())
+				.executeUpdate();
+		}
+		return recalculos;
+	}
+
+	@Override
+	public long concluir(RecalculoPreco recalculo) {
+		return criarConsultaNativa(SQL_CONCLUIR)
+				.setParameter("situacao", SituacaoRecalculoPreco.CONCLUIDO.getValor())
+				.setParameter("dataConclusao", Instant.now())
+				.setParameter("recalculoPreco", recalculo.getId())
+				.executeUpdate();
+	}
+
+	@Override
+	public long registrarFalha(RecalculoPreco recalculo) {
+		return update(recalculoPreco)
+				.set(recalculoPreco.situacao, SituacaoRecalculoPreco.FALHA)
+				.set(recalculoPreco.versao, recalculoPreco.versao.add(1L))
+				.where(recalculoPreco.eq(recalculo)
+						.and(recalculoPreco.situacao.eq(SituacaoRecalculoPreco.EM_ANDAMENTO)))
+				.execute();
+	}
+
+	/**
+	 * Cria uma consulta nativa que afeta apenas as tabelas de recálculo. Sem essa indicação, o Hibernate
+	 * invalidaria todo o cache de segundo nível (como o catálogo de ItemVenda) a cada atualização nativa.
+	 */
+	private Query criarConsultaNativa(String sql) {
+		return getEntityManager().createNativeQuery(sql)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedEntityClass(RecalculoPreco.class);
+	}
+
+}
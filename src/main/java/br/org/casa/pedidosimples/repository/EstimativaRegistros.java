@@ -0,0 +1,44 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+
+/**
+ * Consulta à view estimativa_registros, que expõe o número estimado de registros de cada tabela a partir das
+ * estatísticas do banco de dados. A view é criada por migrações específicas de cada banco (db/vendor).
+ *
+ * @author jrjosecarlos
+ *
+ */
+class EstimativaRegistros {
+
+	private static final String SQL_ESTIMAR_TOTAL = "SELECT registros FROM pedido_simples.estimativa_registros"
+			+ " WHERE tabela = :tabela";
+
+	private EstimativaRegistros() {
+		// Construtor padrão privado, por se tratar de uma classe utilitária
+	}
+
+	/**
+	 * Retorna o número estimado de registros de uma tabela.
+	 *
+	 * @param entityManager o EntityManager utilizado na consulta
+	 * @param tabela o nome da tabela, sem o schema
+	 * @return um Optional com a estimativa, ou vazio se não houver estatísticas disponíveis
+	 */
+	static Optional<Long> estimar(EntityManager entityManager, String tabela) {
+		List<?> resultado = entityManager.createNativeQuery(SQL_ESTIMAR_TOTAL)
+				.setParameter("tabela", tabela)
+				.getResultList();
+
+		return resultado.stream()
+				.filter(Number.class::isInstance)
+				.map(registros -> ((Number) registros).longValue())
+				.findFirst();
+	}
+}
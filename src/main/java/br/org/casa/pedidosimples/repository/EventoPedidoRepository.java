@@ -0,0 +1,23 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+
+/**
+ * Definição de repositório para {@link EventoPedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface EventoPedidoRepository extends JpaRepository<EventoPedido, Long> {
+
+	List<EventoPedido> findByOrderByIdAsc(Pageable pageable);
+
+}
@@ -47,6 +47,15 @@ public class ItemVendaPredicateBuilder {
 		this.mapaParametros = mapaParametros;
 	}
 
+	/**
+	 * Indica se não há nenhum critério de busca a ser aplicado.
+	 *
+	 * @return {@code true} se nenhum parâmetro válido foi informado, {@code false} caso contrário
+	 */
+	public boolean isVazio() {
+		return this.mapaParametros.isEmpty();
+	}
+
 	/**
 	 * Cria o conjunto de predicados correspondente ao mapa de parâmetros informado.
 	 *
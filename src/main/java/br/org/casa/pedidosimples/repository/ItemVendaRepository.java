@@ -3,8 +3,12 @@
  */
 package br.org.casa.pedidosimples.repository;
 
+import java.util.List;
 import java.util.UUID;
 
+import javax.persistence.QueryHint;
+
+import org.hibernate.annotations.QueryHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
 
@@ -16,6 +20,15 @@ import br.org.casa.pedidosimples.model.ItemVenda;
  * @author jrjosecarlos
  *
  */
-public interface ItemVendaRepository extends JpaRepository<ItemVenda, UUID>, QuerydslPredicateExecutor<ItemVenda> {
+public interface ItemVendaRepository extends JpaRepository<ItemVenda, UUID>, QuerydslPredicateExecutor<ItemVenda>,
+	CustomItemVendaRepository {
+
+	/**
+	 * Busca os {@link ItemVenda}s com os ids informados. O resultado é mantido no cache de consultas
+	 * do Hibernate, invalidado a cada alteração em ItemVenda.
+	 */
+	@Override
+	@org.springframework.data.jpa.repository.QueryHints(@QueryHint(name = QueryHints.CACHEABLE, value = "true"))
+	List<ItemVenda> findAllById(Iterable<UUID> ids);
 
 }
@@ -0,0 +1,66 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.QueryHints;
+
+import com.mysema.commons.lang.CloseableIterator;
+import com.querydsl.jpa.JPQLQuery;
+import com.querydsl.jpa.impl.AbstractJPAQuery;
+
+/**
+ * Leitura dos resultados de uma consulta em fluxo, por um cursor somente para frente, sem carregar todos os
+ * registros em memória. Os registros são buscados do banco em lotes, e o contexto de persistência é limpo a cada
+ * lote, de modo que as entidades já entregues ao consumidor não se acumulam durante a leitura.
+ *
+ * @author jrjosecarlos
+ *
+ */
+class LeituraEmFluxo {
+
+	static final int TAMANHO_LOTE = 100;
+
+	private LeituraEmFluxo() {
+		// Construtor padrão privado, por se tratar de uma classe utilitária
+	}
+
+	/**
+	 * Percorre os resultados de uma consulta, entregando cada um ao consumidor na ordem da consulta. As
+	 * entidades entregues podem ser desanexadas do contexto de persistência logo após o consumo, de modo que o
+	 * consumidor deve usá-las imediatamente, sem acessar associações não carregadas pela consulta. Deve ser
+	 * executado dentro de uma transação, que mantém o cursor aberto no banco (no PostgreSQL, o tamanho do lote
+	 * só é respeitado nessas condições).
+	 *
+	 * @param <T> o tipo dos resultados
+	 * @param entityManager o EntityManager da consulta
+	 * @param query a consulta, criada por {@link org.springframework.data.jpa.repository.support.QuerydslRepositorySupport}
+	 * @param consumidor o consumidor dos resultados
+	 * @return a quantidade de resultados percorridos
+	 */
+	static <T> long percorrer(EntityManager entityManager, JPQLQuery<T> query, Consumer<? super T> consumidor) {
+		// As consultas do QuerydslRepositorySupport são sempre JPAQuery, que permite informar o tamanho do lote.
+		// O cache de segundo nível é consultado, mas não populado pelos registros percorridos
+		((AbstractJPAQuery<?, ?>) query)
+			.setHint(QueryHints.HINT_FETCH_SIZE, TAMANHO_LOTE)
+			.setHint(QueryHints.HINT_CACHE_MODE, CacheMode.GET);
+
+		long total = 0L;
+		try (CloseableIterator<T> resultados = query.iterate()) {
+			while (resultados.hasNext()) {
+				consumidor.accept(resultados.next());
+				if (++total % TAMANHO_LOTE == 0) {
+					entityManager.clear();
+				}
+			}
+		}
+		entityManager.clear();
+
+		return total;
+	}
+}
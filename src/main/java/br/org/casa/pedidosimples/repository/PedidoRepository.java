@@ -16,6 +16,7 @@ import br.org.casa.pedidosimples.model.Pedido;
  * @author jrjosecarlos
  *
  */
-public interface PedidoRepository extends JpaRepository<Pedido, UUID>, QuerydslPredicateExecutor<Pedido> {
+public interface PedidoRepository extends JpaRepository<Pedido, UUID>, QuerydslPredicateExecutor<Pedido>,
+	CustomPedidoRepository {
 
 }
@@ -0,0 +1,27 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco;
+
+/**
+ * Definição de repositório para {@link RecalculoPreco}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface RecalculoPrecoRepository extends JpaRepository<RecalculoPreco, UUID>, CustomRecalculoPrecoRepository {
+
+	Optional<RecalculoPreco> findFirstByIdItemVendaOrderByDataCriacaoDesc(UUID idItemVenda);
+
+	List<RecalculoPreco> findBySituacaoNot(SituacaoRecalculoPreco situacao);
+
+}
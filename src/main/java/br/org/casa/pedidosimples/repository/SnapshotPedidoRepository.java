@@ -0,0 +1,20 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import br.org.casa.pedidosimples.model.SnapshotPedido;
+
+/**
+ * Definição de repositório para {@link SnapshotPedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface SnapshotPedidoRepository extends JpaRepository<SnapshotPedido, UUID> {
+
+}
@@ -0,0 +1,28 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service;
+
+import java.util.List;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+
+/**
+ * Destino para o qual os {@link EventoPedido}s são enviados pelo {@link EventoPedidoService}, como um
+ * arquivo ou um broker de mensagens. A implementação usada é definida pela propriedade
+ * pedido-simples.evento-pedido.destino.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface DestinoEventoPedido {
+
+	/**
+	 * Envia um lote de eventos, na ordem informada. O envio deve ser concluído antes do retorno: caso não seja
+	 * possível enviar o lote, deve ser lançada uma exceção, e todo o lote será enviado novamente.
+	 *
+	 * @param eventos os eventos a serem enviados
+	 */
+	void enviar(List<EventoPedido> eventos);
+
+}
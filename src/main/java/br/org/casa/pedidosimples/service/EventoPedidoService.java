@@ -0,0 +1,54 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service;
+
+import java.util.List;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+
+/**
+ * Interface de serviços para {@link EventoPedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface EventoPedidoService {
+
+	/**
+	 * Registra um evento do ciclo de vida de um {@link Pedido}, com o seu estado atual.
+	 *
+	 * @param tipo o tipo do evento
+	 * @param pedido o Pedido ao qual o evento se refere
+	 * @return o evento registrado
+	 * @apiNote Este método possui uso interno à camada de Serviço, e deve ser chamado na transação da
+	 * operação que originou o evento, de modo que o evento seja gravado se, e somente se, a operação o for.
+	 */
+	EventoPedido registrar(TipoEventoPedido tipo, Pedido pedido);
+
+	/**
+	 * Registra um único evento para os {@link ItemPedido}s de um Pedido afetados por uma mesma operação,
+	 * com o seu estado atual.
+	 *
+	 * @param tipo o tipo do evento
+	 * @param pedido o Pedido dos itens
+	 * @param itensPedido os itens aos quais o evento se refere
+	 * @return o evento registrado
+	 * @apiNote Este método possui uso interno à camada de Serviço, e deve ser chamado na transação da
+	 * operação que originou o evento.
+	 */
+	EventoPedido registrar(TipoEventoPedido tipo, Pedido pedido, List<ItemPedido> itensPedido);
+
+	/**
+	 * Envia os eventos pendentes ao {@link DestinoEventoPedido}, em lotes e na ordem em que foram registrados.
+	 * Cada lote é removido na mesma transação em que é enviado, de modo que um lote cujo envio falhe seja
+	 * enviado novamente na próxima execução (entrega ao menos uma vez).
+	 *
+	 * @return a quantidade de eventos enviados
+	 */
+	long enviarPendentes();
+
+}
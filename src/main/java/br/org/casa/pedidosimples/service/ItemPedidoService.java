@@ -3,20 +3,28 @@
  */
 package br.org.casa.pedidosimples.service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
 
 /**
  * Contrato para os serviços relacionados a {@link ItemPedido}.
@@ -32,13 +40,48 @@ public interface ItemPedidoService {
 	 * @param uuidPedido uuid do Pedido que se deseja buscar os itens
 	 * @param pageable interface de definição da paginação da busca
 	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
-	 * @return um {@link Page} contendo os registros da página atual, de acordo com os parâmetros de busca
+	 * @param modoContagem forma de obtenção do total de registros. Se {@link ModoContagem#NENHUMA}, é retornado um
+	 * {@link Slice} sem total; nos demais casos, um {@link Page} com a contagem exata, dado que a estimativa
+	 * do banco de dados se refere a todos os itens e não apenas aos do Pedido
+	 * @return um {@link Slice} contendo os registros da página atual, de acordo com os parâmetros de busca
 	 * @throws EntidadeNaoEncontradaException se {@code uuidPedido} não corresponder a nenhum Pedido existente
 	 */
-	Page<ItemPedido> buscarTodos(UUID uuidPedido, Pageable pageable, Map<String, String> parametrosBusca);
+	Slice<ItemPedido> buscarTodos(UUID uuidPedido, Pageable pageable, Map<String, String> parametrosBusca,
+			ModoContagem modoContagem);
 
 	/**
-	 * Atualiza os valores de todos os {@link ItemPedido} associados ao Pedido informado.
+	 * Busca os {@link ItemPedido} de um certo {@link Pedido} com uuid informado usando paginação baseada em cursor,
+	 * ordenados pelo uuid. Diferente de {@link #buscarTodos(UUID, Pageable, Map, ModoContagem)}, o custo de cada página não
+	 * depende de sua posição na listagem e não é feita a contagem total de registros.
+	 *
+	 * @param uuidPedido uuid do Pedido que se deseja buscar os itens
+	 * @param cursor o cursor retornado na página anterior, ou {@code null}/vazio para a primeira página
+	 * @param tamanho número máximo de registros da página
+	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
+	 * @return uma {@link PaginaCursor} contendo os registros da página e o cursor da próxima, se houver
+	 * @throws EntidadeNaoEncontradaException se {@code uuidPedido} não corresponder a nenhum Pedido existente
+	 * @throws ParametroBuscaParseException se o cursor informado não for válido
+	 */
+	PaginaCursor<ItemPedido> buscarTodosPorCursor(UUID uuidPedido, String cursor, int tamanho,
+			Map<String, String> parametrosBusca);
+
+	/**
+	 * Percorre todos os {@link ItemPedido} de um certo {@link Pedido} que atendem aos parâmetros de busca,
+	 * ordenados pelo uuid, entregando-os ao consumidor à medida que são lidos do banco, sem paginação e sem
+	 * contagem. Os filtros são os mesmos de {@link #buscarTodos(UUID, Pageable, Map, ModoContagem)}.
+	 *
+	 * @param uuidPedido uuid do Pedido que se deseja buscar os itens
+	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
+	 * @param consumidor o consumidor de cada ItemPedido, que deve usá-lo imediatamente
+	 * @return a quantidade de ItemPedido percorridos
+	 * @throws EntidadeNaoEncontradaException se {@code uuidPedido} não corresponder a nenhum Pedido existente
+	 * @throws ParametroBuscaParseException se algum parâmetro de busca não for válido
+	 */
+	long percorrerTodos(UUID uuidPedido, Map<String, String> parametrosBusca, Consumer<? super ItemPedido> consumidor);
+
+	/**
+	 * Atualiza os valores de todos os {@link ItemPedido} associados ao Pedido informado,
+	 * assim como o valor total do Pedido.
 	 *
 	 * @param pedido o Pedido que terá os valores dos itens atualizados
 	 * @throws EntidadeNaoEncontradaException se não existir o Pedido informado.
@@ -49,7 +92,8 @@ public interface ItemPedidoService {
 
 	/**
 	 * Atualiza os valores de todos os {@link ItemPedido} associados ao {@link ItemVenda}
-	 * informados e que sejam de Pedidos em aberto.
+	 * informados e que sejam de Pedidos em aberto, assim como o valor total desses Pedidos. Um evento
+	 * {@link TipoEventoPedido#VALORES_RECALCULADOS} é registrado para cada Pedido atualizado.
 	 *
 	 * @param itemVenda o itemVenda que se deseja buscar
 	 * @throws EntidadeNaoEncontradaException se o itemVenda informado não existir.
@@ -57,6 +101,19 @@ public interface ItemPedidoService {
 	 */
 	void atualizarValores(ItemVenda itemVenda);
 
+	/**
+	 * Atualiza os valores dos {@link ItemPedido} associados ao {@link ItemVenda} informado, restrito aos
+	 * Pedidos em aberto dentre os informados, assim como o valor total desses Pedidos. Usado no recálculo
+	 * em lotes após a alteração do valor base do itemVenda. Um evento {@link TipoEventoPedido#VALORES_RECALCULADOS}
+	 * é registrado para cada Pedido atualizado, na transação do lote.
+	 *
+	 * @param itemVenda o itemVenda cujos ItemPedido serão atualizados
+	 * @param uuidsPedido os ids dos Pedidos a serem atualizados
+	 * @throws EntidadeNaoEncontradaException se o itemVenda informado não existir.
+	 * @throws OperacaoInvalidaException se o itemVenda não estiver ativo
+	 */
+	void atualizarValores(ItemVenda itemVenda, Collection<UUID> uuidsPedido);
+
 	/**
 	 * Busca um {@link ItemPedido} pelo seu uuid.
 	 *
@@ -69,7 +126,8 @@ public interface ItemPedidoService {
 	/**
 	 * Inclui um novo ItemPedido para o {@link Pedido} com uuid informado, relacionado ao
 	 * {@link ItemVenda}. Seu valor é calculado em função do valor do itemVenda, do fator de
-	 * desconto relacionado ao tipo do itemVenda e do fator de desconto do Pedido.
+	 * desconto relacionado ao tipo do itemVenda e do fator de desconto do Pedido, e é somado ao valor
+	 * total do Pedido.
 	 *
 	 * @param uuidPedido o Pedido que terá um itemPedido incluído
 	 * @param itemVenda o ItemVenda a ser incluído no pedido
@@ -82,10 +140,27 @@ public interface ItemPedidoService {
 	ItemPedido incluir(UUID uuidPedido, ItemVenda itemVenda);
 
 	/**
-	 * Exclui um ItemPedido existente.
+	 * Inclui em lote um novo {@link ItemPedido} no {@link Pedido} informado para cada {@link ItemVenda} da lista,
+	 * mantendo a ordem e as repetições. Os ItensVenda são buscados em uma única consulta, a situação do Pedido é
+	 * verificada uma única vez e o valor total do Pedido é atualizado com a soma dos valores dos itens incluídos.
+	 *
+	 * @param uuidPedido o Pedido que terá os itens incluídos
+	 * @param itensVenda os ItensVenda a serem incluídos no pedido. Apenas o uuid de cada um é considerado
+	 * @return as versões persistidas (com uuid preenchido) dos itensPedido, na mesma ordem de {@code itensVenda}
+	 * @throws EntidadeNaoEncontradaException se {@code uuidPedido} ou algum dos {@code itensVenda} não
+	 * corresponderem a nenhuma entidade existente
+	 * @throws OperacaoInvalidaException se a lista estiver vazia ou exceder o tamanho máximo de lote, se o
+	 * pedido em questão estiver fechado ou se algum dos itensVenda estiver inativo. Nesses casos, nenhum item é
+	 * incluído
+	 */
+	List<ItemPedido> incluir(UUID uuidPedido, List<ItemVenda> itensVenda);
+
+	/**
+	 * Exclui um ItemPedido existente, descontando seu valor do valor total do {@link Pedido}.
 	 *
 	 * @param uuid id do ItemPedido a ser excluído
 	 * @throws EntidadeNaoEncontradaException se não existir ItemPedido com o uuid informado
+	 * @throws OperacaoInvalidaException se o Pedido do ItemPedido estiver fechado
 	 */
 	void excluir(UUID uuid);
 
@@ -136,4 +211,26 @@ public interface ItemPedidoService {
 	 */
 	List<ItemPedido> buscarPorPedido(Pedido pedido);
 
+	/**
+	 * Retorna a quantidade e a soma dos valores dos {@link ItemPedido} associados ao Pedido informado,
+	 * calculadas em uma única consulta de agregação, sem carregar os itens.
+	 *
+	 * @param pedido o pedido que se deseja totalizar
+	 * @return os totais dos ItemPedido do pedido. Caso ele não possua itens, a quantidade e o valor
+	 * total serão zero.
+	 * @apiNote Assim como {@link #buscarPorPedido(Pedido)}, fica a cargo do chamador verificar se o
+	 * Pedido informado realmente existe.
+	 */
+	TotaisPedido totalizarPorPedido(Pedido pedido);
+
+	/**
+	 * Retorna a quantidade e a soma dos valores dos {@link ItemPedido} de cada um dos Pedidos informados,
+	 * calculadas em uma única consulta de agregação agrupada por Pedido.
+	 *
+	 * @param pedidos os pedidos que se deseja totalizar
+	 * @return um mapa com os totais de cada pedido, indexado pelo uuid do Pedido. Pedidos sem itens
+	 * não constam no mapa.
+	 */
+	Map<UUID, TotaisPedido> totalizarPorPedidos(Collection<Pedido> pedidos);
+
 }
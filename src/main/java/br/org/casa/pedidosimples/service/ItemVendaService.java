@@ -3,18 +3,29 @@
  */
 package br.org.casa.pedidosimples.service;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
+import br.org.casa.pedidosimples.exception.VersaoDivergenteException;
+import br.org.casa.pedidosimples.model.EstatisticasCache;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 
 /**
  * Contrato para os serviços relacionados a {@link ItemVenda}.
@@ -29,9 +40,36 @@ public interface ItemVendaService {
 	 *
 	 * @param pageable interface de definição da paginação da busca
 	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
-	 * @return um {@link Page} contendo os registros da página atual, de acordo com os parâmetros de busca
+	 * @param modoContagem forma de obtenção do total de registros. Se {@link ModoContagem#NENHUMA}, é retornado um
+	 * {@link Slice} sem total; nos demais casos, um {@link Page}
+	 * @return um {@link Slice} contendo os registros da página atual, de acordo com os parâmetros de busca
 	 */
-	Page<ItemVenda> buscarTodos(Pageable pageable, Map<String, String> parametrosBusca);
+	Slice<ItemVenda> buscarTodos(Pageable pageable, Map<String, String> parametrosBusca, ModoContagem modoContagem);
+
+	/**
+	 * Busca os {@link ItemVenda} existentes usando paginação baseada em cursor, ordenados pelo uuid. Diferente de
+	 * {@link #buscarTodos(Pageable, Map, ModoContagem)}, o custo de cada página não depende de sua posição na listagem
+	 * e não é feita a contagem total de registros.
+	 *
+	 * @param cursor o cursor retornado na página anterior, ou {@code null}/vazio para a primeira página
+	 * @param tamanho número máximo de registros da página
+	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
+	 * @return uma {@link PaginaCursor} contendo os registros da página e o cursor da próxima, se houver
+	 * @throws ParametroBuscaParseException se o cursor informado não for válido
+	 */
+	PaginaCursor<ItemVenda> buscarTodosPorCursor(String cursor, int tamanho, Map<String, String> parametrosBusca);
+
+	/**
+	 * Percorre todos os {@link ItemVenda} que atendem aos parâmetros de busca, ordenados pelo uuid, entregando-os
+	 * ao consumidor à medida que são lidos do banco, sem paginação e sem contagem. Os filtros são os mesmos de
+	 * {@link #buscarTodos(Pageable, Map, ModoContagem)}.
+	 *
+	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
+	 * @param consumidor o consumidor de cada ItemVenda, que deve usá-lo imediatamente
+	 * @return a quantidade de ItemVenda percorridos
+	 * @throws ParametroBuscaParseException se algum parâmetro de busca não for válido
+	 */
+	long percorrerTodos(Map<String, String> parametrosBusca, Consumer<? super ItemVenda> consumidor);
 
 	/**
 	 * Busca um {@link ItemVenda} pelo seu uuid.
@@ -42,6 +80,15 @@ public interface ItemVendaService {
 	 */
 	Optional<ItemVenda> buscarPorId(UUID uuid);
 
+	/**
+	 * Busca os {@link ItemVenda} com os uuids informados, em uma única consulta.
+	 *
+	 * @param uuids ids dos ItensVenda a serem buscados
+	 * @return a lista de ItensVenda encontrados, sem ordem definida. Os uuids sem ItemVenda correspondente
+	 * são ignorados.
+	 */
+	List<ItemVenda> buscarPorIds(Collection<UUID> uuids);
+
 	/**
 	 * Inclui um novo ItemVenda.
 	 *
@@ -51,17 +98,20 @@ public interface ItemVendaService {
 	ItemVenda incluir(ItemVenda itemVenda);
 
 	/**
-	 * Altera um ItemVenda existente. Se o valor do itemVenda for alterado, os {@link ItemPedido}
-	 * associados serão recalculados.
+	 * Altera um ItemVenda existente. Se o valor do itemVenda for alterado, é agendado um {@link RecalculoPreco}
+	 * dos {@link ItemPedido} associados de Pedidos em aberto, processado em segundo plano após a confirmação
+	 * da alteração.
 	 *
 	 * @param uuid o id do ItemVenda a ser alterado
 	 * @param itemVenda os novos dados para o itemVenda
+	 * @param versoesEsperadas as versões do ItemVenda conhecidas pelo cliente (cabeçalho If-Match). Se vazio, a versão não é verificada
 	 * @return a versão persistida deste itemVenda
 	 * @throws EntidadeNaoEncontradaException se não existir ItemVenda com o uuid informado
+	 * @throws VersaoDivergenteException se a versão atual do ItemVenda não for nenhuma das esperadas
 	 * @throws OperacaoInvalidaException se houver uma tentativa de desativar o itemVenda e houver
 	 * {@link Pedido}s em aberto com {@link ItemPedido}s associados a este itemVenda
 	 */
-	ItemVenda alterar(UUID uuid, ItemVenda itemVenda);
+	ItemVenda alterar(UUID uuid, ItemVenda itemVenda, Optional<Set<Long>> versoesEsperadas);
 
 	/**
 	 * Exclui um ItemVenda existente.
@@ -71,4 +121,22 @@ public interface ItemVendaService {
 	 * @throws OperacaoInvalidaException se existir algum ItemPedido já associado ao itemVenda
 	 */
 	void excluir(UUID uuid);
+
+	/**
+	 * Retorna as estatísticas de acertos e falhas do cache de segundo nível de {@link ItemVenda},
+	 * acumuladas desde a inicialização da aplicação.
+	 *
+	 * @return as estatísticas atuais do cache
+	 */
+	EstatisticasCache buscarEstatisticasCache();
+
+	/**
+	 * Busca o {@link RecalculoPreco} mais recente do ItemVenda informado, para acompanhamento do seu
+	 * processamento.
+	 *
+	 * @param uuid o id do ItemVenda
+	 * @return um Optional contendo o recálculo mais recente, ou vazio caso o valor do ItemVenda nunca
+	 * tenha sido alterado (ou o ItemVenda não exista)
+	 */
+	Optional<RecalculoPreco> buscarUltimoRecalculoPreco(UUID uuid);
 }
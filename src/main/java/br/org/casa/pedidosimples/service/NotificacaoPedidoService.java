@@ -0,0 +1,38 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import br.org.casa.pedidosimples.model.NotificacaoPedido;
+import br.org.casa.pedidosimples.model.Pedido;
+
+/**
+ * Interface de serviços para o envio de {@link NotificacaoPedido}s aos clientes inscritos, via Server-Sent Events.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface NotificacaoPedidoService {
+
+	/**
+	 * Inscreve um novo cliente, que passa a receber as notificações de alteração de todos os {@link Pedido}s
+	 * confirmadas a partir da inscrição. Cada cliente possui um buffer limitado de notificações pendentes, no
+	 * qual as notificações de um mesmo Pedido são substituídas pela mais recente. Um cliente que não acompanhe
+	 * as notificações até o limite do buffer é desconectado, e deve se inscrever novamente.
+	 *
+	 * @return o emitter pelo qual as notificações são enviadas ao cliente
+	 */
+	SseEmitter inscrever();
+
+	/**
+	 * Envia uma notificação a todos os clientes inscritos, sem aguardar o envio.
+	 *
+	 * @param notificacao a notificação a ser enviada
+	 * @apiNote Este método é chamado a partir das notificações publicadas na camada de Serviço, após a
+	 * confirmação da transação que alterou o Pedido.
+	 */
+	void notificar(NotificacaoPedido notificacao);
+
+}
@@ -4,18 +4,32 @@
 package br.org.casa.pedidosimples.service;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
+import br.org.casa.pedidosimples.exception.VersaoDivergenteException;
+import br.org.casa.pedidosimples.model.DivergenciaValorTotal;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.PedidoFechado;
+import br.org.casa.pedidosimples.model.SnapshotPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
 
 /**
@@ -32,12 +46,43 @@ public interface PedidoService {
 	 *
 	 * @param pageable interface de definição da paginação da busca
 	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
-	 * @return um {@link Page} contendo os registros da página atual, de acordo com os parâmetros de busca
+	 * @param comTotais se {@code true}, o valor total e a quantidade de {@link ItemPedido}s dos Pedidos da
+	 * página são calculados a partir de seus itens, em uma única consulta para toda a página
+	 * @param modoContagem forma de obtenção do total de registros. Se {@link ModoContagem#NENHUMA}, é retornado um
+	 * {@link Slice} sem total; nos demais casos, um {@link Page}
+	 * @return um {@link Slice} contendo os registros da página atual, de acordo com os parâmetros de busca
 	 */
-	Page<Pedido> buscarTodos(Pageable pageable, Map<String, String> parametrosBusca);
+	Slice<Pedido> buscarTodos(Pageable pageable, Map<String, String> parametrosBusca, boolean comTotais,
+			ModoContagem modoContagem);
 
 	/**
-	 * Busca um {@link Pedido} pelo seu uuid.
+	 * Busca os {@link Pedido}s existentes usando paginação baseada em cursor, ordenados pelo código. Diferente de
+	 * {@link #buscarTodos(Pageable, Map, boolean, ModoContagem)}, o custo de cada página não depende de sua posição na listagem
+	 * e não é feita a contagem total de registros.
+	 *
+	 * @param cursor o cursor retornado na página anterior, ou {@code null}/vazio para a primeira página
+	 * @param tamanho número máximo de registros da página
+	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
+	 * @return uma {@link PaginaCursor} contendo os registros da página e o cursor da próxima, se houver
+	 * @throws ParametroBuscaParseException se o cursor informado não for válido
+	 */
+	PaginaCursor<Pedido> buscarTodosPorCursor(String cursor, int tamanho, Map<String, String> parametrosBusca);
+
+	/**
+	 * Percorre todos os {@link Pedido}s que atendem aos parâmetros de busca, ordenados pelo código, entregando-os
+	 * ao consumidor à medida que são lidos do banco, sem paginação e sem contagem. Os filtros são os mesmos de
+	 * {@link #buscarTodos(Pageable, Map, boolean, ModoContagem)}.
+	 *
+	 * @param parametrosBusca parâmetros para filtragem dos resultados encontrados
+	 * @param consumidor o consumidor de cada Pedido, que deve usá-lo imediatamente
+	 * @return a quantidade de Pedidos percorridos
+	 * @throws ParametroBuscaParseException se algum parâmetro de busca não for válido
+	 */
+	long percorrerTodos(Map<String, String> parametrosBusca, Consumer<? super Pedido> consumidor);
+
+	/**
+	 * Busca um {@link Pedido} pelo seu uuid. O valor total e a quantidade de {@link ItemPedido}s
+	 * do Pedido retornado são calculados a partir de seus itens.
 	 *
 	 * @param uuid id do Pedido a ser buscado.
 	 * @return um Optional contendo o Pedido com o id informado, se existir, ou um Optional
@@ -45,6 +90,52 @@ public interface PedidoService {
 	 */
 	Optional<Pedido> buscarPorId(UUID uuid);
 
+	/**
+	 * Busca o {@link SnapshotPedido} de um {@link Pedido} fechado, gravado em {@link #fechar(UUID)}, que contém
+	 * a representação completa do Pedido ({@link PedidoFechado}) já serializada.
+	 *
+	 * @param uuid id do Pedido a ser buscado.
+	 * @return um Optional contendo o snapshot do Pedido com o id informado, ou um Optional vazio caso o
+	 * Pedido não exista, esteja aberto ou tenha sido fechado antes da existência dos snapshots.
+	 */
+	Optional<SnapshotPedido> buscarSnapshot(UUID uuid);
+
+	/**
+	 * Busca apenas a versão atual de um {@link Pedido}, que é incrementada a cada alteração do Pedido ou de seus
+	 * {@link ItemPedido}s. Usada na verificação de requisições condicionais, sem o cálculo dos totais do Pedido.
+	 *
+	 * @param uuid id do Pedido a ser buscado.
+	 * @return um Optional contendo a versão do Pedido com o id informado, se existir, ou um Optional
+	 * vazio, caso não exista.
+	 */
+	Optional<Long> buscarVersao(UUID uuid);
+
+	/**
+	 * Busca apenas o valor total atual de um {@link Pedido}, mantido a cada alteração de seus {@link ItemPedido}s,
+	 * sem o cálculo dos demais totais do Pedido.
+	 *
+	 * @param uuid id do Pedido a ser buscado.
+	 * @return um Optional contendo o valor total do Pedido com o id informado, se existir, ou um Optional
+	 * vazio, caso não exista.
+	 */
+	Optional<BigDecimal> buscarValorTotal(UUID uuid);
+
+	/**
+	 * Busca apenas os dados do cabeçalho do {@link Pedido} (código, situação e fator de desconto), sem
+	 * consultar seus {@link ItemPedido}s. O cabeçalho é mantido em cache até a próxima alteração do Pedido
+	 * (por {@link #alterar(UUID, Pedido, Optional)}, {@link #aplicarDesconto(UUID, BigDecimal, Optional)}, {@link #fechar(UUID)} ou
+	 * {@link #excluir(UUID)}) ou até expirar. O Pedido retornado é uma nova instância, não gerenciada pelo
+	 * contexto de persistência, e não possui valor total nem quantidade de itens.
+	 *
+	 * @param uuid id do Pedido a ser buscado.
+	 * @return um Optional contendo o Pedido com o id informado, se existir, ou um Optional
+	 * vazio, caso não exista.
+	 * @apiNote Este método possui uso interno à camada de Serviço, para verificações de existência e de
+	 * situação do Pedido antes de operações sobre seus itens. O detalhe completo é obtido por
+	 * {@link #buscarPorId(UUID)}.
+	 */
+	Optional<Pedido> buscarCabecalhoPorId(UUID uuid);
+
 	/**
 	 * Inclui um novo Pedido.
 	 *
@@ -55,16 +146,18 @@ public interface PedidoService {
 
 	/**
 	 * Altera um Pedido existente. Só é permitido alterar o código; para alterar o fator de desconto
-	 * ou a situação é preciso usar métodos específicos ({@link #aplicarDesconto(UUID, BigDecimal)} e
+	 * ou a situação é preciso usar métodos específicos ({@link #aplicarDesconto(UUID, BigDecimal, Optional)} e
 	 * {@link #fechar(UUID)}, respectivamente).
 	 *
 	 * @param uuid o id do Pedido a ser alterado
 	 * @param pedido os novos dados para o Pedido
+	 * @param versoesEsperadas as versões do Pedido conhecidas pelo cliente (cabeçalho If-Match). Se vazio, a versão não é verificada
 	 * @return a versão persistida deste pedido
 	 * @throws EntidadeNaoEncontradaException se não existir Pedido com o uuid informado
+	 * @throws VersaoDivergenteException se a versão atual do Pedido não for nenhuma das esperadas
 	 * @throws OperacaoInvalidaException caso haja tentativa de alterar o fator de desconto ou a situação
 	 */
-	Pedido alterar(UUID uuid, Pedido pedido);
+	Pedido alterar(UUID uuid, Pedido pedido, Optional<Set<Long>> versoesEsperadas);
 
 	/**
 	 * Exclui um Pedido existente, juntamente com seus {@link ItemPedido}.
@@ -80,23 +173,122 @@ public interface PedidoService {
 	 *
 	 * @param uuid o uuid do Pedido a se aplicar o fator de desconto
 	 * @param fatorDesconto o novo fator de desconto
+	 * @param versoesEsperadas as versões do Pedido conhecidas pelo cliente (cabeçalho If-Match). Se vazio, a versão não é verificada
 	 * @return o Pedido, com o novo valor de fator de desconto aplicado
 	 * @throws EntidadeNaoEncontradaException se não existir Pedido com o uuid informado
+	 * @throws VersaoDivergenteException se a versão atual do Pedido não for nenhuma das esperadas
 	 * @throws OperacaoInvalidaException se o Pedido estiver fechado
+	 * @throws ConcurrencyFailureException se o Pedido continuar sendo alterado concorrentemente após
+	 * o limite de tentativas
 	 */
-	Pedido aplicarDesconto(UUID uuid, BigDecimal fatorDesconto);
+	Pedido aplicarDesconto(UUID uuid, BigDecimal fatorDesconto, Optional<Set<Long>> versoesEsperadas);
 
 	/**
 	 * Atualiza a Situação de um pedido para {@link SituacaoPedido#FECHADO}, impedido que novos
 	 * {@link ItemVenda} sejam adicionados a ele e também que seus valores sejam alterados.
 	 * Os valores são recalculados uma última vez antes do fechamento, e também é verificado
-	 * se algum dos ItemVenda atualmente associados ao pedido estão inativos.
+	 * se algum dos ItemVenda atualmente associados ao pedido estão inativos. Após o fechamento, é
+	 * gravado um {@link SnapshotPedido} imutável com o estado final do Pedido e de seus itens.
 	 *
 	 * @param uuid o id do Pedido a ser fechado
 	 * @return uma representação do estado atual do Pedido
 	 * @throws EntidadeNaoEncontradaException se o uuid informado não corresponder a nenhum pedido
 	 * @throws OperacaoInvalidaException se o Pedido não puder ser fechado por algum motivo
+	 * @throws ConcurrencyFailureException se o Pedido continuar sendo alterado concorrentemente após
+	 * o limite de tentativas
 	 */
 	Pedido fechar(UUID uuid);
 
+	/**
+	 * Soma um valor ao valor total de um {@link Pedido}. O valor pode ser negativo, como no caso
+	 * da exclusão de um {@link ItemPedido}.
+	 *
+	 * @param pedido o Pedido que terá o valor total atualizado
+	 * @param valor o valor a ser somado ao valor total atual
+	 * @apiNote Este método possui uso interno à camada de Serviço, sendo chamado a cada alteração
+	 * nos ItemPedido do Pedido. A atualização é feita diretamente no banco, de forma atômica, e
+	 * refletida na instância informada, caso esta possua valor total.
+	 * @throws ObjectOptimisticLockingFailureException se o fator de desconto ou a situação do Pedido
+	 * tiverem sido alterados desde a leitura da instância informada
+	 */
+	void adicionarValorTotal(Pedido pedido, BigDecimal valor);
+
+	/**
+	 * Define o valor total de um {@link Pedido}, substituindo o valor atual.
+	 *
+	 * @param pedido o Pedido que terá o valor total atualizado
+	 * @param valorTotal o novo valor total
+	 * @apiNote Este método possui uso interno à camada de Serviço, sendo chamado quando todos os
+	 * ItemPedido do Pedido são recalculados.
+	 */
+	void atualizarValorTotal(Pedido pedido, BigDecimal valorTotal);
+
+	/**
+	 * Recalcula o valor total de todos os {@link Pedido}s em aberto que possuam {@link ItemPedido}s
+	 * associados ao {@link ItemVenda} informado.
+	 *
+	 * @param itemVenda o ItemVenda cujos ItemPedido foram recalculados
+	 * @apiNote Este método possui uso interno à camada de Serviço, e deve ser chamado após o
+	 * recálculo dos ItemPedido associados ao itemVenda.
+	 */
+	void recalcularValorTotal(ItemVenda itemVenda);
+
+	/**
+	 * Bloqueia os {@link Pedido}s em aberto dentre os informados até o fim da transação, incrementando as
+	 * suas versões, antes de uma alteração em lote dos seus {@link ItemPedido}s. Os Pedidos são bloqueados
+	 * antes dos itens, na mesma ordem usada na aplicação de desconto e no fechamento.
+	 *
+	 * @param uuids os ids dos Pedidos a serem bloqueados
+	 * @return a quantidade de Pedidos em aberto bloqueados
+	 * @apiNote Este método possui uso interno à camada de Serviço.
+	 */
+	long bloquearAbertos(Collection<UUID> uuids);
+
+	/**
+	 * Recalcula o valor total dos {@link Pedido}s em aberto dentre os informados.
+	 *
+	 * @param uuids os ids dos Pedidos
+	 * @apiNote Este método possui uso interno à camada de Serviço, e deve ser chamado após o
+	 * recálculo dos ItemPedido desses Pedidos.
+	 */
+	void recalcularValorTotal(Collection<UUID> uuids);
+
+	/**
+	 * Busca os {@link Pedido}s em aberto que possuam {@link ItemPedido}s associados ao {@link ItemVenda}
+	 * informado.
+	 *
+	 * @param itemVenda o ItemVenda
+	 * @return os Pedidos em aberto com itens do ItemVenda
+	 * @apiNote Este método possui uso interno à camada de Serviço, e é chamado após o recálculo dos valores
+	 * desses Pedidos, para o registro dos eventos correspondentes, na mesma transação.
+	 */
+	List<Pedido> buscarAbertosPorItemVenda(ItemVenda itemVenda);
+
+	/**
+	 * Busca os {@link Pedido}s em aberto dentre os informados.
+	 *
+	 * @param uuids os ids dos Pedidos
+	 * @return os Pedidos em aberto dentre os informados
+	 * @apiNote Este método possui uso interno à camada de Serviço, e é chamado após o recálculo dos valores
+	 * desses Pedidos, para o registro dos eventos correspondentes, na mesma transação.
+	 */
+	List<Pedido> buscarAbertosPorIds(Collection<UUID> uuids);
+
+	/**
+	 * Verifica a consistência dos valores totais de todos os {@link Pedido}s, comparando o valor
+	 * registrado com a soma dos valores de seus {@link ItemPedido}.
+	 *
+	 * @return uma lista com as divergências encontradas, ordenada pelo código do Pedido. Vazia se
+	 * todos os valores totais estiverem consistentes.
+	 */
+	List<DivergenciaValorTotal> verificarValoresTotais();
+
+	/**
+	 * Verifica a consistência dos valores totais de todos os {@link Pedido}s e corrige os que
+	 * estiverem divergentes, recalculando-os a partir de seus {@link ItemPedido}.
+	 *
+	 * @return uma lista com as divergências encontradas antes da correção
+	 */
+	List<DivergenciaValorTotal> corrigirValoresTotais();
+
 }
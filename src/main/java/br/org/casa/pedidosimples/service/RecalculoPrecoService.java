@@ -0,0 +1,64 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+
+/**
+ * Interface de serviços para {@link RecalculoPreco}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public interface RecalculoPrecoService {
+
+	/**
+	 * Busca o {@link RecalculoPreco} mais recente de um {@link ItemVenda}.
+	 *
+	 * @param uuidItemVenda o id do ItemVenda
+	 * @return um Optional contendo o recálculo mais recente, ou vazio caso não exista nenhum
+	 */
+	Optional<RecalculoPreco> buscarUltimoPorItemVenda(UUID uuidItemVenda);
+
+	/**
+	 * Agenda o recálculo dos valores dos {@link ItemPedido} de Pedidos em aberto associados ao itemVenda,
+	 * cujo valor base foi alterado. Os Pedidos afetados são registrados como pendentes na mesma transação
+	 * da alteração, e o recálculo é processado em segundo plano após a sua confirmação.
+	 *
+	 * @param itemVenda o itemVenda alterado, já gravado
+	 * @return o recálculo agendado, já concluído caso não haja Pedidos em aberto afetados
+	 * @apiNote Este método possui uso interno à camada de Serviço, e deve ser chamado na transação que
+	 * alterou o valor base do itemVenda.
+	 */
+	RecalculoPreco agendar(ItemVenda itemVenda);
+
+	/**
+	 * Processa um recálculo, em lotes de Pedidos, cada um em sua própria transação, até que não haja
+	 * mais Pedidos pendentes. Caso o processamento seja interrompido por um erro, o recálculo é marcado
+	 * como {@link br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco#FALHA}, mantendo os
+	 * Pedidos ainda pendentes.
+	 *
+	 * @param uuid o id do recálculo
+	 * @return o recálculo, na situação final do processamento
+	 * @throws EntidadeNaoEncontradaException se não existir recálculo com o uuid informado
+	 */
+	RecalculoPreco processar(UUID uuid);
+
+	/**
+	 * Dá como concluídas as pendências de recálculo do {@link Pedido} informado, cujos valores foram
+	 * recalculados integralmente na mesma transação.
+	 *
+	 * @param pedido o Pedido recalculado
+	 * @apiNote Este método possui uso interno à camada de Serviço, sendo chamado no fechamento do Pedido,
+	 * que não pode ocorrer com recálculos pendentes.
+	 */
+	void concluirPorPedido(Pedido pedido);
+}
@@ -0,0 +1,83 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+
+/**
+ * {@link DestinoEventoPedido} que acrescenta os eventos a um arquivo local, um evento JSON por linha. É o
+ * destino padrão, e o arquivo é definido pela propriedade pedido-simples.evento-pedido.arquivo.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "pedido-simples.evento-pedido.destino", havingValue = "arquivo", matchIfMissing = true)
+public class DestinoEventoPedidoArquivo implements DestinoEventoPedido {
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${pedido-simples.evento-pedido.arquivo:eventos-pedido.jsonl}")
+	private Path arquivo;
+
+	DestinoEventoPedidoArquivo() {
+
+	}
+
+	/**
+	 * Constrói um destino para o arquivo informado.
+	 *
+	 * @param objectMapper o ObjectMapper usado na serialização dos eventos
+	 * @param arquivo o arquivo ao qual os eventos são acrescentados
+	 */
+	public DestinoEventoPedidoArquivo(ObjectMapper objectMapper, Path arquivo) {
+		this.objectMapper = objectMapper;
+		this.arquivo = arquivo;
+	}
+
+	@Override
+	public synchronized void enviar(List<EventoPedido> eventos) {
+		List<String> linhas = new ArrayList<>(eventos.size());
+		for (EventoPedido evento : eventos) {
+			try {
+				linhas.add(objectMapper.writeValueAsString(evento));
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException(String.format("Não foi possível serializar o evento %s", evento.getId()), e);
+			}
+		}
+
+		try {
+			Path diretorio = arquivo.toAbsolutePath().getParent();
+			if (diretorio != null) {
+				Files.createDirectories(diretorio);
+			}
+			// Todo o lote é gravado em uma única escrita, e sincronizado em disco antes da remoção dos eventos
+			Files.write(arquivo, linhas, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+		} catch (IOException e) {
+			throw new UncheckedIOException(String.format("Não foi possível gravar os eventos em %s", arquivo), e);
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+
+/**
+ * {@link DestinoEventoPedido} que mantém os eventos enviados em memória, para uso em testes e em
+ * desenvolvimento (pedido-simples.evento-pedido.destino=memoria).
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "pedido-simples.evento-pedido.destino", havingValue = "memoria")
+public class DestinoEventoPedidoMemoria implements DestinoEventoPedido {
+
+	private final List<EventoPedido> eventos = Collections.synchronizedList(new ArrayList<>());
+
+	@Override
+	public void enviar(List<EventoPedido> eventos) {
+		this.eventos.addAll(eventos);
+	}
+
+	/**
+	 * Retorna uma cópia dos eventos enviados até o momento, na ordem de envio.
+	 *
+	 * @return os eventos enviados
+	 */
+	public List<EventoPedido> getEventos() {
+		synchronized (eventos) {
+			return new ArrayList<>(eventos);
+		}
+	}
+
+	/**
+	 * Descarta os eventos enviados até o momento.
+	 */
+	public void limpar() {
+		eventos.clear();
+	}
+
+}
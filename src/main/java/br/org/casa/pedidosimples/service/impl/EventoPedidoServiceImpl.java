@@ -0,0 +1,146 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.NotificacaoPedido;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+import br.org.casa.pedidosimples.repository.EventoPedidoRepository;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+
+/**
+ * Implementação de serviços para {@link EventoPedido}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Service
+@Transactional(readOnly = true)
+public class EventoPedidoServiceImpl implements EventoPedidoService {
+
+	@Autowired
+	private EventoPedidoRepository eventoPedidoRepository;
+
+	@Autowired
+	private DestinoEventoPedido destinoEventoPedido;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ExecutorTransacional executorTransacional;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	// Quantidade de eventos enviados e removidos em cada transação
+	@Value("${pedido-simples.evento-pedido.tamanho-lote:100}")
+	private int tamanhoLote;
+
+	EventoPedidoServiceImpl() {
+
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public EventoPedido registrar(TipoEventoPedido tipo, Pedido pedido) {
+		Map<String, Object> conteudo = new LinkedHashMap<>();
+		conteudo.put("id", pedido.getId());
+		conteudo.put("codigo", pedido.getCodigo());
+		conteudo.put("fatorDesconto", pedido.getFatorDesconto());
+		conteudo.put("situacao", pedido.getSituacao());
+		conteudo.put("valorTotal", pedido.getValorTotal());
+
+		return registrar(pedido, tipo, conteudo);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.MANDATORY)
+	public EventoPedido registrar(TipoEventoPedido tipo, Pedido pedido, List<ItemPedido> itensPedido) {
+		Map<String, Object> conteudo = new LinkedHashMap<>();
+		conteudo.put("idPedido", pedido.getId());
+		// O id do ItemVenda é obtido sem carregar a associação. Um único evento por operação mantém a inclusão
+		// de itens em lote com uma única gravação adicional.
+		conteudo.put("itens", itensPedido.stream()
+				.map(itemPedido -> {
+					Map<String, Object> item = new LinkedHashMap<>();
+					item.put("id", itemPedido.getId());
+					item.put("idItemVenda", itemPedido.getItemVenda().getId());
+					item.put("valor", itemPedido.getValor());
+					return item;
+				})
+				.collect(Collectors.toList()));
+
+		return registrar(pedido, tipo, conteudo);
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public long enviarPendentes() {
+		long enviados = 0L;
+		int enviadosLote;
+		do {
+			enviadosLote = executorTransacional.executar(() -> enviarLote());
+			enviados += enviadosLote;
+		} while (enviadosLote == tamanhoLote);
+
+		return enviados;
+	}
+
+	/**
+	 * Envia e remove o próximo lote de eventos pendentes, retornando a quantidade de eventos do lote.
+	 */
+	private int enviarLote() {
+		List<EventoPedido> eventos = eventoPedidoRepository.findByOrderByIdAsc(PageRequest.of(0, tamanhoLote));
+		if (eventos.isEmpty()) {
+			return 0;
+		}
+
+		destinoEventoPedido.enviar(eventos);
+		eventoPedidoRepository.deleteInBatch(eventos);
+
+		return eventos.size();
+	}
+
+	/**
+	 * Grava o evento e publica a notificação correspondente, entregue aos clientes inscritos apenas após a
+	 * confirmação da transação. Nos Pedidos obtidos a partir do cabeçalho, sem valor total, ele é obtido
+	 * na entrega.
+	 */
+	private EventoPedido registrar(Pedido pedido, TipoEventoPedido tipo, Map<String, Object> conteudo) {
+		String json;
+		try {
+			json = objectMapper.writeValueAsString(conteudo);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(String.format("Não foi possível serializar o evento %s do %s %s",
+					tipo, Pedido.NOME_EXIBICAO_ENTIDADE, pedido.getId()), e);
+		}
+
+		EventoPedido evento = eventoPedidoRepository.save(new EventoPedido(pedido.getId(), tipo, json, Instant.now()));
+		eventPublisher.publishEvent(new NotificacaoPedido(pedido.getId(), tipo, pedido.getSituacao(), pedido.getValorTotal()));
+
+		return evento;
+	}
+
+}
@@ -0,0 +1,95 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executa operações de escrita em transações próprias, repetindo-as em caso de conflito de concorrência
+ * (falha na verificação de versão ou no bloqueio de um registro alterado por outra transação). Cada
+ * tentativa é executada em uma nova transação, com uma nova leitura dos dados, até o limite de
+ * {@value #MAXIMO_TENTATIVAS} tentativas.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Component
+public class ExecutorTransacional {
+
+	/**
+	 * Quantidade máxima de tentativas de uma operação, incluindo a primeira.
+	 */
+	public static final int MAXIMO_TENTATIVAS = 3;
+
+	/**
+	 * Intervalo base, em milissegundos, entre as tentativas. O intervalo efetivo é aleatório, limitado ao
+	 * intervalo base multiplicado pelo número da tentativa, para que as transações em conflito não voltem
+	 * a concorrer ao mesmo tempo.
+	 */
+	private static final long INTERVALO_BASE_MILIS = 10L;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	ExecutorTransacional() {
+
+	}
+
+	/**
+	 * Executa a operação em uma nova transação, repetindo-a caso falhe por conflito de concorrência.
+	 * Caso já exista uma transação em andamento, a operação é executada uma única vez dentro dela, pois
+	 * após a falha a transação já estaria marcada para rollback.
+	 *
+	 * @param <T> o tipo do retorno da operação
+	 * @param operacao a operação a ser executada
+	 * @return o retorno da operação
+	 * @throws ConcurrencyFailureException caso a última tentativa também falhe por conflito de concorrência
+	 */
+	public <T> T executar(Supplier<T> operacao) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return operacao.get();
+		}
+
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		for (int tentativa = 1; ; tentativa++) {
+			try {
+				return transactionTemplate.execute(status -> operacao.get());
+			} catch (ConcurrencyFailureException e) {
+				if (tentativa >= MAXIMO_TENTATIVAS) {
+					throw e;
+				}
+				aguardar(tentativa);
+			}
+		}
+	}
+
+	/**
+	 * Executa a operação, sem retorno, nas mesmas condições de {@link #executar(Supplier)}.
+	 *
+	 * @param operacao a operação a ser executada
+	 */
+	public void executar(Runnable operacao) {
+		executar(() -> {
+			operacao.run();
+			return null;
+		});
+	}
+
+	private static void aguardar(int tentativa) {
+		try {
+			Thread.sleep(ThreadLocalRandom.current().nextLong(INTERVALO_BASE_MILIS * tentativa) + 1L);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -3,15 +3,22 @@
  */
 package br.org.casa.pedidosimples.service.impl;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
@@ -20,13 +27,20 @@ import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
 import br.org.casa.pedidosimples.repository.ItemPedidoPredicateBuilder;
 import br.org.casa.pedidosimples.repository.ItemPedidoRepository;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
 import br.org.casa.pedidosimples.service.ItemVendaService;
 import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.util.CursorUtil;
+import br.org.casa.pedidosimples.util.ValorMonetario;
 
 /**
  * Implementação de serviços para {@link ItemPedido}.
@@ -38,6 +52,12 @@ import br.org.casa.pedidosimples.service.PedidoService;
 @Transactional(readOnly = true)
 public class ItemPedidoServiceImpl implements ItemPedidoService {
 
+	/**
+	 * Quantidade máxima de ItensVenda em uma inclusão em lote. Corresponde a 20 lotes JDBC no perfil padrão
+	 * (hibernate.jdbc.batch_size=50), limitando o tamanho da transação e da resposta.
+	 */
+	public static final int TAMANHO_MAXIMO_LOTE = 1000;
+
 	@Autowired
 	private ItemPedidoRepository itemPedidoRepository;
 
@@ -47,24 +67,61 @@ public class ItemPedidoServiceImpl implements ItemPedidoService {
 	@Autowired
 	private ItemVendaService itemVendaService;
 
+	@Autowired
+	private ExecutorTransacional executorTransacional;
+
+	@Autowired
+	private EventoPedidoService eventoPedidoService;
+
 	ItemPedidoServiceImpl() {
 
 	}
 
 	@Override
-	public Page<ItemPedido> buscarTodos(UUID uuidPedido, Pageable pageable, Map<String, String> parametrosBusca) {
-		Pedido pedido = pedidoService.buscarPorId(uuidPedido)
+	public Slice<ItemPedido> buscarTodos(UUID uuidPedido, Pageable pageable, Map<String, String> parametrosBusca,
+			ModoContagem modoContagem) {
+		Pedido pedido = pedidoService.buscarCabecalhoPorId(uuidPedido)
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuidPedido));
 
 		BooleanExpression predicate = ItemPedidoPredicateBuilder.of(parametrosBusca)
 				.build();
+
+		if (ModoContagem.NENHUMA.equals(modoContagem)) {
+			return itemPedidoRepository.buscarFatiaPorPedido(pedido, predicate, pageable);
+		}
 		return itemPedidoRepository.findByPedido(pedido, predicate, pageable);
 	}
 
+	@Override
+	public PaginaCursor<ItemPedido> buscarTodosPorCursor(UUID uuidPedido, String cursor, int tamanho,
+			Map<String, String> parametrosBusca) {
+		Pedido pedido = pedidoService.buscarCabecalhoPorId(uuidPedido)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuidPedido));
+
+		BooleanExpression predicate = ItemPedidoPredicateBuilder.of(parametrosBusca)
+				.build();
+		Optional<UUID> idApos = CursorUtil.decodificarId(cursor, ItemPedido.NOME_EXIBICAO_ENTIDADE);
+
+		return CursorUtil.criarPagina(itemPedidoRepository.findByPedido(pedido, predicate, idApos, tamanho + 1),
+				tamanho, ip -> ip.getId().toString());
+	}
+
+	@Override
+	public long percorrerTodos(UUID uuidPedido, Map<String, String> parametrosBusca,
+			Consumer<? super ItemPedido> consumidor) {
+		Pedido pedido = pedidoService.buscarCabecalhoPorId(uuidPedido)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuidPedido));
+
+		BooleanExpression predicate = ItemPedidoPredicateBuilder.of(parametrosBusca)
+				.build();
+
+		return itemPedidoRepository.percorrerPorPedido(pedido, predicate, consumidor);
+	}
+
 	@Override
 	@Transactional
 	public void atualizarValores(Pedido pedido) {
-		Pedido pedidoExistente = pedidoService.buscarPorId(pedido.getId())
+		Pedido pedidoExistente = pedidoService.buscarCabecalhoPorId(pedido.getId())
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, pedido.getId()));
 
 		if (SituacaoPedido.FECHADO.equals(pedidoExistente.getSituacao())) {
@@ -85,8 +142,11 @@ public class ItemPedidoServiceImpl implements ItemPedidoService {
 					));
 			});
 
-		itensPedido.stream()
-			.forEach(ItemPedido::calcularValor);
+		ValorMonetario valorTotal = itensPedido.stream()
+			.map(ItemPedido::calcularValorMonetario)
+			.reduce(ValorMonetario.ZERO, ValorMonetario::somar);
+
+		pedidoService.atualizarValorTotal(pedidoExistente, valorTotal.toBigDecimal());
 	}
 
 	@Override
@@ -102,9 +162,38 @@ public class ItemPedidoServiceImpl implements ItemPedidoService {
 					));
 		}
 
-		itemPedidoRepository.buscarPorItemVendaEPedidoAberto(itemVendaExistente)
-			.stream()
-			.forEach(ItemPedido::calcularValor);
+		// O recálculo é feito diretamente no banco, evitando carregar todos os ItemPedido no contexto de persistência
+		itemPedidoRepository.atualizarValorPorItemVendaEPedidoAberto(itemVendaExistente);
+		pedidoService.recalcularValorTotal(itemVendaExistente);
+		registrarValoresRecalculados(pedidoService.buscarAbertosPorItemVenda(itemVendaExistente));
+	}
+
+	@Override
+	@Transactional
+	public void atualizarValores(ItemVenda itemVenda, Collection<UUID> uuidsPedido) {
+		ItemVenda itemVendaExistente = itemVendaService.buscarPorId(itemVenda.getId())
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemVenda.NOME_EXIBICAO_ENTIDADE, itemVenda.getId()));
+
+		if (!itemVendaExistente.isAtivo()) {
+			throw new OperacaoInvalidaException(String.format("Não é possível atualizar os valores de %s por %s, pois este está inativo",
+						ItemPedido.NOME_EXIBICAO_ENTIDADE,
+						ItemVenda.NOME_EXIBICAO_ENTIDADE
+					));
+		}
+
+		// Os Pedidos são bloqueados antes dos seus itens, evitando deadlocks com a aplicação de desconto e o fechamento
+		pedidoService.bloquearAbertos(uuidsPedido);
+		itemPedidoRepository.atualizarValorPorItemVendaEPedidoAberto(itemVendaExistente, uuidsPedido);
+		pedidoService.recalcularValorTotal(uuidsPedido);
+		registrarValoresRecalculados(pedidoService.buscarAbertosPorIds(uuidsPedido));
+	}
+
+	/**
+	 * Registra um evento para cada Pedido recalculado. Os Pedidos são lidos após as atualizações diretas no
+	 * banco, com os novos valores totais e versões.
+	 */
+	private void registrarValoresRecalculados(List<Pedido> pedidos) {
+		pedidos.forEach(pedido -> eventoPedidoService.registrar(TipoEventoPedido.VALORES_RECALCULADOS, pedido));
 	}
 
 	@Override
@@ -113,9 +202,13 @@ public class ItemPedidoServiceImpl implements ItemPedidoService {
 	}
 
 	@Override
-	@Transactional
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public ItemPedido incluir(UUID uuidPedido, ItemVenda itemVenda) {
-		Pedido pedido = pedidoService.buscarPorId(uuidPedido)
+		return executorTransacional.executar(() -> incluirEmTransacao(uuidPedido, itemVenda));
+	}
+
+	private ItemPedido incluirEmTransacao(UUID uuidPedido, ItemVenda itemVenda) {
+		Pedido pedido = pedidoService.buscarCabecalhoPorId(uuidPedido)
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuidPedido));
 		ItemVenda itemVendaExistente = itemVendaService.buscarPorId(itemVenda.getId())
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemVenda.NOME_EXIBICAO_ENTIDADE, itemVenda.getId()));
@@ -139,14 +232,97 @@ public class ItemPedidoServiceImpl implements ItemPedidoService {
 		itemPedido.setItemVenda(itemVendaExistente);
 		itemPedido.calcularValor();
 
-		return itemPedidoRepository.save(itemPedido);
+		itemPedido = itemPedidoRepository.save(itemPedido);
+		pedidoService.adicionarValorTotal(pedido, itemPedido.getValor());
+		eventoPedidoService.registrar(TipoEventoPedido.ITENS_INCLUIDOS, pedido, Collections.singletonList(itemPedido));
+
+		return itemPedido;
 	}
 
 	@Override
-	@Transactional
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public List<ItemPedido> incluir(UUID uuidPedido, List<ItemVenda> itensVenda) {
+		if (itensVenda.isEmpty()) {
+			throw new OperacaoInvalidaException(String.format("É necessário informar ao menos um %s.",
+					ItemVenda.NOME_EXIBICAO_ENTIDADE));
+		}
+		if (itensVenda.size() > TAMANHO_MAXIMO_LOTE) {
+			throw new OperacaoInvalidaException(String.format("A quantidade de %s informada (%d) excede o máximo de %d por inclusão em lote.",
+					ItemVenda.NOME_EXIBICAO_ENTIDADE, itensVenda.size(), TAMANHO_MAXIMO_LOTE));
+		}
+
+		return executorTransacional.executar(() -> incluirEmTransacao(uuidPedido, itensVenda));
+	}
+
+	private List<ItemPedido> incluirEmTransacao(UUID uuidPedido, List<ItemVenda> itensVenda) {
+		Pedido pedido = pedidoService.buscarCabecalhoPorId(uuidPedido)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuidPedido));
+
+		if (SituacaoPedido.FECHADO.equals(pedido.getSituacao())) {
+			throw new OperacaoInvalidaException(String.format("Não é possível adicionar um %s a um %s fechado.",
+					ItemVenda.NOME_EXIBICAO_ENTIDADE,
+					Pedido.NOME_EXIBICAO_ENTIDADE
+					));
+		}
+
+		Map<UUID, ItemVenda> itensVendaExistentes = itemVendaService.buscarPorIds(itensVenda.stream()
+					.map(ItemVenda::getId)
+					.collect(Collectors.toSet()))
+				.stream()
+				.collect(Collectors.toMap(ItemVenda::getId, Function.identity()));
+
+		List<ItemPedido> itensPedido = new ArrayList<>(itensVenda.size());
+		ValorMonetario valorIncluido = ValorMonetario.ZERO;
+
+		for (ItemVenda itemVenda : itensVenda) {
+			ItemVenda itemVendaExistente = Optional.ofNullable(itensVendaExistentes.get(itemVenda.getId()))
+					.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemVenda.NOME_EXIBICAO_ENTIDADE, itemVenda.getId()));
+
+			if (!itemVendaExistente.isAtivo()) {
+				throw new OperacaoInvalidaException(String.format("Não é possível adicionar um %s inativo ao %s. "
+						+ "%s inativo: %s.",
+						ItemVenda.NOME_EXIBICAO_ENTIDADE,
+						Pedido.NOME_EXIBICAO_ENTIDADE,
+						ItemVenda.NOME_EXIBICAO_ENTIDADE,
+						itemVendaExistente.getId()
+						));
+			}
+
+			ItemPedido itemPedido = new ItemPedido();
+			itemPedido.setPedido(pedido);
+			itemPedido.setItemVenda(itemVendaExistente);
+			valorIncluido = valorIncluido.somar(itemPedido.calcularValorMonetario());
+
+			itensPedido.add(itemPedido);
+		}
+
+		itensPedido = itemPedidoRepository.saveAll(itensPedido);
+		pedidoService.adicionarValorTotal(pedido, valorIncluido.toBigDecimal());
+		eventoPedidoService.registrar(TipoEventoPedido.ITENS_INCLUIDOS, pedido, itensPedido);
+
+		return itensPedido;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.SUPPORTS)
 	public void excluir(UUID uuid) {
-		itemPedidoRepository.delete(itemPedidoRepository.findById(uuid)
-				.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemPedido.NOME_EXIBICAO_ENTIDADE, uuid)));
+		executorTransacional.executar(() -> {
+			ItemPedido itemPedido = itemPedidoRepository.findById(uuid)
+					.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemPedido.NOME_EXIBICAO_ENTIDADE, uuid));
+
+			// Um Pedido fechado possui snapshot imutável, que deixaria de corresponder aos seus itens
+			if (SituacaoPedido.FECHADO.equals(itemPedido.getPedido().getSituacao())) {
+				throw new OperacaoInvalidaException(String.format("Não é possível excluir um %s de um %s fechado.",
+						ItemPedido.NOME_EXIBICAO_ENTIDADE,
+						Pedido.NOME_EXIBICAO_ENTIDADE
+						));
+			}
+
+			itemPedidoRepository.delete(itemPedido);
+			pedidoService.adicionarValorTotal(itemPedido.getPedido(), itemPedido.getValor().negate());
+			eventoPedidoService.registrar(TipoEventoPedido.ITENS_EXCLUIDOS, itemPedido.getPedido(),
+					Collections.singletonList(itemPedido));
+		});
 	}
 
 	@Override
@@ -174,4 +350,14 @@ public class ItemPedidoServiceImpl implements ItemPedidoService {
 		return itemPedidoRepository.findByPedido(pedido);
 	}
 
+	@Override
+	public TotaisPedido totalizarPorPedido(Pedido pedido) {
+		return itemPedidoRepository.totalizarPorPedido(pedido);
+	}
+
+	@Override
+	public Map<UUID, TotaisPedido> totalizarPorPedidos(Collection<Pedido> pedidos) {
+		return itemPedidoRepository.totalizarPorPedidos(pedidos);
+	}
+
 }
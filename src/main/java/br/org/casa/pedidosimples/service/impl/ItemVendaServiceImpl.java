@@ -3,26 +3,39 @@
  */
 package br.org.casa.pedidosimples.service.impl;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.model.EstatisticasCache;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.repository.ItemVendaPredicateBuilder;
 import br.org.casa.pedidosimples.repository.ItemVendaRepository;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
 import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+import br.org.casa.pedidosimples.util.CursorUtil;
+import br.org.casa.pedidosimples.util.EtagUtil;
+import br.org.casa.pedidosimples.util.PaginacaoUtil;
 
 /**
  * Implementação de serviços para {@link ItemVenda}.
@@ -40,17 +53,53 @@ public class ItemVendaServiceImpl implements ItemVendaService {
 	@Autowired
 	private ItemVendaRepository itemVendaRepository;
 
+	@Autowired
+	private RecalculoPrecoService recalculoPrecoService;
+
+	@Autowired
+	private ExecutorTransacional executorTransacional;
+
 	ItemVendaServiceImpl() {
 
 	}
 
 	@Override
-	public Page<ItemVenda> buscarTodos(Pageable pageable,
+	public Slice<ItemVenda> buscarTodos(Pageable pageable,
+			Map<String, String> parametrosBusca, ModoContagem modoContagem) {
+		ItemVendaPredicateBuilder predicateBuilder = ItemVendaPredicateBuilder.of(parametrosBusca);
+		BooleanExpression predicate = predicateBuilder.build();
+
+		switch (modoContagem) {
+		case NENHUMA:
+			return itemVendaRepository.buscarFatia(predicate, pageable);
+		case APROXIMADA:
+			// A estimativa do banco de dados se refere à tabela inteira, e por isso só é usada sem filtros
+			Optional<Long> totalEstimado = predicateBuilder.isVazio()
+				? itemVendaRepository.estimarTotal()
+				: Optional.empty();
+			return totalEstimado.isPresent()
+				? PaginacaoUtil.criarPaginaAproximada(itemVendaRepository.buscarFatia(predicate, pageable), totalEstimado.get())
+				: itemVendaRepository.findAll(predicate, pageable);
+		default:
+			return itemVendaRepository.findAll(predicate, pageable);
+		}
+	}
+
+	@Override
+	public PaginaCursor<ItemVenda> buscarTodosPorCursor(String cursor, int tamanho,
 			Map<String, String> parametrosBusca) {
 		BooleanExpression predicate = ItemVendaPredicateBuilder.of(parametrosBusca)
 			.build();
 
-		return itemVendaRepository.findAll(predicate, pageable);
+		Optional<UUID> idApos = CursorUtil.decodificarId(cursor, ItemVenda.NOME_EXIBICAO_ENTIDADE);
+
+		return CursorUtil.criarPagina(itemVendaRepository.buscarPorCursor(predicate, idApos, tamanho + 1),
+				tamanho, iv -> iv.getId().toString());
+	}
+
+	@Override
+	public long percorrerTodos(Map<String, String> parametrosBusca, Consumer<? super ItemVenda> consumidor) {
+		return itemVendaRepository.percorrer(ItemVendaPredicateBuilder.of(parametrosBusca).build(), consumidor);
 	}
 
 	@Override
@@ -58,6 +107,11 @@ public class ItemVendaServiceImpl implements ItemVendaService {
 		return itemVendaRepository.findById(uuid);
 	}
 
+	@Override
+	public List<ItemVenda> buscarPorIds(Collection<UUID> uuids) {
+		return itemVendaRepository.findAllById(uuids);
+	}
+
 	@Override
 	@Transactional
 	public ItemVenda incluir(ItemVenda itemVenda) {
@@ -65,11 +119,17 @@ public class ItemVendaServiceImpl implements ItemVendaService {
 	}
 
 	@Override
-	@Transactional
-	public ItemVenda alterar(UUID uuid, ItemVenda itemVenda) {
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public ItemVenda alterar(UUID uuid, ItemVenda itemVenda, Optional<Set<Long>> versoesEsperadas) {
+		return executorTransacional.executar(() -> alterarEmTransacao(uuid, itemVenda, versoesEsperadas));
+	}
+
+	private ItemVenda alterarEmTransacao(UUID uuid, ItemVenda itemVenda, Optional<Set<Long>> versoesEsperadas) {
 		ItemVenda existente = itemVendaRepository.findById(uuid)
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemVenda.NOME_EXIBICAO_ENTIDADE, uuid));
 
+		EtagUtil.verificarVersao(existente, versoesEsperadas, ItemVenda.NOME_EXIBICAO_ENTIDADE);
+
 		if (!itemVenda.getTipo().equals(existente.getTipo())) {
 			throw new OperacaoInvalidaException(String.format("Não é possível alterar o tipo de um %s", ItemVenda.NOME_EXIBICAO_ENTIDADE));
 		}
@@ -86,7 +146,7 @@ public class ItemVendaServiceImpl implements ItemVendaService {
 		}
 
 		// Necessário armazenar a necessidade ou não de atualizar os valores de itens de Pedido antes de aplicar os
-		// novos valores, dado que a atualização em si depende de a entidade já ter sido atualizada no banco
+		// novos valores, dado que o recálculo em si depende de a entidade já ter sido atualizada no banco
 		boolean doAtualizarValores = !itemVenda.getValorBase().equals(existente.getValorBase());
 
 		existente.setNome(itemVenda.getNome());
@@ -94,9 +154,11 @@ public class ItemVendaServiceImpl implements ItemVendaService {
 		existente.setAtivo(itemVenda.isAtivo());
 
 		existente = itemVendaRepository.save(existente);
+		itemVendaRepository.removerDoCache(uuid);
 
+		// Os itens de Pedido são recalculados em segundo plano, em lotes, sem manter a alteração aguardando
 		if (doAtualizarValores) {
-			itemPedidoService.atualizarValores(existente);
+			recalculoPrecoService.agendar(existente);
 		}
 		return existente;
 	}
@@ -118,6 +180,17 @@ public class ItemVendaServiceImpl implements ItemVendaService {
 					itensPedidoAssociados == 1 ? "ão" : "ões"));
 		}
 		itemVendaRepository.delete(itemVenda);
+		itemVendaRepository.removerDoCache(uuid);
+	}
+
+	@Override
+	public EstatisticasCache buscarEstatisticasCache() {
+		return itemVendaRepository.buscarEstatisticasCache();
+	}
+
+	@Override
+	public Optional<RecalculoPreco> buscarUltimoRecalculoPreco(UUID uuid) {
+		return recalculoPrecoService.buscarUltimoPorItemVenda(uuid);
 	}
 
 }
@@ -0,0 +1,230 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import br.org.casa.pedidosimples.model.NotificacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+import br.org.casa.pedidosimples.service.NotificacaoPedidoService;
+import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.util.ThreadsVirtuaisUtil;
+
+/**
+ * Implementação de serviços para {@link NotificacaoPedido}. As notificações são apenas enfileiradas no buffer
+ * de cada cliente pela thread que confirmou a alteração; o envio é feito por um pequeno conjunto de threads
+ * próprio, de modo que um cliente lento não atrase as requisições nem os demais clientes. No modo de threads
+ * virtuais, cada envio é feito em uma nova thread virtual, e o bloqueio na escrita para um cliente lento não
+ * ocupa uma thread de plataforma.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Service
+public class NotificacaoPedidoServiceImpl implements NotificacaoPedidoService {
+
+	static final String NOME_EVENTO = "pedido";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(NotificacaoPedidoServiceImpl.class);
+
+	@Autowired
+	private PedidoService pedidoService;
+
+	// Quantidade máxima de Pedidos com notificações pendentes de envio para um mesmo cliente
+	@Value("${pedido-simples.notificacao-pedido.tamanho-buffer:256}")
+	private int tamanhoBuffer;
+
+	@Value("${pedido-simples.notificacao-pedido.tempo-limite:1800000}")
+	private long tempoLimite;
+
+	@Value("${pedido-simples.notificacao-pedido.threads-envio:2}")
+	private int threadsEnvio;
+
+	@Value("${pedido-simples.threads-virtuais.habilitado:false}")
+	private boolean threadsVirtuais;
+
+	private final Set<Inscricao> inscricoes = ConcurrentHashMap.newKeySet();
+
+	private ExecutorService executorEnvio;
+
+	NotificacaoPedidoServiceImpl() {
+
+	}
+
+	@PostConstruct
+	void iniciar() {
+		if (threadsVirtuais) {
+			executorEnvio = ThreadsVirtuaisUtil.criarExecutor("notificacao-pedido-");
+			return;
+		}
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(threadsEnvio);
+		executor.setMaxPoolSize(threadsEnvio);
+		executor.setThreadNamePrefix("notificacao-pedido-");
+		executor.initialize();
+		executorEnvio = executor.getThreadPoolExecutor();
+	}
+
+	@PreDestroy
+	void encerrar() {
+		inscricoes.forEach(Inscricao::encerrar);
+		executorEnvio.shutdown();
+	}
+
+	@Override
+	public SseEmitter inscrever() {
+		SseEmitter emitter = criarEmitter(tempoLimite);
+		Inscricao inscricao = new Inscricao(emitter);
+
+		emitter.onCompletion(() -> inscricoes.remove(inscricao));
+		emitter.onTimeout(inscricao::encerrar);
+		emitter.onError(e -> inscricao.encerrar());
+		inscricoes.add(inscricao);
+
+		return emitter;
+	}
+
+	@Override
+	@TransactionalEventListener
+	public void notificar(NotificacaoPedido notificacao) {
+		if (inscricoes.isEmpty()) {
+			return;
+		}
+
+		// O valor total só é consultado se houver clientes inscritos, uma única vez para todos eles. Como a alteração
+		// já foi confirmada, uma falha na consulta não deve ser propagada para a requisição
+		NotificacaoPedido completa = notificacao;
+		if (notificacao.getValorTotal() == null && !TipoEventoPedido.PEDIDO_EXCLUIDO.equals(notificacao.getTipo())) {
+			try {
+				completa = notificacao.comValorTotal(pedidoService.buscarValorTotal(notificacao.getId()).orElse(null));
+			} catch (RuntimeException e) {
+				LOGGER.warn("Não foi possível obter o valor total do Pedido {} para notificação", notificacao.getId(), e);
+			}
+		}
+
+		for (Inscricao inscricao : inscricoes) {
+			if (inscricao.enfileirar(completa)) {
+				executorEnvio.execute(inscricao::enviarPendentes);
+			}
+		}
+	}
+
+	/**
+	 * Retorna a quantidade de clientes inscritos.
+	 */
+	int contarInscricoes() {
+		return inscricoes.size();
+	}
+
+	SseEmitter criarEmitter(long tempoLimite) {
+		return new SseEmitter(tempoLimite);
+	}
+
+	/**
+	 * Um cliente inscrito e suas notificações pendentes, na ordem de chegada e com no máximo uma por Pedido.
+	 * No máximo um envio é agendado por vez para cada cliente, o que mantém a ordem das notificações e limita
+	 * as tarefas pendentes do executor à quantidade de clientes.
+	 */
+	private class Inscricao {
+
+		private final SseEmitter emitter;
+
+		private final Map<UUID, NotificacaoPedido> pendentes = new LinkedHashMap<>();
+
+		private boolean envioAgendado;
+
+		private boolean encerrada;
+
+		Inscricao(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		/**
+		 * Acrescenta a notificação às pendentes, retornando se é necessário agendar o envio.
+		 */
+		boolean enfileirar(NotificacaoPedido notificacao) {
+			synchronized (this) {
+				if (encerrada) {
+					return false;
+				}
+
+				// A notificação anterior do mesmo Pedido, se ainda não enviada, é substituída pela nova ao final da fila
+				pendentes.remove(notificacao.getId());
+				if (pendentes.size() < tamanhoBuffer) {
+					pendentes.put(notificacao.getId(), notificacao);
+
+					boolean agendar = !envioAgendado;
+					envioAgendado = true;
+					return agendar;
+				}
+			}
+
+			// O cliente não acompanha as notificações: é desconectado, e ao se inscrever novamente deve
+			// consultar o estado atual dos Pedidos
+			encerrar();
+			return false;
+		}
+
+		void enviarPendentes() {
+			while (true) {
+				NotificacaoPedido notificacao;
+				synchronized (this) {
+					Iterator<NotificacaoPedido> iterator = pendentes.values().iterator();
+					if (encerrada || !iterator.hasNext()) {
+						envioAgendado = false;
+						return;
+					}
+					notificacao = iterator.next();
+					iterator.remove();
+				}
+
+				try {
+					emitter.send(SseEmitter.event()
+							.name(NOME_EVENTO)
+							.data(notificacao, MediaType.APPLICATION_JSON));
+				} catch (IOException | IllegalStateException e) {
+					// Conexão encerrada pelo cliente
+					encerrar();
+					return;
+				}
+			}
+		}
+
+		void encerrar() {
+			synchronized (this) {
+				if (encerrada) {
+					return;
+				}
+				encerrada = true;
+				pendentes.clear();
+			}
+
+			inscricoes.remove(this);
+			emitter.complete();
+		}
+
+	}
+
+}
@@ -4,28 +4,52 @@
 package br.org.casa.pedidosimples.service.impl;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.querydsl.core.types.dsl.BooleanExpression;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.model.CabecalhoPedido;
+import br.org.casa.pedidosimples.model.DivergenciaValorTotal;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.PedidoFechado;
+import br.org.casa.pedidosimples.model.SnapshotPedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
 import br.org.casa.pedidosimples.repository.PedidoPredicateBuilder;
 import br.org.casa.pedidosimples.repository.PedidoRepository;
+import br.org.casa.pedidosimples.repository.SnapshotPedidoRepository;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
 import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+import br.org.casa.pedidosimples.util.CursorUtil;
+import br.org.casa.pedidosimples.util.EtagUtil;
+import br.org.casa.pedidosimples.util.PaginacaoUtil;
 
 /**
  * Implementação de serviços para {@link Pedido}.
@@ -43,39 +67,139 @@ public class PedidoServiceImpl implements PedidoService {
 	@Autowired
 	private ItemPedidoService itemPedidoService;
 
+	@Autowired
+	private SnapshotPedidoRepository snapshotPedidoRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private RecalculoPrecoService recalculoPrecoService;
+
+	@Autowired
+	private ExecutorTransacional executorTransacional;
+
+	@Autowired
+	private EventoPedidoService eventoPedidoService;
+
 	PedidoServiceImpl() {
 
 	}
 
 	@Override
-	public Page<Pedido> buscarTodos(Pageable pageable, Map<String, String> parametrosBusca) {
+	public Slice<Pedido> buscarTodos(Pageable pageable, Map<String, String> parametrosBusca, boolean comTotais,
+			ModoContagem modoContagem) {
+		PedidoPredicateBuilder predicateBuilder = PedidoPredicateBuilder.of(parametrosBusca);
+		BooleanExpression predicate = predicateBuilder.build();
+
+		Slice<Pedido> pagina;
+		switch (modoContagem) {
+		case NENHUMA:
+			pagina = pedidoRepository.buscarFatia(predicate, pageable);
+			break;
+		case APROXIMADA:
+			// A estimativa do banco de dados se refere à tabela inteira, e por isso só é usada sem filtros
+			Optional<Long> totalEstimado = predicateBuilder.isVazio()
+				? pedidoRepository.estimarTotal()
+				: Optional.empty();
+			pagina = totalEstimado.isPresent()
+				? PaginacaoUtil.criarPaginaAproximada(pedidoRepository.buscarFatia(predicate, pageable), totalEstimado.get())
+				: pedidoRepository.findAll(predicate, pageable);
+			break;
+		default:
+			pagina = pedidoRepository.findAll(predicate, pageable);
+		}
+
+		if (comTotais && pagina.hasContent()) {
+			Map<UUID, TotaisPedido> totais = itemPedidoService.totalizarPorPedidos(pagina.getContent());
+
+			pagina.forEach(p -> {
+				TotaisPedido totaisPedido = totais.getOrDefault(p.getId(), new TotaisPedido(0L, new BigDecimal("0.00")));
+				p.setValorTotal(totaisPedido.getValorTotal());
+				p.setQuantidadeItens(totaisPedido.getQuantidadeItens());
+			});
+		}
+		return pagina;
+	}
+
+	@Override
+	public PaginaCursor<Pedido> buscarTodosPorCursor(String cursor, int tamanho, Map<String, String> parametrosBusca) {
 		BooleanExpression predicate = PedidoPredicateBuilder.of(parametrosBusca)
 			.build();
 
-		return pedidoRepository.findAll(predicate, pageable);
+		Optional<String> codigoApos = CursorUtil.decodificar(cursor, Pedido.NOME_EXIBICAO_ENTIDADE);
+
+		return CursorUtil.criarPagina(pedidoRepository.buscarPorCursor(predicate, codigoApos, tamanho + 1),
+				tamanho, Pedido::getCodigo);
+	}
+
+	@Override
+	public long percorrerTodos(Map<String, String> parametrosBusca, Consumer<? super Pedido> consumidor) {
+		return pedidoRepository.percorrer(PedidoPredicateBuilder.of(parametrosBusca).build(), consumidor);
 	}
 
 	@Override
 	public Optional<Pedido> buscarPorId(UUID uuid) {
+		// O valor total e a quantidade de itens do detalhe são obtidos em uma única consulta de agregação
 		return pedidoRepository.findById(uuid)
 				.map(p -> {
-					p.setItensPedido(itemPedidoService.buscarPorPedido(p));
+					TotaisPedido totais = itemPedidoService.totalizarPorPedido(p);
+					p.setValorTotal(totais.getValorTotal());
+					p.setQuantidadeItens(totais.getQuantidadeItens());
 					return p;
 				});
 	}
 
+	@Override
+	public Optional<SnapshotPedido> buscarSnapshot(UUID uuid) {
+		return snapshotPedidoRepository.findById(uuid);
+	}
+
+	@Override
+	public Optional<Long> buscarVersao(UUID uuid) {
+		return pedidoRepository.buscarVersao(uuid);
+	}
+
+	@Override
+	public Optional<BigDecimal> buscarValorTotal(UUID uuid) {
+		return pedidoRepository.buscarValorTotal(uuid);
+	}
+
+	@Override
+	public Optional<Pedido> buscarCabecalhoPorId(UUID uuid) {
+		return pedidoRepository.buscarCabecalho(uuid)
+				.map(PedidoServiceImpl::criarPedido);
+	}
+
 	@Override
 	@Transactional
 	public Pedido incluir(Pedido pedido) {
-		return pedidoRepository.save(pedido);
+		Pedido incluido = pedidoRepository.save(pedido);
+		eventoPedidoService.registrar(TipoEventoPedido.PEDIDO_INCLUIDO, incluido);
+
+		return incluido;
 	}
 
 	@Override
-	@Transactional
-	public Pedido alterar(UUID uuid, Pedido pedido) {
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@CacheEvict(cacheNames = CabecalhoPedido.NOME_CACHE, key = "#uuid")
+	public Pedido alterar(UUID uuid, Pedido pedido, Optional<Set<Long>> versoesEsperadas) {
+		return executorTransacional.executar(() -> alterarEmTransacao(uuid, pedido, versoesEsperadas));
+	}
+
+	private Pedido alterarEmTransacao(UUID uuid, Pedido pedido, Optional<Set<Long>> versoesEsperadas) {
 		Pedido existente = pedidoRepository.findById(uuid)
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid));
 
+		EtagUtil.verificarVersao(existente, versoesEsperadas, Pedido.NOME_EXIBICAO_ENTIDADE);
+
+		// Pedidos fechados são servidos a partir do snapshot gravado no fechamento, com cache HTTP de longa duração,
+		// e por isso não podem mais ser alterados
+		if (SituacaoPedido.FECHADO.equals(existente.getSituacao())) {
+			throw new OperacaoInvalidaException(String.format("Não é possível alterar um %s fechado",
+					Pedido.NOME_EXIBICAO_ENTIDADE));
+		}
+
 		if (!pedido.getFatorDesconto().equals(existente.getFatorDesconto())) {
 			throw new OperacaoInvalidaException(String.format("Não é possível alterar diretamente o fator de desconto do %s. "
 					+ "Utilize o método /aplicar-desconto.", Pedido.NOME_EXIBICAO_ENTIDADE));
@@ -88,39 +212,62 @@ public class PedidoServiceImpl implements PedidoService {
 
 		existente.setCodigo(pedido.getCodigo());
 
-		return pedidoRepository.save(existente);
+		Pedido alterado = pedidoRepository.save(existente);
+		eventoPedidoService.registrar(TipoEventoPedido.PEDIDO_ALTERADO, alterado);
+
+		return alterado;
 	}
 
 	@Override
-	@Transactional
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@CacheEvict(cacheNames = CabecalhoPedido.NOME_CACHE, key = "#uuid")
 	public void excluir(UUID uuid) {
-		Pedido pedido = pedidoRepository.findById(uuid)
-				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid));
+		executorTransacional.executar(() -> {
+			Pedido pedido = pedidoRepository.findById(uuid)
+					.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid));
 
-		itemPedidoService.excluirPorPedido(pedido);
-		pedidoRepository.delete(pedido);
+			// O evento de exclusão do Pedido representa também a exclusão de seus itens
+			eventoPedidoService.registrar(TipoEventoPedido.PEDIDO_EXCLUIDO, pedido);
+			itemPedidoService.excluirPorPedido(pedido);
+			pedidoRepository.delete(pedido);
+		});
 	}
 
 	@Override
-	@Transactional
-	public Pedido aplicarDesconto(UUID uuid, BigDecimal fatorDesconto) {
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@CacheEvict(cacheNames = CabecalhoPedido.NOME_CACHE, key = "#uuid")
+	public Pedido aplicarDesconto(UUID uuid, BigDecimal fatorDesconto, Optional<Set<Long>> versoesEsperadas) {
+		return executorTransacional.executar(() -> aplicarDescontoEmTransacao(uuid, fatorDesconto, versoesEsperadas));
+	}
+
+	private Pedido aplicarDescontoEmTransacao(UUID uuid, BigDecimal fatorDesconto, Optional<Set<Long>> versoesEsperadas) {
 		Pedido pedido = pedidoRepository.findById(uuid)
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid));
 
+		EtagUtil.verificarVersao(pedido, versoesEsperadas, Pedido.NOME_EXIBICAO_ENTIDADE);
+
 		if (SituacaoPedido.FECHADO.equals(pedido.getSituacao())) {
 			throw new OperacaoInvalidaException(String.format("Não é possível alterar o fator de desconto de um %s fechado",
 					Pedido.NOME_EXIBICAO_ENTIDADE));
 		}
 
+		reservarVersao(pedido);
+
 		pedido.setFatorDesconto(fatorDesconto);
 		itemPedidoService.atualizarValores(pedidoRepository.save(pedido));
+		eventoPedidoService.registrar(TipoEventoPedido.DESCONTO_APLICADO, pedido);
 
 		return pedido;
 	}
 
 	@Override
-	@Transactional
+	@Transactional(propagation = Propagation.SUPPORTS)
+	@CacheEvict(cacheNames = CabecalhoPedido.NOME_CACHE, key = "#uuid")
 	public Pedido fechar(UUID uuid) {
+		return executorTransacional.executar(() -> fecharEmTransacao(uuid));
+	}
+
+	private Pedido fecharEmTransacao(UUID uuid) {
 		Pedido pedido = pedidoRepository.findById(uuid)
 				.orElseThrow(() -> new EntidadeNaoEncontradaException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid));
 
@@ -128,6 +275,8 @@ public class PedidoServiceImpl implements PedidoService {
 			throw new OperacaoInvalidaException(String.format("Não é possível fechar um %s já fechado", Pedido.NOME_EXIBICAO_ENTIDADE));
 		}
 
+		reservarVersao(pedido);
+
 		// Já existe um bloqueio de alteração de status de ItemVenda quando estão associados a ItemVenda de Pedidos abertos.
 		// Essa verificação é uma redundância para garantir que não fechamento com ItemVenda inativo.
 		if (itemPedidoService.contarPorPedidoEItemVendaInativo(pedido) > 0L) {
@@ -137,11 +286,134 @@ public class PedidoServiceImpl implements PedidoService {
 					ItemVenda.NOME_EXIBICAO_ENTIDADE));
 		}
 
-		// O recálculo também é uma redundância por garantia, dado que os valores são recalculados a cada alteração (valor do ItemVenda
-		// ou fator de desconto do Pedido).
+		// Os valores são recalculados a cada aplicação de desconto, mas as alterações de valor de ItemVenda são propagadas em
+		// segundo plano. O recálculo garante que o Pedido seja fechado com os valores atuais, concluindo as pendências de recálculo
+		// que ainda houver para ele.
 		itemPedidoService.atualizarValores(pedido);
+		recalculoPrecoService.concluirPorPedido(pedido);
 
 		pedido.setSituacao(SituacaoPedido.FECHADO);
-		return pedidoRepository.save(pedido);
+		// A gravação é antecipada para que o snapshot registre a versão final do Pedido
+		Pedido fechado = pedidoRepository.saveAndFlush(pedido);
+
+		registrarSnapshot(fechado);
+		eventoPedidoService.registrar(TipoEventoPedido.PEDIDO_FECHADO, fechado);
+
+		return fechado;
+	}
+
+	@Override
+	@Transactional
+	public void adicionarValorTotal(Pedido pedido, BigDecimal valor) {
+		// O valor em memória é atualizado antes, pois a atualização no banco recarrega o Pedido caso esteja gerenciado.
+		// Os Pedidos obtidos a partir do cabeçalho não possuem valor total.
+		if (pedido.getValorTotal() != null) {
+			pedido.setValorTotal(pedido.getValorTotal().add(valor));
+		}
+		if (pedidoRepository.adicionarValorTotal(pedido, valor) == 0L) {
+			// O valor foi calculado a partir de um fator de desconto ou situação que não são mais os do Pedido (ou
+			// ele foi excluído). O cabeçalho em cache, se houver, está desatualizado e não deve ser usado na nova tentativa
+			pedidoRepository.removerCabecalhoDoCache(pedido.getId());
+			throw new ObjectOptimisticLockingFailureException(Pedido.class, pedido.getId());
+		}
 	}
+
+	@Override
+	@Transactional
+	public void atualizarValorTotal(Pedido pedido, BigDecimal valorTotal) {
+		pedido.setValorTotal(valorTotal);
+		pedidoRepository.atualizarValorTotal(pedido, valorTotal);
+	}
+
+	@Override
+	@Transactional
+	public void recalcularValorTotal(ItemVenda itemVenda) {
+		pedidoRepository.recalcularValorTotalPorItemVendaEPedidoAberto(itemVenda);
+	}
+
+	@Override
+	@Transactional
+	public long bloquearAbertos(Collection<UUID> uuids) {
+		return pedidoRepository.incrementarVersaoPorIdsEPedidoAberto(uuids);
+	}
+
+	@Override
+	@Transactional
+	public void recalcularValorTotal(Collection<UUID> uuids) {
+		pedidoRepository.recalcularValorTotalPorIdsEPedidoAberto(uuids);
+	}
+
+	@Override
+	public List<Pedido> buscarAbertosPorItemVenda(ItemVenda itemVenda) {
+		return pedidoRepository.buscarAbertosPorItemVenda(itemVenda);
+	}
+
+	@Override
+	public List<Pedido> buscarAbertosPorIds(Collection<UUID> uuids) {
+		return pedidoRepository.buscarAbertosPorIds(uuids);
+	}
+
+	@Override
+	public List<DivergenciaValorTotal> verificarValoresTotais() {
+		return pedidoRepository.buscarDivergenciasValorTotal();
+	}
+
+	@Override
+	@Transactional
+	public List<DivergenciaValorTotal> corrigirValoresTotais() {
+		List<DivergenciaValorTotal> divergencias = pedidoRepository.buscarDivergenciasValorTotal();
+
+		if (!divergencias.isEmpty()) {
+			pedidoRepository.recalcularValorTotalComDivergencia();
+		}
+		return divergencias;
+	}
+
+	/**
+	 * Verifica que o fator de desconto e a situação do Pedido não foram alterados desde a sua leitura,
+	 * incrementando a sua versão. A partir daí o registro fica bloqueado até o fim da transação: os ItemPedido
+	 * lidos em seguida não podem mais ser alterados por outras transações, e as inclusões concorrentes que
+	 * dependam do estado anterior do Pedido falham ao atualizar o valor total.
+	 */
+	private void reservarVersao(Pedido pedido) {
+		if (pedidoRepository.incrementarVersao(pedido) == 0L) {
+			throw new ObjectOptimisticLockingFailureException(Pedido.class, pedido.getId());
+		}
+	}
+
+	/**
+	 * Grava o snapshot imutável de um Pedido recém-fechado, com seus ItemPedido já recalculados.
+	 */
+	private void registrarSnapshot(Pedido pedido) {
+		Instant dataFechamento = Instant.now();
+		PedidoFechado pedidoFechado = new PedidoFechado(pedido, itemPedidoService.buscarPorPedido(pedido), dataFechamento);
+
+		String conteudo;
+		try {
+			conteudo = objectMapper.writeValueAsString(pedidoFechado);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(String.format("Não foi possível serializar o %s fechado %s",
+					Pedido.NOME_EXIBICAO_ENTIDADE, pedido.getId()), e);
+		}
+
+		snapshotPedidoRepository.save(new SnapshotPedido(pedido.getId(), dataFechamento, conteudo, pedido.getVersao()));
+	}
+
+	/**
+	 * Cria um Pedido não gerenciado a partir de seu cabeçalho, para uso como referência nas operações
+	 * sobre seus ItemPedido.
+	 */
+	private static Pedido criarPedido(CabecalhoPedido cabecalho) {
+		Pedido pedido = new Pedido();
+		pedido.setId(cabecalho.getId());
+		pedido.setCodigo(cabecalho.getCodigo());
+		pedido.setFatorDesconto(cabecalho.getFatorDesconto());
+		pedido.setSituacao(cabecalho.getSituacao());
+		// A versão é necessária para que o Hibernate não trate o Pedido como transiente ao referenciá-lo nos ItemPedido
+		pedido.setVersao(cabecalho.getVersao());
+		pedido.setValorTotal(null);
+
+		return pedido;
+	}
+
 }
@@ -0,0 +1,61 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco;
+import br.org.casa.pedidosimples.repository.RecalculoPrecoRepository;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+
+/**
+ * Dispara, em segundo plano, o processamento dos {@link RecalculoPreco}s. Separado do serviço para que o
+ * proxy de execução assíncrona não participe das referências circulares entre os serviços.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Component
+public class ProcessadorRecalculoPreco {
+
+	@Autowired
+	private RecalculoPrecoService recalculoPrecoService;
+
+	@Autowired
+	private RecalculoPrecoRepository recalculoPrecoRepository;
+
+	ProcessadorRecalculoPreco() {
+
+	}
+
+	/**
+	 * Processa um recálculo agendado após a confirmação da transação que o agendou, de modo que a requisição
+	 * que alterou o ItemVenda não aguarde o recálculo.
+	 *
+	 * @param recalculo o recálculo agendado
+	 */
+	@Async
+	@TransactionalEventListener
+	public void processarAgendado(RecalculoPreco recalculo) {
+		recalculoPrecoService.processar(recalculo.getId());
+	}
+
+	/**
+	 * Retoma o processamento dos recálculos não concluídos, interrompidos por um erro ou pelo encerramento
+	 * da aplicação.
+	 */
+	@Async
+	@EventListener(ApplicationReadyEvent.class)
+	public void retomarNaoConcluidos() {
+		recalculoPrecoRepository.findBySituacaoNot(SituacaoRecalculoPreco.CONCLUIDO)
+			.forEach(r -> recalculoPrecoService.processar(r.getId()));
+	}
+
+}
@@ -0,0 +1,50 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import br.org.casa.pedidosimples.model.EventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+
+/**
+ * Envia periodicamente, em segundo plano, os {@link EventoPedido}s pendentes. O intervalo entre o fim de um
+ * envio e o início do próximo é definido pela propriedade pedido-simples.evento-pedido.intervalo-envio.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Component
+public class PublicadorEventoPedido {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PublicadorEventoPedido.class);
+
+	@Autowired
+	private EventoPedidoService eventoPedidoService;
+
+	PublicadorEventoPedido() {
+
+	}
+
+	/**
+	 * Envia os eventos pendentes. Em caso de falha, os eventos não enviados permanecem pendentes até o
+	 * próximo envio.
+	 */
+	@Scheduled(fixedDelayString = "${pedido-simples.evento-pedido.intervalo-envio:1000}")
+	public void enviarPendentes() {
+		try {
+			long enviados = eventoPedidoService.enviarPendentes();
+			if (enviados > 0L) {
+				LOGGER.debug("{} eventos de Pedido enviados", enviados);
+			}
+		} catch (RuntimeException e) {
+			LOGGER.error("Falha no envio dos eventos de Pedido pendentes", e);
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco;
+import br.org.casa.pedidosimples.repository.RecalculoPrecoRepository;
+import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+
+/**
+ * Implementação de serviços para {@link RecalculoPreco}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@Service
+@Transactional(readOnly = true)
+public class RecalculoPrecoServiceImpl implements RecalculoPrecoService {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RecalculoPrecoServiceImpl.class);
+
+	@Autowired
+	private ItemPedidoService itemPedidoService;
+
+	@Autowired
+	private ItemVendaService itemVendaService;
+
+	@Autowired
+	private RecalculoPrecoRepository recalculoPrecoRepository;
+
+	@Autowired
+	private ExecutorTransacional executorTransacional;
+
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	// Quantidade de Pedidos recalculados em cada transação, limitando a duração dos bloqueios sobre Pedidos e itens
+	@Value("${pedido-simples.recalculo-preco.tamanho-lote:100}")
+	private int tamanhoLote;
+
+	RecalculoPrecoServiceImpl() {
+
+	}
+
+	@Override
+	public Optional<RecalculoPreco> buscarUltimoPorItemVenda(UUID uuidItemVenda) {
+		return recalculoPrecoRepository.findFirstByIdItemVendaOrderByDataCriacaoDesc(uuidItemVenda);
+	}
+
+	@Override
+	@Transactional
+	public RecalculoPreco agendar(ItemVenda itemVenda) {
+		RecalculoPreco recalculo = new RecalculoPreco();
+		recalculo.setIdItemVenda(itemVenda.getId());
+		recalculo.setValorBase(itemVenda.getValorBase());
+		recalculo.setSituacao(SituacaoRecalculoPreco.EM_ANDAMENTO);
+		recalculo.setDataCriacao(Instant.now());
+
+		// A gravação é antecipada, pois os Pedidos pendentes referenciam o recálculo
+		recalculo = recalculoPrecoRepository.saveAndFlush(recalculo);
+		recalculo.setTotalPedidos(recalculoPrecoRepository.registrarPedidosPendentes(recalculo));
+
+		if (recalculo.getTotalPedidos() == 0L) {
+			recalculo.setSituacao(SituacaoRecalculoPreco.CONCLUIDO);
+			recalculo.setDataConclusao(recalculo.getDataCriacao());
+		} else {
+			// Recebido pelo ProcessadorRecalculoPreco apenas após a confirmação da transação
+			eventPublisher.publishEvent(recalculo);
+		}
+		return recalculo;
+	}
+
+	@Override
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public RecalculoPreco processar(UUID uuid) {
+		RecalculoPreco recalculo = recalculoPrecoRepository.findById(uuid)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(RecalculoPreco.NOME_EXIBICAO_ENTIDADE, uuid));
+
+		try {
+			while (executorTransacional.executar(() -> processarLote(recalculo))) {
+				// Cada lote é processado em sua própria transação
+			}
+		} catch (RuntimeException e) {
+			LOGGER.error("Falha no processamento do {} {}", RecalculoPreco.NOME_EXIBICAO_ENTIDADE, uuid, e);
+			executorTransacional.executar(() -> recalculoPrecoRepository.registrarFalha(recalculo));
+		}
+
+		return recalculoPrecoRepository.findById(uuid)
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(RecalculoPreco.NOME_EXIBICAO_ENTIDADE, uuid));
+	}
+
+	/**
+	 * Recalcula o próximo lote de Pedidos pendentes, retornando se ainda pode haver Pedidos a recalcular. O
+	 * valor base usado é o atual do ItemVenda, de modo que alterações sucessivas resultem no último valor.
+	 */
+	private boolean processarLote(RecalculoPreco recalculo) {
+		List<UUID> uuidsPedido = recalculoPrecoRepository.buscarPedidosPendentes(recalculo, tamanhoLote);
+		if (uuidsPedido.isEmpty()) {
+			recalculoPrecoRepository.concluir(recalculo);
+			return false;
+		}
+
+		ItemVenda itemVenda = itemVendaService.buscarPorId(recalculo.getIdItemVenda())
+				.orElseThrow(() -> new EntidadeNaoEncontradaException(ItemVenda.NOME_EXIBICAO_ENTIDADE, recalculo.getIdItemVenda()));
+
+		itemPedidoService.atualizarValores(itemVenda, uuidsPedido);
+		recalculoPrecoRepository.removerPedidosPendentes(recalculo, uuidsPedido);
+		return true;
+	}
+
+	@Override
+	@Transactional
+	public void concluirPorPedido(Pedido pedido) {
+		recalculoPrecoRepository.removerPedidoPendente(pedido);
+	}
+
+}
@@ -0,0 +1,123 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
+import br.org.casa.pedidosimples.model.PaginaCursor;
+
+/**
+ * Classe com facilidades para a paginação baseada em cursor (keyset). O cursor é a chave de ordenação do último
+ * registro retornado, codificada em Base64, e deve ser tratado pelos clientes como um valor opaco.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class CursorUtil {
+	/**
+	 * Nome do parâmetro de requisição que contém o cursor.
+	 */
+	public static final String PARAMETRO_CURSOR = "cursor";
+
+	/**
+	 * Tamanho de página utilizado quando não informado.
+	 */
+	public static final int TAMANHO_PADRAO = 20;
+
+	/**
+	 * Tamanho máximo de página. Segue o mesmo limite padrão da paginação do Spring Data.
+	 */
+	public static final int TAMANHO_MAXIMO = 2000;
+
+	private CursorUtil() {
+		// Construtor padrão privado, por se tratar de uma classe utilitária
+	}
+
+	/**
+	 * Codifica uma chave de ordenação como cursor.
+	 *
+	 * @param chave a chave de ordenação do último registro da página
+	 * @return o cursor correspondente
+	 */
+	public static String codificar(String chave) {
+		return Base64.getUrlEncoder()
+				.withoutPadding()
+				.encodeToString(chave.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Decodifica um cursor, retornando a chave de ordenação a partir da qual a busca deve continuar.
+	 *
+	 * @param cursor o cursor recebido. Se nulo ou vazio, corresponde à primeira página
+	 * @param nomeEntidade nome da entidade buscada, usado na mensagem de erro
+	 * @return um Optional com a chave de ordenação, ou vazio se for a primeira página
+	 * @throws ParametroBuscaParseException se o cursor não for válido
+	 */
+	public static Optional<String> decodificar(String cursor, String nomeEntidade) {
+		if (cursor == null || cursor.isEmpty()) {
+			return Optional.empty();
+		}
+
+		try {
+			return Optional.of(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new ParametroBuscaParseException(e, nomeEntidade, PARAMETRO_CURSOR, cursor, null);
+		}
+	}
+
+	/**
+	 * Decodifica um cursor cuja chave de ordenação é o uuid da entidade.
+	 *
+	 * @param cursor o cursor recebido. Se nulo ou vazio, corresponde à primeira página
+	 * @param nomeEntidade nome da entidade buscada, usado na mensagem de erro
+	 * @return um Optional com o uuid, ou vazio se for a primeira página
+	 * @throws ParametroBuscaParseException se o cursor não for válido
+	 */
+	public static Optional<UUID> decodificarId(String cursor, String nomeEntidade) {
+		try {
+			return decodificar(cursor, nomeEntidade)
+					.map(UUID::fromString);
+		} catch (IllegalArgumentException e) {
+			throw new ParametroBuscaParseException(e, nomeEntidade, PARAMETRO_CURSOR, cursor, null);
+		}
+	}
+
+	/**
+	 * Ajusta o tamanho de página solicitado ao intervalo permitido.
+	 *
+	 * @param tamanho o tamanho solicitado. Pode ser {@code null}
+	 * @return o tamanho a ser utilizado, entre 1 e {@link #TAMANHO_MAXIMO}
+	 */
+	public static int ajustarTamanho(Integer tamanho) {
+		if (tamanho == null || tamanho < 1) {
+			return TAMANHO_PADRAO;
+		}
+		return Math.min(tamanho, TAMANHO_MAXIMO);
+	}
+
+	/**
+	 * Cria uma {@link PaginaCursor} a partir do resultado de uma busca limitada a {@code tamanho + 1} registros.
+	 * O registro excedente, se existir, apenas indica que há uma próxima página, dispensando a contagem total.
+	 *
+	 * @param <T> tipo dos registros
+	 * @param resultados os registros encontrados, já ordenados pela chave de ordenação
+	 * @param tamanho o tamanho de página solicitado
+	 * @param extratorChave função que obtém a chave de ordenação de um registro
+	 * @return a página correspondente
+	 */
+	public static <T> PaginaCursor<T> criarPagina(List<T> resultados, int tamanho, Function<T, String> extratorChave) {
+		if (resultados.size() <= tamanho) {
+			return new PaginaCursor<>(resultados, tamanho, null);
+		}
+
+		List<T> conteudo = resultados.subList(0, tamanho);
+		return new PaginaCursor<>(conteudo, tamanho, codificar(extratorChave.apply(conteudo.get(tamanho - 1))));
+	}
+}
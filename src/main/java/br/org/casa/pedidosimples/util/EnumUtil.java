@@ -3,18 +3,35 @@
  */
 package br.org.casa.pedidosimples.util;
 
-import java.util.EnumSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
  * Implementa facilidades para a conversão de valores normais em elementos de Enums.
  *
+ * <p>Para cada par (Enum, função de conversão) é criado, na primeira conversão, um mapa imutável dos valores
+ * associados para os elementos do Enum, de modo que as conversões seguintes são uma busca em mapa, sem percorrer
+ * os elementos nem alocar objetos. As funções são identificadas pela instância, e por isso devem ser referências
+ * a métodos (ex.: {@code SituacaoPedido::getValor}) ou outras funções sem estado capturado, cuja instância é
+ * reaproveitada a cada chamada; uma função criada a cada chamada geraria, e manteria em memória, um novo mapa a cada conversão.</p>
+ *
  * @author jrjosecarlos
  *
  */
 public final class EnumUtil {
+
+	private static final ClassValue<Map<Function<?, ?>, Map<?, ?>>> MAPAS_VALORES =
+			new ClassValue<Map<Function<?, ?>, Map<?, ?>>>() {
+				@Override
+				protected Map<Function<?, ?>, Map<?, ?>> computeValue(Class<?> enumClass) {
+					return new ConcurrentHashMap<>();
+				}
+			};
+
 	/**
 	 * Converte um valor da classe {@code V} para um elemento do Enum {@code E}, utilizando o método
 	 * {@code converter} para buscar possíveis valores de {@code V} associados aos elementos de {@code E}.
@@ -36,10 +53,12 @@ public final class EnumUtil {
 		Objects.requireNonNull(value, "O valor a ser convertido não pode ser null");
 		Objects.requireNonNull(converter, "A função de conversão não pode ser null");
 
-		return enumFromValueOptional(enumClass, value, converter)
-				.orElseThrow(() -> new IllegalArgumentException(
-						String.format("%s não é um valor válido para o Enum %s.", value.toString(), enumClass.getName()) )
-				);
+		E elemento = mapaValores(enumClass, converter).get(value);
+		if (elemento == null) {
+			throw new IllegalArgumentException(
+					String.format("%s não é um valor válido para o Enum %s.", value.toString(), enumClass.getName()) );
+		}
+		return elemento;
 	}
 
 	/**
@@ -54,16 +73,32 @@ public final class EnumUtil {
 	 * @return {@code true} se {@code value} estiver associado a um elemento do enum, {@code false} caso contrário
 	 */
 	public static <E extends Enum<E>, V> boolean isEnumFromValue(Class<E> enumClass, V value, Function<E, V> converter) {
-		return enumFromValueOptional(enumClass, value, converter).isPresent();
+		return mapaValores(enumClass, converter).containsKey(value);
 	}
 
-	private static <V, E extends Enum<E>> Optional<E> enumFromValueOptional(Class<E> enumClass, V value,
-			Function<E, V> converter) {
-		return EnumSet.allOf(enumClass).stream()
-				.filter(e -> converter.apply(e).equals(value))
-				.findAny();
-	}
+	@SuppressWarnings("unchecked")
+	private static <V, E extends Enum<E>> Map<V, E> mapaValores(Class<E> enumClass, Function<E, V> converter) {
+		Map<Function<?, ?>, Map<?, ?>> mapas = MAPAS_VALORES.get(enumClass);
 
+		// Busca antes do computeIfAbsent, que no Java 8 bloqueia a entrada mesmo quando o mapa já existe
+		Map<?, ?> mapa = mapas.get(converter);
+		if (mapa == null) {
+			mapa = mapas.computeIfAbsent(converter, c -> criarMapaValores(enumClass, converter));
+		}
+		return (Map<V, E>) mapa;
+	}
 
+	// Em caso de valores repetidos, prevalece o primeiro elemento na ordem de declaração do Enum. Elementos
+	// sem valor associado (null) não são incluídos
+	private static <V, E extends Enum<E>> Map<V, E> criarMapaValores(Class<E> enumClass, Function<E, V> converter) {
+		Map<V, E> mapa = new HashMap<>();
+		for (E elemento : enumClass.getEnumConstants()) {
+			V valor = converter.apply(elemento);
+			if (valor != null) {
+				mapa.putIfAbsent(valor, elemento);
+			}
+		}
+		return Collections.unmodifiableMap(mapa);
+	}
 
 }
@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import br.org.casa.pedidosimples.exception.RequisicaoInvalidaException;
+import br.org.casa.pedidosimples.exception.VersaoDivergenteException;
+import br.org.casa.pedidosimples.model.BaseEntity;
+
+/**
+ * Classe com facilidades para as requisições condicionais. As ETags da API são fortes e derivadas da versão
+ * das entidades ({@link BaseEntity#getVersao()}), de modo que podem ser verificadas sem carregar nem serializar
+ * a representação completa do recurso.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class EtagUtil {
+
+	private static final String ETAG_QUALQUER = "*";
+
+	// Um elemento da lista de ETags, com os separadores (vírgulas e espaços) que o antecedem e o seguem
+	private static final Pattern PADRAO_ETAG = Pattern.compile(
+			"[\\s,]*(W/)?\"([\\x21\\x23-\\x7E\\x80-\\xFF]*)\"\\s*(?:,[\\s,]*|$)");
+
+	// Valor de uma ETag gerada para uma única versão, sem zeros à esquerda
+	private static final Pattern PADRAO_VERSAO = Pattern.compile("0|[1-9]\\d{0,17}");
+
+	private EtagUtil() {
+		// Construtor padrão privado, por se tratar de uma classe utilitária
+	}
+
+	/**
+	 * Gera a ETag correspondente a uma ou mais versões. Recursos que incluem dados de outras entidades
+	 * (como o ItemPedido, que inclui seu ItemVenda) devem informar as versões de todas elas.
+	 *
+	 * @param versoes as versões das entidades que compõem o recurso
+	 * @return a ETag, já entre aspas
+	 */
+	public static String gerar(Long... versoes) {
+		return Arrays.stream(versoes)
+				.map(String::valueOf)
+				.collect(Collectors.joining(".", "\"", "\""));
+	}
+
+	/**
+	 * Obtém as versões esperadas pelo cliente a partir do valor do cabeçalho If-Match, que pode conter uma lista
+	 * de ETags. Como o If-Match exige a comparação forte (RFC 7232, seção 3.1), ETags fracas ({@code W/"..."}) e
+	 * ETags que não foram geradas por {@link #gerar(Long...)} para uma única versão nunca correspondem à versão
+	 * atual, e por isso não são incluídas.
+	 *
+	 * @param ifMatch o valor do cabeçalho If-Match
+	 * @return um Optional com as versões esperadas, que pode ser vazio se nenhuma ETag da lista puder corresponder
+	 * à versão atual; ou vazio caso o cabeçalho não tenha sido informado ou aceite qualquer versão ({@code *})
+	 * @throws RequisicaoInvalidaException se o valor não for uma lista de ETags válida
+	 */
+	public static Optional<Set<Long>> extrairVersoes(String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().isEmpty() || ETAG_QUALQUER.equals(ifMatch.trim())) {
+			return Optional.empty();
+		}
+
+		Set<Long> versoes = new LinkedHashSet<>();
+		Matcher matcher = PADRAO_ETAG.matcher(ifMatch);
+		int inicio = 0;
+		while (inicio < ifMatch.length()) {
+			if (!matcher.region(inicio, ifMatch.length()).lookingAt()) {
+				throw new RequisicaoInvalidaException("Valor inválido para o cabeçalho If-Match: %s", ifMatch);
+			}
+
+			if (matcher.group(1) == null && PADRAO_VERSAO.matcher(matcher.group(2)).matches()) {
+				versoes.add(Long.valueOf(matcher.group(2)));
+			}
+			inicio = matcher.end();
+		}
+		return Optional.of(versoes);
+	}
+
+	/**
+	 * Verifica se a versão atual de uma entidade corresponde a uma das versões esperadas pelo cliente.
+	 *
+	 * @param entidade a entidade, no estado atual
+	 * @param versoesEsperadas as versões esperadas, obtidas por {@link #extrairVersoes(String)}. Se vazio, não há
+	 * verificação
+	 * @param nomeEntidade nome de exibição da entidade, usado na mensagem de erro
+	 * @throws VersaoDivergenteException se a versão atual não for nenhuma das esperadas
+	 */
+	public static void verificarVersao(BaseEntity entidade, Optional<Set<Long>> versoesEsperadas, String nomeEntidade) {
+		UUID id = entidade.getId();
+		versoesEsperadas.filter(v -> !v.contains(entidade.getVersao()))
+			.ifPresent(v -> {
+				throw new VersaoDivergenteException(nomeEntidade, id, entidade.getVersao(), v);
+			});
+	}
+
+}
@@ -0,0 +1,78 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Classe com facilidades para as listagens em fluxo, no formato NDJSON (um objeto JSON por linha). Os registros
+ * são serializados à medida que são lidos do banco, sem que a listagem completa seja mantida em memória.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class FluxoJsonUtil {
+
+	private static final String SEPARADOR = "\n";
+
+	private FluxoJsonUtil() {
+		// Construtor padrão privado, por se tratar de uma classe utilitária
+	}
+
+	/**
+	 * Cria a resposta de uma listagem em fluxo. A leitura é executada fora da thread da requisição, pelo executor
+	 * de requisições assíncronas do Spring MVC, e recebe o consumidor que escreve cada registro na resposta.
+	 * A saída só é enviada ao cliente quando o buffer da resposta é preenchido e ao fim da leitura, e não a cada
+	 * registro.
+	 *
+	 * @param objectMapper o ObjectMapper usado na serialização dos registros
+	 * @param leitura a leitura dos registros, que os entrega ao consumidor e retorna a quantidade lida
+	 * @return a resposta, com o tipo {@link MediaType#APPLICATION_NDJSON}
+	 */
+	public static ResponseEntity<StreamingResponseBody> criarResposta(ObjectMapper objectMapper,
+			ToLongFunction<Consumer<Object>> leitura) {
+		ObjectWriter escritor = objectMapper.writer()
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+				.withRootValueSeparator(SEPARADOR);
+
+		StreamingResponseBody corpo = saida -> {
+			// A saída é fechada pelo próprio Spring MVC
+			JsonGenerator gerador = escritor.createGenerator(saida)
+					.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+			// O gerador só é fechado (e a saída enviada) ao fim da leitura. Se a leitura falhar antes de preencher
+			// o buffer da resposta, como em um Pedido inexistente, o erro ainda pode ser retornado ao cliente
+			long total = leitura.applyAsLong(registro -> escrever(escritor, gerador, registro));
+			if (total > 0) {
+				gerador.writeRaw(SEPARADOR);
+			}
+			gerador.close();
+		};
+
+		return ResponseEntity.ok()
+				.contentType(MediaType.APPLICATION_NDJSON)
+				.body(corpo);
+	}
+
+	private static void escrever(ObjectWriter escritor, JsonGenerator gerador, Object registro) {
+		try {
+			escritor.writeValue(gerador, registro);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
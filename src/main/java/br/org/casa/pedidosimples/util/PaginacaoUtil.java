@@ -0,0 +1,63 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
+
+/**
+ * Classe com facilidades para as listagens paginadas sem contagem exata de registros, conforme
+ * {@link ModoContagem}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class PaginacaoUtil {
+
+	private PaginacaoUtil() {
+		// Construtor padrão privado, por se tratar de uma classe utilitária
+	}
+
+	/**
+	 * Cria um {@link Slice} a partir do resultado de uma busca limitada a um registro além do tamanho da página.
+	 * O registro excedente, se existir, apenas indica que há uma próxima página.
+	 *
+	 * @param <T> tipo dos registros
+	 * @param resultados os registros encontrados
+	 * @param pageable a paginação solicitada
+	 * @return o Slice correspondente
+	 */
+	public static <T> Slice<T> criarFatia(List<T> resultados, Pageable pageable) {
+		if (pageable.isUnpaged() || resultados.size() <= pageable.getPageSize()) {
+			return new SliceImpl<>(resultados, pageable, false);
+		}
+		return new SliceImpl<>(resultados.subList(0, pageable.getPageSize()), pageable, true);
+	}
+
+	/**
+	 * Cria uma {@link Page} com total de registros estimado. Na última página o total é conhecido e, portanto,
+	 * calculado de forma exata; nas demais, é garantido que o total seja maior que os registros já percorridos.
+	 *
+	 * @param <T> tipo dos registros
+	 * @param fatia a fatia de registros buscada sem contagem
+	 * @param totalEstimado o total estimado de registros
+	 * @return a Page correspondente
+	 */
+	public static <T> Page<T> criarPaginaAproximada(Slice<T> fatia, long totalEstimado) {
+		long percorridos = fatia.getPageable().isPaged()
+				? fatia.getPageable().getOffset() + fatia.getNumberOfElements()
+				: fatia.getNumberOfElements();
+
+		long total = fatia.hasNext() ? Math.max(totalEstimado, percorridos + 1) : percorridos;
+
+		return new PageImpl<>(fatia.getContent(), fatia.getPageable(), total);
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Classe com facilidades para o uso de threads virtuais. A aplicação é compilada para Java 8, de modo que a API
+ * de threads virtuais (Java 21 ou superior) é acessada por reflexão, e só pode ser usada quando disponível no
+ * ambiente de execução.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class ThreadsVirtuaisUtil {
+
+	private ThreadsVirtuaisUtil() {
+		// Construtor padrão privado, por se tratar de uma classe utilitária
+	}
+
+	/**
+	 * Verifica se o ambiente de execução permite a criação de threads virtuais.
+	 *
+	 * @return true se as threads virtuais estão disponíveis, false caso contrário
+	 */
+	public static boolean isSuportado() {
+		try {
+			Thread.class.getMethod("ofVirtual");
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Cria um executor que inicia uma nova thread virtual para cada tarefa, com nomes no formato
+	 * {@code <prefixo><n>}. O executor não limita a quantidade de tarefas simultâneas; esse limite deve
+	 * ser imposto pelos recursos usados pelas tarefas (como o pool de conexões do banco de dados).
+	 *
+	 * @param prefixo o prefixo dos nomes das threads
+	 * @return o executor criado
+	 * @throws IllegalStateException se o ambiente de execução não suporta threads virtuais
+	 */
+	public static ExecutorService criarExecutor(String prefixo) {
+		if (!isSuportado()) {
+			throw new IllegalStateException("Threads virtuais requerem Java 21 ou superior. Versão atual: "
+					+ System.getProperty("java.version"));
+		}
+
+		try {
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> tipoBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+			builder = tipoBuilder.getMethod("name", String.class, long.class).invoke(builder, prefixo, 0L);
+			ThreadFactory fabrica = (ThreadFactory) tipoBuilder.getMethod("factory").invoke(builder);
+
+			Method novoExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			return (ExecutorService) novoExecutor.invoke(null, fabrica);
+		} catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+				| InvocationTargetException e) {
+			throw new IllegalStateException("Não foi possível criar o executor de threads virtuais", e);
+		}
+	}
+
+}
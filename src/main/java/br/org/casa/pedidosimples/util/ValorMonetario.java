@@ -0,0 +1,209 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Valor monetário imutável, representado pela quantidade de centavos em um {@code long}. As operações são
+ * feitas em aritmética inteira, sem a criação de {@link BigDecimal}s intermediários, e os arredondamentos usam o
+ * método padrão ({@link BigDecimalUtil#DEFAULT_ROUNDING_MODE}), de modo que os resultados são os mesmos do
+ * cálculo equivalente em BigDecimal com escala padrão.
+ *
+ * <p>Os fatores (de desconto e de aplicação do desconto) são informados em centésimos, ou seja, 0.15 é
+ * informado como 15 e 1.00 como 100.</p>
+ *
+ * @author jrjosecarlos
+ *
+ */
+public final class ValorMonetario implements Comparable<ValorMonetario> {
+
+	/**
+	 * Valor monetário zero.
+	 */
+	public static final ValorMonetario ZERO = new ValorMonetario(0L);
+
+	private static final int CENTESIMOS = 100;
+
+	// O produto de dois fatores em centésimos é expresso em décimos de milésimo
+	private static final long FATOR_INTEGRAL = (long) CENTESIMOS * CENTESIMOS;
+
+	// Maior quantidade de centavos cujo produto por um multiplicador entre 0 e FATOR_INTEGRAL cabe em um long
+	private static final long LIMITE_DESCONTO = Long.MAX_VALUE / FATOR_INTEGRAL;
+
+	private final long centavos;
+
+	private ValorMonetario(long centavos) {
+		this.centavos = centavos;
+	}
+
+	/**
+	 * Cria um valor monetário a partir da quantidade de centavos.
+	 *
+	 * @param centavos a quantidade de centavos
+	 * @return o valor monetário correspondente
+	 */
+	public static ValorMonetario deCentavos(long centavos) {
+		return centavos == 0L ? ZERO : new ValorMonetario(centavos);
+	}
+
+	/**
+	 * Cria um valor monetário a partir de um BigDecimal, sem arredondamento.
+	 *
+	 * @param valor o valor a ser convertido
+	 * @return o valor monetário correspondente
+	 * @throws ArithmeticException se o valor possuir mais de duas casas decimais diferentes de zero, ou se não
+	 * couber em um long quando expresso em centavos
+	 */
+	public static ValorMonetario de(BigDecimal valor) {
+		return deCentavos(valor.movePointRight(BigDecimalUtil.DEFAULT_SCALE).longValueExact());
+	}
+
+	/**
+	 * Converte um fator expresso em BigDecimal (ex.: 0.15) na quantidade de centésimos correspondente (ex.: 15),
+	 * sem arredondamento.
+	 *
+	 * @param fator o fator a ser convertido
+	 * @return o fator, em centésimos
+	 * @throws ArithmeticException se o fator possuir mais de duas casas decimais diferentes de zero, ou se não
+	 * couber em um int quando expresso em centésimos
+	 */
+	public static int centesimos(BigDecimal fator) {
+		return fator.movePointRight(BigDecimalUtil.DEFAULT_SCALE).intValueExact();
+	}
+
+	/**
+	 * Aplica a este valor um desconto, modificado por um fator de aplicação, na forma
+	 * {@code valor - (valor * (fatorDesconto * fatorAplicacaoDesconto))}, arredondando o resultado para
+	 * centavos.
+	 *
+	 * @param fatorDesconto o fator de desconto, em centésimos
+	 * @param fatorAplicacaoDesconto o fator de aplicação do desconto, em centésimos
+	 * @return o valor com o desconto aplicado
+	 */
+	public ValorMonetario aplicarDesconto(int fatorDesconto, int fatorAplicacaoDesconto) {
+		long fatorEfetivo = (long) fatorDesconto * fatorAplicacaoDesconto;
+
+		if (fatorEfetivo < 0L || fatorEfetivo > FATOR_INTEGRAL) {
+			// Fatores fora do intervalo de 0.00 a 1.00 são calculados em BigDecimal
+			BigDecimal valor = toBigDecimal();
+			return de(BigDecimalUtil.setEscalaPadrao(
+					valor.subtract(valor.multiply(BigDecimal.valueOf(fatorEfetivo, 2 * BigDecimalUtil.DEFAULT_SCALE)))));
+		}
+
+		// valor - valor * fator = valor * (1 - fator)
+		return multiplicar((int) (FATOR_INTEGRAL - fatorEfetivo));
+	}
+
+	/**
+	 * Calcula o multiplicador, em décimos de milésimo, que aplica a um valor um desconto modificado por um fator
+	 * de aplicação, ou seja, {@code 1 - (fatorDesconto * fatorAplicacaoDesconto)}. Por exemplo, um desconto de
+	 * 0.30 aplicado integralmente (1.00) corresponde ao multiplicador 7000 (0.7000).
+	 *
+	 * @param fatorDesconto o fator de desconto, em centésimos, entre 0 e 100
+	 * @param fatorAplicacaoDesconto o fator de aplicação do desconto, em centésimos, entre 0 e 100
+	 * @return o multiplicador, em décimos de milésimo, entre 0 e 10000
+	 * @throws IllegalArgumentException se algum dos fatores estiver fora do intervalo de 0 a 100
+	 */
+	public static int multiplicadorDesconto(int fatorDesconto, int fatorAplicacaoDesconto) {
+		if (fatorDesconto < 0 || fatorDesconto > CENTESIMOS
+				|| fatorAplicacaoDesconto < 0 || fatorAplicacaoDesconto > CENTESIMOS) {
+			throw new IllegalArgumentException(String.format("Fatores fora do intervalo de 0 a %d: %d, %d",
+					CENTESIMOS, fatorDesconto, fatorAplicacaoDesconto));
+		}
+		return (int) (FATOR_INTEGRAL - (long) fatorDesconto * fatorAplicacaoDesconto);
+	}
+
+	/**
+	 * Multiplica este valor por um multiplicador expresso em décimos de milésimo (ex.: 7000 para 0.7000),
+	 * arredondando o resultado para centavos.
+	 *
+	 * @param multiplicador o multiplicador, em décimos de milésimo, entre 0 e 10000
+	 * @return o valor multiplicado
+	 * @throws IllegalArgumentException se o multiplicador estiver fora do intervalo de 0 a 10000
+	 */
+	public ValorMonetario multiplicar(int multiplicador) {
+		if (multiplicador < 0 || multiplicador > FATOR_INTEGRAL) {
+			throw new IllegalArgumentException(String.format("Multiplicador fora do intervalo de 0 a %d: %d",
+					FATOR_INTEGRAL, multiplicador));
+		}
+
+		if (centavos < -LIMITE_DESCONTO || centavos > LIMITE_DESCONTO) {
+			// Valores fora dos limites da aritmética em long, só possíveis com valores muito altos, são
+			// calculados em BigDecimal
+			return de(BigDecimalUtil.setEscalaPadrao(
+					toBigDecimal().multiply(BigDecimal.valueOf(multiplicador, 2 * BigDecimalUtil.DEFAULT_SCALE))));
+		}
+
+		// O produto é expresso em décimos de milésimo de centavo
+		return deCentavos(dividirArredondando(centavos * multiplicador, FATOR_INTEGRAL));
+	}
+
+	/**
+	 * Soma este valor a outro.
+	 *
+	 * @param outro o valor a ser somado
+	 * @return a soma dos dois valores
+	 * @throws ArithmeticException se a soma não couber em um long
+	 */
+	public ValorMonetario somar(ValorMonetario outro) {
+		return deCentavos(Math.addExact(centavos, outro.centavos));
+	}
+
+	/**
+	 * Retorna o valor atual do campo centavos.
+	 *
+	 * @return valor de centavos
+	 */
+	public long getCentavos() {
+		return centavos;
+	}
+
+	/**
+	 * Converte este valor em um BigDecimal com a escala padrão.
+	 *
+	 * @return o BigDecimal correspondente
+	 */
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(centavos, BigDecimalUtil.DEFAULT_SCALE);
+	}
+
+	// Divisão inteira com arredondamento HALF_EVEN (BigDecimalUtil.DEFAULT_ROUNDING_MODE), para divisor positivo
+	private static long dividirArredondando(long dividendo, long divisor) {
+		long quociente = dividendo / divisor;
+		long dobroResto = Math.abs(dividendo % divisor) * 2;
+
+		if (dobroResto > divisor || (dobroResto == divisor && (quociente & 1L) != 0L)) {
+			quociente += Long.signum(dividendo);
+		}
+		return quociente;
+	}
+
+	@Override
+	public int compareTo(ValorMonetario outro) {
+		return Long.compare(centavos, outro.centavos);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(centavos);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ValorMonetario)) {
+			return false;
+		}
+		return centavos == ((ValorMonetario) obj).centavos;
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+
+}
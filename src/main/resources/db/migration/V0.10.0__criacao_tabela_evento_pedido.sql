@@ -0,0 +1,12 @@
+-- Eventos do ciclo de vida de Pedidos e seus itens, gravados na mesma transação da alteração e enviados aos
+-- consumidores em lotes, na ordem do id. Sem chave estrangeira para o Pedido, pois o evento de exclusão deve
+-- permanecer após a exclusão do Pedido
+CREATE SEQUENCE pedido_simples.seq_evento_pedido INCREMENT BY 50;
+
+CREATE TABLE pedido_simples.evento_pedido (
+	id_evento_pedido bigint NOT NULL CONSTRAINT pk_evento_pedido PRIMARY KEY,
+	pedido_id uuid NOT NULL,
+	tipo varchar(1) NOT NULL,
+	conteudo varchar NOT NULL,
+	data_criacao timestamp NOT NULL
+);
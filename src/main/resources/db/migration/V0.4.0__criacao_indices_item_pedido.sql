@@ -0,0 +1,5 @@
+-- Índices compostos de apoio às chaves estrangeiras de item_pedido. A coluna inicial de cada índice atende
+-- às buscas por pedido_id e por item_venda_id, e a segunda coluna permite resolver a junção com a outra
+-- tabela sem acessar as linhas de item_pedido.
+CREATE INDEX idx_item_pedido_pedido_item_venda ON pedido_simples.item_pedido (pedido_id, item_venda_id);
+CREATE INDEX idx_item_pedido_item_venda_pedido ON pedido_simples.item_pedido (item_venda_id, pedido_id);
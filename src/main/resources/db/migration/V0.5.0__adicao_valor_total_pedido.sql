@@ -0,0 +1,9 @@
+ALTER TABLE pedido_simples.pedido ADD COLUMN valor_total NUMERIC(15, 2) NOT NULL DEFAULT 0.00;
+
+-- Preenche o valor total dos pedidos já existentes a partir de seus itens
+UPDATE pedido_simples.pedido
+SET valor_total = (
+	SELECT COALESCE(SUM(ip.valor), 0.00)
+	FROM pedido_simples.item_pedido ip
+	WHERE ip.pedido_id = pedido.id_pedido
+);
@@ -0,0 +1,7 @@
+CREATE TABLE pedido_simples.snapshot_pedido (
+	pedido_id uuid NOT NULL CONSTRAINT pk_snapshot_pedido PRIMARY KEY,
+	data_fechamento timestamp NOT NULL,
+	conteudo varchar NOT NULL,
+	CONSTRAINT fk_snapshot_pedido_pedido FOREIGN KEY (pedido_id)
+		REFERENCES pedido_simples.pedido(id_pedido) ON DELETE CASCADE
+)
@@ -0,0 +1,9 @@
+-- Versão usada no controle de concorrência otimista (JPA @Version) e na geração das ETags da API
+ALTER TABLE pedido_simples.pedido ADD COLUMN versao bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE pedido_simples.item_venda ADD COLUMN versao bigint NOT NULL DEFAULT 0;
+
+ALTER TABLE pedido_simples.item_pedido ADD COLUMN versao bigint NOT NULL DEFAULT 0;
+
+-- Versão do Pedido no momento do fechamento, usada como ETag do snapshot
+ALTER TABLE pedido_simples.snapshot_pedido ADD COLUMN versao bigint NOT NULL DEFAULT 0;
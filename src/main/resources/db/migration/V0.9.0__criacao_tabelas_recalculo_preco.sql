@@ -0,0 +1,29 @@
+-- Recálculos dos valores de ItemPedido após a alteração do valor base de um ItemVenda, processados em segundo plano
+CREATE TABLE pedido_simples.recalculo_preco (
+	id_recalculo_preco uuid NOT NULL CONSTRAINT pk_recalculo_preco PRIMARY KEY,
+	item_venda_id uuid NOT NULL,
+	valor_base numeric(15, 2) NOT NULL,
+	situacao varchar(1) NOT NULL,
+	total_pedidos bigint NOT NULL,
+	pedidos_processados bigint NOT NULL,
+	data_criacao timestamp NOT NULL,
+	data_conclusao timestamp,
+	versao bigint NOT NULL DEFAULT 0,
+	CONSTRAINT fk_recalculo_preco_item_venda FOREIGN KEY (item_venda_id)
+		REFERENCES pedido_simples.item_venda(id_item_venda) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_recalculo_preco_item_venda ON pedido_simples.recalculo_preco(item_venda_id, data_criacao);
+
+-- Pedidos em aberto ainda não recalculados por cada recálculo
+CREATE TABLE pedido_simples.recalculo_preco_pedido (
+	recalculo_preco_id uuid NOT NULL,
+	pedido_id uuid NOT NULL,
+	CONSTRAINT pk_recalculo_preco_pedido PRIMARY KEY (recalculo_preco_id, pedido_id),
+	CONSTRAINT fk_recalculo_preco_pedido_recalculo_preco FOREIGN KEY (recalculo_preco_id)
+		REFERENCES pedido_simples.recalculo_preco(id_recalculo_preco) ON DELETE CASCADE,
+	CONSTRAINT fk_recalculo_preco_pedido_pedido FOREIGN KEY (pedido_id)
+		REFERENCES pedido_simples.pedido(id_pedido) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_recalculo_preco_pedido_pedido ON pedido_simples.recalculo_preco_pedido(pedido_id);
@@ -6,21 +6,28 @@ package br.org.casa.pedidosimples.controller;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -29,18 +36,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.util.CursorUtil;
 
 /**
  * Classe de testes para {@link ItemPedidoController}.
@@ -65,7 +76,7 @@ public class ItemPedidoControllerTest {
 
 		Page<ItemPedido> page = new PageImpl<>(Arrays.asList(itemPedido));
 
-		when(service.buscarTodos(any(), any(), any()))
+		when(service.buscarTodos(any(), any(), any(), any()))
 			.thenReturn(page);
 
 		mvc.perform(get("/pedido/{uuidPedido}/itens-pedido", itemPedido.getId())
@@ -76,11 +87,27 @@ public class ItemPedidoControllerTest {
 
 	}
 
+	@Test
+	public void testGetItensPedidoPorCursor() throws Exception {
+		UUID uuidPedido = UUID.randomUUID();
+		ItemPedido itemPedido = new ItemPedido();
+		itemPedido.setId(UUID.randomUUID());
+
+		when(service.buscarTodosPorCursor(eq(uuidPedido), eq(""), eq(CursorUtil.TAMANHO_PADRAO), any()))
+			.thenReturn(new PaginaCursor<>(Arrays.asList(itemPedido), CursorUtil.TAMANHO_PADRAO, null));
+
+		mvc.perform(get("/pedido/{uuidPedido}/itens-pedido", uuidPedido)
+				.param("cursor", "")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.conteudo[0].id", is(itemPedido.getId().toString())));
+	}
+
 	@Test
 	public void testGetItensPedidoComPedidoInexistente() throws Exception {
 		UUID uuid = UUID.randomUUID();
 
-		when(service.buscarTodos(any(), any(), any()))
+		when(service.buscarTodos(any(), any(), any(), any()))
 			.thenThrow(new EntidadeNaoEncontradaException("Teste", uuid));
 
 		mvc.perform(get("/pedido/{uuidPedido}/itens-pedido", uuid)
@@ -90,6 +117,52 @@ public class ItemPedidoControllerTest {
 			.andExpect(jsonPath("$.mensagem", containsString("não encontrada")));
 	}
 
+	@Test
+	public void testGetItensPedidoEmFluxo() throws Exception {
+		UUID uuidPedido = UUID.randomUUID();
+		ItemPedido itemPedido1 = new ItemPedido();
+		itemPedido1.setId(UUID.randomUUID());
+		ItemPedido itemPedido2 = new ItemPedido();
+		itemPedido2.setId(UUID.randomUUID());
+
+		when(service.percorrerTodos(eq(uuidPedido), any(), any()))
+			.thenAnswer(invocation -> {
+				Consumer<ItemPedido> consumidor = invocation.getArgument(2);
+				consumidor.accept(itemPedido1);
+				consumidor.accept(itemPedido2);
+				return 2L;
+			});
+
+		MvcResult resultado = mvc.perform(get("/pedido/{uuidPedido}/itens-pedido", uuidPedido)
+				.accept(MediaType.APPLICATION_NDJSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mvc.perform(asyncDispatch(resultado))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString(MediaType.APPLICATION_NDJSON_VALUE)))
+			.andExpect(content().string(startsWith("{\"id\":\"" + itemPedido1.getId() + "\"")))
+			.andExpect(content().string(containsString("}\n{\"id\":\"" + itemPedido2.getId() + "\"")))
+			.andExpect(content().string(endsWith("}\n")));
+	}
+
+	@Test
+	public void testGetItensPedidoEmFluxoComPedidoInexistente() throws Exception {
+		UUID uuid = UUID.randomUUID();
+
+		when(service.percorrerTodos(eq(uuid), any(), any()))
+			.thenThrow(new EntidadeNaoEncontradaException("Teste", uuid));
+
+		MvcResult resultado = mvc.perform(get("/pedido/{uuidPedido}/itens-pedido", uuid)
+				.accept(MediaType.APPLICATION_NDJSON))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		mvc.perform(asyncDispatch(resultado))
+			.andExpect(status().isNotFound())
+			.andExpect(jsonPath("$.codigoStatus", is(404)));
+	}
+
 	@Test
 	public void testGetItemPedidoComSucesso() throws Exception {
 		Pedido pedido = new Pedido();
@@ -102,6 +175,8 @@ public class ItemPedidoControllerTest {
 		itemPedido.setId(UUID.randomUUID());
 		itemPedido.setPedido(pedido);
 		itemPedido.setItemVenda(itemVenda);
+		itemPedido.setVersao(1L);
+		itemVenda.setVersao(5L);
 
 		when(service.buscarPorId(itemPedido.getId()))
 			.thenReturn(Optional.of(itemPedido));
@@ -109,6 +184,7 @@ public class ItemPedidoControllerTest {
 		mvc.perform(get("/item-pedido/{uuid}", itemPedido.getId())
 				.contentType(MediaType.APPLICATION_JSON))
 			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"1.5\"")))
 			.andExpect(jsonPath("$.id", is(itemPedido.getId().toString())))
 			.andExpect(jsonPath("$.itemVenda").exists())
 			.andExpect(jsonPath("$.pedido").doesNotExist());
@@ -140,7 +216,7 @@ public class ItemPedidoControllerTest {
 				+ "    \"ativo\": true"
 				+ "}";
 
-		when(service.incluir(any(), any()))
+		when(service.incluir(any(), any(ItemVenda.class)))
 			.thenThrow(new EntidadeNaoEncontradaException("ItemVenda", UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48")));
 
 		mvc.perform(post("/pedido/{uuidPedido}/item-pedido", uuidPedido)
@@ -151,6 +227,67 @@ public class ItemPedidoControllerTest {
 			.andExpect(jsonPath("$.mensagem", containsString("não encontrada")));
 	}
 
+	@Test
+	public void testPostItensPedidoComSucesso() throws Exception {
+		UUID uuidPedido = UUID.randomUUID();
+
+		ItemPedido primeiro = new ItemPedido();
+		primeiro.setId(UUID.randomUUID());
+		ItemPedido segundo = new ItemPedido();
+		segundo.setId(UUID.randomUUID());
+
+		String payload = "["
+				+ "    { \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\" },"
+				+ "    { \"id\": \"0c9e4b1a-2f2e-4bd4-9a5c-6f1e0d7b3a11\" }"
+				+ "]";
+
+		when(service.incluir(eq(uuidPedido), anyList()))
+			.thenReturn(Arrays.asList(primeiro, segundo));
+
+		mvc.perform(post("/pedido/{uuidPedido}/itens-pedido", uuidPedido)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isCreated())
+			.andExpect(jsonPath("$[0].id", is(primeiro.getId().toString())))
+			.andExpect(jsonPath("$[1].id", is(segundo.getId().toString())));
+	}
+
+	@Test
+	public void testPostItensPedidoSemUuid() throws Exception {
+		UUID uuidPedido = UUID.randomUUID();
+
+		String payload = "["
+				+ "    { \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\" },"
+				+ "    { \"nome\": \"Produto sem uuid\" }"
+				+ "]";
+
+		mvc.perform(post("/pedido/{uuidPedido}/itens-pedido", uuidPedido)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.mensagem", containsString("Requisição inválida")));
+	}
+
+	@Test
+	public void testPostItensPedidoAcimaDoLimite() throws Exception {
+		UUID uuidPedido = UUID.randomUUID();
+
+		String payload = "["
+				+ "    { \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\" },"
+				+ "    { \"id\": \"0c9e4b1a-2f2e-4bd4-9a5c-6f1e0d7b3a11\" }"
+				+ "]";
+
+		when(service.incluir(eq(uuidPedido), anyList()))
+			.thenThrow(new OperacaoInvalidaException("A quantidade de Item de Venda informada (1001) excede o máximo de 1000 por inclusão em lote."));
+
+		mvc.perform(post("/pedido/{uuidPedido}/itens-pedido", uuidPedido)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.codigoStatus", is(400)))
+			.andExpect(jsonPath("$.descricaoDetalhada", containsString("excede o máximo de 1000")));
+	}
+
 	@Test
 	public void testPostItemPedidoOperacaoInvalida() throws Exception {
 		UUID uuidPedido = UUID.randomUUID();
@@ -163,7 +300,7 @@ public class ItemPedidoControllerTest {
 				+ "    \"ativo\": true"
 				+ "}";
 
-		when(service.incluir(any(), any()))
+		when(service.incluir(any(), any(ItemVenda.class)))
 			.thenThrow(new OperacaoInvalidaException("mensagem de teste"));
 
 		mvc.perform(post("/pedido/{uuidPedido}/item-pedido", uuidPedido)
@@ -224,7 +361,7 @@ public class ItemPedidoControllerTest {
 				+ "    \"ativo\": true"
 				+ "}";
 
-		when(service.incluir(any(), any()))
+		when(service.incluir(any(), any(ItemVenda.class)))
 			.thenReturn(itemPedido);
 
 		mvc.perform(post("/pedido/{uuidPedido}/item-pedido", uuidPedido)
@@ -249,6 +386,20 @@ public class ItemPedidoControllerTest {
 			.andExpect(jsonPath("$.mensagem", containsString("não encontrada")));
 	}
 
+	@Test
+	public void testExcluirItemPedidoDePedidoFechado() throws Exception {
+		UUID uuid = UUID.randomUUID();
+
+		doThrow(new OperacaoInvalidaException("Não é possível excluir um Item de Pedido de um Pedido fechado."))
+			.when(service).excluir(uuid);
+
+		mvc.perform(delete("/item-pedido/{uuid}", uuid)
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.codigoStatus", is(400)))
+			.andExpect(jsonPath("$.descricaoDetalhada", containsString("fechado")));
+	}
+
 	@Test
 	public void testExcluirItemPedidoComSucesso() throws Exception {
 		UUID uuid = UUID.randomUUID();
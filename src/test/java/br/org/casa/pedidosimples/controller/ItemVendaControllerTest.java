@@ -7,6 +7,7 @@ import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
@@ -19,7 +20,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,13 +33,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.exception.VersaoDivergenteException;
+import br.org.casa.pedidosimples.model.EstatisticasCache;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
 import br.org.casa.pedidosimples.service.ItemVendaService;
 
@@ -63,7 +72,7 @@ public class ItemVendaControllerTest {
 
 		Page<ItemVenda> page = new PageImpl<>(Arrays.asList(itemVenda));
 
-		when(service.buscarTodos(any(), any()))
+		when(service.buscarTodos(any(), any(), any()))
 			.thenReturn(page);
 
 		mvc.perform(get("/itens-venda", itemVenda.getId())
@@ -73,10 +82,43 @@ public class ItemVendaControllerTest {
 			.andExpect(jsonPath("$.content[0].id", is(itemVenda.getId().toString())));
 	}
 
+	@Test
+	public void testGetItensVendaPorCursor() throws Exception {
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+
+		when(service.buscarTodosPorCursor(eq("cHJveGltbw"), eq(5), any()))
+			.thenReturn(new PaginaCursor<>(Arrays.asList(itemVenda), 5, null));
+
+		mvc.perform(get("/itens-venda")
+				.param("cursor", "cHJveGltbw")
+				.param("size", "5")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.conteudo[0].id", is(itemVenda.getId().toString())))
+			.andExpect(jsonPath("$.tamanho", is(5)));
+	}
+
+	@Test
+	public void testGetEstatisticasCache() throws Exception {
+		when(service.buscarEstatisticasCache())
+			.thenReturn(new EstatisticasCache(10L, 2L, 2L, 5L, 1L));
+
+		mvc.perform(get("/itens-venda/estatisticas-cache")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.acertos", is(10)))
+			.andExpect(jsonPath("$.falhas", is(2)))
+			.andExpect(jsonPath("$.insercoes", is(2)))
+			.andExpect(jsonPath("$.acertosConsultas", is(5)))
+			.andExpect(jsonPath("$.falhasConsultas", is(1)));
+	}
+
 	@Test
 	public void testGetItemVendaComSucesso() throws Exception {
 		ItemVenda itemVenda = new ItemVenda();
 		itemVenda.setId(UUID.randomUUID());
+		itemVenda.setVersao(2L);
 
 		when(service.buscarPorId(itemVenda.getId()))
 			.thenReturn(Optional.of(itemVenda));
@@ -84,7 +126,60 @@ public class ItemVendaControllerTest {
 		mvc.perform(get("/item-venda/{uuid}", itemVenda.getId())
 				.contentType(MediaType.APPLICATION_JSON))
 			.andExpect(status().isOk())
-			.andExpect(jsonPath("$.id", is(itemVenda.getId().toString())));
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"2\"")))
+			.andExpect(jsonPath("$.id", is(itemVenda.getId().toString())))
+			.andExpect(jsonPath("$.versao").doesNotExist());
+	}
+
+	@Test
+	public void testGetItemVendaNaoModificado() throws Exception {
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+		itemVenda.setVersao(2L);
+
+		when(service.buscarPorId(itemVenda.getId()))
+			.thenReturn(Optional.of(itemVenda));
+
+		mvc.perform(get("/item-venda/{uuid}", itemVenda.getId())
+				.header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isNotModified());
+	}
+
+	@Test
+	public void testGetRecalculoPreco() throws Exception {
+		UUID uuid = UUID.randomUUID();
+		RecalculoPreco recalculo = new RecalculoPreco();
+		recalculo.setId(UUID.randomUUID());
+		recalculo.setIdItemVenda(uuid);
+		recalculo.setValorBase(new BigDecimal("20.00"));
+		recalculo.setSituacao(SituacaoRecalculoPreco.EM_ANDAMENTO);
+		recalculo.setTotalPedidos(10L);
+		recalculo.setPedidosProcessados(4L);
+		recalculo.setDataCriacao(Instant.now());
+
+		when(service.buscarUltimoRecalculoPreco(uuid))
+			.thenReturn(Optional.of(recalculo));
+
+		mvc.perform(get("/item-venda/{uuid}/recalculo-preco", uuid)
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.id", is(recalculo.getId().toString())))
+			.andExpect(jsonPath("$.situacao", is("A")))
+			.andExpect(jsonPath("$.totalPedidos", is(10)))
+			.andExpect(jsonPath("$.pedidosProcessados", is(4)));
+	}
+
+	@Test
+	public void testGetRecalculoPrecoInexistente() throws Exception {
+		UUID uuid = UUID.randomUUID();
+
+		when(service.buscarUltimoRecalculoPreco(uuid))
+			.thenReturn(Optional.empty());
+
+		mvc.perform(get("/item-venda/{uuid}/recalculo-preco", uuid)
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isNotFound());
 	}
 
 	@Test
@@ -196,7 +291,7 @@ public class ItemVendaControllerTest {
 				+ "    \"ativo\": true"
 				+ "}";
 
-		when(service.alterar(any(), any()))
+		when(service.alterar(any(), any(), any()))
 			.thenThrow(new EntidadeNaoEncontradaException("EntidadeTeste", uuid));
 
 		mvc.perform(put("/item-venda/{uuid}", uuid)
@@ -219,7 +314,7 @@ public class ItemVendaControllerTest {
 				+ "    \"ativo\": true"
 				+ "}";
 
-		when(service.alterar(any(), any()))
+		when(service.alterar(any(), any(), any()))
 			.thenThrow(new OperacaoInvalidaException("mensagem de teste"));
 
 		mvc.perform(put("/item-venda/{uuid}", uuid)
@@ -250,7 +345,7 @@ public class ItemVendaControllerTest {
 				+ "    \"ativo\": true"
 				+ "}";
 
-		when(service.alterar(any(), any()))
+		when(service.alterar(any(), any(), any()))
 			.thenReturn(itemVenda);
 
 		mvc.perform(put("/item-venda/{uuid}", uuid)
@@ -260,6 +355,30 @@ public class ItemVendaControllerTest {
 			.andExpect(jsonPath("$.id", is(itemVenda.getId().toString())));
 	}
 
+	@Test
+	public void testPutItemVendaVersaoDivergente() throws Exception {
+		UUID uuid = UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48");
+
+		String payload = "{"
+				+ "    \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\","
+				+ "    \"nome\": \"Produto Ativo 2\","
+				+ "    \"tipo\": \"P\","
+				+ "    \"valorBase\": 55.00,"
+				+ "    \"ativo\": true"
+				+ "}";
+
+		when(service.alterar(any(), any(), eq(Optional.of(Collections.singleton(1L)))))
+			.thenThrow(new VersaoDivergenteException("ItemVenda", uuid, 2L, Collections.singleton(1L)));
+
+		mvc.perform(put("/item-venda/{uuid}", uuid)
+				.header(HttpHeaders.IF_MATCH, "\"1\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isPreconditionFailed())
+			.andExpect(jsonPath("$.codigoStatus", is(412)))
+			.andExpect(jsonPath("$.descricaoDetalhada", containsString("Versão atual: 2; versão informada: 1")));
+	}
+
 	@Test
 	public void testExcluirItemVendaInexistente() throws Exception {
 		UUID uuid = UUID.randomUUID();
@@ -3,23 +3,37 @@
  */
 package br.org.casa.pedidosimples.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.endsWith;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,18 +44,38 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
+import br.org.casa.pedidosimples.exception.VersaoDivergenteException;
+import br.org.casa.pedidosimples.model.DivergenciaValorTotal;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.NotificacaoPedido;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.PedidoFechado;
+import br.org.casa.pedidosimples.model.SnapshotPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+import br.org.casa.pedidosimples.service.NotificacaoPedidoService;
 import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.util.CursorUtil;
+import br.org.casa.pedidosimples.util.EtagUtil;
 
 /**
  * Classe de testes de {@link PedidoController}.
@@ -55,9 +89,15 @@ public class PedidoControllerTest {
 	@Autowired
 	private MockMvc mvc;
 
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	@MockBean
 	private PedidoService service;
 
+	@MockBean
+	private NotificacaoPedidoService notificacaoPedidoService;
+
 	@Test
 	public void testGetPedidos() throws Exception {
 		Pedido pedido = new Pedido();
@@ -65,14 +105,129 @@ public class PedidoControllerTest {
 
 		Page<Pedido> page = new PageImpl<>(Arrays.asList(pedido));
 
-		when(service.buscarTodos(any(), any()))
+		when(service.buscarTodos(any(), any(), eq(false), eq(ModoContagem.EXATA)))
 			.thenReturn(page);
 
 		mvc.perform(get("/pedidos", pedido.getId())
 				.contentType(MediaType.APPLICATION_JSON))
 			.andExpect(status().isOk())
 			.andExpect(jsonPath("$.content").isArray())
-			.andExpect(jsonPath("$.content[0].id", is(pedido.getId().toString())));
+			.andExpect(jsonPath("$.content[0].id", is(pedido.getId().toString())))
+			.andExpect(jsonPath("$.content[0].quantidadeItens").doesNotExist());
+	}
+
+	@Test
+	public void testGetPedidosStream() throws Exception {
+		SseEmitter emitter = new SseEmitter();
+		when(notificacaoPedidoService.inscrever())
+			.thenReturn(emitter);
+
+		MvcResult resultado = mvc.perform(get("/pedidos/stream")
+				.accept(MediaType.TEXT_EVENT_STREAM))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+
+		UUID id = UUID.randomUUID();
+		emitter.send(SseEmitter.event()
+				.name("pedido")
+				.data(new NotificacaoPedido(id, TipoEventoPedido.PEDIDO_FECHADO, SituacaoPedido.FECHADO,
+						new BigDecimal("10.00")), MediaType.APPLICATION_JSON));
+		emitter.complete();
+
+		mvc.perform(asyncDispatch(resultado))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString(MediaType.TEXT_EVENT_STREAM_VALUE)))
+			.andExpect(content().string(containsString("event:pedido")))
+			.andExpect(content().string(containsString("{\"id\":\"" + id + "\",\"tipo\":\"F\",\"situacao\":\"F\","
+					+ "\"valorTotal\":10.00}")));
+	}
+
+	@Test
+	public void testGetPedidosSemContagem() throws Exception {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+
+		when(service.buscarTodos(any(), any(), eq(false), eq(ModoContagem.NENHUMA)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(pedido), PageRequest.of(0, 1), true));
+
+		mvc.perform(get("/pedidos")
+				.param("contagem", "nenhuma")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content[0].id", is(pedido.getId().toString())))
+			.andExpect(jsonPath("$.last", is(false)))
+			.andExpect(jsonPath("$.totalElements").doesNotExist());
+	}
+
+	@Test
+	public void testGetPedidosComModoContagemInvalido() throws Exception {
+		mvc.perform(get("/pedidos")
+				.param("contagem", "total")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	public void testGetPedidosComTotais() throws Exception {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setValorTotal(new BigDecimal("20.00"));
+		pedido.setQuantidadeItens(2L);
+
+		Page<Pedido> page = new PageImpl<>(Arrays.asList(pedido));
+
+		when(service.buscarTodos(any(), any(), eq(true), any()))
+			.thenReturn(page);
+
+		mvc.perform(get("/pedidos")
+				.param("comTotais", "true")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.content[0].valorTotal", is(20.00)))
+			.andExpect(jsonPath("$.content[0].quantidadeItens", is(2)));
+	}
+
+	@Test
+	public void testGetPedidosPorCursor() throws Exception {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+
+		when(service.buscarTodosPorCursor(eq(""), eq(CursorUtil.TAMANHO_PADRAO), any()))
+			.thenReturn(new PaginaCursor<>(Arrays.asList(pedido), CursorUtil.TAMANHO_PADRAO, "cHJveGltbw"));
+
+		mvc.perform(get("/pedidos")
+				.param("cursor", "")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.conteudo[0].id", is(pedido.getId().toString())))
+			.andExpect(jsonPath("$.tamanho", is(CursorUtil.TAMANHO_PADRAO)))
+			.andExpect(jsonPath("$.proximoCursor", is("cHJveGltbw")))
+			.andExpect(jsonPath("$.totalElements").doesNotExist());
+	}
+
+	@Test
+	public void testGetPedidosPorCursorTamanhoAcimaDoMaximo() throws Exception {
+		when(service.buscarTodosPorCursor(eq("cHJveGltbw"), eq(CursorUtil.TAMANHO_MAXIMO), any()))
+			.thenReturn(new PaginaCursor<>(Collections.emptyList(), CursorUtil.TAMANHO_MAXIMO, null));
+
+		mvc.perform(get("/pedidos")
+				.param("cursor", "cHJveGltbw")
+				.param("size", "100000")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.conteudo").isEmpty())
+			.andExpect(jsonPath("$.proximoCursor").value(nullValue()));
+	}
+
+	@Test
+	public void testGetPedidosPorCursorInvalido() throws Exception {
+		when(service.buscarTodosPorCursor(any(), anyInt(), any()))
+			.thenThrow(new ParametroBuscaParseException(null, "Pedido", "cursor", "invalido", null));
+
+		mvc.perform(get("/pedidos")
+				.param("cursor", "invalido")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isBadRequest());
 	}
 
 	@Test
@@ -80,35 +235,161 @@ public class PedidoControllerTest {
 		Pedido pedido = new Pedido();
 		pedido.setId(UUID.randomUUID());
 		pedido.setFatorDesconto(new BigDecimal("0.00"));
+		pedido.setValorTotal(new BigDecimal("20.00"));
+		pedido.setQuantidadeItens(2L);
+		pedido.setVersao(7L);
+
+		when(service.buscarPorId(pedido.getId()))
+			.thenReturn(Optional.of(pedido));
+
+		mvc.perform(get("/pedido/{uuid}", pedido.getId())
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"7\"")))
+			.andExpect(jsonPath("$.id", is(pedido.getId().toString())))
+			.andExpect(jsonPath("$.valorTotal", is(20.00)))
+			.andExpect(jsonPath("$.quantidadeItens", is(2)))
+			.andExpect(jsonPath("$.versao").doesNotExist());
+	}
 
-		ItemVenda itemVenda1 = new ItemVenda();
-		itemVenda1.setTipo(TipoItemVenda.PRODUTO);
-		itemVenda1.setValorBase(new BigDecimal("5.00"));
+	@Test
+	public void testGetPedidoNaoModificado() throws Exception {
+		UUID uuid = UUID.randomUUID();
 
-		ItemPedido itemPedido1 = new ItemPedido();
-		itemPedido1.setPedido(pedido);
-		itemPedido1.setItemVenda(itemVenda1);
-		itemPedido1.calcularValor();
+		when(service.buscarVersao(uuid))
+			.thenReturn(Optional.of(7L));
 
-		ItemVenda itemVenda2 = new ItemVenda();
-		itemVenda2.setTipo(TipoItemVenda.SERVICO);
-		itemVenda2.setValorBase(new BigDecimal("15.00"));
+		mvc.perform(get("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"7\"")));
 
-		ItemPedido itemPedido2 = new ItemPedido();
-		itemPedido2.setPedido(pedido);
-		itemPedido2.setItemVenda(itemVenda2);
-		itemPedido2.calcularValor();
+		verify(service, never()).buscarSnapshot(any());
+		verify(service, never()).buscarPorId(any());
+	}
 
-		pedido.setItensPedido(Arrays.asList(itemPedido1, itemPedido2));
+	@Test
+	public void testGetPedidoModificadoDesdeUltimaVersao() throws Exception {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setFatorDesconto(new BigDecimal("0.00"));
+		pedido.setVersao(8L);
 
+		when(service.buscarVersao(pedido.getId()))
+			.thenReturn(Optional.of(8L));
 		when(service.buscarPorId(pedido.getId()))
 			.thenReturn(Optional.of(pedido));
 
 		mvc.perform(get("/pedido/{uuid}", pedido.getId())
+				.header(HttpHeaders.IF_NONE_MATCH, "\"7\""))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"8\"")))
+			.andExpect(jsonPath("$.id", is(pedido.getId().toString())));
+	}
+
+	@Test
+	public void testGetPedidoFechadoPorSnapshot() throws Exception {
+		UUID uuid = UUID.randomUUID();
+		SnapshotPedido snapshot = new SnapshotPedido(uuid, Instant.parse("2020-12-01T10:15:30Z"),
+				"{\"id\":\"" + uuid + "\",\"situacao\":\"F\",\"itens\":[{\"nome\":\"Produto-1\"}]}", 3L);
+
+		when(service.buscarSnapshot(uuid))
+			.thenReturn(Optional.of(snapshot));
+
+		mvc.perform(get("/pedido/{uuid}", uuid)
 				.contentType(MediaType.APPLICATION_JSON))
 			.andExpect(status().isOk())
-			.andExpect(jsonPath("$.id", is(pedido.getId().toString())))
-			.andExpect(jsonPath("$.valorTotal", is(20.00)));
+			.andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString(MediaType.APPLICATION_JSON_VALUE)))
+			.andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("public")))
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"3\"")))
+			.andExpect(header().string(HttpHeaders.LAST_MODIFIED, is("Tue, 01 Dec 2020 10:15:30 GMT")))
+			.andExpect(jsonPath("$.id", is(uuid.toString())))
+			.andExpect(jsonPath("$.itens[0].nome", is("Produto-1")));
+
+		verify(service, never()).buscarPorId(any());
+	}
+
+	@Test
+	public void testGetPedidoFechadoMantemCamposDoPedido() throws Exception {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setCodigo("00110011");
+		pedido.setFatorDesconto(new BigDecimal("0.10"));
+		pedido.setSituacao(SituacaoPedido.FECHADO);
+		pedido.setValorTotal(new BigDecimal("18.00"));
+		pedido.setQuantidadeItens(1L);
+		pedido.setVersao(3L);
+
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+		itemVenda.setNome("Produto-1");
+		itemVenda.setTipo(TipoItemVenda.PRODUTO);
+		itemVenda.setValorBase(new BigDecimal("20.00"));
+
+		ItemPedido itemPedido = new ItemPedido();
+		itemPedido.setId(UUID.randomUUID());
+		itemPedido.setPedido(pedido);
+		itemPedido.setItemVenda(itemVenda);
+		itemPedido.calcularValor();
+
+		String conteudo = objectMapper.writeValueAsString(
+				new PedidoFechado(pedido, Arrays.asList(itemPedido), Instant.parse("2020-12-01T10:15:30Z")));
+
+		// Formato padrão, de um Pedido fechado sem snapshot
+		when(service.buscarSnapshot(pedido.getId()))
+			.thenReturn(Optional.empty());
+		when(service.buscarPorId(pedido.getId()))
+			.thenReturn(Optional.of(pedido));
+
+		JsonNode padrao = objectMapper.readTree(mvc.perform(get("/pedido/{uuid}", pedido.getId()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		// Formato do snapshot
+		when(service.buscarSnapshot(pedido.getId()))
+			.thenReturn(Optional.of(new SnapshotPedido(pedido.getId(), Instant.parse("2020-12-01T10:15:30Z"),
+					conteudo, 3L)));
+
+		JsonNode fechado = objectMapper.readTree(mvc.perform(get("/pedido/{uuid}", pedido.getId()))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString());
+
+		// O snapshot possui todos os campos do formato padrão, com os mesmos valores, além de dataFechamento e itens
+		List<String> camposAdicionais = new ArrayList<>();
+		fechado.fieldNames().forEachRemaining(campo -> {
+			if (padrao.has(campo)) {
+				assertThat(fechado.get(campo))
+					.as(campo)
+					.isEqualTo(padrao.get(campo));
+			} else {
+				camposAdicionais.add(campo);
+			}
+		});
+		padrao.fieldNames().forEachRemaining(campo -> assertThat(fechado.has(campo)).as(campo).isTrue());
+
+		assertThat(camposAdicionais)
+			.containsExactlyInAnyOrder("dataFechamento", "itens");
+		assertThat(fechado.get("dataFechamento").asText())
+			.isEqualTo("2020-12-01T10:15:30Z");
+		assertThat(fechado.get("itens").get(0).get("idItemVenda").asText())
+			.isEqualTo(itemVenda.getId().toString());
+		assertThat(fechado.get("itens").get(0).get("nome").asText())
+			.isEqualTo("Produto-1");
+		assertThat(fechado.get("itens").get(0).get("tipo").asText())
+			.isEqualTo("P");
+	}
+
+	@Test
+	public void testGetPedidoFechadoNaoModificado() throws Exception {
+		UUID uuid = UUID.randomUUID();
+		SnapshotPedido snapshot = new SnapshotPedido(uuid, Instant.now(), "{}", 3L);
+
+		when(service.buscarSnapshot(uuid))
+			.thenReturn(Optional.of(snapshot));
+
+		mvc.perform(get("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_MODIFIED_SINCE, "Fri, 01 Jan 2100 00:00:00 GMT"))
+			.andExpect(status().isNotModified());
 	}
 
 	@Test
@@ -215,7 +496,7 @@ public class PedidoControllerTest {
 				+ "    \"situacao\": \"A\""
 				+ "}";
 
-		when(service.alterar(any(), any()))
+		when(service.alterar(any(), any(), any()))
 			.thenThrow(new EntidadeNaoEncontradaException("EntidadeTeste", uuid));
 
 		mvc.perform(put("/pedido/{uuid}", uuid)
@@ -237,7 +518,7 @@ public class PedidoControllerTest {
 				+ "    \"situacao\": \"A\""
 				+ "}";
 
-		when(service.alterar(any(), any()))
+		when(service.alterar(any(), any(), any()))
 			.thenThrow(new OperacaoInvalidaException("mensagem de teste"));
 
 		mvc.perform(put("/pedido/{uuid}", uuid)
@@ -266,7 +547,7 @@ public class PedidoControllerTest {
 				+ "    \"situacao\": \"A\""
 				+ "}";
 
-		when(service.alterar(any(), any()))
+		when(service.alterar(any(), any(), any()))
 			.thenReturn(pedido);
 
 		mvc.perform(put("/pedido/{uuid}", uuid)
@@ -276,6 +557,161 @@ public class PedidoControllerTest {
 			.andExpect(jsonPath("$.id", is(pedido.getId().toString())));
 	}
 
+	@Test
+	public void testPutPedidoComIfMatch() throws Exception {
+		UUID uuid = UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48");
+
+		Pedido pedido = new Pedido();
+		pedido.setId(uuid);
+		pedido.setCodigo("00010003");
+		pedido.setFatorDesconto(new BigDecimal("0.75"));
+		pedido.setSituacao(SituacaoPedido.ABERTO);
+		pedido.setVersao(5L);
+
+		String payload = "{"
+				+ "    \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\","
+				+ "    \"codigo\": \"00010003\","
+				+ "    \"fatorDesconto\": 0.75,"
+				+ "    \"situacao\": \"A\""
+				+ "}";
+
+		when(service.alterar(eq(uuid), any(), eq(Optional.of(Collections.singleton(4L)))))
+			.thenReturn(pedido);
+
+		mvc.perform(put("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_MATCH, "\"4\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"5\"")));
+	}
+
+	@Test
+	public void testPutPedidoVersaoDivergente() throws Exception {
+		UUID uuid = UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48");
+
+		String payload = "{"
+				+ "    \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\","
+				+ "    \"codigo\": \"00010003\","
+				+ "    \"fatorDesconto\": 0.75,"
+				+ "    \"situacao\": \"A\""
+				+ "}";
+
+		when(service.alterar(any(), any(), any()))
+			.thenThrow(new VersaoDivergenteException(Pedido.NOME_EXIBICAO_ENTIDADE, uuid, 5L, Collections.singleton(4L)));
+
+		mvc.perform(put("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_MATCH, "\"4\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isPreconditionFailed())
+			.andExpect(jsonPath("$.codigoStatus", is(412)))
+			.andExpect(jsonPath("$.mensagem", is("Versão divergente")))
+			.andExpect(jsonPath("$.descricaoDetalhada", containsString("Versão atual: 5; versão informada: 4")));
+	}
+
+	@Test
+	public void testPutPedidoIfMatchInvalido() throws Exception {
+		UUID uuid = UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48");
+
+		String payload = "{"
+				+ "    \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\","
+				+ "    \"codigo\": \"00010003\","
+				+ "    \"fatorDesconto\": 0.75,"
+				+ "    \"situacao\": \"A\""
+				+ "}";
+
+		// ETag sem aspas
+		mvc.perform(put("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_MATCH, "4")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isBadRequest())
+			.andExpect(jsonPath("$.mensagem", is("Requisição inválida")));
+
+		verify(service, never()).alterar(any(), any(), any());
+	}
+
+	@Test
+	public void testPutPedidoIfMatchComListaDeEtags() throws Exception {
+		UUID uuid = UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48");
+
+		Pedido pedido = new Pedido();
+		pedido.setId(uuid);
+		pedido.setCodigo("00010003");
+		pedido.setFatorDesconto(new BigDecimal("0.75"));
+		pedido.setSituacao(SituacaoPedido.ABERTO);
+		pedido.setVersao(4L);
+
+		String payload = "{"
+				+ "    \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\","
+				+ "    \"codigo\": \"00010003\","
+				+ "    \"fatorDesconto\": 0.75,"
+				+ "    \"situacao\": \"A\""
+				+ "}";
+
+		// A verificação da versão é a mesma feita pelo serviço
+		when(service.alterar(eq(uuid), any(), any()))
+			.thenAnswer(invocation -> {
+				EtagUtil.verificarVersao(pedido, invocation.getArgument(2), Pedido.NOME_EXIBICAO_ENTIDADE);
+				return pedido;
+			});
+
+		mvc.perform(put("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_MATCH, "\"3\", \"4\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, is("\"4\"")));
+
+		verify(service).alterar(eq(uuid), any(), eq(Optional.of(new HashSet<>(Arrays.asList(3L, 4L)))));
+
+		mvc.perform(put("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_MATCH, "\"2\", \"3\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isPreconditionFailed())
+			.andExpect(jsonPath("$.codigoStatus", is(412)))
+			.andExpect(jsonPath("$.descricaoDetalhada", containsString("versão informada: 2, 3")));
+	}
+
+	@Test
+	public void testPutPedidoIfMatchComEtagFraca() throws Exception {
+		UUID uuid = UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48");
+
+		Pedido pedido = new Pedido();
+		pedido.setId(uuid);
+		pedido.setCodigo("00010003");
+		pedido.setFatorDesconto(new BigDecimal("0.75"));
+		pedido.setSituacao(SituacaoPedido.ABERTO);
+		pedido.setVersao(4L);
+
+		String payload = "{"
+				+ "    \"id\": \"a97245b4-566d-4cfd-9d89-7492dc5c6a48\","
+				+ "    \"codigo\": \"00010003\","
+				+ "    \"fatorDesconto\": 0.75,"
+				+ "    \"situacao\": \"A\""
+				+ "}";
+
+		when(service.alterar(eq(uuid), any(), any()))
+			.thenAnswer(invocation -> {
+				EtagUtil.verificarVersao(pedido, invocation.getArgument(2), Pedido.NOME_EXIBICAO_ENTIDADE);
+				return pedido;
+			});
+
+		// Na comparação forte exigida pelo If-Match, uma ETag fraca nunca corresponde, mesmo com a versão atual
+		mvc.perform(put("/pedido/{uuid}", uuid)
+				.header(HttpHeaders.IF_MATCH, "W/\"4\"")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(payload))
+			.andExpect(status().isPreconditionFailed())
+			.andExpect(jsonPath("$.codigoStatus", is(412)))
+			.andExpect(jsonPath("$.mensagem", is("Versão divergente")))
+			.andExpect(jsonPath("$.descricaoDetalhada", containsString("versão informada: nenhuma")));
+
+		verify(service).alterar(eq(uuid), any(), eq(Optional.of(Collections.emptySet())));
+	}
+
 	@Test
 	public void testPutPedidoAplicarDescontoErroValidacao() throws Exception {
 		UUID uuid = UUID.fromString("a97245b4-566d-4cfd-9d89-7492dc5c6a48");
@@ -300,7 +736,7 @@ public class PedidoControllerTest {
 				+ "    \"fatorDesconto\": 0.20"
 				+ "}";
 
-		when(service.aplicarDesconto(any(), any()))
+		when(service.aplicarDesconto(any(), any(), any()))
 			.thenThrow(new EntidadeNaoEncontradaException("EntidadeTeste", uuid));
 
 		mvc.perform(put("/pedido/{uuid}/aplicar-desconto", uuid)
@@ -319,7 +755,7 @@ public class PedidoControllerTest {
 				+ "    \"fatorDesconto\": 0.20"
 				+ "}";
 
-		when(service.aplicarDesconto(any(), any()))
+		when(service.aplicarDesconto(any(), any(), any()))
 			.thenThrow(new OperacaoInvalidaException("mensagem de teste"));
 
 		mvc.perform(put("/pedido/{uuid}/aplicar-desconto", uuid)
@@ -342,10 +778,11 @@ public class PedidoControllerTest {
 				+ "    \"fatorDesconto\": 0.20"
 				+ "}";
 
-		when(service.aplicarDesconto(any(), any()))
+		when(service.aplicarDesconto(any(), any(), eq(Optional.empty())))
 			.thenReturn(pedido);
 
 		mvc.perform(put("/pedido/{uuid}/aplicar-desconto", uuid)
+				.header(HttpHeaders.IF_MATCH, "*")
 				.contentType(MediaType.APPLICATION_JSON)
 				.content(payload))
 			.andExpect(status().isOk())
@@ -422,4 +859,31 @@ public class PedidoControllerTest {
 			.andExpect(status().isNoContent())
 			.andExpect(jsonPath("$").doesNotExist());
 	}
+
+	@Test
+	public void testVerificarValoresTotais() throws Exception {
+		DivergenciaValorTotal divergencia = new DivergenciaValorTotal(UUID.randomUUID(), "00110011",
+				new BigDecimal("10.00"), new BigDecimal("12.00"));
+
+		when(service.verificarValoresTotais())
+			.thenReturn(Arrays.asList(divergencia));
+
+		mvc.perform(get("/pedidos/divergencias-valor-total")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[0].idPedido", is(divergencia.getIdPedido().toString())))
+			.andExpect(jsonPath("$[0].valorTotalRegistrado", is(10.00)))
+			.andExpect(jsonPath("$[0].valorTotalCalculado", is(12.00)));
+	}
+
+	@Test
+	public void testCorrigirValoresTotais() throws Exception {
+		when(service.corrigirValoresTotais())
+			.thenReturn(Collections.emptyList());
+
+		mvc.perform(post("/pedidos/divergencias-valor-total/corrigir")
+				.contentType(MediaType.APPLICATION_JSON))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$").isEmpty());
+	}
 }
@@ -0,0 +1,121 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import br.org.casa.pedidosimples.model.ItemPedido;
+
+/**
+ * Classe de testes para os índices de {@link ItemPedido} e Pedido. Uma massa de dados volumosa é inserida
+ * no banco H2 e, em seguida, são verificados os planos de execução das consultas mais frequentes do
+ * {@link CustomItemPedidoRepository}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ActiveProfiles("test")
+public class IndicesItemPedidoTest {
+
+	private static final int TOTAL_ITENS_VENDA = 50;
+
+	private static final int TOTAL_PEDIDOS = 1_000;
+
+	private static final int ITENS_POR_PEDIDO = 20;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private UUID idPedido;
+
+	private UUID idItemVenda;
+
+	@Before
+	public void setup() {
+		List<Object[]> itensVenda = new ArrayList<>();
+		for (int i = 0; i < TOTAL_ITENS_VENDA; i++) {
+			itensVenda.add(new Object[] { UUID.randomUUID(), "Item-venda-" + i, i % 2 == 0 ? "P" : "S", "10.00", i % 10 != 0 });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, ?, ?, CAST(? AS NUMERIC(15, 2)), ?)", itensVenda);
+
+		List<Object[]> pedidos = new ArrayList<>();
+		List<Object[]> itensPedido = new ArrayList<>();
+		for (int i = 0; i < TOTAL_PEDIDOS; i++) {
+			UUID id = UUID.randomUUID();
+			pedidos.add(new Object[] { id, String.format("%08d", i), i % 2 == 0 ? "A" : "F" });
+
+			for (int j = 0; j < ITENS_POR_PEDIDO; j++) {
+				Object[] itemVenda = itensVenda.get((i + j) % TOTAL_ITENS_VENDA);
+				itensPedido.add(new Object[] { UUID.randomUUID(), id, itemVenda[0] });
+			}
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO pedido_simples.pedido (id_pedido, codigo, fator_desconto, situacao) "
+				+ "VALUES (?, ?, 0.00, ?)", pedidos);
+		jdbcTemplate.batchUpdate("INSERT INTO pedido_simples.item_pedido (id_item_pedido, pedido_id, item_venda_id, valor) "
+				+ "VALUES (?, ?, ?, 10.00)", itensPedido);
+
+		idPedido = (UUID) pedidos.get(0)[0];
+		idItemVenda = (UUID) itensVenda.get(0)[0];
+	}
+
+	@Test
+	public void testBuscaPorPedidoUsaIndice() {
+		assertThat(planoExecucao("SELECT * FROM pedido_simples.item_pedido WHERE pedido_id = '%s'", idPedido))
+			.contains(": pedido_id = ")
+			.doesNotContain("tablescan");
+	}
+
+	@Test
+	public void testExclusaoPorPedidoUsaIndice() {
+		assertThat(planoExecucao("DELETE FROM pedido_simples.item_pedido WHERE pedido_id = '%s'", idPedido))
+			.contains(": pedido_id = ")
+			.doesNotContain("tablescan");
+	}
+
+	@Test
+	public void testContagemPorItemVendaEPedidoAbertoUsaIndices() {
+		assertThat(planoExecucao("SELECT COUNT(*) FROM pedido_simples.item_pedido ip "
+				+ "INNER JOIN pedido_simples.pedido p ON p.id_pedido = ip.pedido_id "
+				+ "WHERE ip.item_venda_id = '%s' AND p.situacao = 'A'", idItemVenda))
+			.contains("idx_item_pedido_item_venda_pedido: item_venda_id = ")
+			.doesNotContain("tablescan");
+	}
+
+	@Test
+	public void testContagemPorPedidoEItemVendaInativoUsaIndices() {
+		assertThat(planoExecucao("SELECT COUNT(*) FROM pedido_simples.item_pedido ip "
+				+ "INNER JOIN pedido_simples.item_venda iv ON iv.id_item_venda = ip.item_venda_id "
+				+ "WHERE ip.pedido_id = '%s' AND iv.ativo = FALSE", idPedido))
+			.contains(": pedido_id = ")
+			.doesNotContain("tablescan");
+	}
+
+	@Test
+	public void testBuscaPedidosAbertosUsaIndice() {
+		assertThat(planoExecucao("SELECT id_pedido FROM pedido_simples.pedido WHERE situacao = 'A'"))
+			.contains("idx_pedido_aberto: situacao = ")
+			.doesNotContain("tablescan");
+	}
+
+	private String planoExecucao(String sql, Object... args) {
+		return jdbcTemplate.queryForObject("EXPLAIN " + String.format(sql, args), String.class)
+				.toLowerCase();
+	}
+}
@@ -6,9 +6,14 @@ package br.org.casa.pedidosimples.repository;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -17,15 +22,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.Expressions;
 
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
 
@@ -149,18 +158,246 @@ public class ItemPedidoRepositoryTest {
 	}
 
 	@Test
-	public void testBuscarPorItemVendaEPedidoAberto() {
-		assertThat(itemPedidoRepository.buscarPorItemVendaEPedidoAberto(itemVenda))
-			.hasSize(1)
-			.allSatisfy(ip -> {
-				assertThat(ip)
-					.isEqualTo(itemPedido);
-			});
+	public void testContarPorPedidoEItemVendaInativo() {
+		assertThat(itemPedidoRepository.contarPorPedidoEItemVendaInativo(pedido))
+			.isEqualTo(0L);
 	}
 
 	@Test
-	public void testContarPorPedidoEItemVendaInativo() {
-		assertThat(itemPedidoRepository.contarPorPedidoEItemVendaInativo(pedido))
+	public void testTotalizarPorPedido() {
+		ItemVenda outroItemVenda = new ItemVenda();
+		outroItemVenda.setNome("Item-venda-2");
+		outroItemVenda.setTipo(TipoItemVenda.SERVICO);
+		outroItemVenda.setValorBase(new BigDecimal("8.77"));
+		outroItemVenda.setAtivo(true);
+
+		ItemPedido outroItemPedido = new ItemPedido();
+		outroItemPedido.setItemVenda(entityManager.persist(outroItemVenda));
+		outroItemPedido.setPedido(pedido);
+		outroItemPedido.calcularValor();
+		entityManager.persist(outroItemPedido);
+
+		TotaisPedido totais = itemPedidoRepository.totalizarPorPedido(pedido);
+
+		assertThat(totais.getQuantidadeItens())
+			.isEqualTo(2L);
+		assertThat(totais.getValorTotal())
+			.isEqualTo(new BigDecimal("10.00"));
+	}
+
+	@Test
+	public void testTotalizarPorPedidoSemItens() {
+		Pedido pedidoSemItens = new Pedido();
+		pedidoSemItens.setCodigo("99999999");
+		pedidoSemItens.setFatorDesconto(new BigDecimal("0.00"));
+		pedidoSemItens.setSituacao(SituacaoPedido.ABERTO);
+		pedidoSemItens = entityManager.persist(pedidoSemItens);
+
+		TotaisPedido totais = itemPedidoRepository.totalizarPorPedido(pedidoSemItens);
+
+		assertThat(totais.getQuantidadeItens())
 			.isEqualTo(0L);
+		assertThat(totais.getValorTotal())
+			.isEqualByComparingTo(BigDecimal.ZERO);
+	}
+
+	@Test
+	public void testTotalizarPorPedidos() {
+		ItemPedido itemOutroPedido = persistirItemPedido(itemVenda, "22345667", new BigDecimal("0.50"),
+				SituacaoPedido.FECHADO);
+		ItemPedido outroItemOutroPedido = new ItemPedido();
+		outroItemOutroPedido.setItemVenda(itemVenda);
+		outroItemOutroPedido.setPedido(itemOutroPedido.getPedido());
+		outroItemOutroPedido.calcularValor();
+		entityManager.persist(outroItemOutroPedido);
+
+		Pedido pedidoSemItens = new Pedido();
+		pedidoSemItens.setCodigo("99999999");
+		pedidoSemItens.setFatorDesconto(new BigDecimal("0.00"));
+		pedidoSemItens.setSituacao(SituacaoPedido.ABERTO);
+		pedidoSemItens = entityManager.persist(pedidoSemItens);
+
+		persistirItemPedido(itemVenda, "33456778", new BigDecimal("0.00"), SituacaoPedido.ABERTO);
+
+		Map<UUID, TotaisPedido> totais = itemPedidoRepository.totalizarPorPedidos(
+				Arrays.asList(pedido, itemOutroPedido.getPedido(), pedidoSemItens));
+
+		assertThat(totais)
+			.hasSize(2)
+			.doesNotContainKey(pedidoSemItens.getId());
+		assertThat(totais.get(pedido.getId()))
+			.satisfies(t -> {
+				assertThat(t.getQuantidadeItens())
+					.isEqualTo(1L);
+				assertThat(t.getValorTotal())
+					.isEqualTo(new BigDecimal("1.23"));
+			});
+		assertThat(totais.get(itemOutroPedido.getPedido().getId()))
+			.satisfies(t -> {
+				assertThat(t.getQuantidadeItens())
+					.isEqualTo(2L);
+				assertThat(t.getValorTotal())
+					.isEqualTo(new BigDecimal("1.24"));
+			});
+	}
+
+	@Test
+	public void testBuscarFatiaPorPedido() {
+		ItemPedido outroItemPedido = new ItemPedido();
+		outroItemPedido.setItemVenda(itemVenda);
+		outroItemPedido.setPedido(pedido);
+		outroItemPedido.calcularValor();
+		entityManager.persist(outroItemPedido);
+		persistirItemPedido(itemVenda, "22345667", new BigDecimal("0.00"), SituacaoPedido.ABERTO);
+		BooleanExpression semFiltro = ItemPedidoPredicateBuilder.of(Collections.emptyMap()).build();
+
+		Slice<ItemPedido> primeiraFatia = itemPedidoRepository.buscarFatiaPorPedido(pedido, semFiltro, PageRequest.of(0, 1));
+		assertThat(primeiraFatia.getNumberOfElements())
+			.isEqualTo(1);
+		assertThat(primeiraFatia.hasNext())
+			.isTrue();
+
+		Slice<ItemPedido> fatiaCompleta = itemPedidoRepository.buscarFatiaPorPedido(pedido, semFiltro, PageRequest.of(0, 2));
+		assertThat(fatiaCompleta.getContent())
+			.extracting(ItemPedido::getPedido)
+			.containsOnly(pedido);
+		assertThat(fatiaCompleta.hasNext())
+			.isFalse();
+	}
+
+	@Test
+	public void testFindByPedidoPorCursor() {
+		for (int i = 0; i < 4; i++) {
+			ItemPedido outroItemPedido = new ItemPedido();
+			outroItemPedido.setItemVenda(itemVenda);
+			outroItemPedido.setPedido(pedido);
+			outroItemPedido.calcularValor();
+			entityManager.persist(outroItemPedido);
+		}
+		persistirItemPedido(itemVenda, "22345667", new BigDecimal("0.00"), SituacaoPedido.ABERTO);
+		BooleanExpression semFiltro = ItemPedidoPredicateBuilder.of(Collections.emptyMap()).build();
+
+		List<UUID> idsPercorridos = new ArrayList<>();
+		Optional<UUID> idApos = Optional.empty();
+		List<ItemPedido> pagina;
+		do {
+			pagina = itemPedidoRepository.findByPedido(pedido, semFiltro, idApos, 2);
+			pagina.forEach(ip -> idsPercorridos.add(ip.getId()));
+			idApos = pagina.stream().reduce((primeiro, ultimo) -> ultimo).map(ItemPedido::getId);
+		} while (!pagina.isEmpty());
+
+		assertThat(idsPercorridos)
+			.hasSize(5)
+			.doesNotHaveDuplicates()
+			.containsAll(itemPedidoRepository.findByPedido(pedido).stream()
+					.map(ItemPedido::getId)
+					.collect(Collectors.toList()));
+	}
+
+	@Test
+	public void testPercorrerPorPedido() {
+		// Mais itens do que o tamanho do lote, para que o contexto de persistência seja limpo durante a leitura
+		int quantidade = LeituraEmFluxo.TAMANHO_LOTE + 20;
+		for (int i = 1; i < quantidade; i++) {
+			ItemPedido outroItemPedido = new ItemPedido();
+			outroItemPedido.setItemVenda(itemVenda);
+			outroItemPedido.setPedido(pedido);
+			outroItemPedido.calcularValor();
+			entityManager.persist(outroItemPedido);
+		}
+		persistirItemPedido(itemVenda, "22345667", new BigDecimal("0.00"), SituacaoPedido.ABERTO);
+		entityManager.flush();
+		BooleanExpression semFiltro = ItemPedidoPredicateBuilder.of(Collections.emptyMap()).build();
+
+		List<UUID> ids = new ArrayList<>();
+		List<String> nomesItemVenda = new ArrayList<>();
+		long total = itemPedidoRepository.percorrerPorPedido(pedido, semFiltro, ip -> {
+			ids.add(ip.getId());
+			nomesItemVenda.add(ip.getItemVenda().getNome());
+		});
+
+		assertThat(total)
+			.isEqualTo(quantidade);
+		assertThat(ids)
+			.hasSize(quantidade)
+			.doesNotHaveDuplicates();
+		assertThat(nomesItemVenda)
+			.containsOnly(itemVenda.getNome());
+	}
+
+	@Test
+	public void testAtualizarValorPorItemVendaEPedidoAbertoProduto() {
+		verificarAtualizarValorPorItemVendaEPedidoAberto(TipoItemVenda.PRODUTO);
+	}
+
+	@Test
+	public void testAtualizarValorPorItemVendaEPedidoAbertoServico() {
+		verificarAtualizarValorPorItemVendaEPedidoAberto(TipoItemVenda.SERVICO);
+	}
+
+	/**
+	 * Verifica se o recálculo em lote produz exatamente os mesmos valores de {@link ItemPedido#calcularValor()}
+	 * para todos os fatores de desconto possíveis (0.00 a 1.00), incluindo valores base que provocam empate
+	 * no arredondamento, e se os itens de Pedidos fechados permanecem inalterados.
+	 */
+	private void verificarAtualizarValorPorItemVendaEPedidoAberto(TipoItemVenda tipo) {
+		ItemVenda itemVendaLote = new ItemVenda();
+		itemVendaLote.setNome("Item-venda-lote");
+		itemVendaLote.setTipo(tipo);
+		itemVendaLote.setValorBase(new BigDecimal("10.00"));
+		itemVendaLote.setAtivo(true);
+		UUID idItemVenda = entityManager.persist(itemVendaLote).getId();
+
+		for (int i = 0; i <= 100; i++) {
+			persistirItemPedido(itemVendaLote, String.format("A%07d", i), BigDecimal.valueOf(i, 2), SituacaoPedido.ABERTO);
+		}
+		ItemPedido itemPedidoFechado = persistirItemPedido(itemVendaLote, "F0000001", new BigDecimal("0.50"),
+				SituacaoPedido.FECHADO);
+		UUID idItemPedidoFechado = itemPedidoFechado.getId();
+		BigDecimal valorItemPedidoFechado = itemPedidoFechado.getValor();
+
+		for (String valorBase : Arrays.asList("0.05", "0.25", "0.35", "1.23", "19.99", "1234567890123.45")) {
+			ItemVenda existente = entityManager.find(ItemVenda.class, idItemVenda);
+			existente.setValorBase(new BigDecimal(valorBase));
+			entityManager.flush();
+
+			long atualizados = itemPedidoRepository.atualizarValorPorItemVendaEPedidoAberto(existente);
+			entityManager.clear();
+
+			assertThat(atualizados)
+				.isEqualTo(101L);
+
+			List<ItemPedido> itensPedido = itemPedidoRepository.findAll().stream()
+					.filter(ip -> ip.getItemVenda().getId().equals(idItemVenda))
+					.filter(ip -> !ip.getId().equals(idItemPedidoFechado))
+					.collect(Collectors.toList());
+
+			assertThat(itensPedido)
+				.hasSize(101)
+				.allSatisfy(ip -> {
+					BigDecimal valorPersistido = ip.getValor();
+					assertThat(valorPersistido)
+						.as("valor base %s, fator de desconto %s", valorBase, ip.getPedido().getFatorDesconto())
+						.isEqualTo(ip.calcularValor());
+				});
+			assertThat(entityManager.find(ItemPedido.class, idItemPedidoFechado).getValor())
+				.isEqualTo(valorItemPedidoFechado);
+		}
+	}
+
+	private ItemPedido persistirItemPedido(ItemVenda itemVenda, String codigo, BigDecimal fatorDesconto,
+			SituacaoPedido situacao) {
+		Pedido pedidoLote = new Pedido();
+		pedidoLote.setCodigo(codigo);
+		pedidoLote.setFatorDesconto(fatorDesconto);
+		pedidoLote.setSituacao(situacao);
+		pedidoLote = entityManager.persist(pedidoLote);
+
+		ItemPedido itemPedidoLote = new ItemPedido();
+		itemPedidoLote.setItemVenda(itemVenda);
+		itemPedidoLote.setPedido(pedidoLote);
+		itemPedidoLote.calcularValor();
+
+		return entityManager.persist(itemPedidoLote);
 	}
 }
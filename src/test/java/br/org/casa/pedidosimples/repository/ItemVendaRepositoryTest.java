@@ -0,0 +1,129 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+
+/**
+ * Classe de testes para {@link ItemVendaRepository}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ActiveProfiles("test")
+public class ItemVendaRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ItemVendaRepository itemVendaRepository;
+
+	@Before
+	public void setup() {
+		for (int i = 0; i < 5; i++) {
+			ItemVenda itemVenda = new ItemVenda();
+			itemVenda.setNome("Item-venda-" + i);
+			itemVenda.setTipo(i % 2 == 0 ? TipoItemVenda.PRODUTO : TipoItemVenda.SERVICO);
+			itemVenda.setValorBase(new BigDecimal("10.00"));
+			itemVenda.setAtivo(true);
+
+			entityManager.persist(itemVenda);
+		}
+		entityManager.flush();
+	}
+
+	@Test
+	public void testBuscarPorCursor() {
+		verificarPercursoPorCursor(Collections.emptyMap(), 5);
+	}
+
+	@Test
+	public void testBuscarPorCursorComFiltro() {
+		verificarPercursoPorCursor(Collections.singletonMap("tipo", "S"), 2);
+	}
+
+	@Test
+	public void testPercorrerComFiltro() {
+		BooleanExpression servicos = ItemVendaPredicateBuilder.of(Collections.singletonMap("tipo", "S")).build();
+		List<ItemVenda> percorridos = new ArrayList<>();
+
+		assertThat(itemVendaRepository.percorrer(servicos, percorridos::add))
+			.isEqualTo(2L);
+		assertThat(percorridos)
+			.extracting(ItemVenda::getTipo)
+			.containsOnly(TipoItemVenda.SERVICO);
+	}
+
+	@Test
+	public void testBuscarFatia() {
+		BooleanExpression semFiltro = ItemVendaPredicateBuilder.of(Collections.emptyMap()).build();
+
+		Slice<ItemVenda> fatiaIntermediaria = itemVendaRepository.buscarFatia(semFiltro, PageRequest.of(1, 2));
+		assertThat(fatiaIntermediaria.getNumberOfElements())
+			.isEqualTo(2);
+		assertThat(fatiaIntermediaria.hasNext())
+			.isTrue();
+
+		Slice<ItemVenda> ultimaFatia = itemVendaRepository.buscarFatia(semFiltro, PageRequest.of(2, 2));
+		assertThat(ultimaFatia.getNumberOfElements())
+			.isEqualTo(1);
+		assertThat(ultimaFatia.hasNext())
+			.isFalse();
+	}
+
+	@Test
+	public void testEstimarTotal() {
+		assertThat(itemVendaRepository.estimarTotal())
+			.hasValueSatisfying(total -> assertThat(total).isNotNegative());
+	}
+
+	/**
+	 * Percorre todas as páginas a partir do cursor, verificando se cada registro é retornado exatamente uma vez.
+	 */
+	private void verificarPercursoPorCursor(Map<String, String> parametros, int totalEsperado) {
+		BooleanExpression predicate = ItemVendaPredicateBuilder.of(parametros).build();
+
+		List<UUID> idsPercorridos = new ArrayList<>();
+		Optional<UUID> idApos = Optional.empty();
+		List<ItemVenda> pagina;
+		do {
+			pagina = itemVendaRepository.buscarPorCursor(predicate, idApos, 2);
+			assertThat(pagina.size())
+				.isLessThanOrEqualTo(2);
+			pagina.forEach(iv -> idsPercorridos.add(iv.getId()));
+			idApos = pagina.stream().reduce((primeiro, ultimo) -> ultimo).map(ItemVenda::getId);
+		} while (!pagina.isEmpty());
+
+		assertThat(idsPercorridos)
+			.hasSize(totalEsperado)
+			.doesNotHaveDuplicates();
+	}
+}
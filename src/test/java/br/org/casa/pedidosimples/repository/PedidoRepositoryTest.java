@@ -0,0 +1,268 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+
+/**
+ * Classe de testes para {@link PedidoRepository}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ActiveProfiles("test")
+public class PedidoRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private PedidoRepository pedidoRepository;
+
+	private ItemVenda produto;
+
+	private ItemVenda servico;
+
+	private Pedido pedidoAberto;
+
+	private Pedido pedidoFechado;
+
+	@Before
+	public void setup() {
+		produto = persistirItemVenda("Produto-1", TipoItemVenda.PRODUTO, "10.00");
+		servico = persistirItemVenda("Servico-1", TipoItemVenda.SERVICO, "25.50");
+
+		pedidoAberto = persistirPedido("00000001", SituacaoPedido.ABERTO);
+		persistirItemPedido(pedidoAberto, produto);
+		persistirItemPedido(pedidoAberto, servico);
+
+		pedidoFechado = persistirPedido("00000002", SituacaoPedido.FECHADO);
+		persistirItemPedido(pedidoFechado, produto);
+
+		entityManager.flush();
+	}
+
+	@Test
+	public void testAdicionarValorTotal() {
+		assertThat(pedidoRepository.adicionarValorTotal(pedidoAberto, new BigDecimal("10.50")))
+			.isEqualTo(1L);
+		assertThat(pedidoRepository.adicionarValorTotal(pedidoAberto, new BigDecimal("-0.25")))
+			.isEqualTo(1L);
+
+		assertThat(valorTotalPersistido(pedidoAberto))
+			.isEqualTo(new BigDecimal("10.25"));
+	}
+
+	@Test
+	public void testAdicionarValorTotalIncrementaVersao() {
+		Long versaoInicial = pedidoAberto.getVersao();
+
+		pedidoRepository.adicionarValorTotal(pedidoAberto, new BigDecimal("10.50"));
+
+		assertThat(pedidoAberto.getVersao())
+			.isEqualTo(versaoInicial + 1);
+		assertThat(pedidoRepository.buscarVersao(pedidoAberto.getId()))
+			.hasValue(versaoInicial + 1);
+		assertThat(pedidoRepository.buscarValorTotal(pedidoAberto.getId()))
+			.hasValueSatisfying(v -> assertThat(v).isEqualByComparingTo(valorTotalPersistido(pedidoAberto)));
+	}
+
+	@Test
+	public void testAtualizarValorTotal() {
+		assertThat(pedidoRepository.atualizarValorTotal(pedidoAberto, new BigDecimal("35.50")))
+			.isEqualTo(1L);
+
+		assertThat(valorTotalPersistido(pedidoAberto))
+			.isEqualTo(new BigDecimal("35.50"));
+	}
+
+	@Test
+	public void testValorTotalNaoAlteradoAoSalvarPedido() {
+		pedidoAberto.setCodigo("00000003");
+		pedidoAberto.setValorTotal(new BigDecimal("99.99"));
+		pedidoRepository.saveAndFlush(pedidoAberto);
+
+		assertThat(valorTotalPersistido(pedidoAberto))
+			.isEqualTo(new BigDecimal("0.00"));
+	}
+
+	@Test
+	public void testRecalcularValorTotalPorItemVendaEPedidoAberto() {
+		assertThat(pedidoRepository.recalcularValorTotalPorItemVendaEPedidoAberto(servico))
+			.isEqualTo(1L);
+
+		assertThat(valorTotalPersistido(pedidoAberto))
+			.isEqualTo(new BigDecimal("35.50"));
+		assertThat(valorTotalPersistido(pedidoFechado))
+			.isEqualTo(new BigDecimal("0.00"));
+	}
+
+	@Test
+	public void testBuscarDivergenciasValorTotal() {
+		Pedido pedidoSemItens = persistirPedido("00000003", SituacaoPedido.ABERTO);
+		pedidoRepository.atualizarValorTotal(pedidoFechado, new BigDecimal("10.00"));
+
+		assertThat(pedidoRepository.buscarDivergenciasValorTotal())
+			.hasSize(1)
+			.allSatisfy(d -> {
+				assertThat(d.getIdPedido())
+					.isEqualTo(pedidoAberto.getId())
+					.isNotEqualTo(pedidoSemItens.getId());
+				assertThat(d.getCodigo())
+					.isEqualTo(pedidoAberto.getCodigo());
+				assertThat(d.getValorTotalRegistrado())
+					.isEqualTo(new BigDecimal("0.00"));
+				assertThat(d.getValorTotalCalculado())
+					.isEqualTo(new BigDecimal("35.50"));
+			});
+	}
+
+	@Test
+	public void testRecalcularValorTotalComDivergencia() {
+		assertThat(pedidoRepository.recalcularValorTotalComDivergencia())
+			.isEqualTo(2L);
+
+		assertThat(valorTotalPersistido(pedidoAberto))
+			.isEqualTo(new BigDecimal("35.50"));
+		assertThat(valorTotalPersistido(pedidoFechado))
+			.isEqualTo(new BigDecimal("10.00"));
+		assertThat(pedidoRepository.buscarDivergenciasValorTotal())
+			.isEmpty();
+	}
+
+	@Test
+	public void testBuscarPorCursor() {
+		persistirPedido("00000003", SituacaoPedido.ABERTO);
+		BooleanExpression semFiltro = PedidoPredicateBuilder.of(Collections.emptyMap()).build();
+
+		assertThat(pedidoRepository.buscarPorCursor(semFiltro, Optional.empty(), 2))
+			.extracting(Pedido::getCodigo)
+			.containsExactly("00000001", "00000002");
+		assertThat(pedidoRepository.buscarPorCursor(semFiltro, Optional.of("00000002"), 2))
+			.extracting(Pedido::getCodigo)
+			.containsExactly("00000003");
+		assertThat(pedidoRepository.buscarPorCursor(semFiltro, Optional.of("00000003"), 2))
+			.isEmpty();
+	}
+
+	@Test
+	public void testBuscarPorCursorComFiltro() {
+		persistirPedido("00000003", SituacaoPedido.ABERTO);
+		BooleanExpression abertos = PedidoPredicateBuilder.of(Collections.singletonMap("situacao", "A")).build();
+
+		assertThat(pedidoRepository.buscarPorCursor(abertos, Optional.of("00000001"), 2))
+			.extracting(Pedido::getCodigo)
+			.containsExactly("00000003");
+	}
+
+	@Test
+	public void testBuscarFatia() {
+		BooleanExpression semFiltro = PedidoPredicateBuilder.of(Collections.emptyMap()).build();
+
+		Slice<Pedido> primeiraFatia = pedidoRepository.buscarFatia(semFiltro, PageRequest.of(0, 1, Sort.by("codigo")));
+		assertThat(primeiraFatia.getContent())
+			.extracting(Pedido::getCodigo)
+			.containsExactly("00000001");
+		assertThat(primeiraFatia.hasNext())
+			.isTrue();
+
+		Slice<Pedido> ultimaFatia = pedidoRepository.buscarFatia(semFiltro, PageRequest.of(1, 1, Sort.by("codigo")));
+		assertThat(ultimaFatia.getContent())
+			.extracting(Pedido::getCodigo)
+			.containsExactly("00000002");
+		assertThat(ultimaFatia.hasNext())
+			.isFalse();
+	}
+
+	@Test
+	public void testPercorrer() {
+		persistirPedido("00000003", SituacaoPedido.ABERTO);
+		BooleanExpression semFiltro = PedidoPredicateBuilder.of(Collections.emptyMap()).build();
+		List<String> codigos = new ArrayList<>();
+
+		assertThat(pedidoRepository.percorrer(semFiltro, p -> codigos.add(p.getCodigo())))
+			.isEqualTo(3L);
+		assertThat(codigos)
+			.containsExactly("00000001", "00000002", "00000003");
+	}
+
+	@Test
+	public void testPercorrerComFiltro() {
+		persistirPedido("00000003", SituacaoPedido.ABERTO);
+		BooleanExpression abertos = PedidoPredicateBuilder.of(Collections.singletonMap("situacao", "A")).build();
+		List<String> codigos = new ArrayList<>();
+
+		pedidoRepository.percorrer(abertos, p -> codigos.add(p.getCodigo()));
+
+		assertThat(codigos)
+			.containsExactly("00000001", "00000003");
+	}
+
+	@Test
+	public void testEstimarTotal() {
+		assertThat(pedidoRepository.estimarTotal())
+			.hasValueSatisfying(total -> assertThat(total).isNotNegative());
+	}
+
+	private BigDecimal valorTotalPersistido(Pedido pedido) {
+		entityManager.clear();
+		return entityManager.find(Pedido.class, pedido.getId()).getValorTotal();
+	}
+
+	private ItemVenda persistirItemVenda(String nome, TipoItemVenda tipo, String valorBase) {
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setNome(nome);
+		itemVenda.setTipo(tipo);
+		itemVenda.setValorBase(new BigDecimal(valorBase));
+		itemVenda.setAtivo(true);
+
+		return entityManager.persist(itemVenda);
+	}
+
+	private Pedido persistirPedido(String codigo, SituacaoPedido situacao) {
+		Pedido pedido = new Pedido();
+		pedido.setCodigo(codigo);
+		pedido.setFatorDesconto(new BigDecimal("0.00"));
+		pedido.setSituacao(situacao);
+
+		return entityManager.persist(pedido);
+	}
+
+	private ItemPedido persistirItemPedido(Pedido pedido, ItemVenda itemVenda) {
+		ItemPedido itemPedido = new ItemPedido();
+		itemPedido.setPedido(pedido);
+		itemPedido.setItemVenda(itemVenda);
+		itemPedido.calcularValor();
+
+		return entityManager.persist(itemPedido);
+	}
+}
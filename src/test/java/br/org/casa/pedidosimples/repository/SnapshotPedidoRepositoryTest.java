@@ -0,0 +1,84 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.SnapshotPedido;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+
+/**
+ * Classe de testes para {@link SnapshotPedidoRepository}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest
+@ActiveProfiles("test")
+public class SnapshotPedidoRepositoryTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private SnapshotPedidoRepository snapshotPedidoRepository;
+
+	private Pedido pedidoFechado;
+
+	@Before
+	public void setup() {
+		pedidoFechado = new Pedido();
+		pedidoFechado.setCodigo("00000001");
+		pedidoFechado.setFatorDesconto(new BigDecimal("0.00"));
+		pedidoFechado.setSituacao(SituacaoPedido.FECHADO);
+
+		entityManager.persistAndFlush(pedidoFechado);
+	}
+
+	@Test
+	public void testSalvarEBuscarPorId() {
+		Instant dataFechamento = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+		snapshotPedidoRepository.saveAndFlush(new SnapshotPedido(pedidoFechado.getId(), dataFechamento, "{\"codigo\":\"00000001\"}", 0L));
+		entityManager.clear();
+
+		assertThat(snapshotPedidoRepository.findById(pedidoFechado.getId()))
+			.hasValueSatisfying(s -> {
+				assertThat(s.isNew())
+					.isFalse();
+				assertThat(s.getDataFechamento())
+					.isEqualTo(dataFechamento);
+				assertThat(s.getConteudo())
+					.isEqualTo("{\"codigo\":\"00000001\"}");
+			});
+	}
+
+	@Test
+	public void testExcluidoComPedido() {
+		snapshotPedidoRepository.saveAndFlush(new SnapshotPedido(pedidoFechado.getId(), Instant.now(), "{}", 0L));
+		entityManager.clear();
+
+		entityManager.remove(entityManager.find(Pedido.class, pedidoFechado.getId()));
+		entityManager.flush();
+		entityManager.clear();
+
+		assertThat(snapshotPedidoRepository.findById(pedidoFechado.getId()))
+			.isEmpty();
+	}
+
+}
@@ -0,0 +1,203 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import br.org.casa.pedidosimples.config.CacheConfig;
+import br.org.casa.pedidosimples.model.CabecalhoPedido;
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+
+/**
+ * Classe de testes para o cache de {@link CabecalhoPedido}. Cada chamada aos serviços é executada em sua
+ * própria transação, como em produção.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=true",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "br.org.casa.pedidosimples.service.impl.ContadorStatementInspector"
+	})
+@AutoConfigureCache(cacheProvider = CacheType.JCACHE)
+@Import(CacheConfig.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CacheCabecalhoPedidoTest {
+
+	@Autowired
+	private ItemPedidoService itemPedidoService;
+
+	@Autowired
+	private PedidoService pedidoService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ItemVenda itemVenda;
+
+	private UUID idPedido;
+
+	@TestConfiguration
+	static class CacheCabecalhoPedidoTestContextConfiguration {
+
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
+		@Bean
+		public RecalculoPrecoService recalculoPrecoService() {
+			return new RecalculoPrecoServiceImpl();
+		}
+
+		@Bean
+		public EventoPedidoService eventoPedidoService() {
+			return new EventoPedidoServiceImpl();
+		}
+
+		@Bean
+		public DestinoEventoPedido destinoEventoPedido() {
+			return new DestinoEventoPedidoMemoria();
+		}
+
+		@Bean
+		public ItemPedidoService itemPedidoService() {
+			return new ItemPedidoServiceImpl();
+		}
+
+		@Bean
+		public PedidoService pedidoService() {
+			return new PedidoServiceImpl();
+		}
+
+		@Bean
+		public ItemVendaService itemVendaService() {
+			return new ItemVendaServiceImpl();
+		}
+	}
+
+	@Before
+	public void setup() {
+		itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, 'Produto-1', 'P', 10.00, TRUE)", itemVenda.getId());
+
+		idPedido = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.pedido (id_pedido, codigo, fator_desconto, situacao) "
+				+ "VALUES (?, '00000001', 0.00, 'A')", idPedido);
+	}
+
+	@After
+	public void tearDown() {
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_venda");
+		cacheManager.getCache(CabecalhoPedido.NOME_CACHE).clear();
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	public void testInclusoesRepetidasNaoConsultamPedido() {
+		itemPedidoService.incluir(idPedido, itemVenda);
+
+		ContadorStatementInspector.limpar();
+		for (int i = 0; i < 5; i++) {
+			itemPedidoService.incluir(idPedido, itemVenda);
+		}
+
+		assertThat(ContadorStatementInspector.preparado("select"))
+			.isFalse();
+		assertThat(jdbcTemplate.queryForObject("SELECT valor_total FROM pedido_simples.pedido WHERE id_pedido = ?",
+				BigDecimal.class, idPedido))
+			.isEqualTo(new BigDecimal("60.00"));
+	}
+
+	@Test
+	public void testAplicarDescontoRemoveDoCache() {
+		itemPedidoService.incluir(idPedido, itemVenda);
+
+		pedidoService.aplicarDesconto(idPedido, new BigDecimal("0.10"), Optional.empty());
+
+		ItemPedido itemPedido = itemPedidoService.incluir(idPedido, itemVenda);
+		assertThat(itemPedido.getValor())
+			.isEqualTo(new BigDecimal("9.00"));
+	}
+
+	@Test
+	public void testRemocaoDoCacheAposCommit() {
+		pedidoService.buscarCabecalhoPorId(idPedido);
+		Cache cache = cacheManager.getCache(CabecalhoPedido.NOME_CACHE);
+
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			pedidoService.fechar(idPedido);
+
+			assertThat(cache.get(idPedido))
+				.isNotNull();
+		});
+
+		assertThat(cache.get(idPedido))
+			.isNull();
+	}
+
+	@Test
+	public void testPedidoInexistenteNaoArmazenado() {
+		UUID idInexistente = UUID.randomUUID();
+
+		assertThat(pedidoService.buscarCabecalhoPorId(idInexistente))
+			.isEmpty();
+		assertThat(cacheManager.getCache(CabecalhoPedido.NOME_CACHE).get(idInexistente))
+			.isNull();
+	}
+}
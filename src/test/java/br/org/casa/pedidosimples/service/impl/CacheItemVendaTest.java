@@ -0,0 +1,241 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.org.casa.pedidosimples.model.EstatisticasCache;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+
+/**
+ * Classe de testes para o cache de segundo nível de {@link ItemVenda}. Cada chamada aos serviços é executada
+ * em sua própria transação, de modo que as buscas não sejam atendidas pelo contexto de persistência de uma
+ * transação anterior.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+		"spring.jpa.properties.hibernate.cache.use_query_cache=true",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "br.org.casa.pedidosimples.service.impl.ContadorStatementInspector"
+	})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CacheItemVendaTest {
+
+	private static final String SELECT_ITEM_VENDA = "from pedido_simples.item_venda";
+
+	@Autowired
+	private ItemPedidoService itemPedidoService;
+
+	@Autowired
+	private ItemVendaService itemVendaService;
+
+	@Autowired
+	private RecalculoPrecoService recalculoPrecoService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private UUID idItemVenda;
+
+	private UUID idPedido;
+
+	@TestConfiguration
+	static class CacheItemVendaTestContextConfiguration {
+
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
+		@Bean
+		public RecalculoPrecoService recalculoPrecoService() {
+			return new RecalculoPrecoServiceImpl();
+		}
+
+		@Bean
+		public EventoPedidoService eventoPedidoService() {
+			return new EventoPedidoServiceImpl();
+		}
+
+		@Bean
+		public DestinoEventoPedido destinoEventoPedido() {
+			return new DestinoEventoPedidoMemoria();
+		}
+
+		@Bean
+		public ItemPedidoService itemPedidoService() {
+			return new ItemPedidoServiceImpl();
+		}
+
+		@Bean
+		public PedidoService pedidoService() {
+			return new PedidoServiceImpl();
+		}
+
+		@Bean
+		public ItemVendaService itemVendaService() {
+			return new ItemVendaServiceImpl();
+		}
+	}
+
+	@Before
+	public void setup() {
+		idItemVenda = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, 'Produto-1', 'P', 10.00, TRUE)", idItemVenda);
+
+		idPedido = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.pedido (id_pedido, codigo, fator_desconto, situacao) "
+				+ "VALUES (?, '00000001', 0.00, 'A')", idPedido);
+	}
+
+	@After
+	public void tearDown() {
+		jdbcTemplate.update("DELETE FROM pedido_simples.evento_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_venda");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	public void testInclusoesRepetidasNaoConsultamItemVenda() {
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(idItemVenda);
+
+		itemPedidoService.incluir(idPedido, itemVenda);
+		EstatisticasCache antes = itemVendaService.buscarEstatisticasCache();
+
+		ContadorStatementInspector.limpar();
+		for (int i = 0; i < 5; i++) {
+			itemPedidoService.incluir(idPedido, itemVenda);
+		}
+
+		assertThat(ContadorStatementInspector.preparadoContendo(SELECT_ITEM_VENDA))
+			.isFalse();
+		assertThat(ContadorStatementInspector.preparado("insert into pedido_simples.item_pedido"))
+			.isTrue();
+		assertThat(itemVendaService.buscarEstatisticasCache().getAcertos())
+			.isEqualTo(antes.getAcertos() + 5L);
+	}
+
+	@Test
+	public void testAlterarRemoveDoCache() {
+		assertThat(itemVendaService.buscarPorId(idItemVenda))
+			.isPresent();
+
+		ItemVenda alteracao = new ItemVenda();
+		alteracao.setNome("Produto-alterado");
+		alteracao.setTipo(itemVendaService.buscarPorId(idItemVenda).get().getTipo());
+		alteracao.setValorBase(itemVendaService.buscarPorId(idItemVenda).get().getValorBase());
+		alteracao.setAtivo(true);
+		itemVendaService.alterar(idItemVenda, alteracao, Optional.empty());
+
+		assertThat(entityManagerFactory.getCache().contains(ItemVenda.class, idItemVenda))
+			.isFalse();
+
+		ContadorStatementInspector.limpar();
+		assertThat(itemVendaService.buscarPorId(idItemVenda))
+			.hasValueSatisfying(iv -> assertThat(iv.getNome()).isEqualTo("Produto-alterado"));
+		assertThat(ContadorStatementInspector.preparadoContendo(SELECT_ITEM_VENDA))
+			.isTrue();
+	}
+
+	@Test
+	public void testExcluirRemoveDoCache() {
+		assertThat(itemVendaService.buscarPorId(idItemVenda))
+			.isPresent();
+		assertThat(entityManagerFactory.getCache().contains(ItemVenda.class, idItemVenda))
+			.isTrue();
+
+		itemVendaService.excluir(idItemVenda);
+
+		assertThat(entityManagerFactory.getCache().contains(ItemVenda.class, idItemVenda))
+			.isFalse();
+		assertThat(itemVendaService.buscarPorId(idItemVenda))
+			.isEmpty();
+	}
+
+	@Test
+	public void testLoteDeRecalculoDePrecoMantemItemVendaEmCache() {
+		UUID idOutroItemVenda = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, 'Produto-2', 'P', 20.00, TRUE)", idOutroItemVenda);
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_pedido (id_item_pedido, pedido_id, item_venda_id, valor) "
+				+ "VALUES (?, ?, ?, 10.00)", UUID.randomUUID(), idPedido, idItemVenda);
+
+		ItemVenda alteracao = itemVendaService.buscarPorId(idItemVenda).get();
+		alteracao.setValorBase(new BigDecimal("12.00"));
+		itemVendaService.alterar(idItemVenda, alteracao, Optional.empty());
+		UUID idRecalculo = recalculoPrecoService.buscarUltimoPorItemVenda(idItemVenda).get().getId();
+
+		assertThat(itemVendaService.buscarPorId(idItemVenda))
+			.isPresent();
+		assertThat(itemVendaService.buscarPorId(idOutroItemVenda))
+			.isPresent();
+
+		// Um único lote, com o único Pedido pendente
+		assertThat(recalculoPrecoService.processar(idRecalculo).getPedidosProcessados())
+			.isEqualTo(1L);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT valor FROM pedido_simples.item_pedido WHERE pedido_id = ?",
+				BigDecimal.class, idPedido))
+			.isEqualByComparingTo("12.00");
+		assertThat(entityManagerFactory.getCache().contains(ItemVenda.class, idItemVenda))
+			.isTrue();
+		assertThat(entityManagerFactory.getCache().contains(ItemVenda.class, idOutroItemVenda))
+			.isTrue();
+	}
+
+	@Test
+	public void testBuscarPorIdsUsaCacheDeConsultas() {
+		assertThat(itemVendaService.buscarPorIds(Arrays.asList(idItemVenda)))
+			.hasSize(1);
+
+		ContadorStatementInspector.limpar();
+		assertThat(itemVendaService.buscarPorIds(Arrays.asList(idItemVenda)))
+			.extracting(ItemVenda::getId)
+			.containsExactly(idItemVenda);
+		assertThat(ContadorStatementInspector.preparadoContendo(SELECT_ITEM_VENDA))
+			.isFalse();
+	}
+}
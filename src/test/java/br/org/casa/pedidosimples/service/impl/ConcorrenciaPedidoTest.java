@@ -0,0 +1,255 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheType;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.core.AutoConfigureCache;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import br.org.casa.pedidosimples.config.CacheConfig;
+import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.model.CabecalhoPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+
+/**
+ * Classe de testes de concorrência das operações sobre um {@link Pedido}: inclusões de itens, aplicações de
+ * desconto e o fechamento são executados em paralelo, cada um em sua própria transação, e ao final os
+ * valores gravados devem ser consistentes entre si.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@AutoConfigureCache(cacheProvider = CacheType.JCACHE)
+@Import(CacheConfig.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ConcorrenciaPedidoTest {
+
+	private static final int THREADS = 8;
+
+	private static final int INCLUSOES = 40;
+
+	private static final int DESCONTOS = 10;
+
+	private static final String[] FATORES_DESCONTO = {"0.00", "0.10", "0.25", "0.50"};
+
+	@Autowired
+	private ItemPedidoService itemPedidoService;
+
+	@Autowired
+	private PedidoService pedidoService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ItemVenda itemVenda;
+
+	private UUID idPedido;
+
+	@TestConfiguration
+	static class ConcorrenciaPedidoTestContextConfiguration {
+
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
+		@Bean
+		public RecalculoPrecoService recalculoPrecoService() {
+			return new RecalculoPrecoServiceImpl();
+		}
+
+		@Bean
+		public EventoPedidoService eventoPedidoService() {
+			return new EventoPedidoServiceImpl();
+		}
+
+		@Bean
+		public DestinoEventoPedido destinoEventoPedido() {
+			return new DestinoEventoPedidoMemoria();
+		}
+
+		@Bean
+		public ItemPedidoService itemPedidoService() {
+			return new ItemPedidoServiceImpl();
+		}
+
+		@Bean
+		public PedidoService pedidoService() {
+			return new PedidoServiceImpl();
+		}
+
+		@Bean
+		public ItemVendaService itemVendaService() {
+			return new ItemVendaServiceImpl();
+		}
+	}
+
+	@Before
+	public void setup() {
+		itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+		itemVenda.setAtivo(true);
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, 'Produto-1', 'P', 100.00, TRUE)", itemVenda.getId());
+
+		idPedido = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.pedido (id_pedido, codigo, fator_desconto, situacao) "
+				+ "VALUES (?, '00000001', 0.00, 'A')", idPedido);
+	}
+
+	@After
+	public void tearDown() {
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_venda");
+		cacheManager.getCache(CabecalhoPedido.NOME_CACHE).clear();
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	public void testOperacoesConcorrentesMantemValoresConsistentes() throws Exception {
+		List<Callable<Boolean>> operacoes = new ArrayList<>();
+		for (int i = 0; i < INCLUSOES; i++) {
+			operacoes.add(() -> itemPedidoService.incluir(idPedido, itemVenda) != null);
+
+			// As aplicações de desconto são intercaladas com as inclusões
+			if (i % (INCLUSOES / DESCONTOS) == 0) {
+				int desconto = i / (INCLUSOES / DESCONTOS);
+				BigDecimal fatorDesconto = new BigDecimal(FATORES_DESCONTO[(desconto + 1) % FATORES_DESCONTO.length]);
+				operacoes.add(() -> {
+					pedidoService.aplicarDesconto(idPedido, fatorDesconto, Optional.empty());
+					return false;
+				});
+			}
+		}
+		// O fechamento é feito no último quarto, para que parte das operações o encontre em andamento ou concluído
+		AtomicBoolean fechado = new AtomicBoolean();
+		operacoes.add(operacoes.size() * 3 / 4, () -> {
+			pedidoService.fechar(idPedido);
+			fechado.set(true);
+			return false;
+		});
+
+		long inclusoesConfirmadas = executarEmParalelo(operacoes);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.item_pedido WHERE pedido_id = ?",
+				Long.class, idPedido))
+			.isEqualTo(inclusoesConfirmadas);
+		// Todos os itens devem ter sido calculados com o fator de desconto final do Pedido
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.item_pedido ip "
+				+ "JOIN pedido_simples.pedido p ON p.id_pedido = ip.pedido_id "
+				+ "JOIN pedido_simples.item_venda iv ON iv.id_item_venda = ip.item_venda_id "
+				+ "WHERE p.id_pedido = ? AND ip.valor <> iv.valor_base - iv.valor_base * p.fator_desconto",
+				Long.class, idPedido))
+			.isZero();
+		assertThat(pedidoService.verificarValoresTotais())
+			.isEmpty();
+
+		// Sob contenção, o fechamento pode falhar por conflito mesmo após todas as tentativas
+		if (fechado.get()) {
+			assertThat(jdbcTemplate.queryForObject("SELECT situacao FROM pedido_simples.pedido WHERE id_pedido = ?",
+					String.class, idPedido))
+				.isEqualTo("F");
+			// O snapshot gravado no fechamento deve conter todos os itens do Pedido
+			assertThat(pedidoService.buscarSnapshot(idPedido))
+				.hasValueSatisfying(s -> assertThat(s.getConteudo())
+						.contains("\"quantidadeItens\":" + inclusoesConfirmadas));
+		}
+	}
+
+	/**
+	 * Executa as operações em paralelo, a partir do mesmo instante, retornando a quantidade que retornou
+	 * true. Além das exceções esperadas após o fechamento do Pedido, apenas os conflitos que persistirem
+	 * após o limite de tentativas são aceitos.
+	 */
+	private long executarEmParalelo(List<Callable<Boolean>> operacoes) throws InterruptedException {
+		ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch inicio = new CountDownLatch(1);
+
+		List<Future<Boolean>> resultados = new ArrayList<>();
+		for (Callable<Boolean> operacao : operacoes) {
+			resultados.add(executorService.submit(() -> {
+				inicio.await();
+				return operacao.call();
+			}));
+		}
+		inicio.countDown();
+		executorService.shutdown();
+		assertThat(executorService.awaitTermination(1L, TimeUnit.MINUTES))
+			.isTrue();
+
+		List<Throwable> falhasInesperadas = Collections.synchronizedList(new ArrayList<>());
+		long confirmadas = 0L;
+		for (Future<Boolean> resultado : resultados) {
+			try {
+				if (resultado.get()) {
+					confirmadas++;
+				}
+			} catch (ExecutionException e) {
+				if (!(e.getCause() instanceof OperacaoInvalidaException)
+						&& !(e.getCause() instanceof ConcurrencyFailureException)) {
+					falhasInesperadas.add(e.getCause());
+				}
+			}
+		}
+		assertThat(falhasInesperadas)
+			.isEmpty();
+
+		return confirmadas;
+	}
+
+}
@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.engine.internal.StatisticalLoggingSessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * {@link StatementInspector} que registra os statements preparados pelo Hibernate e, como listener de
+ * sessão, conta as idas ao banco. Com lotes JDBC habilitados, o mesmo statement preparado é reutilizado
+ * por vários lotes, de modo que as idas ao banco são contadas pelas execuções de lotes e de statements
+ * avulsos, como em {@link StatisticalLoggingSessionEventListener}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class ContadorStatementInspector extends BaseSessionEventListener implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+	private static final AtomicLong LOTES_EXECUTADOS = new AtomicLong();
+
+	private static final AtomicLong STATEMENTS_EXECUTADOS = new AtomicLong();
+
+	@Override
+	public String inspect(String sql) {
+		STATEMENTS.add(sql.toLowerCase());
+		return sql;
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		LOTES_EXECUTADOS.incrementAndGet();
+	}
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		STATEMENTS_EXECUTADOS.incrementAndGet();
+	}
+
+	/**
+	 * Descarta os statements e as contagens registrados até o momento.
+	 */
+	public static void limpar() {
+		STATEMENTS.clear();
+		LOTES_EXECUTADOS.set(0L);
+		STATEMENTS_EXECUTADOS.set(0L);
+	}
+
+	/**
+	 * Indica se algum statement iniciado pelo prefixo informado foi preparado.
+	 *
+	 * @param prefixo o início do statement, em minúsculas (ex.: "update pedido_simples.item_pedido")
+	 * @return {@code true} se algum statement com o prefixo foi preparado
+	 */
+	public static boolean preparado(String prefixo) {
+		return STATEMENTS.stream()
+				.anyMatch(sql -> sql.startsWith(prefixo));
+	}
+
+	/**
+	 * Indica se algum statement contendo o trecho informado foi preparado.
+	 *
+	 * @param trecho o trecho do statement, em minúsculas (ex.: "from pedido_simples.item_venda")
+	 * @return {@code true} se algum statement com o trecho foi preparado
+	 */
+	public static boolean preparadoContendo(String trecho) {
+		return STATEMENTS.stream()
+				.anyMatch(sql -> sql.contains(trecho));
+	}
+
+	/**
+	 * Retorna a quantidade de lotes JDBC executados.
+	 *
+	 * @return a quantidade de lotes executados
+	 */
+	public static long lotesExecutados() {
+		return LOTES_EXECUTADOS.get();
+	}
+
+	/**
+	 * Retorna a quantidade de idas ao banco, somando os lotes e os statements executados individualmente.
+	 *
+	 * @return a quantidade de idas ao banco
+	 */
+	public static long idasAoBanco() {
+		return LOTES_EXECUTADOS.get() + STATEMENTS_EXECUTADOS.get();
+	}
+}
@@ -0,0 +1,281 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.model.EventoPedido;
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+
+/**
+ * Classe de testes para {@link EventoPedidoServiceImpl}. As operações sobre os Pedidos são executadas e
+ * confirmadas em suas próprias transações, e os eventos gravados são então enviados ao destino em memória.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+		"spring.jpa.show-sql=false",
+		"pedido-simples.evento-pedido.tamanho-lote=" + EventoPedidoServiceImplTest.TAMANHO_LOTE
+	})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EventoPedidoServiceImplTest {
+
+	static final int TAMANHO_LOTE = 2;
+
+	@Rule
+	public TemporaryFolder pastaTemporaria = new TemporaryFolder();
+
+	@Autowired
+	private EventoPedidoService service;
+
+	@Autowired
+	private PedidoService pedidoService;
+
+	@Autowired
+	private ItemPedidoService itemPedidoService;
+
+	@SpyBean
+	private DestinoEventoPedidoMemoria destino;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private ItemVenda itemVenda;
+
+	@TestConfiguration
+	static class EventoPedidoServiceImplTestContextConfiguration {
+
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
+		@Bean
+		public RecalculoPrecoService recalculoPrecoService() {
+			return new RecalculoPrecoServiceImpl();
+		}
+
+		@Bean
+		public EventoPedidoService eventoPedidoService() {
+			return new EventoPedidoServiceImpl();
+		}
+
+		@Bean
+		public DestinoEventoPedidoMemoria destinoEventoPedido() {
+			return new DestinoEventoPedidoMemoria();
+		}
+
+		@Bean
+		public ItemPedidoService itemPedidoService() {
+			return new ItemPedidoServiceImpl();
+		}
+
+		@Bean
+		public PedidoService pedidoService() {
+			return new PedidoServiceImpl();
+		}
+
+		@Bean
+		public ItemVendaService itemVendaService() {
+			return new ItemVendaServiceImpl();
+		}
+	}
+
+	@Before
+	public void setup() {
+		itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+		itemVenda.setAtivo(true);
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, 'Produto-1', 'P', 10.00, TRUE)", itemVenda.getId());
+
+		jdbcTemplate.update("DELETE FROM pedido_simples.evento_pedido");
+		destino.limpar();
+	}
+
+	@After
+	public void tearDown() {
+		jdbcTemplate.update("DELETE FROM pedido_simples.evento_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.snapshot_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_venda");
+	}
+
+	@Test
+	public void testEnviarPendentesNaOrdemDasOperacoes() throws Exception {
+		Pedido pedido = pedidoService.incluir(novoPedido("00000001"));
+		List<ItemPedido> itens = itemPedidoService.incluir(pedido.getId(), Arrays.asList(itemVenda, itemVenda));
+		itemPedidoService.excluir(itens.get(0).getId());
+		pedidoService.aplicarDesconto(pedido.getId(), new BigDecimal("0.10"), Optional.empty());
+		pedidoService.fechar(pedido.getId());
+
+		assertThat(service.enviarPendentes())
+			.isEqualTo(5L);
+
+		List<EventoPedido> enviados = destino.getEventos();
+		assertThat(enviados)
+			.extracting(EventoPedido::getTipo)
+			.containsExactly(TipoEventoPedido.PEDIDO_INCLUIDO, TipoEventoPedido.ITENS_INCLUIDOS,
+					TipoEventoPedido.ITENS_EXCLUIDOS, TipoEventoPedido.DESCONTO_APLICADO, TipoEventoPedido.PEDIDO_FECHADO);
+		assertThat(enviados)
+			.extracting(EventoPedido::getIdPedido)
+			.containsOnly(pedido.getId());
+		// Os eventos são enviados em lotes, e removidos após o envio
+		verify(destino, times(3)).enviar(anyList());
+		assertThat(contarPendentes())
+			.isZero();
+
+		JsonNode inclusaoItens = objectMapper.readTree(enviados.get(1).getConteudo());
+		assertThat(inclusaoItens.get("itens"))
+			.hasSize(2);
+		JsonNode fechamento = objectMapper.readTree(enviados.get(4).getConteudo());
+		assertThat(fechamento.get("situacao").asText())
+			.isEqualTo(SituacaoPedido.FECHADO.getValor());
+		assertThat(fechamento.get("valorTotal").decimalValue())
+			.isEqualByComparingTo("9.00");
+	}
+
+	@Test
+	public void testOperacaoInvalidaNaoRegistraEvento() {
+		Pedido pedido = pedidoService.incluir(novoPedido("00000001"));
+		pedidoService.fechar(pedido.getId());
+		long pendentes = contarPendentes();
+
+		assertThatExceptionOfType(OperacaoInvalidaException.class)
+			.isThrownBy(() -> itemPedidoService.incluir(pedido.getId(), itemVenda));
+
+		assertThat(contarPendentes())
+			.isEqualTo(pendentes);
+	}
+
+	@Test
+	public void testExclusaoDoPedidoMantemEvento() {
+		Pedido pedido = pedidoService.incluir(novoPedido("00000001"));
+		itemPedidoService.incluir(pedido.getId(), itemVenda);
+
+		pedidoService.excluir(pedido.getId());
+
+		service.enviarPendentes();
+		assertThat(destino.getEventos())
+			.extracting(EventoPedido::getTipo)
+			.containsExactly(TipoEventoPedido.PEDIDO_INCLUIDO, TipoEventoPedido.ITENS_INCLUIDOS,
+					TipoEventoPedido.PEDIDO_EXCLUIDO);
+	}
+
+	@Test
+	public void testFalhaNoEnvioMantemLotePendente() {
+		Pedido pedido = pedidoService.incluir(novoPedido("00000001"));
+		itemPedidoService.incluir(pedido.getId(), itemVenda);
+		pedidoService.fechar(pedido.getId());
+
+		doThrow(new IllegalStateException("Destino indisponível"))
+			.doCallRealMethod()
+			.when(destino).enviar(anyList());
+
+		assertThatExceptionOfType(IllegalStateException.class)
+			.isThrownBy(() -> service.enviarPendentes());
+		assertThat(contarPendentes())
+			.isEqualTo(3L);
+
+		// Na execução seguinte, todos os eventos são enviados, a partir do lote que falhou
+		assertThat(service.enviarPendentes())
+			.isEqualTo(3L);
+		assertThat(destino.getEventos())
+			.extracting(EventoPedido::getTipo)
+			.containsExactly(TipoEventoPedido.PEDIDO_INCLUIDO, TipoEventoPedido.ITENS_INCLUIDOS,
+					TipoEventoPedido.PEDIDO_FECHADO);
+	}
+
+	@Test
+	public void testDestinoArquivoGravaUmEventoPorLinha() throws Exception {
+		Pedido pedido = pedidoService.incluir(novoPedido("00000001"));
+		pedidoService.fechar(pedido.getId());
+		service.enviarPendentes();
+
+		File arquivo = new File(pastaTemporaria.getRoot(), "eventos/eventos-pedido.jsonl");
+		DestinoEventoPedidoArquivo destinoArquivo = new DestinoEventoPedidoArquivo(objectMapper, arquivo.toPath());
+		destinoArquivo.enviar(destino.getEventos().subList(0, 1));
+		destinoArquivo.enviar(destino.getEventos().subList(1, 2));
+
+		List<String> linhas = Files.readAllLines(arquivo.toPath(), StandardCharsets.UTF_8);
+		assertThat(linhas)
+			.hasSize(2);
+		JsonNode evento = objectMapper.readTree(linhas.get(1));
+		assertThat(evento.get("tipo").asText())
+			.isEqualTo(TipoEventoPedido.PEDIDO_FECHADO.getValor());
+		// O conteúdo é gravado como objeto JSON, e não como texto
+		assertThat(evento.get("conteudo").get("codigo").asText())
+			.isEqualTo("00000001");
+	}
+
+	private Pedido novoPedido(String codigo) {
+		Pedido pedido = new Pedido();
+		pedido.setCodigo(codigo);
+		pedido.setFatorDesconto(new BigDecimal("0.00"));
+		pedido.setSituacao(SituacaoPedido.ABERTO);
+		pedido.setValorTotal(BigDecimal.ZERO);
+
+		return pedido;
+	}
+
+	private long contarPendentes() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.evento_pedido", Long.class);
+	}
+
+}
@@ -0,0 +1,128 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.model.Pedido;
+
+/**
+ * Classe de testes para {@link ExecutorTransacional}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+public class ExecutorTransacionalTest {
+
+	@Autowired
+	private ExecutorTransacional executorTransacional;
+
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@TestConfiguration
+	static class ExecutorTransacionalTestContextConfiguration {
+
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+	}
+
+	@Test
+	public void testExecutarSemConflito() {
+		assertThat(executorTransacional.executar(() -> "ok"))
+			.isEqualTo("ok");
+		verify(transactionManager).getTransaction(any());
+		verify(transactionManager).commit(any());
+	}
+
+	@Test
+	public void testExecutarRepeteAposConflito() {
+		AtomicInteger tentativas = new AtomicInteger();
+
+		String resultado = executorTransacional.executar(() -> {
+			if (tentativas.incrementAndGet() < ExecutorTransacional.MAXIMO_TENTATIVAS) {
+				throw new ObjectOptimisticLockingFailureException(Pedido.class, UUID.randomUUID());
+			}
+			return "ok";
+		});
+
+		assertThat(resultado)
+			.isEqualTo("ok");
+		assertThat(tentativas)
+			.hasValue(ExecutorTransacional.MAXIMO_TENTATIVAS);
+		verify(transactionManager, times(ExecutorTransacional.MAXIMO_TENTATIVAS)).getTransaction(any());
+		verify(transactionManager, times(ExecutorTransacional.MAXIMO_TENTATIVAS - 1)).rollback(any());
+	}
+
+	@Test
+	public void testExecutarLimiteTentativas() {
+		AtomicInteger tentativas = new AtomicInteger();
+
+		assertThatExceptionOfType(CannotAcquireLockException.class)
+			.isThrownBy(() -> executorTransacional.executar(() -> {
+				tentativas.incrementAndGet();
+				throw new CannotAcquireLockException("Registro bloqueado");
+			}));
+		assertThat(tentativas)
+			.hasValue(ExecutorTransacional.MAXIMO_TENTATIVAS);
+	}
+
+	@Test
+	public void testExecutarNaoRepeteOutrasExcecoes() {
+		AtomicInteger tentativas = new AtomicInteger();
+
+		assertThatExceptionOfType(OperacaoInvalidaException.class)
+			.isThrownBy(() -> executorTransacional.executar(() -> {
+				tentativas.incrementAndGet();
+				throw new OperacaoInvalidaException("Operação inválida");
+			}));
+		assertThat(tentativas)
+			.hasValue(1);
+	}
+
+	@Test
+	public void testExecutarEmTransacaoExistente() {
+		AtomicInteger tentativas = new AtomicInteger();
+
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			assertThatExceptionOfType(ObjectOptimisticLockingFailureException.class)
+				.isThrownBy(() -> executorTransacional.executar(() -> {
+					tentativas.incrementAndGet();
+					throw new ObjectOptimisticLockingFailureException(Pedido.class, UUID.randomUUID());
+				}));
+		} finally {
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+
+		assertThat(tentativas)
+			.hasValue(1);
+		verify(transactionManager, never()).getTransaction(any());
+	}
+
+}
@@ -7,14 +7,21 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,16 +34,25 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
 import br.org.casa.pedidosimples.repository.ItemPedidoRepository;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
 import br.org.casa.pedidosimples.service.ItemVendaService;
 import br.org.casa.pedidosimples.service.PedidoService;
@@ -54,6 +70,13 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
 	@Autowired
     private ItemPedidoService service;
 
+	// Sem banco de dados nestes testes: as operações executadas pelo ExecutorTransacional rodam sem transação real
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@MockBean
+	private EventoPedidoService eventoPedidoService;
+
 	@MockBean
 	private ItemPedidoRepository itemPedidoRepository;
 
@@ -66,6 +89,11 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     @TestConfiguration
     static class ItemPedidoServiceImplTestContextConfiguration {
 
+        @Bean
+        public ExecutorTransacional executorTransacional() {
+            return new ExecutorTransacional();
+        }
+
         @Bean
         public ItemPedidoService itemPedidoService() {
             return new ItemPedidoServiceImpl();
@@ -80,27 +108,87 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	Pedido pedido = new Pedido();
     	pedido.setId(UUID.randomUUID());
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
 			.thenReturn(Optional.of(pedido));
     	when(itemPedidoRepository.findByPedido(any(), any(), any()))
     		.thenReturn(page);
 
 
-    	Page<ItemPedido> pageRetornado = service.buscarTodos(pedido.getId(), pageable, Collections.emptyMap());
+    	Slice<ItemPedido> pageRetornado = service.buscarTodos(pedido.getId(), pageable, Collections.emptyMap(),
+    			ModoContagem.EXATA);
 
     	assertThat(pageRetornado)
     		.isEqualTo(page);
     }
 
+    @Test
+    public void testBuscarTodosSemContagem() {
+    	Slice<ItemPedido> fatia = new SliceImpl<ItemPedido>(Collections.emptyList());
+    	Pageable pageable = mock(Pageable.class);
+
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.of(pedido));
+    	when(itemPedidoRepository.buscarFatiaPorPedido(any(), any(), any()))
+    		.thenReturn(fatia);
+
+    	assertThat(service.buscarTodos(pedido.getId(), pageable, Collections.emptyMap(), ModoContagem.NENHUMA))
+    		.isEqualTo(fatia);
+    	verify(itemPedidoRepository, never()).findByPedido(any(), any(), any(Pageable.class));
+    }
+
     @Test
     public void testBuscarTodosPedidoNaoEncontrado() {
     	Pageable pageable = mock(Pageable.class);
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.empty());
+
+    	assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
+    		.isThrownBy(() -> service.buscarTodos(UUID.randomUUID(), pageable, Collections.emptyMap(),
+    				ModoContagem.EXATA) );
+    }
+
+    @Test
+    public void testBuscarTodosPorCursor() {
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+
+    	ItemPedido itemPedido = new ItemPedido();
+    	itemPedido.setId(UUID.randomUUID());
+
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.of(pedido));
+    	when(itemPedidoRepository.findByPedido(eq(pedido), any(), eq(Optional.empty()), eq(11)))
+    		.thenReturn(Arrays.asList(itemPedido));
+
+    	PaginaCursor<ItemPedido> pagina = service.buscarTodosPorCursor(pedido.getId(), null, 10, Collections.emptyMap());
+
+    	assertThat(pagina.getConteudo())
+    		.containsExactly(itemPedido);
+    	assertThat(pagina.getProximoCursor())
+    		.isNull();
+    }
+
+    @Test
+    public void testBuscarTodosPorCursorPedidoNaoEncontrado() {
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.empty());
 
     	assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
-    		.isThrownBy(() -> service.buscarTodos(UUID.randomUUID(), pageable, Collections.emptyMap()) );
+    		.isThrownBy(() -> service.buscarTodosPorCursor(UUID.randomUUID(), null, 10, Collections.emptyMap()) );
+    }
+
+    @Test
+    public void testPercorrerTodosPedidoNaoEncontrado() {
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.empty());
+
+    	assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
+    		.isThrownBy(() -> service.percorrerTodos(UUID.randomUUID(), Collections.emptyMap(), ip -> { }) );
+    	verify(itemPedidoRepository, never()).percorrerPorPedido(any(), any(), any());
     }
 
     @Test
@@ -108,7 +196,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	Pedido pedido = new Pedido();
     	pedido.setId(UUID.randomUUID());
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.empty());
 
     	assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
@@ -121,7 +209,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	pedido.setId(UUID.randomUUID());
     	pedido.setSituacao(SituacaoPedido.FECHADO);
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.of(pedido));
 
     	assertThatExceptionOfType(OperacaoInvalidaException.class)
@@ -143,7 +231,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	itemPedido.setPedido(pedido);
     	itemPedido.setItemVenda(itemVenda);
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.of(pedido));
     	when(itemPedidoRepository.findByPedido(pedido))
     		.thenReturn(Arrays.asList(itemPedido));
@@ -170,7 +258,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	itemPedido.setPedido(pedido);
     	itemPedido.setItemVenda(itemVenda);
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.of(pedido));
     	when(itemPedidoRepository.findByPedido(pedido))
     		.thenReturn(Arrays.asList(itemPedido));
@@ -179,6 +267,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
 
     	assertThat(itemPedido.getValor())
     		.isEqualTo(new BigDecimal("50.00"));
+    	verify(pedidoService).atualizarValorTotal(pedido, new BigDecimal("50.00"));
     }
 
     @Test
@@ -211,29 +300,57 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
 
     @Test
     public void testAtualizarValoresItemVendaComSucesso() {
-    	Pedido pedido = new Pedido();
-    	pedido.setId(UUID.randomUUID());
-    	pedido.setSituacao(SituacaoPedido.ABERTO);
-    	pedido.setFatorDesconto(new BigDecimal("0.50"));
+    	ItemVenda itemVenda = new ItemVenda();
+    	itemVenda.setId(UUID.randomUUID());
+    	itemVenda.setAtivo(true);
+    	itemVenda.setValorBase(new BigDecimal("100.00"));
+    	itemVenda.setTipo(TipoItemVenda.PRODUTO);
+
+    	when(itemVendaService.buscarPorId(any()))
+			.thenReturn(Optional.of(itemVenda));
+    	when(itemPedidoRepository.atualizarValorPorItemVendaEPedidoAberto(itemVenda))
+    		.thenReturn(3L);
+
+    	Pedido pedido1 = new Pedido();
+    	pedido1.setId(UUID.randomUUID());
+    	Pedido pedido2 = new Pedido();
+    	pedido2.setId(UUID.randomUUID());
+    	when(pedidoService.buscarAbertosPorItemVenda(itemVenda))
+    		.thenReturn(Arrays.asList(pedido1, pedido2));
 
+    	assertThatCode(() -> service.atualizarValores(itemVenda))
+    		.doesNotThrowAnyException();
+    	verify(itemPedidoRepository).atualizarValorPorItemVendaEPedidoAberto(itemVenda);
+    	verify(pedidoService).recalcularValorTotal(itemVenda);
+    	verify(eventoPedidoService).registrar(TipoEventoPedido.VALORES_RECALCULADOS, pedido1);
+    	verify(eventoPedidoService).registrar(TipoEventoPedido.VALORES_RECALCULADOS, pedido2);
+    }
+
+    @Test
+    public void testAtualizarValoresItemVendaPorPedidosComSucesso() {
     	ItemVenda itemVenda = new ItemVenda();
+    	itemVenda.setId(UUID.randomUUID());
     	itemVenda.setAtivo(true);
     	itemVenda.setValorBase(new BigDecimal("100.00"));
     	itemVenda.setTipo(TipoItemVenda.PRODUTO);
 
-    	ItemPedido itemPedido = new ItemPedido();
-    	itemPedido.setPedido(pedido);
-    	itemPedido.setItemVenda(itemVenda);
+    	Pedido pedidoAberto = new Pedido();
+    	pedidoAberto.setId(UUID.randomUUID());
+    	List<UUID> uuidsPedido = Arrays.asList(pedidoAberto.getId(), UUID.randomUUID());
 
     	when(itemVendaService.buscarPorId(any()))
 			.thenReturn(Optional.of(itemVenda));
-    	when(itemPedidoRepository.buscarPorItemVendaEPedidoAberto(itemVenda))
-    		.thenReturn(Arrays.asList(itemPedido));
+    	// Apenas um dos Pedidos do lote continua em aberto
+    	when(pedidoService.buscarAbertosPorIds(uuidsPedido))
+    		.thenReturn(Collections.singletonList(pedidoAberto));
 
-    	service.atualizarValores(itemVenda);
+    	service.atualizarValores(itemVenda, uuidsPedido);
 
-    	assertThat(itemPedido.getValor())
-    		.isEqualTo(new BigDecimal("50.00"));
+    	verify(pedidoService).bloquearAbertos(uuidsPedido);
+    	verify(itemPedidoRepository).atualizarValorPorItemVendaEPedidoAberto(itemVenda, uuidsPedido);
+    	verify(pedidoService).recalcularValorTotal(uuidsPedido);
+    	verify(eventoPedidoService).registrar(TipoEventoPedido.VALORES_RECALCULADOS, pedidoAberto);
+    	verify(eventoPedidoService, times(1)).registrar(eq(TipoEventoPedido.VALORES_RECALCULADOS), any(Pedido.class));
     }
 
     @Test
@@ -254,7 +371,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
 
     	ItemVenda itemVenda = new ItemVenda();
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.empty());
 
     	assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
@@ -270,7 +387,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	ItemVenda itemVenda = new ItemVenda();
     	itemVenda.setId(UUID.randomUUID());
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.of(pedido));
     	when(itemVendaService.buscarPorId(itemVenda.getId()))
     		.thenReturn(Optional.empty());
@@ -289,7 +406,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	itemVenda.setId(UUID.randomUUID());
     	itemVenda.setAtivo(false);
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.of(pedido));
     	when(itemVendaService.buscarPorId(itemVenda.getId()))
     		.thenReturn(Optional.of(itemVenda));
@@ -309,7 +426,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	itemVenda.setId(UUID.randomUUID());
     	itemVenda.setAtivo(true);
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.of(pedido));
     	when(itemVendaService.buscarPorId(itemVenda.getId()))
     		.thenReturn(Optional.of(itemVenda));
@@ -332,7 +449,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	itemVenda.setTipo(TipoItemVenda.SERVICO);
     	itemVenda.setValorBase(new BigDecimal("250.00"));
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.of(pedido));
     	when(itemVendaService.buscarPorId(itemVenda.getId()))
     		.thenReturn(Optional.of(itemVenda));
@@ -343,6 +460,176 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
 
     	assertThat(incluido.getValor())
     		.isEqualTo(new BigDecimal("250.00"));
+    	verify(pedidoService).adicionarValorTotal(pedido, new BigDecimal("250.00"));
+    	verify(eventoPedidoService).registrar(TipoEventoPedido.ITENS_INCLUIDOS, pedido, Collections.singletonList(incluido));
+    }
+
+    @Test
+    public void testIncluirRepeteAposConflito() {
+    	Pedido desatualizado = new Pedido();
+    	desatualizado.setId(UUID.randomUUID());
+    	desatualizado.setSituacao(SituacaoPedido.ABERTO);
+    	desatualizado.setFatorDesconto(new BigDecimal("0.00"));
+
+    	Pedido atual = new Pedido();
+    	atual.setId(desatualizado.getId());
+    	atual.setSituacao(SituacaoPedido.ABERTO);
+    	atual.setFatorDesconto(new BigDecimal("0.10"));
+
+    	ItemVenda itemVenda = new ItemVenda();
+    	itemVenda.setId(UUID.randomUUID());
+    	itemVenda.setAtivo(true);
+    	itemVenda.setTipo(TipoItemVenda.PRODUTO);
+    	itemVenda.setValorBase(new BigDecimal("100.00"));
+
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.of(desatualizado))
+    		.thenReturn(Optional.of(atual));
+    	when(itemVendaService.buscarPorId(itemVenda.getId()))
+    		.thenReturn(Optional.of(itemVenda));
+    	when(itemPedidoRepository.save(any()))
+    		.thenAnswer(this.<ItemPedido>getParameterAsAnswer());
+    	doThrow(new ObjectOptimisticLockingFailureException(Pedido.class, desatualizado.getId()))
+    		.when(pedidoService).adicionarValorTotal(desatualizado, new BigDecimal("100.00"));
+
+    	ItemPedido incluido = service.incluir(desatualizado.getId(), itemVenda);
+
+    	// O valor é recalculado com o fator de desconto lido na nova tentativa
+    	assertThat(incluido.getValor())
+    		.isEqualTo(new BigDecimal("90.00"));
+    	verify(pedidoService).adicionarValorTotal(atual, new BigDecimal("90.00"));
+    }
+
+    @Test
+    public void testIncluirEmLoteComSucesso() {
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+    	pedido.setSituacao(SituacaoPedido.ABERTO);
+    	pedido.setFatorDesconto(new BigDecimal("0.10"));
+
+    	ItemVenda produto = new ItemVenda();
+    	produto.setId(UUID.randomUUID());
+    	produto.setAtivo(true);
+    	produto.setTipo(TipoItemVenda.PRODUTO);
+    	produto.setValorBase(new BigDecimal("100.00"));
+
+    	ItemVenda servico = new ItemVenda();
+    	servico.setId(UUID.randomUUID());
+    	servico.setAtivo(true);
+    	servico.setTipo(TipoItemVenda.SERVICO);
+    	servico.setValorBase(new BigDecimal("250.00"));
+
+    	ItemVenda referenciaProduto = new ItemVenda();
+    	referenciaProduto.setId(produto.getId());
+    	ItemVenda referenciaServico = new ItemVenda();
+    	referenciaServico.setId(servico.getId());
+
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.of(pedido));
+    	when(itemVendaService.buscarPorIds(new HashSet<>(Arrays.asList(produto.getId(), servico.getId()))))
+    		.thenReturn(Arrays.asList(servico, produto));
+    	when(itemPedidoRepository.saveAll(anyList()))
+    		.thenAnswer(this.<List<ItemPedido>>getParameterAsAnswer());
+
+    	List<ItemPedido> incluidos = service.incluir(pedido.getId(),
+    			Arrays.asList(referenciaProduto, referenciaServico, referenciaProduto));
+
+    	assertThat(incluidos)
+    		.extracting(ItemPedido::getItemVenda)
+    		.containsExactly(produto, servico, produto);
+    	assertThat(incluidos)
+    		.extracting(ItemPedido::getValor)
+    		.containsExactly(new BigDecimal("90.00"), new BigDecimal("250.00"), new BigDecimal("90.00"));
+    	verify(itemVendaService, never()).buscarPorId(any());
+    	verify(pedidoService).adicionarValorTotal(pedido, new BigDecimal("430.00"));
+    	// Um único evento para toda a inclusão
+    	verify(eventoPedidoService).registrar(TipoEventoPedido.ITENS_INCLUIDOS, pedido, incluidos);
+    }
+
+    @Test
+    public void testIncluirEmLoteListaVazia() {
+    	assertThatExceptionOfType(OperacaoInvalidaException.class)
+    		.isThrownBy(() -> service.incluir(UUID.randomUUID(), Collections.<ItemVenda>emptyList()) );
+    	verify(pedidoService, never()).buscarPorId(any());
+    }
+
+    @Test
+    public void testIncluirEmLoteAcimaDoLimite() {
+    	ItemVenda itemVenda = new ItemVenda();
+    	itemVenda.setId(UUID.randomUUID());
+    	List<ItemVenda> itensVenda = Collections.nCopies(ItemPedidoServiceImpl.TAMANHO_MAXIMO_LOTE + 1, itemVenda);
+
+    	assertThatExceptionOfType(OperacaoInvalidaException.class)
+    		.isThrownBy(() -> service.incluir(UUID.randomUUID(), itensVenda) )
+    		.withMessageContaining("excede o máximo de " + ItemPedidoServiceImpl.TAMANHO_MAXIMO_LOTE);
+    	verify(pedidoService, never()).buscarCabecalhoPorId(any());
+    	verify(itemPedidoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testIncluirEmLotePedidoFechado() {
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+    	pedido.setSituacao(SituacaoPedido.FECHADO);
+
+    	ItemVenda itemVenda = new ItemVenda();
+    	itemVenda.setId(UUID.randomUUID());
+
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.of(pedido));
+
+    	assertThatExceptionOfType(OperacaoInvalidaException.class)
+    		.isThrownBy(() -> service.incluir(pedido.getId(), Arrays.asList(itemVenda)) )
+    		.withMessageContaining("Não é possível adicionar um Item de Venda a um Pedido fechado");
+    	verify(itemVendaService, never()).buscarPorIds(any());
+    }
+
+    @Test
+    public void testIncluirEmLoteItemVendaInexistente() {
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+    	pedido.setSituacao(SituacaoPedido.ABERTO);
+
+    	ItemVenda itemVenda = new ItemVenda();
+    	itemVenda.setId(UUID.randomUUID());
+
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.of(pedido));
+    	when(itemVendaService.buscarPorIds(any()))
+    		.thenReturn(Collections.emptyList());
+
+    	assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
+    		.isThrownBy(() -> service.incluir(pedido.getId(), Arrays.asList(itemVenda)) );
+    	verify(itemPedidoRepository, never()).saveAll(any());
+    }
+
+    @Test
+    public void testIncluirEmLoteItemVendaInativo() {
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+    	pedido.setSituacao(SituacaoPedido.ABERTO);
+    	pedido.setFatorDesconto(new BigDecimal("0.00"));
+
+    	ItemVenda ativo = new ItemVenda();
+    	ativo.setId(UUID.randomUUID());
+    	ativo.setAtivo(true);
+    	ativo.setTipo(TipoItemVenda.PRODUTO);
+    	ativo.setValorBase(new BigDecimal("10.00"));
+
+    	ItemVenda inativo = new ItemVenda();
+    	inativo.setId(UUID.randomUUID());
+    	inativo.setAtivo(false);
+
+    	when(pedidoService.buscarCabecalhoPorId(any()))
+    		.thenReturn(Optional.of(pedido));
+    	when(itemVendaService.buscarPorIds(any()))
+    		.thenReturn(Arrays.asList(ativo, inativo));
+
+    	assertThatExceptionOfType(OperacaoInvalidaException.class)
+    		.isThrownBy(() -> service.incluir(pedido.getId(), Arrays.asList(ativo, inativo)) )
+    		.withMessageContaining(inativo.getId().toString());
+    	verify(itemPedidoRepository, never()).saveAll(any());
+    	verify(pedidoService, never()).adicionarValorTotal(any(), any());
     }
 
     @Test
@@ -350,7 +637,7 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	ItemPedido itemPedido = new ItemPedido();
     	itemPedido.setId(UUID.randomUUID());
 
-    	when(pedidoService.buscarPorId(any()))
+    	when(pedidoService.buscarCabecalhoPorId(any()))
     		.thenReturn(Optional.empty());
 
     	assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
@@ -359,8 +646,19 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
 
     @Test
     public void testExcluirComSucesso() {
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+    	pedido.setFatorDesconto(new BigDecimal("0.00"));
+
+    	ItemVenda itemVenda = new ItemVenda();
+    	itemVenda.setTipo(TipoItemVenda.PRODUTO);
+    	itemVenda.setValorBase(new BigDecimal("12.34"));
+
     	ItemPedido itemPedido = new ItemPedido();
     	itemPedido.setId(UUID.randomUUID());
+    	itemPedido.setPedido(pedido);
+    	itemPedido.setItemVenda(itemVenda);
+    	itemPedido.calcularValor();
 
     	when(itemPedidoRepository.findById(any()))
     		.thenReturn(Optional.of(itemPedido));
@@ -369,6 +667,29 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
     	assertThatCode( () -> service.excluir(itemPedido.getId()) )
     		.doesNotThrowAnyException();
     	verify(itemPedidoRepository).delete(itemPedido);
+    	verify(pedidoService).adicionarValorTotal(pedido, new BigDecimal("-12.34"));
+    	verify(eventoPedidoService).registrar(TipoEventoPedido.ITENS_EXCLUIDOS, pedido, Collections.singletonList(itemPedido));
+    }
+
+    @Test
+    public void testExcluirPedidoFechado() {
+    	Pedido pedido = new Pedido();
+    	pedido.setId(UUID.randomUUID());
+    	pedido.setSituacao(SituacaoPedido.FECHADO);
+
+    	ItemPedido itemPedido = new ItemPedido();
+    	itemPedido.setId(UUID.randomUUID());
+    	itemPedido.setPedido(pedido);
+
+    	when(itemPedidoRepository.findById(any()))
+    		.thenReturn(Optional.of(itemPedido));
+
+    	assertThatExceptionOfType(OperacaoInvalidaException.class)
+    		.isThrownBy(() -> service.excluir(itemPedido.getId()) )
+    		.withMessageContaining("fechado");
+    	verify(itemPedidoRepository, never()).delete(any());
+    	verify(pedidoService, never()).adicionarValorTotal(any(), any());
+    	verify(eventoPedidoService, never()).registrar(any(), any(), anyList());
     }
 
     @Test
@@ -437,4 +758,18 @@ public class ItemPedidoServiceImplTest implements ParameterAsAnswer {
 			.containsExactly(itemPedido);
     }
 
+    @Test
+    public void testTotalizarPorPedido() {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+
+		TotaisPedido totais = new TotaisPedido(3L, new BigDecimal("30.00"));
+
+		when(itemPedidoRepository.totalizarPorPedido(pedido))
+			.thenReturn(totais);
+
+		assertThat(service.totalizarPorPedido(pedido))
+			.isEqualTo(totais);
+    }
+
 }
@@ -8,12 +8,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
@@ -26,18 +32,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import com.querydsl.core.types.Predicate;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
+import br.org.casa.pedidosimples.model.EstatisticasCache;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
 import br.org.casa.pedidosimples.repository.ItemVendaRepository;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
 import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
 
 /**
  * Classe de testes para {@link ItemVendaServiceImpl}.
@@ -51,15 +67,27 @@ public class ItemVendaServiceImplTest implements ParameterAsAnswer {
 	@Autowired
 	private ItemVendaService service;
 
+	// Sem banco de dados nestes testes: as operações executadas pelo ExecutorTransacional rodam sem transação real
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
 	@MockBean
 	private ItemVendaRepository itemVendaRepository;
 
 	@MockBean
 	private ItemPedidoService itemPedidoService;
 
+	@MockBean
+	private RecalculoPrecoService recalculoPrecoService;
+
 	@TestConfiguration
 	static class ItemVendaServiceImplTestContextConfiguration {
 
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
 		@Bean
 		public ItemVendaService itemVendaService() {
 			return new ItemVendaServiceImpl();
@@ -74,12 +102,100 @@ public class ItemVendaServiceImplTest implements ParameterAsAnswer {
 		when(itemVendaRepository.findAll(any(Predicate.class), any(Pageable.class)))
 			.thenReturn(page);
 
-		Page<ItemVenda> pageRetornado = service.buscarTodos(pageable, Collections.emptyMap());
+		Slice<ItemVenda> pageRetornado = service.buscarTodos(pageable, Collections.emptyMap(), ModoContagem.EXATA);
 
 		assertThat(pageRetornado)
 			.isEqualTo(page);
 	}
 
+	@Test
+	public void testBuscarTodosSemContagem() {
+		Slice<ItemVenda> fatia = new SliceImpl<ItemVenda>(Collections.emptyList());
+		Pageable pageable = mock(Pageable.class);
+
+		when(itemVendaRepository.buscarFatia(any(), any()))
+			.thenReturn(fatia);
+
+		assertThat(service.buscarTodos(pageable, Collections.emptyMap(), ModoContagem.NENHUMA))
+			.isEqualTo(fatia);
+		verify(itemVendaRepository, never()).findAll(any(Predicate.class), any(Pageable.class));
+	}
+
+	@Test
+	public void testBuscarTodosComContagemAproximada() {
+		when(itemVendaRepository.estimarTotal())
+			.thenReturn(Optional.of(500L));
+		when(itemVendaRepository.buscarFatia(any(), any()))
+			.thenReturn(new SliceImpl<ItemVenda>(Arrays.asList(new ItemVenda()), PageRequest.of(0, 1), true));
+
+		Slice<ItemVenda> resultado = service.buscarTodos(PageRequest.of(0, 1), Collections.emptyMap(),
+				ModoContagem.APROXIMADA);
+
+		assertThat(resultado)
+			.isInstanceOf(Page.class);
+		assertThat(((Page<ItemVenda>) resultado).getTotalElements())
+			.isEqualTo(500L);
+		verify(itemVendaRepository, never()).findAll(any(Predicate.class), any(Pageable.class));
+	}
+
+	@Test
+	public void testBuscarTodosComContagemAproximadaComFiltro() {
+		Page<ItemVenda> page = new PageImpl<ItemVenda>(Collections.emptyList());
+
+		when(itemVendaRepository.findAll(any(Predicate.class), any(Pageable.class)))
+			.thenReturn(page);
+
+		assertThat(service.buscarTodos(PageRequest.of(0, 1), Collections.singletonMap("tipo", "P"),
+				ModoContagem.APROXIMADA))
+			.isEqualTo(page);
+		verify(itemVendaRepository, never()).estimarTotal();
+	}
+
+	@Test
+	public void testBuscarPorIds() {
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+
+		when(itemVendaRepository.findAllById(Arrays.asList(itemVenda.getId())))
+			.thenReturn(Arrays.asList(itemVenda));
+
+		assertThat(service.buscarPorIds(Arrays.asList(itemVenda.getId())))
+			.containsExactly(itemVenda);
+	}
+
+	@Test
+	public void testBuscarTodosPorCursor() {
+		ItemVenda primeiro = new ItemVenda();
+		primeiro.setId(UUID.randomUUID());
+		ItemVenda excedente = new ItemVenda();
+		excedente.setId(UUID.randomUUID());
+
+		when(itemVendaRepository.buscarPorCursor(any(), eq(Optional.empty()), eq(2)))
+			.thenReturn(Arrays.asList(primeiro, excedente));
+		when(itemVendaRepository.buscarPorCursor(any(), eq(Optional.of(primeiro.getId())), eq(2)))
+			.thenReturn(Arrays.asList(excedente));
+
+		PaginaCursor<ItemVenda> pagina = service.buscarTodosPorCursor("", 1, Collections.emptyMap());
+
+		assertThat(pagina.getConteudo())
+			.containsExactly(primeiro);
+		assertThat(service.buscarTodosPorCursor(pagina.getProximoCursor(), 1, Collections.emptyMap()))
+			.satisfies(p -> {
+				assertThat(p.getConteudo())
+					.containsExactly(excedente);
+				assertThat(p.getProximoCursor())
+					.isNull();
+			});
+	}
+
+	@Test
+	public void testBuscarTodosPorCursorInvalido() {
+		String cursorSemUuid = Base64.getUrlEncoder().encodeToString("00000001".getBytes(StandardCharsets.UTF_8));
+
+		assertThatExceptionOfType(ParametroBuscaParseException.class)
+			.isThrownBy(() -> service.buscarTodosPorCursor(cursorSemUuid, 1, Collections.emptyMap()));
+	}
+
 	@Test
 	public void testBuscarPorId() {
 		ItemVenda itemVenda = new ItemVenda();
@@ -110,7 +226,7 @@ public class ItemVendaServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.empty());
 
 		assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
-			.isThrownBy(() -> service.alterar(UUID.randomUUID(), new ItemVenda()));
+			.isThrownBy(() -> service.alterar(UUID.randomUUID(), new ItemVenda(), Optional.empty()));
 	}
 
 	@Test
@@ -125,7 +241,7 @@ public class ItemVendaServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.of(existente));
 
 		assertThatExceptionOfType(OperacaoInvalidaException.class)
-			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar))
+			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar, Optional.empty()))
 			.withMessageContaining("Não é possível alterar o tipo");
 	}
 
@@ -146,7 +262,7 @@ public class ItemVendaServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(1345L);
 
 		assertThatExceptionOfType(OperacaoInvalidaException.class)
-			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar))
+			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar, Optional.empty()))
 			.withMessageContaining("Não é possível desativar")
 			.withMessageContaining("1345");
 	}
@@ -168,12 +284,43 @@ public class ItemVendaServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.of(existente));
 		when(itemVendaRepository.save(any()))
 			.thenAnswer(this.<ItemVenda>getParameterAsAnswer());
-		doNothing().when(itemPedidoService).atualizarValores(existente);
 
-		ItemVenda retornado = service.alterar(aAlterar.getId(), aAlterar);
+		ItemVenda retornado = service.alterar(aAlterar.getId(), aAlterar, Optional.empty());
 
 		assertThat(retornado.getValorBase())
 			.isEqualTo(aAlterar.getValorBase());
+		verify(itemVendaRepository).removerDoCache(aAlterar.getId());
+		// O recálculo dos itens de Pedido é apenas agendado, e não executado na alteração
+		verify(recalculoPrecoService).agendar(existente);
+		verify(itemPedidoService, never()).atualizarValores(any(ItemVenda.class));
+	}
+
+	@Test
+	public void testAlterarRepeteAposConflito() {
+		ItemVenda aAlterar = new ItemVenda();
+		aAlterar.setId(UUID.randomUUID());
+		aAlterar.setNome("Produto alterado");
+		aAlterar.setTipo(TipoItemVenda.PRODUTO);
+		aAlterar.setAtivo(true);
+		aAlterar.setValorBase(new BigDecimal("1.00"));
+
+		ItemVenda existente = new ItemVenda();
+		existente.setTipo(TipoItemVenda.PRODUTO);
+		existente.setAtivo(true);
+		existente.setValorBase(new BigDecimal("1.00"));
+
+		when(itemVendaRepository.findById(any()))
+			.thenReturn(Optional.of(existente));
+		when(itemVendaRepository.save(any()))
+			.thenThrow(new ObjectOptimisticLockingFailureException(ItemVenda.class, aAlterar.getId()))
+			.thenAnswer(this.<ItemVenda>getParameterAsAnswer());
+
+		ItemVenda retornado = service.alterar(aAlterar.getId(), aAlterar, Optional.empty());
+
+		assertThat(retornado.getNome())
+			.isEqualTo("Produto alterado");
+		verify(itemVendaRepository, times(2)).findById(aAlterar.getId());
+		verify(recalculoPrecoService, never()).agendar(any());
 	}
 
 	@Test
@@ -220,6 +367,32 @@ public class ItemVendaServiceImplTest implements ParameterAsAnswer {
 		assertThatCode( () -> service.excluir(existente.getId()))
 			.doesNotThrowAnyException();
 		verify(itemVendaRepository).delete(existente);
+		verify(itemVendaRepository).removerDoCache(existente.getId());
+	}
+
+	@Test
+	public void testExcluirOperacaoInvalidaMantemCache() {
+		ItemVenda existente = new ItemVenda();
+		existente.setId(UUID.randomUUID());
+
+		when(itemVendaRepository.findById(any()))
+			.thenReturn(Optional.of(existente));
+		when(itemPedidoService.contarPorItemVenda(any()))
+			.thenReturn(1L);
+
+		assertThatExceptionOfType(OperacaoInvalidaException.class)
+			.isThrownBy(() -> service.excluir(existente.getId()));
+		verify(itemVendaRepository, never()).removerDoCache(any());
+	}
+
+	@Test
+	public void testBuscarEstatisticasCache() {
+		EstatisticasCache estatisticas = new EstatisticasCache(10L, 2L, 2L, 5L, 1L);
+
+		when(itemVendaRepository.buscarEstatisticasCache())
+			.thenReturn(estatisticas);
 
+		assertThat(service.buscarEstatisticasCache())
+			.isSameAs(estatisticas);
 	}
 }
@@ -0,0 +1,184 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import br.org.casa.pedidosimples.model.ItemPedido;
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+
+/**
+ * Classe de testes para o envio em lotes JDBC dos inserts e updates de {@link ItemPedido} feitos por
+ * {@link ItemPedidoServiceImpl}. Os statements preparados e as idas ao banco são registrados pelo
+ * {@link ContadorStatementInspector}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "br.org.casa.pedidosimples.service.impl.ContadorStatementInspector",
+		"spring.jpa.properties.hibernate.session.events.auto="
+				+ "br.org.casa.pedidosimples.service.impl.ContadorStatementInspector"
+	})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@ActiveProfiles("test")
+public class LotesJdbcItemPedidoTest {
+
+	private static final int TOTAL_ITENS_VENDA = 50;
+
+	private static final int TOTAL_ITENS_PEDIDO = ItemPedidoServiceImpl.TAMANHO_MAXIMO_LOTE;
+
+	private static final int TAMANHO_LOTE = 50;
+
+	@Autowired
+	private ItemPedidoService service;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private List<UUID> idsItensVenda;
+
+	private UUID idPedido;
+
+	@TestConfiguration
+	static class LotesJdbcItemPedidoTestContextConfiguration {
+
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
+		@Bean
+		public RecalculoPrecoService recalculoPrecoService() {
+			return new RecalculoPrecoServiceImpl();
+		}
+
+		@Bean
+		public EventoPedidoService eventoPedidoService() {
+			return new EventoPedidoServiceImpl();
+		}
+
+		@Bean
+		public DestinoEventoPedido destinoEventoPedido() {
+			return new DestinoEventoPedidoMemoria();
+		}
+
+		@Bean
+		public ItemPedidoService itemPedidoService() {
+			return new ItemPedidoServiceImpl();
+		}
+
+		@Bean
+		public PedidoService pedidoService() {
+			return new PedidoServiceImpl();
+		}
+
+		@Bean
+		public ItemVendaService itemVendaService() {
+			return new ItemVendaServiceImpl();
+		}
+	}
+
+	@Before
+	public void setup() {
+		idsItensVenda = new ArrayList<>();
+		List<Object[]> itensVenda = new ArrayList<>();
+		for (int i = 0; i < TOTAL_ITENS_VENDA; i++) {
+			UUID id = UUID.randomUUID();
+			idsItensVenda.add(id);
+			itensVenda.add(new Object[] { id, "Item-venda-" + i });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, ?, 'P', 10.00, TRUE)", itensVenda);
+
+		idPedido = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.pedido (id_pedido, codigo, fator_desconto, situacao) "
+				+ "VALUES (?, '00000001', 0.10, 'A')", idPedido);
+	}
+
+	@Test
+	public void testRecalculoEnviaUpdatesEmLotes() {
+		List<Object[]> itensPedido = new ArrayList<>();
+		for (int i = 0; i < TOTAL_ITENS_PEDIDO; i++) {
+			itensPedido.add(new Object[] { UUID.randomUUID(), idPedido, idsItensVenda.get(i % TOTAL_ITENS_VENDA) });
+		}
+		// Valor anterior à aplicação do desconto, de modo que todos os itens sejam alterados no recálculo
+		jdbcTemplate.batchUpdate("INSERT INTO pedido_simples.item_pedido (id_item_pedido, pedido_id, item_venda_id, valor) "
+				+ "VALUES (?, ?, ?, 10.00)", itensPedido);
+
+		ContadorStatementInspector.limpar();
+
+		Pedido pedido = new Pedido();
+		pedido.setId(idPedido);
+		service.atualizarValores(pedido);
+		entityManager.flush();
+
+		assertThat(ContadorStatementInspector.preparado("update pedido_simples.item_pedido"))
+			.isTrue();
+		assertThat(ContadorStatementInspector.lotesExecutados())
+			.isEqualTo(TOTAL_ITENS_PEDIDO / TAMANHO_LOTE);
+		assertThat(ContadorStatementInspector.idasAoBanco())
+			.isLessThanOrEqualTo(TOTAL_ITENS_PEDIDO / TAMANHO_LOTE + 5);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.item_pedido WHERE valor = 9.00", Long.class))
+			.isEqualTo(TOTAL_ITENS_PEDIDO);
+		assertThat(jdbcTemplate.queryForObject("SELECT valor_total FROM pedido_simples.pedido WHERE id_pedido = ?", BigDecimal.class, idPedido))
+			.isEqualTo(new BigDecimal("9000.00"));
+	}
+
+	@Test
+	public void testInclusaoEnviaInsertsEmLotes() {
+		List<ItemVenda> itensVenda = new ArrayList<>();
+		for (int i = 0; i < TOTAL_ITENS_PEDIDO; i++) {
+			ItemVenda itemVenda = new ItemVenda();
+			itemVenda.setId(idsItensVenda.get(i % TOTAL_ITENS_VENDA));
+			itensVenda.add(itemVenda);
+		}
+
+		ContadorStatementInspector.limpar();
+
+		service.incluir(idPedido, itensVenda);
+		entityManager.flush();
+
+		assertThat(ContadorStatementInspector.preparado("insert into pedido_simples.item_pedido"))
+			.isTrue();
+		// Além dos lotes de itens, é gravado um único evento para toda a inclusão (com a obtenção do seu id)
+		assertThat(ContadorStatementInspector.lotesExecutados())
+			.isEqualTo(TOTAL_ITENS_PEDIDO / TAMANHO_LOTE + 1);
+		assertThat(ContadorStatementInspector.idasAoBanco())
+			.isLessThanOrEqualTo(TOTAL_ITENS_PEDIDO / TAMANHO_LOTE + 2 + 5);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.item_pedido WHERE pedido_id = ?", Long.class, idPedido))
+			.isEqualTo(TOTAL_ITENS_PEDIDO);
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import br.org.casa.pedidosimples.model.NotificacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+import br.org.casa.pedidosimples.service.PedidoService;
+
+/**
+ * Classe de testes para {@link NotificacaoPedidoServiceImpl}. Os clientes são simulados por emitters que
+ * registram as notificações enviadas e que podem ter o envio bloqueado, como um cliente lento. O contexto
+ * é recriado a cada teste, descartando as inscrições anteriores.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DirtiesContext(classMode = ClassMode.AFTER_EACH_TEST_METHOD)
+@TestPropertySource(properties = "pedido-simples.notificacao-pedido.tamanho-buffer=" + NotificacaoPedidoServiceImplTest.TAMANHO_BUFFER)
+public class NotificacaoPedidoServiceImplTest {
+
+	static final int TAMANHO_BUFFER = 3;
+
+	@Autowired
+	private NotificacaoPedidoServiceImpl service;
+
+	@MockBean
+	private PedidoService pedidoService;
+
+	@TestConfiguration
+	static class NotificacaoPedidoServiceImplTestContextConfiguration {
+
+		@Bean
+		public NotificacaoPedidoServiceImpl notificacaoPedidoService() {
+			return new NotificacaoPedidoServiceImpl() {
+				@Override
+				SseEmitter criarEmitter(long tempoLimite) {
+					return new EmitterCliente();
+				}
+			};
+		}
+	}
+
+	@Test
+	public void testNotificarEnviaATodosOsInscritos() {
+		EmitterCliente cliente1 = inscrever();
+		EmitterCliente cliente2 = inscrever();
+		NotificacaoPedido notificacao = notificacao(UUID.randomUUID(), TipoEventoPedido.DESCONTO_APLICADO, "9.00");
+
+		service.notificar(notificacao);
+
+		aguardar(() -> cliente1.getRecebidas().size() == 1 && cliente2.getRecebidas().size() == 1);
+		assertThat(cliente1.getRecebidas())
+			.containsExactly(notificacao);
+		assertThat(cliente2.getRecebidas())
+			.containsExactly(notificacao);
+		verify(pedidoService, never()).buscarValorTotal(any());
+	}
+
+	@Test
+	public void testNotificarSemValorTotalConsultaUmaVez() {
+		EmitterCliente cliente1 = inscrever();
+		EmitterCliente cliente2 = inscrever();
+		UUID id = UUID.randomUUID();
+		when(pedidoService.buscarValorTotal(id))
+			.thenReturn(Optional.of(new BigDecimal("30.00")));
+
+		service.notificar(new NotificacaoPedido(id, TipoEventoPedido.ITENS_INCLUIDOS, SituacaoPedido.ABERTO, null));
+
+		aguardar(() -> cliente1.getRecebidas().size() == 1 && cliente2.getRecebidas().size() == 1);
+		assertThat(cliente1.getRecebidas().get(0).getValorTotal())
+			.isEqualByComparingTo("30.00");
+		verify(pedidoService, times(1)).buscarValorTotal(id);
+	}
+
+	@Test
+	public void testNotificarSemInscritosNaoConsultaValorTotal() {
+		service.notificar(new NotificacaoPedido(UUID.randomUUID(), TipoEventoPedido.ITENS_INCLUIDOS,
+				SituacaoPedido.ABERTO, null));
+
+		verify(pedidoService, never()).buscarValorTotal(any());
+	}
+
+	@Test
+	public void testNotificacoesPendentesDoMesmoPedidoSaoSubstituidas() {
+		EmitterCliente cliente = inscrever();
+		cliente.bloquear();
+		UUID idPedido1 = UUID.randomUUID();
+		UUID idPedido2 = UUID.randomUUID();
+
+		service.notificar(notificacao(idPedido1, TipoEventoPedido.PEDIDO_INCLUIDO, "0.00"));
+		aguardar(cliente::isEnviando);
+		service.notificar(notificacao(idPedido1, TipoEventoPedido.ITENS_INCLUIDOS, "10.00"));
+		service.notificar(notificacao(idPedido2, TipoEventoPedido.PEDIDO_INCLUIDO, "0.00"));
+		service.notificar(notificacao(idPedido1, TipoEventoPedido.ITENS_INCLUIDOS, "20.00"));
+		cliente.liberar();
+
+		aguardar(() -> cliente.getRecebidas().size() == 3);
+		assertThat(cliente.getRecebidas().stream()
+				.map(n -> n.getId() + ":" + n.getValorTotal())
+				.collect(Collectors.toList()))
+			.containsExactly(idPedido1 + ":0.00", idPedido2 + ":0.00", idPedido1 + ":20.00");
+		assertThat(cliente.isConcluido())
+			.isFalse();
+	}
+
+	@Test
+	public void testClienteLentoEDesconectado() {
+		EmitterCliente lento = inscrever();
+		EmitterCliente normal = inscrever();
+		lento.bloquear();
+		int inscricoes = service.contarInscricoes();
+
+		// Uma notificação em envio, e as demais até exceder o buffer. O outro cliente acompanha cada notificação
+		service.notificar(notificacao(UUID.randomUUID(), TipoEventoPedido.PEDIDO_INCLUIDO, "0.00"));
+		aguardar(lento::isEnviando);
+		for (int i = 0; i <= TAMANHO_BUFFER; i++) {
+			service.notificar(notificacao(UUID.randomUUID(), TipoEventoPedido.PEDIDO_INCLUIDO, "0.00"));
+			int enviadas = i + 2;
+			aguardar(() -> normal.getRecebidas().size() == enviadas);
+		}
+
+		assertThat(lento.isConcluido())
+			.isTrue();
+		assertThat(service.contarInscricoes())
+			.isEqualTo(inscricoes - 1);
+		// Os demais clientes não são afetados
+		assertThat(normal.isConcluido())
+			.isFalse();
+		lento.liberar();
+	}
+
+	private EmitterCliente inscrever() {
+		return (EmitterCliente) service.inscrever();
+	}
+
+	private static NotificacaoPedido notificacao(UUID id, TipoEventoPedido tipo, String valorTotal) {
+		return new NotificacaoPedido(id, tipo, SituacaoPedido.ABERTO, new BigDecimal(valorTotal));
+	}
+
+	static void aguardar(BooleanSupplier condicao) {
+		long limite = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5L);
+		while (!condicao.getAsBoolean()) {
+			assertThat(System.currentTimeMillis())
+				.as("Tempo limite de espera excedido")
+				.isLessThan(limite);
+			try {
+				Thread.sleep(10L);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	/**
+	 * Emitter que registra as notificações enviadas, sem conexão real com um cliente.
+	 */
+	static class EmitterCliente extends SseEmitter {
+
+		private final List<NotificacaoPedido> recebidas = new CopyOnWriteArrayList<>();
+
+		private volatile CountDownLatch bloqueio = new CountDownLatch(0);
+
+		private volatile boolean enviando;
+
+		private volatile boolean concluido;
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			enviando = true;
+			try {
+				bloqueio.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			builder.build().stream()
+				.map(d -> d.getData())
+				.filter(NotificacaoPedido.class::isInstance)
+				.forEach(d -> recebidas.add((NotificacaoPedido) d));
+		}
+
+		@Override
+		public synchronized void complete() {
+			concluido = true;
+		}
+
+		void bloquear() {
+			bloqueio = new CountDownLatch(1);
+		}
+
+		void liberar() {
+			bloqueio.countDown();
+		}
+
+		List<NotificacaoPedido> getRecebidas() {
+			return recebidas;
+		}
+
+		boolean isEnviando() {
+			return enviando;
+		}
+
+		boolean isConcluido() {
+			return concluido;
+		}
+
+	}
+
+}
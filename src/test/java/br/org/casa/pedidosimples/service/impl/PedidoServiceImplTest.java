@@ -7,12 +7,16 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Optional;
@@ -20,27 +24,48 @@ import java.util.UUID;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.querydsl.core.types.Predicate;
 
 import br.org.casa.pedidosimples.exception.EntidadeNaoEncontradaException;
 import br.org.casa.pedidosimples.exception.OperacaoInvalidaException;
+import br.org.casa.pedidosimples.exception.ParametroBuscaParseException;
+import br.org.casa.pedidosimples.exception.VersaoDivergenteException;
+import br.org.casa.pedidosimples.model.CabecalhoPedido;
+import br.org.casa.pedidosimples.model.DivergenciaValorTotal;
 import br.org.casa.pedidosimples.model.ItemPedido;
 import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.PaginaCursor;
 import br.org.casa.pedidosimples.model.Pedido;
+import br.org.casa.pedidosimples.model.SnapshotPedido;
+import br.org.casa.pedidosimples.model.TotaisPedido;
+import br.org.casa.pedidosimples.model.enumeration.ModoContagem;
 import br.org.casa.pedidosimples.model.enumeration.SituacaoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
 import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
 import br.org.casa.pedidosimples.repository.PedidoRepository;
+import br.org.casa.pedidosimples.repository.SnapshotPedidoRepository;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
 import br.org.casa.pedidosimples.service.ItemPedidoService;
 import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
 
 /**
  * Classe de testes para {@link PedidoServiceImpl}.
@@ -53,19 +78,45 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 	@Autowired
 	private PedidoService service;
 
+	// Sem banco de dados nestes testes: as operações executadas pelo ExecutorTransacional rodam sem transação real
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+
+	@MockBean
+	private EventoPedidoService eventoPedidoService;
+
 	@MockBean
 	private PedidoRepository pedidoRepository;
 
 	@MockBean
 	private ItemPedidoService itemPedidoService;
 
+	@MockBean
+	private RecalculoPrecoService recalculoPrecoService;
+
+	@MockBean
+	private SnapshotPedidoRepository snapshotPedidoRepository;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
 	@TestConfiguration
 	static class PedidoServiceImplTestContextConfiguration {
 
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
 		@Bean
 		public PedidoService pedidoService() {
 			return new PedidoServiceImpl();
 		}
+
+		@Bean
+		public ObjectMapper objectMapper() {
+			return Jackson2ObjectMapperBuilder.json().build();
+		}
 	}
 
 	@Test
@@ -76,40 +127,178 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 		when(pedidoRepository.findAll(any(Predicate.class), any(Pageable.class)))
 			.thenReturn(page);
 
-		Page<Pedido> pageRetornado = service.buscarTodos(pageable, Collections.emptyMap());
+		Slice<Pedido> pageRetornado = service.buscarTodos(pageable, Collections.emptyMap(), false, ModoContagem.EXATA);
 
 		assertThat(pageRetornado)
 			.isEqualTo(page);
+		verify(itemPedidoService, never()).totalizarPorPedidos(any());
 	}
 
 	@Test
-	public void testBuscarPorId() {
+	public void testBuscarTodosSemContagem() {
+		Slice<Pedido> fatia = new SliceImpl<Pedido>(Collections.emptyList());
+		Pageable pageable = mock(Pageable.class);
+
+		when(pedidoRepository.buscarFatia(any(), any()))
+			.thenReturn(fatia);
+
+		assertThat(service.buscarTodos(pageable, Collections.emptyMap(), false, ModoContagem.NENHUMA))
+			.isEqualTo(fatia);
+		verify(pedidoRepository, never()).findAll(any(Predicate.class), any(Pageable.class));
+	}
+
+	@Test
+	public void testBuscarTodosComContagemAproximada() {
+		Pedido pedido = new Pedido();
+
+		when(pedidoRepository.estimarTotal())
+			.thenReturn(Optional.of(1000L));
+		when(pedidoRepository.buscarFatia(any(), any()))
+			.thenReturn(new SliceImpl<Pedido>(Arrays.asList(pedido), PageRequest.of(0, 1), true));
+
+		Slice<Pedido> resultado = service.buscarTodos(PageRequest.of(0, 1), Collections.emptyMap(), false,
+				ModoContagem.APROXIMADA);
+
+		assertThat(resultado)
+			.isInstanceOf(Page.class);
+		assertThat(resultado.getContent())
+			.containsExactly(pedido);
+		assertThat(((Page<Pedido>) resultado).getTotalElements())
+			.isEqualTo(1000L);
+		verify(pedidoRepository, never()).findAll(any(Predicate.class), any(Pageable.class));
+	}
+
+	@Test
+	public void testBuscarTodosComContagemAproximadaUltimaPagina() {
+		when(pedidoRepository.estimarTotal())
+			.thenReturn(Optional.of(1000L));
+		when(pedidoRepository.buscarFatia(any(), any()))
+			.thenReturn(new SliceImpl<Pedido>(Arrays.asList(new Pedido()), PageRequest.of(3, 2), false));
+
+		Slice<Pedido> resultado = service.buscarTodos(PageRequest.of(3, 2), Collections.emptyMap(), false,
+				ModoContagem.APROXIMADA);
+
+		assertThat(resultado)
+			.isInstanceOf(Page.class);
+		assertThat(((Page<Pedido>) resultado).getTotalElements())
+			.isEqualTo(7L);
+	}
+
+	@Test
+	public void testBuscarTodosComContagemAproximadaComFiltro() {
+		Page<Pedido> page = new PageImpl<Pedido>(Collections.emptyList());
+
+		when(pedidoRepository.findAll(any(Predicate.class), any(Pageable.class)))
+			.thenReturn(page);
+
+		assertThat(service.buscarTodos(PageRequest.of(0, 1), Collections.singletonMap("situacao", "A"), false,
+				ModoContagem.APROXIMADA))
+			.isEqualTo(page);
+		verify(pedidoRepository, never()).estimarTotal();
+	}
+
+	@Test
+	public void testBuscarTodosComContagemAproximadaSemEstimativa() {
+		Page<Pedido> page = new PageImpl<Pedido>(Collections.emptyList());
+
+		when(pedidoRepository.estimarTotal())
+			.thenReturn(Optional.empty());
+		when(pedidoRepository.findAll(any(Predicate.class), any(Pageable.class)))
+			.thenReturn(page);
+
+		assertThat(service.buscarTodos(PageRequest.of(0, 1), Collections.emptyMap(), false, ModoContagem.APROXIMADA))
+			.isEqualTo(page);
+	}
+
+	@Test
+	public void testBuscarTodosComTotais() {
 		Pedido pedido = new Pedido();
 		pedido.setId(UUID.randomUUID());
-		pedido.setFatorDesconto(new BigDecimal("0.00"));
+		Pedido pedidoSemItens = new Pedido();
+		pedidoSemItens.setId(UUID.randomUUID());
+		pedidoSemItens.setValorTotal(new BigDecimal("5.00"));
 
-		ItemVenda itemVenda1 = new ItemVenda();
-		itemVenda1.setTipo(TipoItemVenda.PRODUTO);
-		itemVenda1.setValorBase(new BigDecimal("5.00"));
+		Page<Pedido> page = new PageImpl<Pedido>(Arrays.asList(pedido, pedidoSemItens));
+		Pageable pageable = mock(Pageable.class);
 
-		ItemPedido itemPedido1 = new ItemPedido();
-		itemPedido1.setPedido(pedido);
-		itemPedido1.setItemVenda(itemVenda1);
-		itemPedido1.calcularValor();
+		when(pedidoRepository.findAll(any(Predicate.class), any(Pageable.class)))
+			.thenReturn(page);
+		when(itemPedidoService.totalizarPorPedidos(page.getContent()))
+			.thenReturn(Collections.singletonMap(pedido.getId(), new TotaisPedido(3L, new BigDecimal("30.00"))));
+
+		assertThat(service.buscarTodos(pageable, Collections.emptyMap(), true, ModoContagem.EXATA))
+			.containsExactly(pedido, pedidoSemItens);
+		assertThat(pedido.getValorTotal())
+			.isEqualTo(new BigDecimal("30.00"));
+		assertThat(pedido.getQuantidadeItens())
+			.isEqualTo(3L);
+		assertThat(pedidoSemItens.getValorTotal())
+			.isEqualTo(new BigDecimal("0.00"));
+		assertThat(pedidoSemItens.getQuantidadeItens())
+			.isEqualTo(0L);
+	}
 
-		ItemVenda itemVenda2 = new ItemVenda();
-		itemVenda2.setTipo(TipoItemVenda.SERVICO);
-		itemVenda2.setValorBase(new BigDecimal("15.00"));
+	@Test
+	public void testBuscarTodosComTotaisPaginaVazia() {
+		Pageable pageable = mock(Pageable.class);
+
+		when(pedidoRepository.findAll(any(Predicate.class), any(Pageable.class)))
+			.thenReturn(new PageImpl<Pedido>(Collections.emptyList()));
 
-		ItemPedido itemPedido2 = new ItemPedido();
-		itemPedido2.setPedido(pedido);
-		itemPedido2.setItemVenda(itemVenda2);
-		itemPedido2.calcularValor();
+		assertThat(service.buscarTodos(pageable, Collections.emptyMap(), true, ModoContagem.EXATA))
+			.isEmpty();
+		verify(itemPedidoService, never()).totalizarPorPedidos(any());
+	}
+
+	@Test
+	public void testBuscarTodosPorCursor() {
+		Pedido primeiro = new Pedido();
+		primeiro.setCodigo("00000001");
+		Pedido segundo = new Pedido();
+		segundo.setCodigo("00000002");
+		Pedido excedente = new Pedido();
+		excedente.setCodigo("00000003");
+
+		when(pedidoRepository.buscarPorCursor(any(), eq(Optional.empty()), eq(3)))
+			.thenReturn(Arrays.asList(primeiro, segundo, excedente));
+		when(pedidoRepository.buscarPorCursor(any(), eq(Optional.of("00000002")), eq(3)))
+			.thenReturn(Arrays.asList(excedente));
+
+		PaginaCursor<Pedido> pagina = service.buscarTodosPorCursor(null, 2, Collections.emptyMap());
+
+		assertThat(pagina.getConteudo())
+			.containsExactly(primeiro, segundo);
+		assertThat(pagina.getTamanho())
+			.isEqualTo(2);
+		assertThat(pagina.getProximoCursor())
+			.isNotNull();
+
+		PaginaCursor<Pedido> ultimaPagina = service.buscarTodosPorCursor(pagina.getProximoCursor(), 2,
+				Collections.emptyMap());
+
+		assertThat(ultimaPagina.getConteudo())
+			.containsExactly(excedente);
+		assertThat(ultimaPagina.getProximoCursor())
+			.isNull();
+		verify(pedidoRepository, never()).count(any(Predicate.class));
+	}
+
+	@Test
+	public void testBuscarTodosPorCursorInvalido() {
+		assertThatExceptionOfType(ParametroBuscaParseException.class)
+			.isThrownBy(() -> service.buscarTodosPorCursor("cursor*invalido", 2, Collections.emptyMap()));
+	}
+
+	@Test
+	public void testBuscarPorId() {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setFatorDesconto(new BigDecimal("0.00"));
 
 		when(pedidoRepository.findById(any()))
 			.thenReturn(Optional.of(pedido));
-		when(itemPedidoService.buscarPorPedido(pedido))
-			.thenReturn(Arrays.asList(itemPedido1, itemPedido2));
+		when(itemPedidoService.totalizarPorPedido(pedido))
+			.thenReturn(new TotaisPedido(2L, new BigDecimal("20.00")));
 
 		assertThat(service.buscarPorId(UUID.randomUUID()))
 			.contains(pedido)
@@ -117,7 +306,64 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 			.satisfies(p -> {
 				assertThat(p.getValorTotal())
 					.isEqualTo(new BigDecimal("20.00"));
+				assertThat(p.getQuantidadeItens())
+					.isEqualTo(2L);
+			});
+		verify(itemPedidoService, never()).buscarPorPedido(any());
+	}
+
+	@Test
+	public void testBuscarCabecalhoPorId() {
+		CabecalhoPedido cabecalho = new CabecalhoPedido(UUID.randomUUID(), "00000001", new BigDecimal("0.10"),
+				SituacaoPedido.ABERTO, 2L);
+
+		when(pedidoRepository.buscarCabecalho(cabecalho.getId()))
+			.thenReturn(Optional.of(cabecalho));
+
+		assertThat(service.buscarCabecalhoPorId(cabecalho.getId()))
+			.hasValueSatisfying(p -> {
+				assertThat(p.getId())
+					.isEqualTo(cabecalho.getId());
+				assertThat(p.getCodigo())
+					.isEqualTo("00000001");
+				assertThat(p.getFatorDesconto())
+					.isEqualTo(new BigDecimal("0.10"));
+				assertThat(p.getSituacao())
+					.isEqualTo(SituacaoPedido.ABERTO);
+				assertThat(p.getVersao())
+					.isEqualTo(2L);
+				assertThat(p.getValorTotal())
+					.isNull();
+				assertThat(p.getQuantidadeItens())
+					.isNull();
 			});
+		verify(pedidoRepository, never()).findById(any());
+		verify(itemPedidoService, never()).totalizarPorPedido(any());
+	}
+
+	@Test
+	public void testBuscarCabecalhoPorIdInexistente() {
+		when(pedidoRepository.buscarCabecalho(any()))
+			.thenReturn(Optional.empty());
+
+		assertThat(service.buscarCabecalhoPorId(UUID.randomUUID()))
+			.isEmpty();
+	}
+
+	@Test
+	public void testAdicionarValorTotalEmPedidoSemValorTotal() {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setValorTotal(null);
+
+		when(pedidoRepository.adicionarValorTotal(pedido, new BigDecimal("10.00")))
+			.thenReturn(1L);
+
+		assertThatCode(() -> service.adicionarValorTotal(pedido, new BigDecimal("10.00")))
+			.doesNotThrowAnyException();
+		verify(pedidoRepository).adicionarValorTotal(pedido, new BigDecimal("10.00"));
+		assertThat(pedido.getValorTotal())
+			.isNull();
 	}
 
 	@Test
@@ -131,6 +377,7 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 
 		assertThat(service.incluir(pedidoAIncluir))
 			.isEqualTo(pedidoIncluido);
+		verify(eventoPedidoService).registrar(TipoEventoPedido.PEDIDO_INCLUIDO, pedidoIncluido);
 	}
 
 	@Test
@@ -139,7 +386,7 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.empty());
 
 		assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
-			.isThrownBy(() -> service.alterar(UUID.randomUUID(), new Pedido()));
+			.isThrownBy(() -> service.alterar(UUID.randomUUID(), new Pedido(), Optional.empty()));
 	}
 
 	@Test
@@ -154,7 +401,7 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.of(existente));
 
 		assertThatExceptionOfType(OperacaoInvalidaException.class)
-			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar))
+			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar, Optional.empty()))
 			.withMessageContaining("Não é possível alterar diretamente o fator de desconto");
 	}
 
@@ -172,7 +419,7 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.of(existente));
 
 		assertThatExceptionOfType(OperacaoInvalidaException.class)
-			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar))
+			.isThrownBy(() -> service.alterar(aAlterar.getId(), aAlterar, Optional.empty()))
 			.withMessageContaining("Não é possível alterar diretamente a situação");
 	}
 
@@ -193,12 +440,104 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 		when(pedidoRepository.save(any()))
 			.thenAnswer(this.<Pedido>getParameterAsAnswer());
 
-		Pedido retornado = service.alterar(aAlterar.getId(), aAlterar);
+		Pedido retornado = service.alterar(aAlterar.getId(), aAlterar, Optional.empty());
 
 		assertThat(retornado.getCodigo())
 			.isEqualTo(aAlterar.getCodigo());
 	}
 
+	@Test
+	public void testAlterarComVersaoDivergente() {
+		Pedido aAlterar = new Pedido();
+		aAlterar.setFatorDesconto(new BigDecimal("1.00"));
+		aAlterar.setSituacao(SituacaoPedido.ABERTO);
+		aAlterar.setCodigo("00110022");
+
+		Pedido existente = new Pedido();
+		existente.setId(UUID.randomUUID());
+		existente.setFatorDesconto(new BigDecimal("1.00"));
+		existente.setSituacao(SituacaoPedido.ABERTO);
+		existente.setCodigo("00110011");
+		existente.setVersao(3L);
+
+		when(pedidoRepository.findById(existente.getId()))
+			.thenReturn(Optional.of(existente));
+
+		assertThatExceptionOfType(VersaoDivergenteException.class)
+			.isThrownBy(() -> service.alterar(existente.getId(), aAlterar, Optional.of(Collections.singleton(2L))))
+			.withMessageContaining("Versão atual: 3; versão informada: 2");
+		verify(pedidoRepository, never()).save(any());
+	}
+
+	@Test
+	public void testAlterarComVersaoEsperada() {
+		Pedido aAlterar = new Pedido();
+		aAlterar.setFatorDesconto(new BigDecimal("1.00"));
+		aAlterar.setSituacao(SituacaoPedido.ABERTO);
+		aAlterar.setCodigo("00110022");
+
+		Pedido existente = new Pedido();
+		existente.setId(UUID.randomUUID());
+		existente.setFatorDesconto(new BigDecimal("1.00"));
+		existente.setSituacao(SituacaoPedido.ABERTO);
+		existente.setCodigo("00110011");
+		existente.setVersao(3L);
+
+		when(pedidoRepository.findById(existente.getId()))
+			.thenReturn(Optional.of(existente));
+		when(pedidoRepository.save(any()))
+			.thenAnswer(this.<Pedido>getParameterAsAnswer());
+
+		assertThat(service.alterar(existente.getId(), aAlterar, Optional.of(Collections.singleton(3L))).getCodigo())
+			.isEqualTo("00110022");
+	}
+
+	@Test
+	public void testAlterarPedidoFechado() {
+		Pedido aAlterar = new Pedido();
+		aAlterar.setFatorDesconto(new BigDecimal("1.00"));
+		aAlterar.setSituacao(SituacaoPedido.FECHADO);
+		aAlterar.setCodigo("00110022");
+
+		Pedido existente = new Pedido();
+		existente.setId(UUID.randomUUID());
+		existente.setFatorDesconto(new BigDecimal("1.00"));
+		existente.setSituacao(SituacaoPedido.FECHADO);
+		existente.setCodigo("00110011");
+
+		when(pedidoRepository.findById(existente.getId()))
+			.thenReturn(Optional.of(existente));
+
+		assertThatExceptionOfType(OperacaoInvalidaException.class)
+			.isThrownBy(() -> service.alterar(existente.getId(), aAlterar, Optional.empty()))
+			.withMessageContaining("Não é possível alterar um Pedido fechado");
+		verify(pedidoRepository, never()).save(any());
+		verify(snapshotPedidoRepository, never()).delete(any());
+		verify(eventoPedidoService, never()).registrar(any(), any(Pedido.class));
+	}
+
+	@Test
+	public void testBuscarVersao() {
+		UUID uuid = UUID.randomUUID();
+
+		when(pedidoRepository.buscarVersao(uuid))
+			.thenReturn(Optional.of(5L));
+
+		assertThat(service.buscarVersao(uuid))
+			.contains(5L);
+	}
+
+	@Test
+	public void testBuscarValorTotal() {
+		UUID uuid = UUID.randomUUID();
+
+		when(pedidoRepository.buscarValorTotal(uuid))
+			.thenReturn(Optional.of(new BigDecimal("12.50")));
+
+		assertThat(service.buscarValorTotal(uuid))
+			.contains(new BigDecimal("12.50"));
+	}
+
 	@Test
 	public void testExcluirNaoEncontrado() {
 		when(pedidoRepository.findById(any()))
@@ -226,6 +565,7 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 		assertThatCode( () -> service.excluir(existente.getId()))
 			.doesNotThrowAnyException();
 		verify(pedidoRepository).delete(existente);
+		verify(eventoPedidoService).registrar(TipoEventoPedido.PEDIDO_EXCLUIDO, existente);
 	}
 
 	@Test
@@ -234,7 +574,7 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.empty());
 
 		assertThatExceptionOfType(EntidadeNaoEncontradaException.class)
-			.isThrownBy(() -> service.aplicarDesconto(UUID.randomUUID(), BigDecimal.ONE));
+			.isThrownBy(() -> service.aplicarDesconto(UUID.randomUUID(), BigDecimal.ONE, Optional.empty()));
 	}
 
 	@Test
@@ -249,7 +589,7 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 			.thenReturn(Optional.of(existente));
 
 		assertThatExceptionOfType(OperacaoInvalidaException.class)
-			.isThrownBy(() -> service.aplicarDesconto(existente.getId(), BigDecimal.ZERO))
+			.isThrownBy(() -> service.aplicarDesconto(existente.getId(), BigDecimal.ZERO, Optional.empty()))
 			.withMessageContaining("Não é possível alterar o fator de desconto");
 	}
 
@@ -266,13 +606,38 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 		when(pedidoRepository.findById(any()))
 			.thenReturn(Optional.of(existente));
 
+		when(pedidoRepository.incrementarVersao(existente))
+			.thenReturn(1L);
 		when(pedidoRepository.save(any())).thenAnswer(this.<Pedido>getParameterAsAnswer());
 		doNothing().when(itemPedidoService).atualizarValores(any(Pedido.class));
 
-		assertThatCode( () -> service.aplicarDesconto(existente.getId(), novoFatorDesconto))
+		assertThatCode( () -> service.aplicarDesconto(existente.getId(), novoFatorDesconto, Optional.empty()))
 			.doesNotThrowAnyException();
 		assertThat(existente.getFatorDesconto())
 			.isEqualTo(novoFatorDesconto);
+		verify(eventoPedidoService).registrar(TipoEventoPedido.DESCONTO_APLICADO, existente);
+	}
+
+	@Test
+	public void testAplicarDescontoPedidoAlteradoConcorrentemente() {
+		Pedido existente = new Pedido();
+		existente.setId(UUID.randomUUID());
+		existente.setFatorDesconto(new BigDecimal("1.00"));
+		existente.setSituacao(SituacaoPedido.ABERTO);
+		existente.setCodigo("00110011");
+
+		when(pedidoRepository.findById(any()))
+			.thenReturn(Optional.of(existente));
+		when(pedidoRepository.incrementarVersao(existente))
+			.thenReturn(0L);
+
+		assertThatExceptionOfType(ObjectOptimisticLockingFailureException.class)
+			.isThrownBy(() -> service.aplicarDesconto(existente.getId(), new BigDecimal("0.50"), Optional.empty()));
+		// Cada tentativa lê o Pedido novamente
+		verify(pedidoRepository, times(ExecutorTransacional.MAXIMO_TENTATIVAS)).findById(existente.getId());
+		verify(itemPedidoService, never()).atualizarValores(any(Pedido.class));
+		assertThat(existente.getFatorDesconto())
+			.isEqualTo(new BigDecimal("1.00"));
 	}
 
 	@Test
@@ -310,6 +675,8 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 
 		when(pedidoRepository.findById(any()))
 			.thenReturn(Optional.of(existente));
+		when(pedidoRepository.incrementarVersao(existente))
+			.thenReturn(1L);
 		when(itemPedidoService.contarPorPedidoEItemVendaInativo(any()))
 			.thenReturn(3L);
 
@@ -329,16 +696,214 @@ public class PedidoServiceImplTest implements ParameterAsAnswer {
 
 		when(pedidoRepository.findById(any()))
 			.thenReturn(Optional.of(existente));
+		when(pedidoRepository.incrementarVersao(existente))
+			.thenReturn(1L);
 		when(itemPedidoService.contarPorPedidoEItemVendaInativo(any()))
 			.thenReturn(0L);
 		doNothing().when(itemPedidoService).atualizarValores(any(Pedido.class));
-		when(pedidoRepository.save(any())).thenAnswer(this.<Pedido>getParameterAsAnswer());
+		when(pedidoRepository.saveAndFlush(any())).thenAnswer(this.<Pedido>getParameterAsAnswer());
 
 
 		assertThatCode( () -> service.fechar(existente.getId()))
 			.doesNotThrowAnyException();
 		assertThat(existente.getSituacao())
 			.isEqualTo(SituacaoPedido.FECHADO);
+		verify(recalculoPrecoService).concluirPorPedido(existente);
+		verify(eventoPedidoService).registrar(TipoEventoPedido.PEDIDO_FECHADO, existente);
+	}
+
+	@Test
+	public void testFecharRepeteAposConflito() {
+		Pedido existente = new Pedido();
+		existente.setId(UUID.randomUUID());
+		existente.setFatorDesconto(new BigDecimal("1.00"));
+		existente.setSituacao(SituacaoPedido.ABERTO);
+		existente.setCodigo("00110011");
+
+		when(pedidoRepository.findById(any()))
+			.thenReturn(Optional.of(existente));
+		when(pedidoRepository.incrementarVersao(existente))
+			.thenReturn(0L, 1L);
+		when(itemPedidoService.contarPorPedidoEItemVendaInativo(any()))
+			.thenReturn(0L);
+		when(pedidoRepository.saveAndFlush(any())).thenAnswer(this.<Pedido>getParameterAsAnswer());
+
+		assertThatCode( () -> service.fechar(existente.getId()))
+			.doesNotThrowAnyException();
+		verify(pedidoRepository, times(2)).findById(existente.getId());
+		verify(itemPedidoService).atualizarValores(existente);
+		assertThat(existente.getSituacao())
+			.isEqualTo(SituacaoPedido.FECHADO);
+	}
+
+	@Test
+	public void testFecharRegistraSnapshot() throws Exception {
+		Pedido existente = new Pedido();
+		existente.setId(UUID.randomUUID());
+		existente.setFatorDesconto(new BigDecimal("0.10"));
+		existente.setSituacao(SituacaoPedido.ABERTO);
+		existente.setCodigo("00110011");
+		existente.setVersao(4L);
+
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+		itemVenda.setNome("Produto-1");
+		itemVenda.setTipo(TipoItemVenda.PRODUTO);
+		itemVenda.setValorBase(new BigDecimal("20.00"));
+
+		ItemPedido itemPedido = new ItemPedido();
+		itemPedido.setId(UUID.randomUUID());
+		itemPedido.setPedido(existente);
+		itemPedido.setItemVenda(itemVenda);
+		itemPedido.calcularValor();
+
+		when(pedidoRepository.findById(existente.getId()))
+			.thenReturn(Optional.of(existente));
+		when(pedidoRepository.incrementarVersao(existente))
+			.thenReturn(1L);
+		when(itemPedidoService.contarPorPedidoEItemVendaInativo(any()))
+			.thenReturn(0L);
+		when(itemPedidoService.buscarPorPedido(existente))
+			.thenReturn(Collections.singletonList(itemPedido));
+		when(pedidoRepository.saveAndFlush(any())).thenAnswer(this.<Pedido>getParameterAsAnswer());
+
+		service.fechar(existente.getId());
+
+		ArgumentCaptor<SnapshotPedido> snapshot = ArgumentCaptor.forClass(SnapshotPedido.class);
+		verify(snapshotPedidoRepository).save(snapshot.capture());
+		assertThat(snapshot.getValue().getId())
+			.isEqualTo(existente.getId());
+		assertThat(snapshot.getValue().isNew())
+			.isTrue();
+		assertThat(snapshot.getValue().getVersao())
+			.isEqualTo(4L);
+
+		JsonNode conteudo = objectMapper.readTree(snapshot.getValue().getConteudo());
+		assertThat(conteudo.path("codigo").asText())
+			.isEqualTo("00110011");
+		assertThat(conteudo.path("situacao").asText())
+			.isEqualTo("F");
+		assertThat(conteudo.path("valorTotal").decimalValue())
+			.isEqualByComparingTo("18.00");
+		assertThat(conteudo.path("quantidadeItens").asLong())
+			.isEqualTo(1L);
+		assertThat(conteudo.path("dataFechamento").asText())
+			.isEqualTo(snapshot.getValue().getDataFechamento().toString());
+		assertThat(conteudo.path("itens").get(0).path("nome").asText())
+			.isEqualTo("Produto-1");
+		assertThat(conteudo.path("itens").get(0).path("tipo").asText())
+			.isEqualTo("P");
+	}
+
+	@Test
+	public void testFecharNaoRegistraSnapshotQuandoInvalido() {
+		Pedido existente = new Pedido();
+		existente.setId(UUID.randomUUID());
+		existente.setSituacao(SituacaoPedido.FECHADO);
+
+		when(pedidoRepository.findById(existente.getId()))
+			.thenReturn(Optional.of(existente));
+
+		assertThatExceptionOfType(OperacaoInvalidaException.class)
+			.isThrownBy(() -> service.fechar(existente.getId()));
+		verify(snapshotPedidoRepository, never()).save(any());
+	}
+
+	@Test
+	public void testAdicionarValorTotal() {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setValorTotal(new BigDecimal("10.00"));
+
+		when(pedidoRepository.adicionarValorTotal(pedido, new BigDecimal("-2.50")))
+			.thenReturn(1L);
+
+		service.adicionarValorTotal(pedido, new BigDecimal("-2.50"));
+
+		verify(pedidoRepository).adicionarValorTotal(pedido, new BigDecimal("-2.50"));
+		assertThat(pedido.getValorTotal())
+			.isEqualTo(new BigDecimal("7.50"));
+	}
+
+	@Test
+	public void testAdicionarValorTotalPedidoAlterado() {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setValorTotal(null);
+
+		when(pedidoRepository.adicionarValorTotal(pedido, new BigDecimal("5.00")))
+			.thenReturn(0L);
+
+		assertThatExceptionOfType(ObjectOptimisticLockingFailureException.class)
+			.isThrownBy(() -> service.adicionarValorTotal(pedido, new BigDecimal("5.00")));
+		verify(pedidoRepository).removerCabecalhoDoCache(pedido.getId());
+	}
+
+	@Test
+	public void testAtualizarValorTotal() {
+		Pedido pedido = new Pedido();
+		pedido.setId(UUID.randomUUID());
+		pedido.setValorTotal(new BigDecimal("10.00"));
+
+		when(pedidoRepository.atualizarValorTotal(pedido, new BigDecimal("42.00")))
+			.thenReturn(1L);
+
+		service.atualizarValorTotal(pedido, new BigDecimal("42.00"));
+
+		verify(pedidoRepository).atualizarValorTotal(pedido, new BigDecimal("42.00"));
+		assertThat(pedido.getValorTotal())
+			.isEqualTo(new BigDecimal("42.00"));
+	}
+
+	@Test
+	public void testRecalcularValorTotal() {
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(UUID.randomUUID());
+
+		when(pedidoRepository.recalcularValorTotalPorItemVendaEPedidoAberto(itemVenda))
+			.thenReturn(3L);
+
+		service.recalcularValorTotal(itemVenda);
+
+		verify(pedidoRepository).recalcularValorTotalPorItemVendaEPedidoAberto(itemVenda);
+	}
+
+	@Test
+	public void testVerificarValoresTotais() {
+		DivergenciaValorTotal divergencia = new DivergenciaValorTotal(UUID.randomUUID(), "00110011",
+				new BigDecimal("10.00"), new BigDecimal("12.00"));
+
+		when(pedidoRepository.buscarDivergenciasValorTotal())
+			.thenReturn(Arrays.asList(divergencia));
+
+		assertThat(service.verificarValoresTotais())
+			.containsExactly(divergencia);
+		verify(pedidoRepository, never()).recalcularValorTotalComDivergencia();
+	}
+
+	@Test
+	public void testCorrigirValoresTotaisSemDivergencias() {
+		when(pedidoRepository.buscarDivergenciasValorTotal())
+			.thenReturn(Collections.emptyList());
+
+		assertThat(service.corrigirValoresTotais())
+			.isEmpty();
+		verify(pedidoRepository, never()).recalcularValorTotalComDivergencia();
+	}
+
+	@Test
+	public void testCorrigirValoresTotaisComDivergencias() {
+		DivergenciaValorTotal divergencia = new DivergenciaValorTotal(UUID.randomUUID(), "00110011",
+				new BigDecimal("10.00"), new BigDecimal("12.00"));
+
+		when(pedidoRepository.buscarDivergenciasValorTotal())
+			.thenReturn(Arrays.asList(divergencia));
+		when(pedidoRepository.recalcularValorTotalComDivergencia())
+			.thenReturn(1L);
+
+		assertThat(service.corrigirValoresTotais())
+			.containsExactly(divergencia);
+		verify(pedidoRepository).recalcularValorTotalComDivergencia();
 	}
 
 }
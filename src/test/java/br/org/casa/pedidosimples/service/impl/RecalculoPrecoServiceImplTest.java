@@ -0,0 +1,349 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.MethodMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import br.org.casa.pedidosimples.model.ItemVenda;
+import br.org.casa.pedidosimples.model.NotificacaoPedido;
+import br.org.casa.pedidosimples.model.RecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.SituacaoRecalculoPreco;
+import br.org.casa.pedidosimples.model.enumeration.TipoEventoPedido;
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+import br.org.casa.pedidosimples.service.DestinoEventoPedido;
+import br.org.casa.pedidosimples.service.EventoPedidoService;
+import br.org.casa.pedidosimples.service.ItemPedidoService;
+import br.org.casa.pedidosimples.service.ItemVendaService;
+import br.org.casa.pedidosimples.service.NotificacaoPedidoService;
+import br.org.casa.pedidosimples.service.PedidoService;
+import br.org.casa.pedidosimples.service.RecalculoPrecoService;
+import br.org.casa.pedidosimples.service.impl.NotificacaoPedidoServiceImplTest.EmitterCliente;
+
+/**
+ * Classe de testes para {@link RecalculoPrecoServiceImpl}. Cada operação é executada e confirmada em sua
+ * própria transação, como no processamento em segundo plano, que aqui é disparado diretamente.
+ *
+ * @author jrjosecarlos
+ *
+ */
+@RunWith(SpringRunner.class)
+@DataJpaTest(properties = {
+		"spring.jpa.show-sql=false",
+		"pedido-simples.recalculo-preco.tamanho-lote=" + RecalculoPrecoServiceImplTest.TAMANHO_LOTE
+	})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RecalculoPrecoServiceImplTest {
+
+	static final int TAMANHO_LOTE = 2;
+
+	private static final int PEDIDOS_ABERTOS = 5;
+
+	@Autowired
+	private RecalculoPrecoService service;
+
+	@Autowired
+	private ItemVendaService itemVendaService;
+
+	@Autowired
+	private PedidoService pedidoService;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private NotificacaoPedidoService notificacaoPedidoService;
+
+	private UUID idItemVenda;
+
+	private List<UUID> idsPedidosAbertos;
+
+	private UUID idPedidoFechado;
+
+	@TestConfiguration
+	static class RecalculoPrecoServiceImplTestContextConfiguration {
+
+		@Bean
+		public ExecutorTransacional executorTransacional() {
+			return new ExecutorTransacional();
+		}
+
+		@Bean
+		public RecalculoPrecoService recalculoPrecoService() {
+			return new RecalculoPrecoServiceImpl();
+		}
+
+		@Bean
+		public EventoPedidoService eventoPedidoService() {
+			return new EventoPedidoServiceImpl();
+		}
+
+		@Bean
+		public DestinoEventoPedido destinoEventoPedido() {
+			return new DestinoEventoPedidoMemoria();
+		}
+
+		@Bean
+		public NotificacaoPedidoService notificacaoPedidoService() {
+			return new NotificacaoPedidoServiceImpl() {
+				@Override
+				SseEmitter criarEmitter(long tempoLimite) {
+					return new EmitterCliente();
+				}
+			};
+		}
+
+		@Bean
+		public ItemPedidoService itemPedidoService() {
+			return new ItemPedidoServiceImpl();
+		}
+
+		@Bean
+		public PedidoService pedidoService() {
+			return new PedidoServiceImpl();
+		}
+
+		@Bean
+		public ItemVendaService itemVendaService() {
+			return new ItemVendaServiceImpl();
+		}
+	}
+
+	@Before
+	public void setup() {
+		idItemVenda = UUID.randomUUID();
+		UUID idOutroItemVenda = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_venda (id_item_venda, nome, tipo, valor_base, ativo) "
+				+ "VALUES (?, 'Produto-1', 'P', 10.00, TRUE), (?, 'Produto-2', 'P', 5.00, TRUE)", idItemVenda, idOutroItemVenda);
+
+		idsPedidosAbertos = new ArrayList<>();
+		for (int i = 0; i < PEDIDOS_ABERTOS; i++) {
+			UUID idPedido = UUID.randomUUID();
+			idsPedidosAbertos.add(idPedido);
+			jdbcTemplate.update("INSERT INTO pedido_simples.pedido (id_pedido, codigo, fator_desconto, situacao, valor_total) "
+					+ "VALUES (?, ?, 0.10, 'A', 22.50)", idPedido, String.format("%08d", i));
+			jdbcTemplate.update("INSERT INTO pedido_simples.item_pedido (id_item_pedido, pedido_id, item_venda_id, valor) "
+					+ "VALUES (?, ?, ?, 9.00), (?, ?, ?, 9.00), (?, ?, ?, 4.50)",
+					UUID.randomUUID(), idPedido, idItemVenda,
+					UUID.randomUUID(), idPedido, idItemVenda,
+					UUID.randomUUID(), idPedido, idOutroItemVenda);
+		}
+
+		idPedidoFechado = UUID.randomUUID();
+		jdbcTemplate.update("INSERT INTO pedido_simples.pedido (id_pedido, codigo, fator_desconto, situacao, valor_total) "
+				+ "VALUES (?, '99999999', 0.00, 'F', 10.00)", idPedidoFechado);
+		jdbcTemplate.update("INSERT INTO pedido_simples.item_pedido (id_item_pedido, pedido_id, item_venda_id, valor) "
+				+ "VALUES (?, ?, ?, 10.00)", UUID.randomUUID(), idPedidoFechado, idItemVenda);
+
+		jdbcTemplate.update("DELETE FROM pedido_simples.evento_pedido");
+	}
+
+	@After
+	public void tearDown() {
+		jdbcTemplate.update("DELETE FROM pedido_simples.evento_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.snapshot_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.pedido");
+		jdbcTemplate.update("DELETE FROM pedido_simples.item_venda");
+		entityManagerFactory.getCache().evictAll();
+	}
+
+	@Test
+	public void testAlterarValorAgendaRecalculo() {
+		alterarValorBase(new BigDecimal("20.00"));
+
+		assertThat(service.buscarUltimoPorItemVenda(idItemVenda))
+			.hasValueSatisfying(r -> {
+				assertThat(r.getSituacao())
+					.isEqualTo(SituacaoRecalculoPreco.EM_ANDAMENTO);
+				assertThat(r.getValorBase())
+					.isEqualByComparingTo("20.00");
+				assertThat(r.getTotalPedidos())
+					.isEqualTo(PEDIDOS_ABERTOS);
+				assertThat(r.getPedidosProcessados())
+					.isZero();
+			});
+		// Os itens só são recalculados no processamento
+		assertThat(contarItensComValor("18.00"))
+			.isZero();
+		assertThat(contarPedidosPendentes())
+			.isEqualTo(PEDIDOS_ABERTOS);
+	}
+
+	@Test
+	public void testProcessarRecalculaEmLotes() {
+		alterarValorBase(new BigDecimal("20.00"));
+		UUID idRecalculo = service.buscarUltimoPorItemVenda(idItemVenda).get().getId();
+
+		RecalculoPreco processado = service.processar(idRecalculo);
+
+		assertThat(processado.getSituacao())
+			.isEqualTo(SituacaoRecalculoPreco.CONCLUIDO);
+		assertThat(processado.getPedidosProcessados())
+			.isEqualTo(PEDIDOS_ABERTOS);
+		assertThat(processado.getDataConclusao())
+			.isNotNull();
+		assertThat(contarItensComValor("18.00"))
+			.isEqualTo(PEDIDOS_ABERTOS * 2L);
+		assertThat(contarPedidosPendentes())
+			.isZero();
+		// O valor total dos Pedidos abertos é recalculado, e o do Pedido fechado não é alterado
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.pedido WHERE valor_total = 40.50",
+				Long.class))
+			.isEqualTo(PEDIDOS_ABERTOS);
+		assertThat(jdbcTemplate.queryForObject("SELECT valor_total FROM pedido_simples.pedido WHERE id_pedido = ?",
+				BigDecimal.class, idPedidoFechado))
+			.isEqualByComparingTo("10.00");
+		assertThat(pedidoService.verificarValoresTotais())
+			.isEmpty();
+	}
+
+	@Test
+	public void testProcessarRegistraEventoPorPedidoRecalculado() throws Exception {
+		alterarValorBase(new BigDecimal("20.00"));
+
+		service.processar(service.buscarUltimoPorItemVenda(idItemVenda).get().getId());
+
+		List<Map<String, Object>> eventos = jdbcTemplate.queryForList("SELECT pedido_id, conteudo "
+				+ "FROM pedido_simples.evento_pedido WHERE tipo = ?", TipoEventoPedido.VALORES_RECALCULADOS.getValor());
+		// Um evento para cada Pedido aberto, e nenhum para o Pedido fechado
+		assertThat(eventos)
+			.extracting(evento -> evento.get("pedido_id"))
+			.containsExactlyInAnyOrderElementsOf(idsPedidosAbertos);
+		for (Map<String, Object> evento : eventos) {
+			assertThat(objectMapper.readTree((String) evento.get("conteudo")).get("valorTotal").decimalValue())
+				.isEqualByComparingTo("40.50");
+		}
+	}
+
+	@Test
+	@DirtiesContext(methodMode = MethodMode.AFTER_METHOD)
+	public void testProcessarNotificaInscritos() {
+		EmitterCliente cliente = (EmitterCliente) notificacaoPedidoService.inscrever();
+		alterarValorBase(new BigDecimal("20.00"));
+
+		service.processar(service.buscarUltimoPorItemVenda(idItemVenda).get().getId());
+
+		// Cada lote notifica os inscritos após a sua confirmação, com os novos valores totais
+		NotificacaoPedidoServiceImplTest.aguardar(() -> cliente.getRecebidas().size() == PEDIDOS_ABERTOS);
+		assertThat(cliente.getRecebidas())
+			.extracting(NotificacaoPedido::getId)
+			.containsExactlyInAnyOrderElementsOf(idsPedidosAbertos);
+		assertThat(cliente.getRecebidas())
+			.allSatisfy(notificacao -> {
+				assertThat(notificacao.getTipo())
+					.isEqualTo(TipoEventoPedido.VALORES_RECALCULADOS);
+				assertThat(notificacao.getValorTotal())
+					.isEqualByComparingTo("40.50");
+			});
+	}
+
+	@Test
+	public void testFecharConcluiPendenciaDoPedido() {
+		alterarValorBase(new BigDecimal("20.00"));
+		UUID idPedido = idsPedidosAbertos.get(0);
+
+		pedidoService.fechar(idPedido);
+
+		// O Pedido é fechado com os novos valores, mesmo antes do processamento do recálculo
+		assertThat(jdbcTemplate.queryForObject("SELECT valor_total FROM pedido_simples.pedido WHERE id_pedido = ?",
+				BigDecimal.class, idPedido))
+			.isEqualByComparingTo("40.50");
+		assertThat(service.buscarUltimoPorItemVenda(idItemVenda))
+			.hasValueSatisfying(r -> assertThat(r.getPedidosProcessados())
+					.isEqualTo(1L));
+		assertThat(contarPedidosPendentes())
+			.isEqualTo(PEDIDOS_ABERTOS - 1L);
+
+		RecalculoPreco processado = service.processar(service.buscarUltimoPorItemVenda(idItemVenda).get().getId());
+
+		assertThat(processado.getSituacao())
+			.isEqualTo(SituacaoRecalculoPreco.CONCLUIDO);
+		assertThat(processado.getPedidosProcessados())
+			.isEqualTo(PEDIDOS_ABERTOS);
+		assertThat(pedidoService.verificarValoresTotais())
+			.isEmpty();
+	}
+
+	@Test
+	public void testAgendarSemPedidosAbertos() {
+		jdbcTemplate.update("UPDATE pedido_simples.pedido SET situacao = 'F'");
+
+		alterarValorBase(new BigDecimal("20.00"));
+
+		assertThat(service.buscarUltimoPorItemVenda(idItemVenda))
+			.hasValueSatisfying(r -> {
+				assertThat(r.getSituacao())
+					.isEqualTo(SituacaoRecalculoPreco.CONCLUIDO);
+				assertThat(r.getTotalPedidos())
+					.isZero();
+			});
+	}
+
+	@Test
+	public void testAlterarSemMudarValorNaoAgendaRecalculo() {
+		alterarValorBase(new BigDecimal("10.00"));
+
+		assertThat(service.buscarUltimoPorItemVenda(idItemVenda))
+			.isEmpty();
+	}
+
+	private void alterarValorBase(BigDecimal valorBase) {
+		ItemVenda itemVenda = new ItemVenda();
+		itemVenda.setId(idItemVenda);
+		itemVenda.setNome("Produto-1");
+		itemVenda.setTipo(TipoItemVenda.PRODUTO);
+		itemVenda.setValorBase(valorBase);
+		itemVenda.setAtivo(true);
+
+		itemVendaService.alterar(idItemVenda, itemVenda, Optional.empty());
+	}
+
+	private long contarItensComValor(String valor) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.item_pedido WHERE valor = ?",
+				Long.class, new BigDecimal(valor));
+	}
+
+	private long contarPedidosPendentes() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pedido_simples.recalculo_preco_pedido", Long.class);
+	}
+
+}
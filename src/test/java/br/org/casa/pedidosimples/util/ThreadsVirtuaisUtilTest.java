@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Classe de testes para {@link ThreadsVirtuaisUtil}. Apenas um dos cenários (disponível ou indisponível) é
+ * executado em cada versão do Java, de acordo com a versão do ambiente de execução: os testes devem ser
+ * executados em Java 21 ou superior e em uma versão anterior (como a 17, usada no build, ou a 8) para
+ * cobrir ambos.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class ThreadsVirtuaisUtilTest {
+
+	private static final int VERSAO_MINIMA = 21;
+
+	@Test
+	public void testIsSuportadoDeAcordoComAVersao() {
+		assertThat(ThreadsVirtuaisUtil.isSuportado())
+			.isEqualTo(versaoJava() >= VERSAO_MINIMA);
+	}
+
+	@Test
+	public void testCriarExecutorSemSuporte() {
+		assumeFalse(ThreadsVirtuaisUtil.isSuportado());
+
+		assertThatExceptionOfType(IllegalStateException.class)
+			.isThrownBy(() -> ThreadsVirtuaisUtil.criarExecutor("teste-"))
+			.withMessageContaining("Java 21")
+			.withMessageContaining(System.getProperty("java.version"));
+	}
+
+	@Test
+	public void testCriarExecutorComSuporte() throws Exception {
+		assumeTrue(ThreadsVirtuaisUtil.isSuportado());
+
+		ExecutorService executor = ThreadsVirtuaisUtil.criarExecutor("teste-");
+		try {
+			Thread primeira = executor.submit(Thread::currentThread).get(5L, TimeUnit.SECONDS);
+			Thread segunda = executor.submit(Thread::currentThread).get(5L, TimeUnit.SECONDS);
+
+			// Uma nova thread virtual para cada tarefa, numerada a partir de zero
+			assertThat((Boolean) Thread.class.getMethod("isVirtual").invoke(primeira))
+				.isTrue();
+			assertThat(primeira.getName())
+				.isEqualTo("teste-0");
+			assertThat(segunda.getName())
+				.isEqualTo("teste-1");
+		} finally {
+			executor.shutdown();
+		}
+		assertThat(executor.awaitTermination(5L, TimeUnit.SECONDS))
+			.isTrue();
+	}
+
+	// java.specification.version é "1.8" em Java 8 e "17", "21" etc. nas versões seguintes
+	private static int versaoJava() {
+		String versao = System.getProperty("java.specification.version");
+
+		return Integer.parseInt(versao.startsWith("1.") ? versao.substring(2) : versao);
+	}
+
+}
@@ -0,0 +1,212 @@
+/**
+ *
+ */
+package br.org.casa.pedidosimples.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import br.org.casa.pedidosimples.model.enumeration.TipoItemVenda;
+
+/**
+ * Classe de testes para {@link ValorMonetario}. Os resultados da aplicação de desconto são comparados com os do
+ * cálculo original em BigDecimal, para todos os fatores de desconto de 0.00 a 1.00 e todos os
+ * {@link TipoItemVenda}.
+ *
+ * @author jrjosecarlos
+ *
+ */
+public class ValorMonetarioTest {
+
+	private static final long SEMENTE = 20201124L;
+
+	private static final int VALORES_ALEATORIOS = 2_000;
+
+	// Maior valor base permitido pela validação de ItemVenda (@Digits(integer = 13, fraction = 2))
+	private static final BigDecimal VALOR_BASE_MAXIMO = new BigDecimal("9999999999999.99");
+
+	@Test
+	public void testAplicarDescontoIgualAoCalculoEmBigDecimal() {
+		List<BigDecimal> valoresBase = valoresBase();
+
+		for (int centesimosDesconto = 0; centesimosDesconto <= 100; centesimosDesconto++) {
+			BigDecimal fatorDesconto = BigDecimal.valueOf(centesimosDesconto, 2);
+
+			for (TipoItemVenda tipo : TipoItemVenda.values()) {
+				for (BigDecimal valorBase : valoresBase) {
+					BigDecimal esperado = calcularEmBigDecimal(valorBase, fatorDesconto, tipo.getFatorAplicacaoDesconto());
+
+					ValorMonetario valor = ValorMonetario.de(valorBase)
+							.aplicarDesconto(ValorMonetario.centesimos(fatorDesconto),
+									tipo.getFatorAplicacaoDescontoCentesimos());
+
+					assertThat(valor.toBigDecimal())
+						.as("valorBase %s, fatorDesconto %s, tipo %s", valorBase, fatorDesconto, tipo)
+						.isEqualTo(esperado);
+
+					ValorMonetario valorTabela = tipo.aplicarDesconto(ValorMonetario.de(valorBase),
+							ValorMonetario.centesimos(fatorDesconto));
+
+					assertThat(valorTabela.toBigDecimal())
+						.as("tabela: valorBase %s, fatorDesconto %s, tipo %s", valorBase, fatorDesconto, tipo)
+						.isEqualTo(esperado);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAplicarDescontoComFatoresIntermediarios() {
+		// Fatores de aplicação diferentes de 0.00 e 1.00 produzem frações de centavo com quatro casas
+		List<BigDecimal> valoresBase = valoresBase();
+
+		for (int centesimosDesconto = 0; centesimosDesconto <= 100; centesimosDesconto++) {
+			for (int centesimosAplicacao : new int[] { 1, 25, 50, 75, 99 }) {
+				for (BigDecimal valorBase : valoresBase) {
+					ValorMonetario valor = ValorMonetario.de(valorBase)
+							.aplicarDesconto(centesimosDesconto, centesimosAplicacao);
+
+					assertThat(valor.toBigDecimal())
+						.as("valorBase %s, fatorDesconto %s, fatorAplicacao %s",
+								valorBase, centesimosDesconto, centesimosAplicacao)
+						.isEqualTo(calcularEmBigDecimal(valorBase, BigDecimal.valueOf(centesimosDesconto, 2),
+								BigDecimal.valueOf(centesimosAplicacao, 2)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testAplicarDescontoArredondaMeioParaPar() {
+		// 0.05 * 0.50 = 0.025 e 0.15 * 0.50 = 0.075, exatamente na metade entre dois centavos
+		assertThat(ValorMonetario.de(new BigDecimal("0.05")).aplicarDesconto(50, 100).toBigDecimal())
+			.isEqualTo(new BigDecimal("0.02"));
+		assertThat(ValorMonetario.de(new BigDecimal("0.15")).aplicarDesconto(50, 100).toBigDecimal())
+			.isEqualTo(new BigDecimal("0.08"));
+		assertThat(ValorMonetario.de(new BigDecimal("-0.05")).aplicarDesconto(50, 100).toBigDecimal())
+			.isEqualTo(new BigDecimal("-0.02"));
+	}
+
+	@Test
+	public void testAplicarDescontoForaDosLimitesDaAritmeticaEmLong() {
+		BigDecimal valorBase = BigDecimal.valueOf(Long.MAX_VALUE / 100, 2);
+
+		assertThat(ValorMonetario.de(valorBase).aplicarDesconto(33, 100).toBigDecimal())
+			.isEqualTo(calcularEmBigDecimal(valorBase, new BigDecimal("0.33"), new BigDecimal("1.00")));
+	}
+
+	@Test
+	public void testMultiplicadorDesconto() {
+		assertThat(ValorMonetario.multiplicadorDesconto(30, 100))
+			.isEqualTo(7000);
+		assertThat(ValorMonetario.multiplicadorDesconto(50, 0))
+			.isEqualTo(10000);
+		assertThat(ValorMonetario.multiplicadorDesconto(100, 100))
+			.isEqualTo(0);
+	}
+
+	@Test
+	public void testMultiplicadorDescontoForaDoIntervalo() {
+		assertThatExceptionOfType(IllegalArgumentException.class)
+			.isThrownBy(() -> ValorMonetario.multiplicadorDesconto(101, 100));
+		assertThatExceptionOfType(IllegalArgumentException.class)
+			.isThrownBy(() -> ValorMonetario.multiplicadorDesconto(50, -1));
+	}
+
+	@Test
+	public void testMultiplicarForaDoIntervalo() {
+		assertThatExceptionOfType(IllegalArgumentException.class)
+			.isThrownBy(() -> ValorMonetario.deCentavos(100L).multiplicar(10001));
+	}
+
+	@Test
+	public void testAplicarDescontoDoTipoComFatorForaDaTabela() {
+		BigDecimal valorBase = new BigDecimal("200.00");
+
+		assertThat(TipoItemVenda.PRODUTO.aplicarDesconto(ValorMonetario.de(valorBase), 150).toBigDecimal())
+			.isEqualTo(calcularEmBigDecimal(valorBase, new BigDecimal("1.50"), new BigDecimal("1.00")));
+	}
+
+	@Test
+	public void testSomar() {
+		ValorMonetario soma = ValorMonetario.ZERO
+				.somar(ValorMonetario.de(new BigDecimal("10.25")))
+				.somar(ValorMonetario.de(new BigDecimal("0.75")))
+				.somar(ValorMonetario.de(new BigDecimal("-1.00")));
+
+		assertThat(soma.toBigDecimal())
+			.isEqualTo(new BigDecimal("10.00"));
+		assertThat(soma)
+			.isEqualTo(ValorMonetario.deCentavos(1000L));
+	}
+
+	@Test
+	public void testSomarComEstouro() {
+		assertThatExceptionOfType(ArithmeticException.class)
+			.isThrownBy(() -> ValorMonetario.deCentavos(Long.MAX_VALUE).somar(ValorMonetario.deCentavos(1L)));
+	}
+
+	@Test
+	public void testDeComEscalasDiferentes() {
+		assertThat(ValorMonetario.de(new BigDecimal("12")).getCentavos())
+			.isEqualTo(1200L);
+		assertThat(ValorMonetario.de(new BigDecimal("12.5")).getCentavos())
+			.isEqualTo(1250L);
+		assertThat(ValorMonetario.de(new BigDecimal("12.500")).getCentavos())
+			.isEqualTo(1250L);
+	}
+
+	@Test
+	public void testDeComFracaoDeCentavo() {
+		assertThatExceptionOfType(ArithmeticException.class)
+			.isThrownBy(() -> ValorMonetario.de(new BigDecimal("12.345")));
+	}
+
+	@Test
+	public void testToBigDecimalComEscalaPadrao() {
+		assertThat(ValorMonetario.ZERO.toBigDecimal().scale())
+			.isEqualTo(BigDecimalUtil.DEFAULT_SCALE);
+		assertThat(ValorMonetario.deCentavos(-5L).toString())
+			.isEqualTo("-0.05");
+	}
+
+	private static BigDecimal calcularEmBigDecimal(BigDecimal valorBase, BigDecimal fatorDesconto,
+			BigDecimal fatorAplicacaoDesconto) {
+		BigDecimal fatorDescontoEfetivo = fatorDesconto.multiply(fatorAplicacaoDesconto);
+
+		return BigDecimalUtil.setEscalaPadrao(valorBase.subtract(valorBase.multiply(fatorDescontoEfetivo)));
+	}
+
+	private static List<BigDecimal> valoresBase() {
+		List<BigDecimal> valores = new ArrayList<>(Arrays.asList(
+				new BigDecimal("0.00"),
+				new BigDecimal("0.01"),
+				new BigDecimal("0.02"),
+				new BigDecimal("0.05"),
+				new BigDecimal("0.15"),
+				new BigDecimal("0.50"),
+				new BigDecimal("1.00"),
+				new BigDecimal("199.99"),
+				new BigDecimal("200.00"),
+				new BigDecimal("12345.67"),
+				BigDecimal.valueOf(Long.MAX_VALUE / 10_000, 2),
+				VALOR_BASE_MAXIMO));
+
+		Random aleatorio = new Random(SEMENTE);
+		for (int i = 0; i < VALORES_ALEATORIOS; i++) {
+			// Metade dos valores até 10.000,00 e metade em todo o intervalo permitido
+			long limite = i % 2 == 0 ? 1_000_000L : VALOR_BASE_MAXIMO.unscaledValue().longValueExact();
+			valores.add(BigDecimal.valueOf((long) (aleatorio.nextDouble() * (limite + 1)), 2));
+		}
+		return valores;
+	}
+
+}